@@ -374,4 +374,38 @@ public class AuthController {
             @RequestHeader(value = "X-Service-Token", required = false) String serviceToken) {
         return authService.getUserPredictionInternal(userId, groupId, matchId, serviceToken);
     }
+    
+    /**
+     * POST /football-pool/v1/api/auth/internal/predictions/batch
+     * Internal endpoint for groups_service: predictions of many users for one group in one call
+     * Only accessible with valid service token in X-Service-Token header
+     * 
+     * Body: { "groupId": "...", "userIds": ["...", "..."] }
+     * Response: { groupId, predictions: { userId: { matchId: prediction } }, count }
+     */
+    @PostMapping("/internal/predictions/batch")
+    public ResponseEntity<Document> getPredictionsBatchInternal(
+            @RequestBody Map<String, Object> body,
+            @RequestHeader(value = "X-Service-Token", required = false) String serviceToken) {
+        return authService.getPredictionsForUsersInternal((String) body.get("groupId"), userIdsOf(body), serviceToken);
+    }
+    
+    /**
+     * PUT /football-pool/v1/api/auth/internal/predictions/points
+     * Internal endpoint for groups_service: recalculate prediction points of many users for one group in one bulk write
+     * Only accessible with valid service token in X-Service-Token header
+     * 
+     * Body: { "groupId": "...", "userIds": ["...", "..."] }
+     */
+    @PutMapping("/internal/predictions/points")
+    public ResponseEntity<Document> updatePredictionPointsBatchInternal(
+            @RequestBody Map<String, Object> body,
+            @RequestHeader(value = "X-Service-Token", required = false) String serviceToken) {
+        return authService.updatePredictionPointsInternal((String) body.get("groupId"), userIdsOf(body), serviceToken);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<String> userIdsOf(Map<String, Object> body) {
+        return body.get("userIds") instanceof List ? (List<String>) body.get("userIds") : null;
+    }
 }
@@ -1,7 +1,9 @@
 package com.leon.ideas.auth.repository;
 
+import com.leon.ideas.auth.util.ScoringKernel;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
@@ -9,7 +11,10 @@ import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.bson.Document;
 import org.bson.types.ObjectId;
@@ -278,78 +283,60 @@ public class AuthRepository {
      * Calculate points for a single match based on prediction vs real result
      */
     private int calculateMatchPoints(Document matchDoc) {
-        int points = 0;
-        
-        Integer team1Score = matchDoc.getInteger("team1Score", 0);
-        Integer team2Score = matchDoc.getInteger("team2Score", 0);
-        Integer realTeam1Score = matchDoc.getInteger("realTeam1Score", 0);
-        Integer realTeam2Score = matchDoc.getInteger("realTeam2Score", 0);
-        
-        // Check for exact score match
-        if (team1Score.equals(realTeam1Score) && team2Score.equals(realTeam2Score)) {
-            points = 5; // Exact score: 5 points
-        } else {
-            // Check for correct result (win/draw/loss)
-            String predictedResult;
-            if (team1Score > team2Score) {
-                predictedResult = "team1_win";
-            } else if (team2Score > team1Score) {
-                predictedResult = "team2_win";
-            } else {
-                predictedResult = "draw";
-            }
-            
-            String actualResult;
-            if (realTeam1Score > realTeam2Score) {
-                actualResult = "team1_win";
-            } else if (realTeam2Score > realTeam1Score) {
-                actualResult = "team2_win";
-            } else {
-                actualResult = "draw";
-            }
-            
-            if (predictedResult.equals(actualResult)) {
-                points = 3; // Correct result without exact score: 3 points
-            } else {
-                points = 0; // Wrong result: 0 points
-            }
-        }
-        
-        // Additional points for extra time
-        Boolean extraTime = matchDoc.getBoolean("extraTime");
-        Boolean realExtraTime = matchDoc.getBoolean("realExtraTime");
-        if (extraTime != null && extraTime && realExtraTime != null && realExtraTime) {
-            points += 1; // +1 point for correct extra time prediction
-        }
-        
-        // Additional points for penalties
-        // Note: We need real penalty scores to compare. For now, if user predicted penalties
-        // and the match ended in a draw (which would require penalties), we give +2 points
-        // If we have real penalty scores, we can compare for exact match (+3 additional points)
-        Integer penaltiesteam1Score = matchDoc.getInteger("penaltiesteam1Score");
-        Integer penaltiesteam2Score = matchDoc.getInteger("penaltiesteam2Score");
-        
-        // Check if match ended in draw (which would require penalties in knockout stages)
-        if (realTeam1Score.equals(realTeam2Score) && penaltiesteam1Score != null && penaltiesteam2Score != null) {
-            // User predicted penalties and match went to penalties (draw)
-            points += 2; // +2 points for correct penalties prediction
-            
-            // TODO: If we receive real penalty scores, compare them here for exact match (+3 additional points)
-            // For now, we assume if user predicted penalties and match went to penalties, it's correct
-        }
-        
-        return points;
+        int[] results = new int[ScoringKernel.RESULT_STRIDE];
+        int[] predictions = new int[ScoringKernel.PREDICTION_STRIDE];
+        encodeMatchInfo(matchDoc, results, 0, predictions, 0);
+        return ScoringKernel.points(predictions, 0, results, 0);
     }
     
     /**
      * Recalculate total points for a competition by summing all match points
      */
     private int recalculateCompetitionPoints(List<Document> matchInfo) {
-        int totalPoints = 0;
-        for (Document match : matchInfo) {
-            totalPoints += calculateMatchPoints(match);
+        int[] results = new int[matchInfo.size() * ScoringKernel.RESULT_STRIDE];
+        int[] predictions = new int[matchInfo.size() * ScoringKernel.PREDICTION_STRIDE];
+        for (int i = 0; i < matchInfo.size(); i++) {
+            encodeMatchInfo(matchInfo.get(i), results, i * ScoringKernel.RESULT_STRIDE,
+                predictions, i * ScoringKernel.PREDICTION_STRIDE);
+        }
+        int[] total = new int[1];
+        ScoringKernel.scoreGroup(results, matchInfo.size(), predictions, 1, total);
+        return total[0];
+    }
+    
+    /**
+     * Encode one matchInfo entry for the scoring kernel.
+     * matchInfo carries no stage and no real penalty scores, so every entry is scored as a knockout
+     * (extra time counts whenever both sides say so), a real draw counts as having gone to penalties
+     * and predicted penalty scores only earn the penalties bonus, never the exact penalties one.
+     */
+    private static void encodeMatchInfo(Document matchDoc, int[] results, int resultOffset,
+                                        int[] predictions, int predictionOffset) {
+        int realTeam1Score = ScoringKernel.intOrDefault(matchDoc.get("realTeam1Score"), 0);
+        int realTeam2Score = ScoringKernel.intOrDefault(matchDoc.get("realTeam2Score"), 0);
+        int resultFlags = ScoringKernel.KNOCKOUT;
+        if (Boolean.TRUE.equals(matchDoc.getBoolean("realExtraTime"))) {
+            resultFlags |= ScoringKernel.EXTRA_TIME;
+        }
+        if (realTeam1Score == realTeam2Score) {
+            resultFlags |= ScoringKernel.PENALTIES;
+        }
+        ScoringKernel.encodeResult(results, resultOffset, realTeam1Score, realTeam2Score, resultFlags,
+            ScoringKernel.NO_SCORE, ScoringKernel.NO_SCORE);
+        
+        int predictionFlags = ScoringKernel.PREDICTED;
+        if (Boolean.TRUE.equals(matchDoc.getBoolean("extraTime"))) {
+            predictionFlags |= ScoringKernel.EXTRA_TIME;
+        }
+        Integer penaltiesteam1Score = matchDoc.getInteger("penaltiesteam1Score");
+        Integer penaltiesteam2Score = matchDoc.getInteger("penaltiesteam2Score");
+        if (penaltiesteam1Score != null && penaltiesteam2Score != null) {
+            predictionFlags |= ScoringKernel.PENALTIES;
         }
-        return totalPoints;
+        ScoringKernel.encodePrediction(predictions, predictionOffset,
+            ScoringKernel.intOrDefault(matchDoc.get("team1Score"), 0),
+            ScoringKernel.intOrDefault(matchDoc.get("team2Score"), 0),
+            predictionFlags, ScoringKernel.NO_SCORE, ScoringKernel.NO_SCORE);
     }
     
     /**
@@ -779,4 +766,97 @@ public class AuthRepository {
             return new ArrayList<>();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Predictions of many users for one competition, read with a single query
+     * Returns userId -> (matchId -> prediction); users without predictions for the competition are left out
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Document>> getPredictionsForUsers(Collection<String> userIds, String competitionId) {
+        Map<String, Map<String, Document>> predictionsByUser = new LinkedHashMap<>();
+        List<ObjectId> objectIds = toObjectIds(userIds);
+        if (objectIds.isEmpty()) {
+            return predictionsByUser;
+        }
+
+        Query query = new Query(Criteria.where("_id").in(objectIds));
+        query.fields().include("predictions." + competitionId);
+        for (Document user : usersMongoTemplate.find(query, Document.class, "users")) {
+            // Users still on the old (List) structure are migrated on their next write
+            if (!(user.get("predictions") instanceof Document)) {
+                continue;
+            }
+            Object competitionPrediction = ((Document) user.get("predictions")).get(competitionId);
+            if (!(competitionPrediction instanceof Document)
+                    || !(((Document) competitionPrediction).get("matchInfo") instanceof List)) {
+                continue;
+            }
+            Map<String, Document> byMatch = new LinkedHashMap<>();
+            for (Document match : (List<Document>) ((Document) competitionPrediction).get("matchInfo")) {
+                if (match.getString("matchId") != null) {
+                    byMatch.putIfAbsent(match.getString("matchId"), match);
+                }
+            }
+            if (!byMatch.isEmpty()) {
+                predictionsByUser.put(user.getObjectId("_id").toHexString(), byMatch);
+            }
+        }
+        return predictionsByUser;
+    }
+
+    /**
+     * Recalculate the competition points of many users (see {@link #updatePredictionPoints}) with one read
+     * and one unordered bulk write
+     *
+     * @return number of users updated
+     */
+    @SuppressWarnings("unchecked")
+    public int updatePredictionPointsForUsers(Collection<String> userIds, String competitionId) {
+        List<ObjectId> objectIds = toObjectIds(userIds);
+        if (objectIds.isEmpty()) {
+            return 0;
+        }
+
+        Query query = new Query(Criteria.where("_id").in(objectIds));
+        query.fields().include("predictions." + competitionId).include("groups");
+        BulkOperations bulk = usersMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "users");
+        int updates = 0;
+        for (Document user : usersMongoTemplate.find(query, Document.class, "users")) {
+            if (!(user.get("predictions") instanceof Document)) {
+                continue;
+            }
+            Document predictions = (Document) user.get("predictions");
+            Object competitionPrediction = predictions.get(competitionId);
+            if (!(competitionPrediction instanceof Document)
+                    || !(((Document) competitionPrediction).get("matchInfo") instanceof List)) {
+                continue;
+            }
+
+            int totalPoints = recalculateCompetitionPoints((List<Document>) ((Document) competitionPrediction).get("matchInfo"));
+            recalculateGroupScoresFromPredictions(user, predictions);
+            Update update = new Update().set("predictions." + competitionId + ".points", totalPoints);
+            if (user.containsKey("groupScores")) {
+                update.set("groupScores", user.get("groupScores"));
+            }
+            bulk.updateOne(new Query(Criteria.where("_id").is(user.get("_id"))), update);
+            updates++;
+        }
+        if (updates > 0) {
+            bulk.execute();
+        }
+        System.out.println("✅ Prediction points updated for " + updates + " users, competition " + competitionId);
+        return updates;
+    }
+
+    private static List<ObjectId> toObjectIds(Collection<String> userIds) {
+        List<ObjectId> objectIds = new ArrayList<>();
+        for (String userId : userIds) {
+            if (ObjectId.isValid(userId)) {
+                objectIds.add(new ObjectId(userId));
+            } else {
+                System.err.println("❌ Invalid user ID format in batch: " + userId);
+            }
+        }
+        return objectIds;
+    }
+}
@@ -1,6 +1,7 @@
 package com.leon.ideas.auth.service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +37,8 @@ public class AuthService {
     
     @Value("${service.token}")
     private String serviceToken;
+
+    private static final int MAX_BATCH_USERS = 1000;
     
     public String getServiceToken() {
         return serviceToken;
@@ -1190,6 +1193,87 @@ public class AuthService {
         return getUserPrediction(userId, groupId, matchId);
     }
     
+    /**
+     * Predictions of many users for one group in a single response (internal endpoint with service token)
+     * Response: { groupId, predictions: { userId: { matchId: prediction } }, count }
+     */
+    public ResponseEntity<Document> getPredictionsForUsersInternal(String groupId, List<String> userIds, String serviceToken) {
+        ResponseEntity<Document> unauthorized = checkServiceToken(serviceToken);
+        if (unauthorized != null) {
+            return unauthorized;
+        }
+        if (groupId == null || userIds == null || userIds.isEmpty() || userIds.size() > MAX_BATCH_USERS) {
+            return new ResponseEntity<>(
+                new Document("error", "groupId and between 1 and " + MAX_BATCH_USERS + " userIds are required"),
+                HttpStatus.BAD_REQUEST
+            );
+        }
+
+        try {
+            Map<String, Map<String, Document>> predictions = authRepository.getPredictionsForUsers(userIds, groupId);
+            Document response = new Document("groupId", groupId)
+                .append("predictions", new Document(new LinkedHashMap<>(predictions)))
+                .append("count", predictions.size());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            System.err.println("❌ Error getting predictions in batch: " + e.getMessage());
+            e.printStackTrace();
+            return new ResponseEntity<>(
+                new Document("error", "Error getting predictions: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * Recalculate the prediction points of many users for one group in one bulk write (internal endpoint with service token)
+     */
+    public ResponseEntity<Document> updatePredictionPointsInternal(String groupId, List<String> userIds, String serviceToken) {
+        ResponseEntity<Document> unauthorized = checkServiceToken(serviceToken);
+        if (unauthorized != null) {
+            return unauthorized;
+        }
+        if (groupId == null || userIds == null || userIds.isEmpty() || userIds.size() > MAX_BATCH_USERS) {
+            return new ResponseEntity<>(
+                new Document("error", "groupId and between 1 and " + MAX_BATCH_USERS + " userIds are required"),
+                HttpStatus.BAD_REQUEST
+            );
+        }
+
+        try {
+            int updated = authRepository.updatePredictionPointsForUsers(userIds, groupId);
+            return new ResponseEntity<>(
+                new Document("message", "Prediction points updated successfully")
+                    .append("groupId", groupId)
+                    .append("updated", updated),
+                HttpStatus.OK
+            );
+        } catch (Exception e) {
+            System.err.println("❌ Error updating prediction points in batch: " + e.getMessage());
+            e.printStackTrace();
+            return new ResponseEntity<>(
+                new Document("error", "Error updating prediction points: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    private ResponseEntity<Document> checkServiceToken(String serviceToken) {
+        if (serviceToken == null || serviceToken.trim().isEmpty()) {
+            return new ResponseEntity<>(
+                new Document("error", "Service token is required"),
+                HttpStatus.UNAUTHORIZED
+            );
+        }
+        if (!serviceToken.equals(this.serviceToken)) {
+            return new ResponseEntity<>(
+                new Document("error", "Invalid service token"),
+                HttpStatus.FORBIDDEN
+            );
+        }
+        return null;
+    }
+
     /**
      * Get a specific prediction for a user, group, and match
      */
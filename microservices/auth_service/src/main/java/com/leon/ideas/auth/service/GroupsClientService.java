@@ -106,42 +106,13 @@ public class GroupsClientService {
     }
 
     /**
-     * Fallback: try to find match by searching all categories
+     * Fallback: find the match by competition ID alone when the group has no category
      */
-    @SuppressWarnings("unchecked")
     private Map<String, Object> getMatchFromCompetitionFallback(String competitionId, String matchId) {
         if (competitionId == null) {
             return null;
         }
-
-        String[] categories = {"fifaNationalTeamCups", "fifaOfficialClubCups", "nationalClubLeagues"};
-        for (String category : categories) {
-            try {
-                String url = COMPETITIONS_SERVICE_URL + "/" + category + "/" + competitionId + "/matches/" + matchId;
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("X-Service-Token", serviceToken);
-                headers.setContentType(MediaType.APPLICATION_JSON);
-
-                HttpEntity<String> entity = new HttpEntity<>(headers);
-
-                ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    Map.class
-                );
-
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    Map<String, Object> body = (Map<String, Object>) response.getBody();
-                    if (body != null && body.containsKey("match")) {
-                        return (Map<String, Object>) body.get("match");
-                    }
-                }
-            } catch (Exception e) {
-                // Continue to next category
-            }
-        }
-        return null;
+        return getMatchFromCompetitionByMatchId(competitionId, matchId);
     }
 
     /**
@@ -227,82 +198,42 @@ public class GroupsClientService {
     }
     
     /**
-     * Get match information from competitions_service by searching all categories
-     * This is used when we don't have a groupId but need to find the match
+     * Get match information from competitions_service by competition ID and match ID
+     * This is used when we don't know the competition's category
+     * (match IDs are only unique within a competition)
      * Returns a map with the match data, competitionId, and category
      */
     @SuppressWarnings("unchecked")
-    public Map<String, Object> getMatchFromCompetitionByMatchId(String matchId) {
-        String[] categories = {"fifaNationalTeamCups", "fifaOfficialClubCups", "nationalClubLeagues"};
-        
+    public Map<String, Object> getMatchFromCompetitionByMatchId(String competitionId, String matchId) {
         try {
-            // First, get all competitions from the main endpoint
-            String allCompetitionsUrl = COMPETITIONS_SERVICE_URL;
+            // One call: competitions_service resolves the category through its match index
+            String url = COMPETITIONS_SERVICE_URL + "/matches/" + matchId + "?competitionId=" + competitionId;
             HttpHeaders headers = new HttpHeaders();
             headers.set("X-Service-Token", serviceToken);
             headers.setContentType(MediaType.APPLICATION_JSON);
             
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map> allCompetitionsResponse = restTemplate.exchange(
-                allCompetitionsUrl,
+            ResponseEntity<Map> response = restTemplate.exchange(
+                url,
                 HttpMethod.GET,
                 entity,
                 Map.class
             );
             
-            if (allCompetitionsResponse.getStatusCode().is2xxSuccessful() && allCompetitionsResponse.getBody() != null) {
-                Map<String, Object> allCompetitions = (Map<String, Object>) allCompetitionsResponse.getBody();
-                
-                // Search in each category
-                for (String category : categories) {
-                    if (!allCompetitions.containsKey(category)) {
-                        continue;
-                    }
-                    
-                    List<Map<String, Object>> competitionsList = (List<Map<String, Object>>) allCompetitions.get(category);
-                    if (competitionsList == null) {
-                        continue;
-                    }
-                    
-                    // Search in each competition of this category
-                    for (Map<String, Object> competition : competitionsList) {
-                        String competitionId = (String) competition.get("id");
-                        if (competitionId == null) {
-                            continue;
-                        }
-                        
-                        // Try to get the match from this competition
-                        try {
-                            String matchUrl = COMPETITIONS_SERVICE_URL + "/" + category + "/" + competitionId + "/matches/" + matchId;
-                            ResponseEntity<Map> matchResponse = restTemplate.exchange(
-                                matchUrl,
-                                HttpMethod.GET,
-                                entity,
-                                Map.class
-                            );
-                            
-                            if (matchResponse.getStatusCode().is2xxSuccessful() && matchResponse.getBody() != null) {
-                                Map<String, Object> matchBody = (Map<String, Object>) matchResponse.getBody();
-                                if (matchBody != null && matchBody.containsKey("match")) {
-                                    Map<String, Object> match = (Map<String, Object>) matchBody.get("match");
-                                    // Add competitionId and category to the match data
-                                    match.put("competitionId", competitionId);
-                                    match.put("category", category);
-                                    System.out.println("✅ Match found: " + matchId + " in competition: " + competitionId + " (" + category + ")");
-                                    return match;
-                                }
-                            }
-                        } catch (Exception e) {
-                            // Match not found in this competition, continue to next
-                            continue;
-                        }
-                    }
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                Map<String, Object> body = (Map<String, Object>) response.getBody();
+                if (body.containsKey("match")) {
+                    Map<String, Object> match = new java.util.HashMap<>((Map<String, Object>) body.get("match"));
+                    // Add competitionId and category to the match data
+                    match.put("competitionId", body.get("competitionId"));
+                    match.put("category", body.get("category"));
+                    System.out.println("✅ Match found: " + matchId + " in competition: " + body.get("competitionId") + " (" + body.get("category") + ")");
+                    return match;
                 }
             }
         } catch (Exception e) {
             System.err.println("❌ Error searching for match " + matchId + ": " + e.getMessage());
-            e.printStackTrace();
         }
         
         System.err.println("❌ Match not found: " + matchId);
@@ -385,7 +316,7 @@ public class GroupsClientService {
     }
     
     /**
-     * Update group with user prediction (add or update UserPrediction in group.userPredictions[])
+     * Update group with user prediction (upserted in groups_service 'group_predictions')
      */
     public boolean updateGroupPrediction(String groupId, String userId, String matchId, Integer team1Score, Integer team2Score,
                                         Boolean userExtraTime, Boolean userPenalties, Integer userPenaltiesTeam1Score, Integer userPenaltiesTeam2Score,
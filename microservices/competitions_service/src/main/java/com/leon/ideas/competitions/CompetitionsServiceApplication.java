@@ -1,5 +1,6 @@
 package com.leon.ideas.competitions;
 
+import com.leon.ideas.competitions.service.SeasonImportRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
@@ -9,7 +10,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 public class CompetitionsServiceApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(CompetitionsServiceApplication.class, args);
+		SpringApplication.run(CompetitionsServiceApplication.class, SeasonImportRunner.withCommandLineDefaults(args));
 	}
 
 }
@@ -38,12 +38,14 @@ public class CorsConfig {
             "Origin",
             "Access-Control-Request-Method",
             "Access-Control-Request-Headers",
-            "X-Requested-With"
+            "X-Requested-With",
+            "If-None-Match"
         ));
         
         configuration.setExposedHeaders(Arrays.asList(
             "Authorization",
             "Content-Type",
+            "ETag",
             "Access-Control-Allow-Origin",
             "Access-Control-Allow-Credentials"
         ));
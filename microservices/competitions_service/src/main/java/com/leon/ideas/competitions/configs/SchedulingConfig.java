@@ -0,0 +1,15 @@
+package com.leon.ideas.competitions.configs;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs (outbox relay, live tick flush, snapshot export, team reload...).
+ * Off for one-shot command-line runs such as the season import.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "competitions.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
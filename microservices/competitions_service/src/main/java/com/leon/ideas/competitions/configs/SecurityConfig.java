@@ -2,6 +2,7 @@ package com.leon.ideas.competitions.configs;
 
 import com.leon.ideas.competitions.security.JwtAuthenticationEntryPoint;
 import com.leon.ideas.competitions.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -35,6 +36,9 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // CORS preflight requests
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+
+                        // Async dispatches of already-authenticated requests (live feed SSE)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         
                         // Todos los endpoints requieren autenticación JWT
                         .requestMatchers("/football-pool/v1/api/competitions/**").authenticated()
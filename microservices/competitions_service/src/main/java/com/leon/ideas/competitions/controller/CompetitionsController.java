@@ -1,11 +1,20 @@
 package com.leon.ideas.competitions.controller;
 
 import com.leon.ideas.competitions.service.CompetitionsService;
+import com.leon.ideas.competitions.service.EncodedResponseCache;
+import com.leon.ideas.competitions.service.LiveTickIngestionService;
+import com.leon.ideas.competitions.service.SeasonImportService;
 import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,41 +24,97 @@ public class CompetitionsController {
     @Autowired
     private CompetitionsService competitionsService;
 
+    @Autowired
+    private SeasonImportService seasonImportService;
+
+    @Autowired
+    private EncodedResponseCache encodedResponseCache;
+
+    @Autowired
+    private LiveTickIngestionService liveTickIngestionService;
+
     /**
-     * GET /football-pool/v1/api/competitions
+     * GET /football-pool/v1/api/competitions?fields={paths}&exclude={paths}
      * Get all competitions (entire document with all categories)
+     * 
+     * fields / exclude: optional comma-separated (dotted) paths to return or leave out of each competition
+     * (responses without them are sent pre-encoded, gzipped when the client accepts it)
      */
     @GetMapping
-    public ResponseEntity<Document> getAllCompetitions() {
+    public ResponseEntity<?> getAllCompetitions(
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "exclude", required = false) String exclude,
+            WebRequest webRequest) {
         System.out.println("📋 GET request received: Get all competitions");
-        return competitionsService.getAllCompetitions();
+        String etag = competitionsService.getAllCompetitionsETag(fields, exclude);
+        String clientETag = notModifiedETag(webRequest, etag);
+        if (clientETag != null) {
+            return notModified(clientETag);
+        }
+        if (fields == null && exclude == null) {
+            return encodedResponseCache.respond("all", etag, webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING),
+                () -> competitionsService.getAllCompetitions(null, null));
+        }
+        return withETag(competitionsService.getAllCompetitions(fields, exclude), etag);
     }
 
     /**
-     * GET /football-pool/v1/api/competitions/{category}
+     * GET /football-pool/v1/api/competitions/{category}?view={catalog|full}&fields={paths}&exclude={paths}
      * Get competitions by category
      * 
      * Valid categories:
      * - fifaNationalTeamCups
      * - fifaOfficialClubCups
      * - nationalClubLeagues
+     * 
+     * Returns the catalog view by default (no tournamentStructure / groupsKindTournament);
+     * use view=full or fields / exclude to choose the returned fields
      */
     @GetMapping("/{category}")
-    public ResponseEntity<?> getCompetitionsByCategory(@PathVariable String category) {
+    public ResponseEntity<?> getCompetitionsByCategory(
+            @PathVariable String category,
+            @RequestParam(value = "view", defaultValue = "catalog") String view,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "exclude", required = false) String exclude,
+            WebRequest webRequest) {
         System.out.println("📋 GET request received: Get competitions by category - " + category);
-        return competitionsService.getCompetitionsByCategory(category);
+        String etag = competitionsService.getCategoryETag(category, view, fields, exclude);
+        String clientETag = notModifiedETag(webRequest, etag);
+        if (clientETag != null) {
+            return notModified(clientETag);
+        }
+        if (fields == null && exclude == null) {
+            String cachedView = "full".equals(view) ? "full" : "catalog";
+            return encodedResponseCache.respond("category/" + category + "/" + cachedView, etag,
+                webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING),
+                () -> competitionsService.getCompetitionsByCategory(category, cachedView, null, null));
+        }
+        return withETag(competitionsService.getCompetitionsByCategory(category, view, fields, exclude), etag);
     }
 
     /**
-     * GET /football-pool/v1/api/competitions/{category}/{competitionId}
+     * GET /football-pool/v1/api/competitions/{category}/{competitionId}?fields={paths}&exclude={paths}
      * Get a specific competition by category and ID
      */
     @GetMapping("/{category}/{competitionId}")
-    public ResponseEntity<Document> getCompetitionById(
+    public ResponseEntity<?> getCompetitionById(
             @PathVariable String category,
-            @PathVariable String competitionId) {
+            @PathVariable String competitionId,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "exclude", required = false) String exclude,
+            WebRequest webRequest) {
         System.out.println("📋 GET request received: Get competition - Category: " + category + ", ID: " + competitionId);
-        return competitionsService.getCompetitionById(category, competitionId);
+        String etag = competitionsService.getCompetitionETag(category, competitionId, fields, exclude);
+        String clientETag = notModifiedETag(webRequest, etag);
+        if (clientETag != null) {
+            return notModified(clientETag);
+        }
+        if (fields == null && exclude == null) {
+            return encodedResponseCache.respond("competition/" + category + "/" + competitionId, etag,
+                webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING),
+                () -> competitionsService.getCompetitionById(category, competitionId, null, null));
+        }
+        return withETag(competitionsService.getCompetitionById(category, competitionId, fields, exclude), etag);
     }
 
     /**
@@ -75,15 +140,18 @@ public class CompetitionsController {
     /**
      * PUT /football-pool/v1/api/competitions/{category}/{competitionId}
      * Update a competition (full update)
+     * 
+     * Optional If-Match header: the competition's ETag from a previous GET; 412 when it changed since
      */
     @PutMapping("/{category}/{competitionId}")
     public ResponseEntity<Document> updateCompetition(
             @PathVariable String category,
             @PathVariable String competitionId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @RequestBody Document updatedCompetition) {
         System.out.println("✏️ PUT request received: Update competition - Category: " + category + ", ID: " + competitionId);
         System.out.println("Updated data: " + updatedCompetition);
-        return competitionsService.updateCompetition(category, competitionId, updatedCompetition);
+        return competitionsService.updateCompetition(category, competitionId, updatedCompetition, ifMatch);
     }
 
     /**
@@ -91,15 +159,38 @@ public class CompetitionsController {
      * Patch a competition (partial update)
      * 
      * Only send the fields you want to update in the body
+     * Send If-Match (the ETag from a previous GET) when keys address array positions; 412 when it changed since
      */
     @PatchMapping("/{category}/{competitionId}")
     public ResponseEntity<Document> patchCompetition(
             @PathVariable String category,
             @PathVariable String competitionId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @RequestBody Map<String, Object> updates) {
         System.out.println("🔧 PATCH request received: Patch competition - Category: " + category + ", ID: " + competitionId);
         System.out.println("Updates: " + updates);
-        return competitionsService.patchCompetition(category, competitionId, updates);
+        return competitionsService.patchCompetition(category, competitionId, updates, ifMatch);
+    }
+
+    /**
+     * POST /football-pool/v1/api/competitions/{category}/{competitionId}/import
+     * Import a season from files, streamed and written in batches (multipart/form-data)
+     * 
+     * Parts: 'teams' and/or 'fixtures' (.json or .csv), optional 'competition' (JSON metadata,
+     * needed with a name when the competition does not exist yet). Importing the same files again changes nothing.
+     * Response: { created, teams, fixtures: { read, inserted, updated, unchanged, rejected }, errorCount, errors }
+     */
+    @PostMapping(value = "/{category}/{competitionId}/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Document> importSeason(
+            @PathVariable String category,
+            @PathVariable String competitionId,
+            @RequestPart(value = "competition", required = false) String competition,
+            @RequestPart(value = "teams", required = false) MultipartFile teams,
+            @RequestPart(value = "fixtures", required = false) MultipartFile fixtures) {
+        System.out.println("📥 POST request received: Import season - Category: " + category + ", ID: " + competitionId);
+        return seasonImportService.importSeason(category, competitionId, competition,
+            teams != null && !teams.isEmpty() ? teams.getResource() : null,
+            fixtures != null && !fixtures.isEmpty() ? fixtures.getResource() : null);
     }
 
     /**
@@ -115,13 +206,163 @@ public class CompetitionsController {
     }
 
     /**
-     * GET /football-pool/v1/api/competitions/search?q={searchTerm}
-     * Search competitions across all categories
+     * GET /football-pool/v1/api/competitions/fixtures?from={date}&to={date}&status={statuses}&category={category}&cursor={cursor}&limit={limit}
+     * Matches of every competition kicking off in [from, to), in kick-off order (e.g. "what kicks off in the next 48h")
+     * 
+     * from defaults to now and to to 7 days later (ISO-8601 dates or date-times); status: comma-separated, e.g. scheduled,in-progress
+     * Response: { fixtures: [...], count, nextCursor } - pass nextCursor as 'cursor' for the next page (null on the last page)
+     */
+    @GetMapping("/fixtures")
+    public ResponseEntity<?> getFixtures(
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        System.out.println("📅 GET request received: Fixtures from " + from + " to " + to);
+        return competitionsService.getFixtures(from, to, status, category, cursor, limit);
+    }
+
+    /**
+     * GET /football-pool/v1/api/competitions/search?q={searchTerm}&limit={limit}
+     * Search competitions (names, short names, countries and team names) across all categories, best matches first
      */
     @GetMapping("/search")
-    public ResponseEntity<?> searchCompetitions(@RequestParam("q") String searchTerm) {
+    public ResponseEntity<?> searchCompetitions(
+            @RequestParam("q") String searchTerm,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
         System.out.println("🔍 SEARCH request received: Search term - " + searchTerm);
-        return competitionsService.searchCompetitions(searchTerm);
+        return competitionsService.searchCompetitions(searchTerm, limit);
+    }
+
+    /**
+     * GET /football-pool/v1/api/competitions/search/suggest?q={prefix}&limit={limit}
+     * Type-ahead: competition and team names starting with the typed text
+     * 
+     * Response: { suggestions: [{ text, type, category, competitionId, teamId? }], count }
+     */
+    @GetMapping("/search/suggest")
+    public ResponseEntity<?> suggestCompetitions(
+            @RequestParam("q") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return competitionsService.suggestCompetitions(prefix, limit);
+    }
+
+    // ==================== CROSS-COMPETITION MATCH LOOKUP ====================
+
+    /**
+     * GET /football-pool/v1/api/competitions/matches/{matchId}?competitionId=...
+     * Get a competition's match without knowing its category (internal endpoint for other services).
+     * Match IDs are only unique within a competition, so competitionId is required (400 otherwise).
+     * 
+     * Response: { match, competitionId, category }
+     */
+    @GetMapping("/matches/{matchId}")
+    public ResponseEntity<?> getMatchById(
+            @PathVariable String matchId,
+            @RequestParam(required = false) String competitionId,
+            @RequestHeader(value = "X-Service-Token", required = false) String serviceToken) {
+        System.out.println("⚽ GET request received: Get match by ID - Competition ID: " + competitionId + ", Match ID: " + matchId);
+        return competitionsService.getMatchById(competitionId, matchId, serviceToken);
+    }
+
+    /**
+     * POST /football-pool/v1/api/competitions/matches/lookup
+     * Look up several matches of one competition in one call (internal endpoint for other services)
+     * 
+     * Body: { "competitionId": "...", "matchIds": ["...", "..."] } (at most 500 ids, 400 otherwise)
+     * Response: { matches: { matchId: { match, competitionId, category } }, notFound: [...] }
+     */
+    @PostMapping("/matches/lookup")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<?> lookupMatches(
+            @RequestBody Map<String, Object> request,
+            @RequestHeader(value = "X-Service-Token", required = false) String serviceToken) {
+        Object competitionId = request.get("competitionId");
+        List<String> matchIds = request.get("matchIds") instanceof List ? (List<String>) request.get("matchIds") : null;
+        System.out.println("⚽ POST request received: Look up matches - Competition ID: " + competitionId + ", Count: " + (matchIds != null ? matchIds.size() : 0));
+        return competitionsService.lookupMatches(competitionId instanceof String ? (String) competitionId : null, matchIds, serviceToken);
+    }
+
+    /**
+     * PATCH /football-pool/v1/api/competitions/matches/results
+     * Update many REAL match results at once, e.g. at the end of a match day (only backend/admin can modify)
+     * 
+     * Body: { "results": [{ "category": "...", "competitionId": "...", "matchId": "...", "results": { ... } }] }
+     * Response: { outcomes: [{ category, competitionId, matchId, status }], updated, count }
+     */
+    @PatchMapping("/matches/results")
+    public ResponseEntity<?> updateMatchResultsBulk(@RequestBody Map<String, List<Map<String, Object>>> request) {
+        List<Map<String, Object>> results = request.get("results");
+        System.out.println("📝 PATCH request received: Bulk update match results - Count: " + (results != null ? results.size() : 0));
+        return competitionsService.updateMatchResults(results);
+    }
+
+    /**
+     * GET /football-pool/v1/api/competitions/events/match-results?after={sequence}&limit={limit}
+     * Match-result change events in outbox sequence order (internal endpoint for other services)
+     * 
+     * Response: { events: [...], count, lastSequence } - pass lastSequence as 'after' on the next call
+     * (an event ID from an older cursor is still accepted)
+     */
+    @GetMapping("/events/match-results")
+    public ResponseEntity<?> getMatchResultEvents(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestHeader(value = "X-Service-Token", required = false) String serviceToken) {
+        return competitionsService.getMatchResultEvents(after, limit, serviceToken);
+    }
+
+    /**
+     * POST /football-pool/v1/api/competitions/live/ticks
+     * In-play updates from the live data feed (only backend/admin can send them)
+     * 
+     * Body: { "ticks": [{ "category", "competitionId", "matchId", "team1Score"?, "team2Score"?, "minute"?, "status"? }] }
+     * Response: { changed, unchanged, rejected: [positions] } - changes are pushed to live subscribers at once
+     * and saved as in-play state in batches; a 'finished' state is written as the match result.
+     * Ticks for unknown matches or matches outside tournamentStructure are rejected.
+     */
+    @PostMapping("/live/ticks")
+    public ResponseEntity<?> ingestLiveTicks(@RequestBody Map<String, List<Map<String, Object>>> request) {
+        return liveTickIngestionService.ingest(request.get("ticks"));
+    }
+
+    // ==================== TEAM CATALOG ENDPOINTS ====================
+
+    /**
+     * GET /football-pool/v1/api/competitions/teams?ids={id1,id2,...}
+     * Look up several teams of the shared team catalog in one call (up to 500 ids)
+     * 
+     * Response: { teams: [{ id, name, country, flag, image, version }], notFound: [...] }
+     */
+    @GetMapping("/teams")
+    public ResponseEntity<?> getTeams(@RequestParam("ids") String ids) {
+        return competitionsService.getTeams(ids);
+    }
+
+    /**
+     * GET /football-pool/v1/api/competitions/teams/{teamId}
+     * Get one team of the shared team catalog
+     */
+    @GetMapping("/teams/{teamId}")
+    public ResponseEntity<Document> getTeam(@PathVariable String teamId) {
+        return competitionsService.getTeam(teamId);
+    }
+
+    /**
+     * PUT /football-pool/v1/api/competitions/teams/{teamId}
+     * Update a team's shared fields once for every competition it plays in
+     * (a team listed with a 'catalogId' is updated through that id, e.g. ofc-champions:hearts)
+     * 
+     * Body: any of name, country, flag, image
+     */
+    @PutMapping("/teams/{teamId}")
+    public ResponseEntity<Document> updateCatalogTeam(
+            @PathVariable String teamId,
+            @RequestBody Document fields) {
+        System.out.println("✏️ PUT request received: Update catalog team - Team ID: " + teamId);
+        return competitionsService.updateCatalogTeam(teamId, fields);
     }
 
     // ==================== QUALIFIED TEAMS ENDPOINTS ====================
@@ -196,9 +437,49 @@ public class CompetitionsController {
     @GetMapping("/{category}/{competitionId}/tournament-structure")
     public ResponseEntity<?> getTournamentStructure(
             @PathVariable String category,
-            @PathVariable String competitionId) {
+            @PathVariable String competitionId,
+            WebRequest webRequest) {
         System.out.println("🏆 GET request received: Get tournament structure - Category: " + category + ", Competition ID: " + competitionId);
-        return competitionsService.getTournamentStructure(category, competitionId);
+        String etag = competitionsService.getCompetitionETag(category, competitionId);
+        String clientETag = notModifiedETag(webRequest, etag);
+        if (clientETag != null) {
+            return notModified(clientETag);
+        }
+        return withETag(competitionsService.getTournamentStructure(category, competitionId), etag);
+    }
+
+    /**
+     * GET /football-pool/v1/api/competitions/{category}/{competitionId}/standings
+     * Group-stage standings: one table per group, ordered by points, goal difference, goals for and wins
+     */
+    @GetMapping("/{category}/{competitionId}/standings")
+    public ResponseEntity<?> getStandings(
+            @PathVariable String category,
+            @PathVariable String competitionId,
+            WebRequest webRequest) {
+        System.out.println("📊 GET request received: Get standings - Category: " + category + ", Competition ID: " + competitionId);
+        String etag = competitionsService.getCompetitionETag(category, competitionId);
+        String clientETag = notModifiedETag(webRequest, etag);
+        if (clientETag != null) {
+            return notModified(clientETag);
+        }
+        return withETag(competitionsService.getStandings(category, competitionId), etag);
+    }
+
+    /**
+     * GET /football-pool/v1/api/competitions/{category}/{competitionId}/live
+     * Server-Sent Events stream of live match changes (replaces polling on match days)
+     * 
+     * Events: 'connected' and the current in-play states, then 'match-tick' in-play states ({ matchId, state })
+     * and 'match-result' deltas;
+     * idle connections receive heartbeat comments
+     */
+    @GetMapping("/{category}/{competitionId}/live")
+    public ResponseEntity<?> liveFeed(
+            @PathVariable String category,
+            @PathVariable String competitionId) {
+        System.out.println("📡 LIVE request received: Subscribe - Category: " + category + ", Competition ID: " + competitionId);
+        return competitionsService.openLiveFeed(category, competitionId);
     }
 
     /**
@@ -228,6 +509,46 @@ public class CompetitionsController {
         System.out.println("📝 PATCH request received: Update match results - Category: " + category + ", Competition ID: " + competitionId + ", Match ID: " + matchId);
         return competitionsService.updateMatchResults(category, competitionId, matchId, results);
     }
-}
 
+    // ==================== CONDITIONAL GET ====================
+
+    /**
+     * The tag of the client's If-None-Match naming the current version (identity or gzip body),
+     * or null. Checked before the service runs, so a 304 costs no payload building or serialization.
+     * Compared weakly, as If-None-Match requires.
+     */
+    private String notModifiedETag(WebRequest webRequest, String etag) {
+        String ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (etag == null || ifNoneMatch == null) {
+            return null;
+        }
+        String gzipETag = EncodedResponseCache.gzipETag(etag);
+        for (String tag : ifNoneMatch.split(",")) {
+            String opaque = tag.trim().startsWith("W/") ? tag.trim().substring(2) : tag.trim();
+            if ("*".equals(opaque) || etag.equals(opaque)) {
+                return etag;
+            }
+            if (gzipETag.equals(opaque)) {
+                return gzipETag;
+            }
+        }
+        return null;
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
 
+    /**
+     * Add the ETag to successful responses only
+     */
+    private <T> ResponseEntity<T> withETag(ResponseEntity<T> response, String etag) {
+        if (etag == null || !response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .eTag(etag)
+            .body(response.getBody());
+    }
+}
@@ -0,0 +1,54 @@
+package com.leon.ideas.competitions.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+
+import java.util.Date;
+
+/**
+ * A REAL match result changed. Stored in the 'match_result_events' outbox, then handed to the
+ * configured publisher. Consumers should use competitionVersion to ignore out-of-order events;
+ * pull consumers page by sequence.
+ */
+@Data
+public class MatchResultEvent {
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_PUBLISHED = "published";
+    public static final String STATUS_FAILED = "failed";
+
+    @Id
+    private String id;
+    private Long sequence; // Outbox order, increasing (with gaps) in the order events were recorded
+
+    private String category;
+    private String competitionId;
+    private String matchId;
+    private String stageId;
+    private String groupLetter;
+    private Long competitionVersion; // Competition version right after the write (null if the writer never stamped it)
+
+    // Result as stored after the write
+    private String team1Id;
+    private String team2Id;
+    private Integer team1Score;
+    private Integer team2Score;
+    private String winnerTeamId;
+    private Boolean isDraw;
+    private Boolean extraTime;
+    private Boolean penalties;
+    private Integer penaltiesTeam1Score;
+    private Integer penaltiesTeam2Score;
+    private Boolean isPlayed;
+    private String status;
+    private Date createdAt;
+
+    // Outbox bookkeeping
+    private String publishStatus; // "pending", "published", "failed"
+    private Integer attempts;
+    private Date nextAttemptAt;
+    private Date publishedAt;
+    private String lastError;
+    private String claimedBy; // Instance publishing the event
+    private Date claimedUntil;
+}
@@ -0,0 +1,181 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Which parts of a competition a read returns ('fields=' / 'exclude=' request parameters).
+ *
+ * Paths are comma separated and may be dotted ("tournamentStructure.currentStage").
+ * With 'fields' only the listed paths (plus 'id') are returned; 'exclude' then removes paths.
+ * Projected documents share their sub-trees with the snapshot and are read-only.
+ */
+public final class CompetitionProjection {
+
+    /**
+     * Everything (no projection)
+     */
+    public static final CompetitionProjection FULL = new CompetitionProjection(Collections.emptySet(), Collections.emptySet());
+
+    /**
+     * Lightweight list payload: every field except the match structures
+     */
+    public static final CompetitionProjection CATALOG = new CompetitionProjection(
+        Collections.emptySet(), Set.of(MatchLocation.TOURNAMENT_STRUCTURE, MatchLocation.GROUPS_KIND_TOURNAMENT));
+
+    private final Set<String> fields;
+    private final Set<String> exclude;
+
+    private CompetitionProjection(Set<String> fields, Set<String> exclude) {
+        this.fields = fields;
+        this.exclude = exclude;
+    }
+
+    /**
+     * Projection from request parameters; null or blank parameters mean no restriction
+     */
+    public static CompetitionProjection of(String fields, String exclude) {
+        Set<String> included = paths(fields);
+        Set<String> excluded = paths(exclude);
+        if (included.isEmpty() && excluded.isEmpty()) {
+            return FULL;
+        }
+        if (!included.isEmpty()) {
+            included.add("id");
+        }
+        return new CompetitionProjection(included, excluded);
+    }
+
+    /**
+     * Projection of a category list: the catalog view unless view=full or fields / exclude are given
+     */
+    public static CompetitionProjection forView(String view, String fields, String exclude) {
+        CompetitionProjection projection = of(fields, exclude);
+        return projection.isFull() && !"full".equals(view) ? CATALOG : projection;
+    }
+
+    public boolean isFull() {
+        return fields.isEmpty() && exclude.isEmpty();
+    }
+
+    /**
+     * ETag of this projection of a representation: the full one keeps its ETag, the catalog view
+     * gets '-catalog' and any other projection a digest of its paths (in request order, which is
+     * also the order of the returned fields)
+     */
+    public String etagOf(String etag) {
+        if (etag == null || isFull()) {
+            return etag;
+        }
+        String suffix = this == CATALOG ? "catalog" : "p" + digest(fields + "|" + exclude);
+        return etag.substring(0, etag.length() - 1) + "-" + suffix + "\"";
+    }
+
+    public Document apply(Document competition) {
+        if (isFull() || competition == null) {
+            return competition;
+        }
+
+        Document projected;
+        if (fields.isEmpty()) {
+            projected = new Document(competition);
+        } else {
+            projected = new Document();
+            for (String path : fields) {
+                copyPath(competition, projected, path);
+            }
+        }
+        for (String path : exclude) {
+            removePath(projected, path);
+        }
+        return projected;
+    }
+
+    public List<Document> apply(List<Document> competitions) {
+        if (isFull()) {
+            return competitions;
+        }
+        List<Document> projected = new ArrayList<>(competitions.size());
+        for (Document competition : competitions) {
+            projected.add(apply(competition));
+        }
+        return projected;
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<String> paths(String value) {
+        Set<String> paths = new LinkedHashSet<>();
+        if (value != null) {
+            for (String path : value.split(",")) {
+                if (!path.isBlank()) {
+                    paths.add(path.trim());
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Copy one (possibly dotted) path, creating the parent documents it needs in the target
+     */
+    private static void copyPath(Document source, Document target, String path) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            if (source.containsKey(path)) {
+                target.put(path, source.get(path));
+            }
+            return;
+        }
+
+        String head = path.substring(0, dot);
+        if (!(source.get(head) instanceof Document)) {
+            return;
+        }
+        Object existing = target.get(head);
+        Document child;
+        if (existing instanceof Document && existing != source.get(head)) {
+            child = (Document) existing;
+        } else if (existing != null) {
+            return; // The whole sub-tree is already included
+        } else {
+            child = new Document();
+            target.put(head, child);
+        }
+        copyPath((Document) source.get(head), child, path.substring(dot + 1));
+    }
+
+    /**
+     * Remove one (possibly dotted) path, copying the parents on the way so shared documents stay untouched
+     */
+    private static void removePath(Document target, String path) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            target.remove(path);
+            return;
+        }
+
+        String head = path.substring(0, dot);
+        if (target.get(head) instanceof Document) {
+            Document child = new Document((Document) target.get(head));
+            target.put(head, child);
+            removePath(child, path.substring(dot + 1));
+        }
+    }
+}
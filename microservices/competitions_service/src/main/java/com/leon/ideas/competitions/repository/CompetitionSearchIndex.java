@@ -0,0 +1,387 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable search index over competition names (name, shortName, country) and the names of
+ * their qualified teams.
+ *
+ * Queries of 3+ characters are answered from a trigram index (substring semantics, like the
+ * former scan); shorter queries and type-ahead use a sorted word-prefix index. Lookups only
+ * touch the candidates the index returns, so latency does not grow with the number of
+ * competitions. Text is lower-cased and stripped of accents ("Copa América" matches "america").
+ */
+public final class CompetitionSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private static final int WEIGHT_NAME = 8;
+    private static final int WEIGHT_SHORT_NAME = 6;
+    private static final int WEIGHT_COUNTRY = 3;
+    private static final int WEIGHT_TEAM = 2;
+
+    private final Map<String, Entry> entries;
+    private final Map<String, Set<String>> keysByGram;
+    private final NavigableMap<String, Set<String>> keysByWord;
+
+    private CompetitionSearchIndex(Map<String, Entry> entries) {
+        this.entries = entries;
+        this.keysByGram = new HashMap<>();
+        this.keysByWord = new TreeMap<>();
+
+        for (Entry entry : entries.values()) {
+            for (Term term : entry.terms) {
+                for (String gram : grams(term.text)) {
+                    keysByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(entry.key);
+                }
+                for (String word : term.text.split(" ")) {
+                    if (!word.isEmpty()) {
+                        keysByWord.computeIfAbsent(word, w -> new HashSet<>()).add(entry.key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Index with one competition added or replaced. When none of its searchable names changed
+     * (e.g. a match result was written) the same index is returned.
+     */
+    CompetitionSearchIndex with(String key, String category, Document competition) {
+        Entry entry = Entry.of(key, category, competition);
+        Entry existing = entries.get(key);
+        if (existing != null && existing.sameTerms(entry)) {
+            return this;
+        }
+        Map<String, Entry> updated = new LinkedHashMap<>(entries);
+        updated.put(key, entry);
+        return new CompetitionSearchIndex(updated);
+    }
+
+    CompetitionSearchIndex without(String key) {
+        if (!entries.containsKey(key)) {
+            return this;
+        }
+        Map<String, Entry> updated = new LinkedHashMap<>(entries);
+        updated.remove(key);
+        return new CompetitionSearchIndex(updated);
+    }
+
+    /**
+     * Build the whole index at once (snapshot load)
+     */
+    static CompetitionSearchIndex of(Map<String, Document> competitionsByKey) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Map.Entry<String, Document> competition : competitionsByKey.entrySet()) {
+            String key = competition.getKey();
+            String category = key.substring(0, key.indexOf('/'));
+            entries.put(key, Entry.of(key, category, competition.getValue()));
+        }
+        return new CompetitionSearchIndex(entries);
+    }
+
+    /**
+     * Ranked competitions matching the query in a name, short name, country or team name
+     */
+    public List<Hit> search(String query, int limit) {
+        String text = normalize(query);
+        if (text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (String key : candidates(text)) {
+            Entry entry = entries.get(key);
+            Hit hit = entry.score(text);
+            if (hit != null) {
+                hits.add(hit);
+            }
+        }
+        hits.sort(Comparator.comparingInt(Hit::getScore).reversed().thenComparing(Hit::getName));
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    /**
+     * Type-ahead: distinct names (competitions first, then teams) with a word starting with the query
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        String text = normalize(query);
+        if (text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Suggestion> suggestions = new LinkedHashMap<>();
+        for (Set<String> keys : keysByWord.subMap(text, true, text + Character.MAX_VALUE, true).values()) {
+            for (String key : keys) {
+                Entry entry = entries.get(key);
+                for (Term term : entry.terms) {
+                    if (term.matchesPrefix(text)) {
+                        Suggestion suggestion = new Suggestion(term.display, term.teamId != null ? "team" : "competition",
+                            entry.category, entry.competitionId, term.teamId, term.weight);
+                        suggestions.putIfAbsent(suggestion.getType() + ":" + term.text, suggestion);
+                    }
+                }
+            }
+        }
+
+        List<Suggestion> ranked = new ArrayList<>(suggestions.values());
+        ranked.sort(Comparator.comparingInt(Suggestion::getWeight).reversed()
+            .thenComparingInt(s -> s.getText().length())
+            .thenComparing(Suggestion::getText));
+        return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+    }
+
+    /**
+     * Candidate keys: trigram intersection for 3+ characters, word prefixes otherwise
+     */
+    private Set<String> candidates(String text) {
+        if (text.length() < GRAM) {
+            Set<String> keys = new HashSet<>();
+            for (Set<String> wordKeys : keysByWord.subMap(text, true, text + Character.MAX_VALUE, true).values()) {
+                keys.addAll(wordKeys);
+            }
+            return keys;
+        }
+
+        Set<String> keys = null;
+        for (String gram : grams(text)) {
+            Set<String> gramKeys = keysByGram.get(gram);
+            if (gramKeys == null) {
+                return Collections.emptySet();
+            }
+            if (keys == null) {
+                keys = new HashSet<>(gramKeys);
+            } else {
+                keys.retainAll(gramKeys);
+            }
+            if (keys.isEmpty()) {
+                return keys;
+            }
+        }
+        return keys != null ? keys : Collections.emptySet();
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * A searchable name of a competition
+     */
+    private static final class Term {
+        private final String text;
+        private final String display;
+        private final int weight;
+        private final String teamId;
+
+        private Term(String display, int weight, String teamId) {
+            this.text = normalize(display);
+            this.display = display;
+            this.weight = weight;
+            this.teamId = teamId;
+        }
+
+        private boolean matchesPrefix(String query) {
+            return text.startsWith(query) || text.contains(" " + query);
+        }
+
+        /**
+         * Exact name > name prefix > word prefix > substring, scaled by the field weight
+         */
+        private int score(String query) {
+            if (text.equals(query)) {
+                return weight * 4;
+            }
+            if (text.startsWith(query)) {
+                return weight * 3;
+            }
+            if (text.contains(" " + query)) {
+                return weight * 2;
+            }
+            return text.contains(query) ? weight : 0;
+        }
+
+        private String signature() {
+            return weight + ":" + teamId + ":" + display;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String category;
+        private final String competitionId;
+        private final String name;
+        private final List<Term> terms;
+
+        private Entry(String key, String category, String competitionId, String name, List<Term> terms) {
+            this.key = key;
+            this.category = category;
+            this.competitionId = competitionId;
+            this.name = name;
+            this.terms = terms;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Entry of(String key, String category, Document competition) {
+            List<Term> terms = new ArrayList<>();
+            addTerm(terms, competition.get("name"), WEIGHT_NAME, null);
+            addTerm(terms, competition.get("shortName"), WEIGHT_SHORT_NAME, null);
+            addTerm(terms, competition.get("country"), WEIGHT_COUNTRY, null);
+            if (competition.get("qualifiedTeams") instanceof List) {
+                for (Object team : (List<Object>) competition.get("qualifiedTeams")) {
+                    if (team instanceof Document) {
+                        addTerm(terms, ((Document) team).get("name"), WEIGHT_TEAM, ((Document) team).getString("id"));
+                    }
+                }
+            }
+            String name = competition.get("name") instanceof String ? competition.getString("name") : "";
+            return new Entry(key, category, competition.getString("id"), name, terms);
+        }
+
+        private static void addTerm(List<Term> terms, Object value, int weight, String teamId) {
+            if (value instanceof String && !((String) value).isBlank()) {
+                terms.add(new Term((String) value, weight, teamId));
+            }
+        }
+
+        private boolean sameTerms(Entry other) {
+            if (!category.equals(other.category) || terms.size() != other.terms.size()) {
+                return false;
+            }
+            for (int i = 0; i < terms.size(); i++) {
+                if (!terms.get(i).signature().equals(other.terms.get(i).signature())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Hit score(String query) {
+            int best = 0;
+            int matches = 0;
+            List<String> matchedTeams = new ArrayList<>();
+            for (Term term : terms) {
+                int score = term.score(query);
+                if (score > 0) {
+                    best = Math.max(best, score);
+                    matches++;
+                    if (term.teamId != null) {
+                        matchedTeams.add(term.display);
+                    }
+                }
+            }
+            // Competitions matching on several names rank slightly higher
+            return best == 0 ? null : new Hit(category, competitionId, name, best * 10 + Math.min(matches, 9), matchedTeams);
+        }
+    }
+
+    /**
+     * A ranked competition match
+     */
+    public static final class Hit {
+        private final String category;
+        private final String competitionId;
+        private final String name;
+        private final int score;
+        private final List<String> matchedTeams;
+
+        private Hit(String category, String competitionId, String name, int score, List<String> matchedTeams) {
+            this.category = category;
+            this.competitionId = competitionId;
+            this.name = name;
+            this.score = score;
+            this.matchedTeams = matchedTeams;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getCompetitionId() {
+            return competitionId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public List<String> getMatchedTeams() {
+            return matchedTeams;
+        }
+    }
+
+    /**
+     * A type-ahead entry
+     */
+    public static final class Suggestion {
+        private final String text;
+        private final String type;
+        private final String category;
+        private final String competitionId;
+        private final String teamId;
+        private final int weight;
+
+        private Suggestion(String text, String type, String category, String competitionId, String teamId, int weight) {
+            this.text = text;
+            this.type = type;
+            this.category = category;
+            this.competitionId = competitionId;
+            this.teamId = teamId;
+            this.weight = weight;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getCompetitionId() {
+            return competitionId;
+        }
+
+        public String getTeamId() {
+            return teamId;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.leon.ideas.competitions.repository;
+
+/**
+ * Result of a version-guarded competition write
+ */
+public enum CompetitionWriteOutcome {
+    APPLIED,
+    NOT_FOUND,
+    /** The client's If-Match ETag is not the stored version */
+    PRECONDITION_FAILED,
+    /** Concurrent writers kept winning until the retries ran out */
+    CONFLICT,
+    FAILED
+}
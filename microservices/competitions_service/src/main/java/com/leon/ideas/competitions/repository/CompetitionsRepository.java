@@ -1,18 +1,33 @@
 package com.leon.ideas.competitions.repository;
 
+import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Repository
 public class CompetitionsRepository {
@@ -20,77 +35,100 @@ public class CompetitionsRepository {
     @Autowired
     private MongoTemplate competitionsMongoTemplate;
 
-    private static final String COLLECTION_NAME = "competitions";
+    @Autowired
+    private CompetitionsSnapshotCache snapshotCache;
+
+    @Autowired
+    private TeamCatalogRepository teamCatalogRepository;
+
+    /**
+     * Guarded writes that lose a race are retried from the stored state at most this many times
+     */
+    @Value("${competitions.writes.max-attempts:3}")
+    private int maxWriteAttempts;
+
+    /**
+     * One document per competition. Each document is the competition itself plus a 'category' field.
+     */
+    static final String COLLECTION_NAME = "competition_entries";
+
+    /**
+     * Legacy layout: a single document holding one array per category.
+     * Only read by the one-shot migration.
+     */
+    private static final String LEGACY_COLLECTION_NAME = "competitions";
 
     /**
-     * Get all competitions (entire document)
-     * This method retrieves the first document from the competitions collection.
-     * Since there should only be one document containing all competitions, we get the first one.
+     * Monotonic per-competition version, bumped by every write below and exposed as the ETag
+     */
+    public static final String VERSION_FIELD = "version";
+
+
+    public static final List<String> CATEGORIES = List.of(
+        "fifaNationalTeamCups",
+        "fifaOfficialClubCups",
+        "nationalClubLeagues"
+    );
+
+    /**
+     * Get all competitions
+     * The result keeps the legacy shape: one array per category, in insertion order.
+     * Reads are served from the in-process snapshot; returned documents are shared and read-only.
      */
     public Document getAllCompetitions() {
         try {
-            // Get the first document from the collection (there should only be one)
-            Query query = new Query();
-            query.limit(1);
-            List<Document> documents = competitionsMongoTemplate.find(query, Document.class, COLLECTION_NAME);
-            
-            if (documents != null && !documents.isEmpty()) {
-                return documents.get(0);
-            }
-            
-            System.err.println("⚠️ Warning: No competitions document found in collection");
-            return null;
+            return snapshotCache.snapshot().getAllCompetitions();
         } catch (Exception e) {
             System.err.println("❌ Error retrieving competitions: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
     }
-    
-    /**
-     * Get the ObjectId of the competitions document
-     * This is used by other methods that need to update the document
-     */
-    private ObjectId getCompetitionsDocumentId() {
-        Document doc = getAllCompetitions();
-        if (doc != null && doc.containsKey("_id")) {
-            Object id = doc.get("_id");
-            if (id instanceof ObjectId) {
-                return (ObjectId) id;
-            } else if (id instanceof String) {
-                try {
-                    return new ObjectId((String) id);
-                } catch (IllegalArgumentException e) {
-                    System.err.println("❌ Error: Invalid ObjectId format: " + id);
-                }
-            }
-        }
-        return null;
-    }
 
     /**
      * Get competitions by category
      */
     public List<Document> getCompetitionsByCategory(String category) {
-        Document allCompetitions = getAllCompetitions();
-        if (allCompetitions != null && allCompetitions.containsKey(category)) {
-            Object categoryData = allCompetitions.get(category);
-            if (categoryData instanceof List) {
-                return (List<Document>) categoryData;
-            }
-        }
-        return new ArrayList<>();
+        return snapshotCache.snapshot().getCompetitionsByCategory(category);
     }
 
     /**
      * Get a specific competition by category and ID
      */
     public Document getCompetitionById(String category, String competitionId) {
-        List<Document> competitions = getCompetitionsByCategory(category);
-        return competitions.stream()
-                .filter(comp -> competitionId.equals(comp.getString("id")))
-                .findFirst()
-                .orElse(null);
+        return snapshotCache.snapshot().getCompetition(category, competitionId);
+    }
+
+    // ==================== PROJECTED READS ====================
+
+    /**
+     * Get all competitions with only the requested fields of each competition
+     */
+    public Document getAllCompetitions(CompetitionProjection projection) {
+        if (projection.isFull()) {
+            return getAllCompetitions();
+        }
+        Document all = new Document();
+        for (String category : CATEGORIES) {
+            all.append(category, getCompetitionsByCategory(category, projection));
+        }
+        return all;
+    }
+
+    /**
+     * Get competitions by category with only the requested fields.
+     * The catalog view is built once per snapshot and shared between requests.
+     */
+    public List<Document> getCompetitionsByCategory(String category, CompetitionProjection projection) {
+        CompetitionsSnapshot snapshot = snapshotCache.snapshot();
+        if (projection == CompetitionProjection.CATALOG) {
+            return snapshot.getCatalog(category);
+        }
+        return projection.apply(snapshot.getCompetitionsByCategory(category));
+    }
+
+    public Document getCompetitionById(String category, String competitionId, CompetitionProjection projection) {
+        return projection.apply(getCompetitionById(category, competitionId));
     }
 
     /**
@@ -98,16 +136,20 @@ public class CompetitionsRepository {
      */
     public boolean addCompetition(String category, Document competition) {
         try {
-            ObjectId objectId = getCompetitionsDocumentId();
-            if (objectId == null) {
-                System.err.println("❌ Error: Could not find competitions document");
-                return false;
-            }
-            Query query = new Query(Criteria.where("_id").is(objectId));
-            Update update = new Update().push(category, competition);
-            
-            UpdateResult result = competitionsMongoTemplate.updateFirst(query, update, COLLECTION_NAME);
-            return result.getModifiedCount() > 0;
+            CatalogChanges catalogChanges = new CatalogChanges();
+            Document entry = withTeamReferences(new Document(competition), catalogChanges).append("category", category);
+            entry.put(VERSION_FIELD, 1);
+            entry.remove(StandingsEngine.BASELINE_FIELD);
+            insertCatalogTeams(catalogChanges);
+            competitionsMongoTemplate.insert(entry, COLLECTION_NAME);
+            applyCatalogUpdates(catalogChanges);
+            snapshotCache.refresh(category, competition.getString("id"));
+            // Standings given with the competition need not match its results
+            recomputeStandings(category, competition.getString("id"));
+            return true;
+        } catch (DuplicateKeyException e) {
+            System.err.println("⚠️ Competition already exists: " + category + "/" + competition.getString("id"));
+            return false;
         } catch (Exception e) {
             System.err.println("❌ Error adding competition: " + e.getMessage());
             return false;
@@ -116,106 +158,148 @@ public class CompetitionsRepository {
 
     /**
      * Update a competition (PUT - full update)
+     * A replacement cannot $inc, so the stored version is read first and the replace only
+     * applies while it is still current. With an If-Match ETag the write is also refused once
+     * anyone else has written since the client's read.
      */
-    public boolean updateCompetition(String category, String competitionId, Document updatedCompetition) {
+    public CompetitionWriteOutcome updateCompetition(String category, String competitionId, Document updatedCompetition, String ifMatch) {
         try {
-            ObjectId objectId = getCompetitionsDocumentId();
-            if (objectId == null) {
-                System.err.println("❌ Error: Could not find competitions document");
-                return false;
-            }
-            
-            // First, get the index of the competition in the array
-            List<Document> competitions = getCompetitionsByCategory(category);
-            int index = -1;
-            for (int i = 0; i < competitions.size(); i++) {
-                if (competitionId.equals(competitions.get(i).getString("id"))) {
-                    index = i;
-                    break;
+            Document replacement = null;
+            CatalogChanges catalogChanges = new CatalogChanges();
+            for (int attempt = 1; attempt <= maxWriteAttempts; attempt++) {
+                Document stored = findVersion(category, competitionId);
+                if (stored == null) {
+                    return CompetitionWriteOutcome.NOT_FOUND;
                 }
+                if (!matchesETag(stored, ifMatch)) {
+                    return CompetitionWriteOutcome.PRECONDITION_FAILED;
+                }
+                int storedVersion = versionOf(stored);
+
+                if (replacement == null) {
+                    replacement = withTeamReferences(new Document(updatedCompetition), catalogChanges);
+                    insertCatalogTeams(catalogChanges);
+                }
+                Document entry = new Document(replacement).append("category", category);
+                entry.remove("_id");
+                entry.put(VERSION_FIELD, storedVersion + 1);
+                entry.remove(StandingsEngine.BASELINE_FIELD);
+                // Result events not yet moved to the outbox belong to the stored document
+                entry.remove(MatchResultOutboxRepository.PENDING_FIELD);
+                if (stored.get(MatchResultOutboxRepository.PENDING_FIELD) != null) {
+                    entry.put(MatchResultOutboxRepository.PENDING_FIELD, stored.get(MatchResultOutboxRepository.PENDING_FIELD));
+                }
+
+                UpdateResult result = competitionsMongoTemplate.replace(
+                    versionedQuery(category, competitionId, storedVersion), entry, COLLECTION_NAME);
+                if (result.getMatchedCount() > 0) {
+                    applyCatalogUpdates(catalogChanges);
+                    refreshIf(true, category, competitionId);
+                    recomputeStandings(category, competitionId);
+                    return CompetitionWriteOutcome.APPLIED;
+                }
+                System.out.println("🔄 Competition " + category + "/" + competitionId + " changed concurrently, retrying (attempt " + attempt + ")");
             }
-            
-            if (index == -1) {
-                return false;
-            }
-            
-            // Update the competition at the specific index
-            Query query = new Query(Criteria.where("_id").is(objectId));
-            Update update = new Update().set(category + "." + index, updatedCompetition);
-            
-            UpdateResult result = competitionsMongoTemplate.updateFirst(query, update, COLLECTION_NAME);
-            return result.getModifiedCount() > 0;
+            System.err.println("⚠️ Competition " + category + "/" + competitionId + " kept changing, update not applied");
+            return CompetitionWriteOutcome.CONFLICT;
         } catch (Exception e) {
             System.err.println("❌ Error updating competition: " + e.getMessage());
-            return false;
+            return CompetitionWriteOutcome.FAILED;
         }
     }
 
     /**
      * Patch a competition (PATCH - partial update)
+     * The $set is compare-and-set on the version read just before it. Dotted keys may address array
+     * elements by position ("qualifiedTeams.2.name"); only an If-Match from the client's own read
+     * guarantees those positions still mean what the client saw.
      */
-    public boolean patchCompetition(String category, String competitionId, Map<String, Object> updates) {
+    public CompetitionWriteOutcome patchCompetition(String category, String competitionId, Map<String, Object> updates, String ifMatch) {
         try {
-            ObjectId objectId = getCompetitionsDocumentId();
-            if (objectId == null) {
-                System.err.println("❌ Error: Could not find competitions document");
-                return false;
-            }
-            
-            // First, get the index of the competition in the array
-            List<Document> competitions = getCompetitionsByCategory(category);
-            int index = -1;
-            for (int i = 0; i < competitions.size(); i++) {
-                if (competitionId.equals(competitions.get(i).getString("id"))) {
-                    index = i;
-                    break;
+            Update update = null;
+            boolean touchesStructure = false;
+            CatalogChanges catalogChanges = new CatalogChanges();
+            for (int attempt = 1; attempt <= maxWriteAttempts; attempt++) {
+                Document stored = findVersion(category, competitionId);
+                if (stored == null) {
+                    return CompetitionWriteOutcome.NOT_FOUND;
                 }
+                if (!matchesETag(stored, ifMatch)) {
+                    return CompetitionWriteOutcome.PRECONDITION_FAILED;
+                }
+                if (update == null) {
+                    update = new Update().inc(VERSION_FIELD, 1);
+                    for (Map.Entry<String, Object> entry : teamsToCatalog(category, competitionId, updates, catalogChanges).entrySet()) {
+                        if (!VERSION_FIELD.equals(entry.getKey()) && !StandingsEngine.BASELINE_FIELD.equals(entry.getKey())
+                                && !entry.getKey().startsWith(MatchResultOutboxRepository.PENDING_FIELD)) {
+                            update.set(entry.getKey(), entry.getValue());
+                            touchesStructure |= entry.getKey().startsWith(MatchLocation.TOURNAMENT_STRUCTURE);
+                        }
+                    }
+                    if (touchesStructure) {
+                        // Results or standings patched directly: rebuilt below instead of trusted
+                        update.unset(StandingsEngine.BASELINE_FIELD);
+                    }
+                    insertCatalogTeams(catalogChanges);
+                }
+
+                UpdateResult result = competitionsMongoTemplate.updateFirst(
+                    versionedQuery(category, competitionId, versionOf(stored)), update, COLLECTION_NAME);
+                if (result.getMatchedCount() > 0) {
+                    applyCatalogUpdates(catalogChanges);
+                    refreshIf(true, category, competitionId);
+                    if (touchesStructure) {
+                        recomputeStandings(category, competitionId);
+                    }
+                    return CompetitionWriteOutcome.APPLIED;
+                }
+                System.out.println("🔄 Competition " + category + "/" + competitionId + " changed concurrently, retrying patch (attempt " + attempt + ")");
             }
-            
-            if (index == -1) {
-                return false;
-            }
-            
-            // Build update query for specific fields
-            Query query = new Query(Criteria.where("_id").is(objectId));
-            Update update = new Update();
-            
-            for (Map.Entry<String, Object> entry : updates.entrySet()) {
-                String fieldPath = category + "." + index + "." + entry.getKey();
-                update.set(fieldPath, entry.getValue());
-            }
-            
-            UpdateResult result = competitionsMongoTemplate.updateFirst(query, update, COLLECTION_NAME);
-            return result.getModifiedCount() > 0;
+            System.err.println("⚠️ Competition " + category + "/" + competitionId + " kept changing, patch not applied");
+            return CompetitionWriteOutcome.CONFLICT;
         } catch (Exception e) {
             System.err.println("❌ Error patching competition: " + e.getMessage());
-            return false;
+            return CompetitionWriteOutcome.FAILED;
         }
     }
 
+    /**
+     * The stored '_id', version and pending result events of a competition, or null
+     */
+    private Document findVersion(String category, String competitionId) {
+        Query query = competitionQuery(category, competitionId);
+        query.fields().include(VERSION_FIELD).include(MatchResultOutboxRepository.PENDING_FIELD);
+        return competitionsMongoTemplate.findOne(query, Document.class, COLLECTION_NAME);
+    }
+
+    /**
+     * If-Match check (RFC 9110): no header or '*' always matches, otherwise one of the listed
+     * ETags must be the stored one. Weak tags never match. Suffixes read ETags carry after the
+     * stored version (team catalog stamp '-t<stamp>', view or projection, gzip body '-gzip') are ignored: they name
+     * the same competition document.
+     */
+    private static boolean matchesETag(Document stored, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return true;
+        }
+        String current = CompetitionsSnapshot.etagOf(stored);
+        String withSuffix = current.substring(0, current.length() - 1) + "-";
+        for (String tag : ifMatch.split(",")) {
+            if (current.equals(tag.trim()) || tag.trim().startsWith(withSuffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Delete a competition from a category
      */
     public boolean deleteCompetition(String category, String competitionId) {
         try {
-            ObjectId objectId = getCompetitionsDocumentId();
-            if (objectId == null) {
-                System.err.println("❌ Error: Could not find competitions document");
-                return false;
-            }
-            
-            // Get the competition to delete
-            Document competitionToDelete = getCompetitionById(category, competitionId);
-            if (competitionToDelete == null) {
-                return false;
-            }
-            
-            // Remove the competition from the array
-            Query query = new Query(Criteria.where("_id").is(objectId));
-            Update update = new Update().pull(category, new Document("id", competitionId));
-            
-            UpdateResult result = competitionsMongoTemplate.updateFirst(query, update, COLLECTION_NAME);
-            return result.getModifiedCount() > 0;
+            DeleteResult result = competitionsMongoTemplate.remove(
+                competitionQuery(category, competitionId), COLLECTION_NAME);
+            return refreshIf(result.getDeletedCount() > 0, category, competitionId);
         } catch (Exception e) {
             System.err.println("❌ Error deleting competition: " + e.getMessage());
             return false;
@@ -223,84 +307,64 @@ public class CompetitionsRepository {
     }
 
     /**
-     * Search competitions across all categories
+     * Search competitions across all categories, best matches first (served by the snapshot's search index)
      */
-    public List<Document> searchCompetitions(String searchTerm) {
+    public List<Document> searchCompetitions(String searchTerm, int limit) {
+        CompetitionsSnapshot snapshot = snapshotCache.snapshot();
         List<Document> results = new ArrayList<>();
-        Document allCompetitions = getAllCompetitions();
-        
-        if (allCompetitions == null) {
-            return results;
-        }
-        
-        String lowerSearchTerm = searchTerm.toLowerCase();
-        
-        // Search in all three categories
-        String[] categories = {"fifaNationalTeamCups", "fifaOfficialClubCups", "nationalClubLeagues"};
-        
-        for (String category : categories) {
-            List<Document> categoryCompetitions = getCompetitionsByCategory(category);
-            for (Document comp : categoryCompetitions) {
-                String name = comp.getString("name");
-                String shortName = comp.getString("shortName");
-                String country = comp.getString("country");
-                
-                if ((name != null && name.toLowerCase().contains(lowerSearchTerm)) ||
-                    (shortName != null && shortName.toLowerCase().contains(lowerSearchTerm)) ||
-                    (country != null && country.toLowerCase().contains(lowerSearchTerm))) {
-                    
-                    // Add category information to the result
-                    comp.append("category", category);
-                    results.add(comp);
-                }
+
+        for (CompetitionSearchIndex.Hit hit : snapshot.getSearchIndex().search(searchTerm, limit)) {
+            Document competition = snapshot.getCompetition(hit.getCategory(), hit.getCompetitionId());
+            if (competition == null) {
+                continue;
+            }
+            // Add category information to a copy: snapshot documents are shared
+            Document result = new Document(competition).append("category", hit.getCategory());
+            if (!hit.getMatchedTeams().isEmpty()) {
+                result.append("matchedTeams", hit.getMatchedTeams());
             }
+            results.add(result);
         }
-        
+
         return results;
     }
 
+    /**
+     * Type-ahead suggestions (competition and team names) for a partial search term
+     */
+    public List<CompetitionSearchIndex.Suggestion> suggestCompetitions(String prefix, int limit) {
+        return snapshotCache.snapshot().getSearchIndex().suggest(prefix, limit);
+    }
+
+    /**
+     * Matches of every competition kicking off in [from, to), in kick-off order (snapshot calendar)
+     */
+    public FixtureCalendar.Page getFixtures(Instant from, Instant to, String category, Set<String> statuses,
+                                            String cursor, int limit) {
+        return snapshotCache.snapshot().getFixtures(from, to, category, statuses, cursor, limit);
+    }
+
     /**
      * Add qualified team to a competition
+     * The team is only pushed when no team with the same id exists yet.
      */
     public boolean addQualifiedTeam(String category, String competitionId, Document team) {
         try {
-            ObjectId objectId = getCompetitionsDocumentId();
-            if (objectId == null) {
-                System.err.println("❌ Error: Could not find competitions document");
+            Query query = competitionQuery(category, competitionId)
+                .addCriteria(Criteria.where("qualifiedTeams.id").ne(team.getString("id")));
+            if (getCompetitionById(category, competitionId) == null) {
                 return false;
             }
-            
-            // Find the competition index
-            List<Document> competitions = getCompetitionsByCategory(category);
-            int index = -1;
-            for (int i = 0; i < competitions.size(); i++) {
-                if (competitionId.equals(competitions.get(i).getString("id"))) {
-                    index = i;
-                    break;
-                }
-            }
-            
-            if (index == -1) {
-                return false;
-            }
-            
-            // Check if team already exists
-            Document competition = competitions.get(index);
-            List<Document> qualifiedTeams = (List<Document>) competition.get("qualifiedTeams");
-            if (qualifiedTeams != null) {
-                boolean teamExists = qualifiedTeams.stream()
-                    .anyMatch(t -> team.getString("id").equals(t.getString("id")));
-                if (teamExists) {
-                    return false;
-                }
-            }
-            
-            // Add team to qualifiedTeams array
-            Query query = new Query(Criteria.where("_id").is(objectId));
-            Update update = new Update().push(category + "." + index + ".qualifiedTeams", team);
-            
+            CatalogChanges catalogChanges = new CatalogChanges();
+            Update update = new Update().push("qualifiedTeams", storeTeams(competitionId, List.of(team), catalogChanges).get(0))
+                .inc(VERSION_FIELD, 1);
+            insertCatalogTeams(catalogChanges);
+
             UpdateResult result = competitionsMongoTemplate.updateFirst(query, update, COLLECTION_NAME);
-            return result.getModifiedCount() > 0;
+            if (result.getModifiedCount() > 0) {
+                applyCatalogUpdates(catalogChanges);
+            }
+            return refreshIf(result.getModifiedCount() > 0, category, competitionId);
         } catch (Exception e) {
             System.err.println("❌ Error adding qualified team: " + e.getMessage());
             return false;
@@ -312,54 +376,22 @@ public class CompetitionsRepository {
      */
     public boolean updateQualifiedTeam(String category, String competitionId, String teamId, Document updatedTeam) {
         try {
-            ObjectId objectId = getCompetitionsDocumentId();
-            if (objectId == null) {
-                System.err.println("❌ Error: Could not find competitions document");
-                return false;
-            }
-            
-            // Find the competition index
-            List<Document> competitions = getCompetitionsByCategory(category);
-            int competitionIndex = -1;
-            for (int i = 0; i < competitions.size(); i++) {
-                if (competitionId.equals(competitions.get(i).getString("id"))) {
-                    competitionIndex = i;
-                    break;
-                }
-            }
-            
-            if (competitionIndex == -1) {
-                return false;
-            }
-            
-            // Find the team index
-            Document competition = competitions.get(competitionIndex);
-            List<Document> qualifiedTeams = (List<Document>) competition.get("qualifiedTeams");
-            if (qualifiedTeams == null) {
-                return false;
-            }
-            
-            int teamIndex = -1;
-            for (int i = 0; i < qualifiedTeams.size(); i++) {
-                if (teamId.equals(qualifiedTeams.get(i).getString("id"))) {
-                    teamIndex = i;
-                    break;
-                }
-            }
-            
-            if (teamIndex == -1) {
+            Query query = competitionQuery(category, competitionId)
+                .addCriteria(Criteria.where("qualifiedTeams.id").is(teamId));
+            Document competition = getCompetitionById(category, competitionId);
+            if (competition == null || !TeamCatalog.references(competition, Set.of(teamId))) {
                 return false;
             }
-            
-            // Update the team
-            Query query = new Query(Criteria.where("_id").is(objectId));
-            Update update = new Update().set(
-                category + "." + competitionIndex + ".qualifiedTeams." + teamIndex,
-                updatedTeam
-            );
-            
+            CatalogChanges catalogChanges = new CatalogChanges();
+            Update update = new Update().set("qualifiedTeams.$", storeTeams(competitionId, List.of(updatedTeam), catalogChanges).get(0))
+                .inc(VERSION_FIELD, 1);
+            insertCatalogTeams(catalogChanges);
+
             UpdateResult result = competitionsMongoTemplate.updateFirst(query, update, COLLECTION_NAME);
-            return result.getModifiedCount() > 0;
+            if (result.getMatchedCount() > 0) {
+                applyCatalogUpdates(catalogChanges);
+            }
+            return refreshIf(result.getMatchedCount() > 0, category, competitionId);
         } catch (Exception e) {
             System.err.println("❌ Error updating qualified team: " + e.getMessage());
             return false;
@@ -371,35 +403,11 @@ public class CompetitionsRepository {
      */
     public boolean deleteQualifiedTeam(String category, String competitionId, String teamId) {
         try {
-            ObjectId objectId = getCompetitionsDocumentId();
-            if (objectId == null) {
-                System.err.println("❌ Error: Could not find competitions document");
-                return false;
-            }
-            
-            // Find the competition index
-            List<Document> competitions = getCompetitionsByCategory(category);
-            int index = -1;
-            for (int i = 0; i < competitions.size(); i++) {
-                if (competitionId.equals(competitions.get(i).getString("id"))) {
-                    index = i;
-                    break;
-                }
-            }
-            
-            if (index == -1) {
-                return false;
-            }
-            
-            // Remove the team from qualifiedTeams array
-            Query query = new Query(Criteria.where("_id").is(objectId));
-            Update update = new Update().pull(
-                category + "." + index + ".qualifiedTeams",
-                new Document("id", teamId)
-            );
-            
-            UpdateResult result = competitionsMongoTemplate.updateFirst(query, update, COLLECTION_NAME);
-            return result.getModifiedCount() > 0;
+            Update update = new Update().pull("qualifiedTeams", new Document("id", teamId)).inc(VERSION_FIELD, 1);
+
+            UpdateResult result = competitionsMongoTemplate.updateFirst(
+                competitionQuery(category, competitionId), update, COLLECTION_NAME);
+            return refreshIf(result.getModifiedCount() > 0, category, competitionId);
         } catch (Exception e) {
             System.err.println("❌ Error deleting qualified team: " + e.getMessage());
             return false;
@@ -409,6 +417,7 @@ public class CompetitionsRepository {
     /**
      * Get all qualified teams for a competition
      */
+    @SuppressWarnings("unchecked")
     public List<Document> getQualifiedTeams(String category, String competitionId) {
         Document competition = getCompetitionById(category, competitionId);
         if (competition != null && competition.containsKey("qualifiedTeams")) {
@@ -422,44 +431,19 @@ public class CompetitionsRepository {
 
     /**
      * Find a match in tournament structure by matchId
+     * Resolved through the snapshot's match directory instead of scanning every stage and group.
+     * Until the snapshot is loaded the match is extracted inside Mongo (see {@link #matchPipeline}),
+     * so a cold read neither waits for the full load nor transfers the whole competition.
      */
-    @SuppressWarnings("unchecked")
     public Document findMatchInTournamentStructure(String category, String competitionId, String matchId) {
         try {
-            Document competition = getCompetitionById(category, competitionId);
-            if (competition == null) {
-                return null;
-            }
-
-            // First, try to find in tournamentStructure
-            if (competition.containsKey("tournamentStructure")) {
-                Document tournamentStructure = (Document) competition.get("tournamentStructure");
-                if (tournamentStructure != null && tournamentStructure.containsKey("stages")) {
-                    Map<String, Object> stages = (Map<String, Object>) tournamentStructure.get("stages");
-                    if (stages != null) {
-                        Document match = searchMatchInStages(stages, matchId);
-                        if (match != null) {
-                            return match;
-                        }
-                    }
-                }
+            CompetitionsSnapshot snapshot = snapshotCache.currentIfLoaded();
+            if (snapshot == null) {
+                return competitionsMongoTemplate.getCollection(COLLECTION_NAME)
+                    .aggregate(matchPipeline(category, competitionId, matchId)).first();
             }
-
-            // If not found, try to find in groupsKindTournament
-            if (competition.containsKey("groupsKindTournament")) {
-                Document groupsKindTournament = (Document) competition.get("groupsKindTournament");
-                if (groupsKindTournament != null && groupsKindTournament.containsKey("stages")) {
-                    Map<String, Object> stages = (Map<String, Object>) groupsKindTournament.get("stages");
-                    if (stages != null) {
-                        Document match = searchMatchInStages(stages, matchId);
-                        if (match != null) {
-                            return match;
-                        }
-                    }
-                }
-            }
-
-            return null;
+            MatchLocation location = snapshot.findMatch(category, competitionId, matchId);
+            return location != null ? location.getMatch() : null;
         } catch (Exception e) {
             System.err.println("❌ Error finding match in tournament structure: " + e.getMessage());
             e.printStackTrace();
@@ -468,161 +452,681 @@ public class CompetitionsRepository {
     }
 
     /**
-     * Helper method to search for a match in stages (used by both tournamentStructure and groupsKindTournament)
+     * True when the competition exists; checked in Mongo (an _id-only read) until the snapshot is loaded
      */
-    @SuppressWarnings("unchecked")
-    private Document searchMatchInStages(Map<String, Object> stages, String matchId) {
-        // Search through all stages
-        for (Object stageObj : stages.values()) {
-            if (!(stageObj instanceof Document)) {
-                continue;
-            }
-            Document stage = (Document) stageObj;
+    public boolean competitionExists(String category, String competitionId) {
+        CompetitionsSnapshot snapshot = snapshotCache.currentIfLoaded();
+        if (snapshot != null) {
+            return snapshot.getCompetition(category, competitionId) != null;
+        }
+        return competitionsMongoTemplate.exists(
+            new Query(Criteria.where("category").is(category).and("id").is(competitionId)), COLLECTION_NAME);
+    }
 
-            // Check matches in knockout stages
-            if (stage.containsKey("matches")) {
-                List<Document> matches = (List<Document>) stage.get("matches");
-                if (matches != null) {
-                    for (Document match : matches) {
-                        if (matchId.equals(match.getString("matchId"))) {
-                            return match;
-                        }
-                    }
+    /**
+     * Aggregation returning only one match of one competition: the stages of tournamentStructure, then
+     * of groupsKindTournament, are flattened into their knockout and group matches and the first match
+     * with the id is the result, the same one the match directory resolves.
+     */
+    public static List<Document> matchPipeline(String category, String competitionId, String matchId) {
+        Document stages = new Document("$concatArrays", List.of(
+            stagesOf(MatchLocation.TOURNAMENT_STRUCTURE), stagesOf(MatchLocation.GROUPS_KIND_TOURNAMENT)));
+        Document groupMatches = new Document("$reduce", new Document("input", arrayOr("$stage.v.groups"))
+            .append("initialValue", List.of())
+            .append("in", new Document("$concatArrays", List.of("$$value", arrayOr("$$this.matches")))));
+        Document firstMatch = new Document("$arrayElemAt", List.of(
+            new Document("$filter", new Document("input", "$matches")
+                .append("cond", new Document("$eq", List.of("$$this.matchId", matchId)))),
+            0));
+
+        return List.of(
+            new Document("$match", new Document("category", category).append("id", competitionId)),
+            new Document("$project", new Document("_id", 0).append("stage", stages)),
+            new Document("$unwind", "$stage"),
+            new Document("$project", new Document("matches",
+                new Document("$concatArrays", List.of(arrayOr("$stage.v.matches"), groupMatches)))),
+            new Document("$project", new Document("match", firstMatch)),
+            new Document("$match", new Document("match", new Document("$type", "object"))),
+            new Document("$limit", 1),
+            new Document("$replaceRoot", new Document("newRoot", "$match")));
+    }
+
+    private static Document stagesOf(String structureField) {
+        String stages = "$" + structureField + ".stages";
+        return new Document("$cond", List.of(
+            new Document("$eq", List.of(new Document("$type", stages), "object")),
+            new Document("$objectToArray", stages),
+            List.of()));
+    }
+
+    private static Document arrayOr(String path) {
+        return new Document("$cond", List.of(new Document("$isArray", path), path, List.of()));
+    }
+
+    /**
+     * Find a competition's match without knowing the competition's category
+     */
+    public MatchLocation findMatchLocation(String competitionId, String matchId) {
+        return snapshotCache.snapshot().findMatch(competitionId, matchId);
+    }
+
+    /**
+     * Where a competition's match is stored (either structure), or null
+     */
+    public MatchLocation findMatchLocation(String category, String competitionId, String matchId) {
+        return snapshotCache.snapshot().findMatch(category, competitionId, matchId);
+    }
+
+    /**
+     * Update match results in tournament structure
+     * The storage path comes from the match directory, so the write is a single update. For group
+     * matches it also applies the standings delta (or, for a competition whose standings were never
+     * rebuilt from its results, rebuilds them after the write), and it records the result event for the outbox.
+     * It is guarded to land only on the match the snapshot described and is retried from the stored
+     * state when it loses a race. The version it produced is read back and stamped on its event.
+     *
+     * @return UPDATED, NOT_FOUND, CONFLICT (still losing after the retries) or FAILED
+     */
+    public MatchResultUpdate.Outcome updateMatchResults(String category, String competitionId, String matchId, Map<String, Object> results) {
+        try {
+            for (int attempt = 1; attempt <= maxWriteAttempts; attempt++) {
+                CompetitionsSnapshot snapshot = snapshotCache.snapshot();
+                MatchLocation location = snapshot.findMatch(category, competitionId, matchId);
+                // Only tournamentStructure holds the REAL results
+                if (location == null || !location.isInTournamentStructure()) {
+                    return MatchResultUpdate.Outcome.NOT_FOUND;
                 }
-            }
 
-            // Check matches in group stages
-            if (stage.containsKey("groups")) {
-                List<Document> groups = (List<Document>) stage.get("groups");
-                if (groups != null) {
-                    for (Document group : groups) {
-                        if (group.containsKey("matches")) {
-                            List<Document> matches = (List<Document>) group.get("matches");
-                            if (matches != null) {
-                                for (Document match : matches) {
-                                    if (matchId.equals(match.getString("matchId"))) {
-                                        return match;
-                                    }
-                                }
-                            }
-                        }
+                // Update the match with new results (and its group standings)
+                MatchResultWrite write = new MatchResultWrite(category, competitionId, snapshot.getCompetition(category, competitionId));
+                write.add(location, results);
+
+                Document written = competitionsMongoTemplate.findAndModify(write.query(), write.update(),
+                    FindAndModifyOptions.options().returnNew(true), Document.class, COLLECTION_NAME);
+                if (written != null) {
+                    stampEventsVersion(write, written);
+                    snapshotCache.refresh(category, competitionId);
+                    if (!write.appliesStandings()) {
+                        recomputeStandings(category, competitionId);
                     }
+                    return MatchResultUpdate.Outcome.UPDATED;
                 }
+
+                // The match moved or changed since the snapshot was taken; retry from the stored state
+                System.out.println("🔄 Match " + matchId + " changed concurrently, retrying (attempt " + attempt + ")");
+                snapshotCache.refresh(category, competitionId);
             }
+            return MatchResultUpdate.Outcome.CONFLICT;
+        } catch (Exception e) {
+            System.err.println("❌ Error updating match results: " + e.getMessage());
+            e.printStackTrace();
+            return MatchResultUpdate.Outcome.FAILED;
         }
-        return null;
     }
 
     /**
-     * Update match results in tournament structure
+     * Apply many match results with one write per competition.
+     * Results are grouped per competition document into a single update that returns the version it
+     * produced; the events are then stamped with those versions in one unordered bulk write.
+     * A failing competition does not block the others, and one whose guarded update lost a race
+     * is retried one match at a time.
+     *
+     * @return one outcome per update, in request order
      */
-    @SuppressWarnings("unchecked")
-    public boolean updateMatchResults(String category, String competitionId, String matchId, Map<String, Object> results) {
-        try {
-            ObjectId objectId = getCompetitionsDocumentId();
-            if (objectId == null) {
-                System.err.println("❌ Error: Could not find competitions document");
-                return false;
+    public List<MatchResultUpdate.Outcome> updateMatchResults(List<MatchResultUpdate> updates) {
+        List<MatchResultUpdate.Outcome> outcomes = new ArrayList<>(Collections.nCopies(updates.size(), MatchResultUpdate.Outcome.NOT_FOUND));
+        CompetitionsSnapshot snapshot = snapshotCache.snapshot();
+
+        // competition key -> combined write and the request positions it carries
+        Map<String, MatchResultWrite> writesByKey = new LinkedHashMap<>();
+        Map<String, List<Integer>> positionsByKey = new LinkedHashMap<>();
+        Set<String> seenMatches = new HashSet<>();
+
+        for (int i = 0; i < updates.size(); i++) {
+            MatchResultUpdate entry = updates.get(i);
+            MatchLocation location = snapshot.findMatch(entry.getCategory(), entry.getCompetitionId(), entry.getMatchId());
+            // Only tournamentStructure holds the REAL results
+            if (location == null || !location.isInTournamentStructure()) {
+                continue;
             }
+            String key = CompetitionsSnapshot.key(entry.getCategory(), entry.getCompetitionId());
+            if (!seenMatches.add(key + "/" + entry.getMatchId())) {
+                outcomes.set(i, MatchResultUpdate.Outcome.DUPLICATE);
+                continue;
+            }
+
+            writesByKey.computeIfAbsent(key, k -> new MatchResultWrite(entry.getCategory(), entry.getCompetitionId(),
+                snapshot.getCompetition(entry.getCategory(), entry.getCompetitionId()))).add(location, entry.getResults());
+            positionsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+
+        if (writesByKey.isEmpty()) {
+            return outcomes;
+        }
 
-            // Find the competition index
-            List<Document> competitions = getCompetitionsByCategory(category);
-            int competitionIndex = -1;
-            for (int i = 0; i < competitions.size(); i++) {
-                if (competitionId.equals(competitions.get(i).getString("id"))) {
-                    competitionIndex = i;
-                    break;
+        List<String> keys = new ArrayList<>(writesByKey.keySet());
+        Map<String, Document> writtenByKey = new HashMap<>();
+        Set<String> failedKeys = new HashSet<>();
+        BulkOperations stamps = competitionsMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION_NAME);
+        for (String key : keys) {
+            MatchResultWrite write = writesByKey.get(key);
+            try {
+                Document written = competitionsMongoTemplate.findAndModify(write.query(), write.update(),
+                    FindAndModifyOptions.options().returnNew(true), Document.class, COLLECTION_NAME);
+                if (written != null) {
+                    writtenByKey.put(key, written);
+                    stamps.updateOne(MatchResultWrite.writtenQuery(written), write.eventsVersion(written));
                 }
+            } catch (Exception e) {
+                System.err.println("❌ Error updating match results of " + key + ": " + e.getMessage());
+                failedKeys.add(key);
             }
-
-            if (competitionIndex == -1) {
-                return false;
+        }
+        if (!writtenByKey.isEmpty()) {
+            try {
+                stamps.execute();
+            } catch (Exception e) {
+                // Unstamped events are still published, without a version, once their grace period ends
+                System.err.println("⚠️ Could not stamp the version on result events: " + e.getMessage());
             }
+        }
 
-            Document competition = competitions.get(competitionIndex);
-            if (competition == null || !competition.containsKey("tournamentStructure")) {
-                return false;
+        for (String key : keys) {
+            List<Integer> positions = positionsByKey.get(key);
+            if (failedKeys.contains(key)) {
+                for (int position : positions) {
+                    outcomes.set(position, MatchResultUpdate.Outcome.FAILED);
+                }
+                continue;
             }
 
-            Document tournamentStructure = (Document) competition.get("tournamentStructure");
-            if (tournamentStructure == null || !tournamentStructure.containsKey("stages")) {
-                return false;
+            MatchResultUpdate first = updates.get(positions.get(0));
+            if (writtenByKey.containsKey(key)) {
+                snapshotCache.refresh(first.getCategory(), first.getCompetitionId());
+                if (!writesByKey.get(key).appliesStandings()) {
+                    recomputeStandings(first.getCategory(), first.getCompetitionId());
+                }
+                for (int position : positions) {
+                    outcomes.set(position, MatchResultUpdate.Outcome.UPDATED);
+                }
+                continue;
             }
 
-            Map<String, Object> stages = (Map<String, Object>) tournamentStructure.get("stages");
-            if (stages == null) {
-                return false;
+            // The guarded update did not match: fall back to the single-match path with its retries
+            for (int position : positions) {
+                MatchResultUpdate entry = updates.get(position);
+                outcomes.set(position, updateMatchResults(entry.getCategory(), entry.getCompetitionId(), entry.getMatchId(), entry.getResults()));
             }
+        }
+        return outcomes;
+    }
 
-            // Find and update the match
-            String matchPath = null;
-            for (Map.Entry<String, Object> stageEntry : stages.entrySet()) {
-                if (!(stageEntry.getValue() instanceof Document)) {
+    /**
+     * Stamp a result write's events with the competition version it produced
+     */
+    private void stampEventsVersion(MatchResultWrite write, Document written) {
+        try {
+            competitionsMongoTemplate.updateFirst(MatchResultWrite.writtenQuery(written), write.eventsVersion(written), COLLECTION_NAME);
+        } catch (Exception e) {
+            // Unstamped events are still published, without a version, once their grace period ends
+            System.err.println("⚠️ Could not stamp the version on result events: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Group-stage standings of a competition, one table per group ordered by the standings
+     * tie-breakers, or null when the competition does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public Document getStandings(String category, String competitionId) {
+        Document competition = getCompetitionById(category, competitionId);
+        if (competition == null) {
+            return null;
+        }
+
+        List<Document> stages = new ArrayList<>();
+        Object structure = competition.get(MatchLocation.TOURNAMENT_STRUCTURE);
+        if (structure instanceof Document && ((Document) structure).get("stages") instanceof Map) {
+            for (Map.Entry<String, Object> stageEntry : ((Map<String, Object>) ((Document) structure).get("stages")).entrySet()) {
+                if (!(stageEntry.getValue() instanceof Document) || !(((Document) stageEntry.getValue()).get("groups") instanceof List)) {
                     continue;
                 }
                 Document stage = (Document) stageEntry.getValue();
-
-                // Check matches in knockout stages
-                if (stage.containsKey("matches")) {
-                    List<Document> matches = (List<Document>) stage.get("matches");
-                    if (matches != null) {
-                        for (int i = 0; i < matches.size(); i++) {
-                            Document match = matches.get(i);
-                            if (matchId.equals(match.getString("matchId"))) {
-                                matchPath = category + "." + competitionIndex + ".tournamentStructure.stages." + stageEntry.getKey() + ".matches." + i;
-                                break;
-                            }
-                        }
+                List<Document> groups = new ArrayList<>();
+                for (Object group : (List<Object>) stage.get("groups")) {
+                    if (group instanceof Document) {
+                        groups.add(toStandingsGroup((Document) group));
                     }
                 }
+                stages.add(new Document("stageId", stageEntry.getKey())
+                    .append("stageName", stage.get("stageName"))
+                    .append("groups", groups));
+            }
+        }
 
-                // Check matches in group stages
-                if (stage.containsKey("groups")) {
-                    List<Document> groups = (List<Document>) stage.get("groups");
-                    if (groups != null) {
-                        for (int g = 0; g < groups.size(); g++) {
-                            Document group = groups.get(g);
-                            if (group.containsKey("matches")) {
-                                List<Document> matches = (List<Document>) group.get("matches");
-                                if (matches != null) {
-                                    for (int m = 0; m < matches.size(); m++) {
-                                        Document match = matches.get(m);
-                                        if (matchId.equals(match.getString("matchId"))) {
-                                            matchPath = category + "." + competitionIndex + ".tournamentStructure.stages." + stageEntry.getKey() + ".groups." + g + ".matches." + m;
-                                            break;
-                                        }
-                                    }
-                                }
-                            }
-                        }
+        return new Document("competitionId", competitionId)
+            .append("category", category)
+            .append("stages", stages);
+    }
+
+    private Document toStandingsGroup(Document group) {
+        List<Document> table = StandingsEngine.table(group);
+        int teamsQualify = group.get("teamsQualify") instanceof Number ? ((Number) group.get("teamsQualify")).intValue() : 2;
+        List<String> qualified = new ArrayList<>();
+        for (int i = 0; i < Math.min(teamsQualify, table.size()); i++) {
+            qualified.add(table.get(i).getString("teamId"));
+        }
+        return new Document("groupLetter", group.get("groupLetter"))
+            .append("groupName", group.get("groupName"))
+            .append("teams", table)
+            .append("qualifiedTeamIds", qualified);
+    }
+
+    // ==================== STORAGE LAYOUT ====================
+
+    /**
+     * Create the indexes used by every read and write path.
+     * (category, id) is unique: competition IDs are unique inside a category.
+     */
+    public void ensureIndexes() {
+        competitionsMongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("category", Sort.Direction.ASC).on("id", Sort.Direction.ASC)
+                .unique().named("category_id_unique"));
+        competitionsMongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("id", Sort.Direction.ASC).named("id"));
+    }
+
+    /**
+     * Migration from the legacy single-document layout, resumable after a partial failure.
+     * Every legacy competition is upserted by (category, id) with $setOnInsert, so competitions
+     * copied by an earlier attempt (or written since) are kept as they are and only the missing
+     * ones are added. The legacy document is marked with 'migratedAt' once every competition is
+     * copied, instead of deleting it, so it can be inspected or rolled back.
+     *
+     * @return number of competitions copied
+     */
+    @SuppressWarnings("unchecked")
+    public int migrateLegacyDocument() {
+        Query legacyQuery = new Query(Criteria.where("migratedAt").exists(false));
+        legacyQuery.limit(1);
+        Document legacy = competitionsMongoTemplate.findOne(legacyQuery, Document.class, LEGACY_COLLECTION_NAME);
+        if (legacy == null) {
+            return 0;
+        }
+
+        // Ordered: '_id's are assigned in legacy order, so _id order matches the legacy order
+        BulkOperations bulk = competitionsMongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, COLLECTION_NAME);
+        int pending = 0;
+        for (String category : CATEGORIES) {
+            Object categoryData = legacy.get(category);
+            if (!(categoryData instanceof List)) {
+                continue;
+            }
+            for (Object competition : (List<Object>) categoryData) {
+                if (!(competition instanceof Document) || !(((Document) competition).get("id") instanceof String)) {
+                    System.err.println("⚠️ Skipping legacy " + category + " entry without an id");
+                    continue;
+                }
+                Document entry = new Document((Document) competition);
+                entry.putIfAbsent("_id", new ObjectId());
+                Update insert = new Update();
+                for (Map.Entry<String, Object> field : entry.entrySet()) {
+                    if (!"id".equals(field.getKey()) && !"category".equals(field.getKey())) {
+                        insert.setOnInsert(field.getKey(), field.getValue());
                     }
                 }
+                bulk.upsert(competitionQuery(category, entry.getString("id")), insert);
+                pending++;
+            }
+        }
+
+        int copied = pending > 0 ? bulk.execute().getUpserts().size() : 0;
+
+        competitionsMongoTemplate.updateFirst(
+            new Query(Criteria.where("_id").is(legacy.get("_id"))),
+            new Update().set("migratedAt", new Date()).set("migratedTo", COLLECTION_NAME),
+            LEGACY_COLLECTION_NAME);
+        snapshotCache.invalidate();
+
+        return copied;
+    }
+
+    /**
+     * Backfill 'image' from 'flag' on club teams stored before images were normalized on write.
+     * Each competition is written with a version guard, so a concurrent edit is never overwritten;
+     * a competition skipped that way is picked up by the next run.
+     *
+     * @return number of competitions updated
+     */
+    @SuppressWarnings("unchecked")
+    public int backfillClubTeamImages(List<String> clubCategories) {
+        Query query = new Query(Criteria.where("category").in(clubCategories)
+            .and("qualifiedTeams").elemMatch(Criteria.where("flag").exists(true).and("image").exists(false)));
+        query.fields().include("category").include("id").include(VERSION_FIELD).include("qualifiedTeams");
 
-                if (matchPath != null) {
-                    break;
+        int updated = 0;
+        for (Document competition : competitionsMongoTemplate.find(query, Document.class, COLLECTION_NAME)) {
+            List<Document> teams = (List<Document>) competition.get("qualifiedTeams");
+            Update update = new Update().inc(VERSION_FIELD, 1);
+            for (int i = 0; i < teams.size(); i++) {
+                Document team = teams.get(i);
+                if (team.containsKey("flag") && !team.containsKey("image")) {
+                    update.set("qualifiedTeams." + i + ".image", team.get("flag"));
                 }
             }
 
-            if (matchPath == null) {
-                return false;
+            String category = competition.getString("category");
+            String competitionId = competition.getString("id");
+            UpdateResult result = competitionsMongoTemplate.updateFirst(
+                versionedQuery(category, competitionId, versionOf(competition)), update, COLLECTION_NAME);
+            if (refreshIf(result.getModifiedCount() > 0, category, competitionId)) {
+                updated++;
             }
+        }
+        return updated;
+    }
+
+    // ==================== VERSIONS / ETAGS ====================
+
+    /**
+     * Strong ETag of all competitions
+     */
+    public String getAllCompetitionsETag() {
+        return snapshotCache.snapshot().getAllCompetitionsETag();
+    }
 
-            // Update the match with new results
-            Query query = new Query(Criteria.where("_id").is(objectId));
-            Update update = new Update();
-            
-            for (Map.Entry<String, Object> entry : results.entrySet()) {
-                update.set(matchPath + "." + entry.getKey(), entry.getValue());
+    /**
+     * Strong ETag of one category list
+     */
+    public String getCategoryETag(String category) {
+        return snapshotCache.snapshot().getCategoryETag(category);
+    }
+
+    /**
+     * Strong ETag of one competition, or null when it does not exist
+     */
+    public String getCompetitionETag(String category, String competitionId) {
+        return snapshotCache.snapshot().getCompetitionETag(category, competitionId);
+    }
+
+    /**
+     * Stored version of a competition; documents written before versioning count as 0
+     */
+    static int versionOf(Document competition) {
+        Object version = competition.get(VERSION_FIELD);
+        return version instanceof Number ? ((Number) version).intValue() : 0;
+    }
+
+    // ==================== TEAM CATALOG ====================
+
+    /**
+     * Catalog entries of the given teams, in request order (unknown ids are skipped)
+     */
+    public List<Document> getTeams(Collection<String> teamIds) {
+        return teamCatalogRepository.findByIds(teamIds);
+    }
+
+    /**
+     * Update a team's shared fields once; every competition listing it shows the change
+     *
+     * @return the stored team, or null when it is not in the catalog
+     */
+    public Document updateCatalogTeam(String teamId, Map<String, Object> fields) {
+        Document team = teamCatalogRepository.updateTeam(teamId, fields);
+        if (team != null) {
+            snapshotCache.applyTeams(teamCatalogRepository.catalog());
+        }
+        return team;
+    }
+
+    /**
+     * Catalog writes collected while preparing a competition write. New entries are inserted with
+     * {@link #insertCatalogTeams} before the write, so the stored references always resolve (an
+     * entry left behind by a refused write is harmless). Changes to existing entries are applied
+     * with {@link #applyCatalogUpdates} only once the competition write succeeded, so a write that
+     * is refused (404, 409, 412) does not change what other competitions show.
+     */
+    static final class CatalogChanges {
+        private final List<Map<String, Object>> newTeams = new ArrayList<>();
+        private final Map<String, Map<String, Object>> updatedTeams = new LinkedHashMap<>();
+    }
+
+    /**
+     * What a competition stores for each of the given teams (see {@link TeamCatalog#reference}); the
+     * catalog writes that go with it are added to the changes, nothing is written here.
+     * A team matching the catalog entry of its id is referenced by that id. A team that differs never
+     * overwrites the shared entry: it gets (or updates) the competition's own entry instead, so a
+     * colliding id or a per-competition edit cannot change the team other competitions show.
+     */
+    @SuppressWarnings("unchecked")
+    List<Object> storeTeams(String competitionId, List<?> teams, CatalogChanges changes) {
+        TeamCatalog catalog = teamCatalogRepository.catalog();
+        List<Object> references = new ArrayList<>(teams.size());
+        for (Object team : teams) {
+            String catalogId = team instanceof Map ? TeamCatalog.catalogId((Map<?, ?>) team) : null;
+            if (catalogId == null) {
+                references.add(team);
+                continue;
+            }
+            Map<String, Object> listed = (Map<String, Object>) team;
+            String teamId = (String) listed.get("id");
+            String ownId = TeamCatalog.ownCatalogId(competitionId, teamId);
+            Document catalogTeam = catalog.get(catalogId);
+            if (catalogTeam != null && !TeamCatalog.matches(catalogTeam, listed) && !catalogId.equals(ownId)) {
+                System.out.println("⚠️ Team " + teamId + " of " + competitionId + " differs from catalog entry "
+                    + catalogId + ", stored as " + ownId);
+                catalogId = ownId;
+                catalogTeam = catalog.get(ownId);
             }
 
-            UpdateResult result = competitionsMongoTemplate.updateFirst(query, update, COLLECTION_NAME);
-            return result.getModifiedCount() > 0;
+            Map<String, Object> fields = TeamCatalog.catalogFields(listed);
+            if (catalogTeam == null) {
+                fields.put("id", catalogId);
+                changes.newTeams.add(fields);
+            } else if (!TeamCatalog.matches(catalogTeam, listed)) {
+                changes.updatedTeams.put(catalogId, fields);
+            }
+
+            Document reference = TeamCatalog.reference(listed);
+            if (catalogId.equals(teamId)) {
+                reference.remove(TeamCatalog.CATALOG_ID_FIELD);
+            } else {
+                reference.put(TeamCatalog.CATALOG_ID_FIELD, catalogId);
+            }
+            references.add(reference);
+        }
+        return references;
+    }
+
+    /**
+     * Insert the new catalog entries a competition write references. Called before the write; a
+     * failure fails the write, which would otherwise store references to missing entries.
+     */
+    void insertCatalogTeams(CatalogChanges changes) {
+        if (!changes.newTeams.isEmpty()) {
+            snapshotCache.applyTeams(teamCatalogRepository.upsertTeams(changes.newTeams));
+        }
+    }
+
+    /**
+     * Apply the changes to existing catalog entries of a competition write that succeeded. A failure
+     * here never fails the competition write itself; it is already saved.
+     */
+    void applyCatalogUpdates(CatalogChanges changes) {
+        try {
+            changes.updatedTeams.forEach(this::updateCatalogTeam);
         } catch (Exception e) {
-            System.err.println("❌ Error updating match results: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("❌ Error updating team catalog entries: " + e.getMessage());
+        }
+    }
+
+    private Document withTeamReferences(Document competition, CatalogChanges changes) {
+        if (competition.get("qualifiedTeams") instanceof List) {
+            competition.put("qualifiedTeams", storeTeams(competition.getString("id"), (List<?>) competition.get("qualifiedTeams"), changes));
+        }
+        return competition;
+    }
+
+    /**
+     * Route the team parts of a patch through {@link #storeTeams}: whole team lists or entries are
+     * stored as references, and shared fields of one listed team ("qualifiedTeams.2.name") rewrite
+     * that entry as a reference to the matching catalog entry.
+     *
+     * @return the updates left for the competition document
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> teamsToCatalog(String category, String competitionId, Map<String, Object> updates,
+                                               CatalogChanges changes) {
+        Map<String, Object> remaining = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> fieldsByPosition = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            String[] path = entry.getKey().split("\\.");
+            if (!"qualifiedTeams".equals(path[0]) || path.length > 3) {
+                remaining.put(entry.getKey(), entry.getValue());
+            } else if (path.length == 1 && entry.getValue() instanceof List) {
+                remaining.put(entry.getKey(), storeTeams(competitionId, (List<?>) entry.getValue(), changes));
+            } else if (path.length == 2 && entry.getValue() instanceof Map) {
+                remaining.put(entry.getKey(), storeTeams(competitionId, List.of(entry.getValue()), changes).get(0));
+            } else if (path.length == 3) {
+                fieldsByPosition.computeIfAbsent(path[1], position -> new LinkedHashMap<>()).put(path[2], entry.getValue());
+            } else {
+                remaining.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (Map.Entry<String, Map<String, Object>> position : fieldsByPosition.entrySet()) {
+            Map<String, Object> fields = position.getValue();
+            Object listed = fields.keySet().stream().anyMatch(TeamCatalog.CATALOG_FIELDS::contains)
+                ? listedTeam(getCompetitionById(category, competitionId), position.getKey()) : null;
+            if (listed instanceof Map) {
+                Document team = new Document((Map<String, Object>) listed);
+                team.putAll(fields);
+                remaining.put("qualifiedTeams." + position.getKey(), storeTeams(competitionId, List.of(team), changes).get(0));
+            } else {
+                fields.forEach((field, value) -> remaining.put("qualifiedTeams." + position.getKey() + "." + field, value));
+            }
+        }
+        return remaining;
+    }
+
+    private static Object listedTeam(Document competition, String position) {
+        if (competition == null || !(competition.get("qualifiedTeams") instanceof List) || !position.matches("\\d{1,6}")) {
+            return null;
+        }
+        List<?> teams = (List<?>) competition.get("qualifiedTeams");
+        int index = Integer.parseInt(position);
+        return index < teams.size() ? teams.get(index) : null;
+    }
+
+    /**
+     * Move the shared team fields embedded in stored competitions into the team catalog,
+     * leaving references behind. Existing catalog entries are kept as they are; a team whose id
+     * names a different team in the catalog gets an entry of its own (see {@link #storeTeams}).
+     *
+     * @return number of competitions rewritten
+     */
+    @SuppressWarnings("unchecked")
+    public int migrateTeamsToCatalog() {
+        Query query = new Query(Criteria.where("qualifiedTeams").elemMatch(
+            new Criteria().orOperator(TeamCatalog.CATALOG_FIELDS.stream().map(field -> Criteria.where(field).exists(true)).toArray(Criteria[]::new))));
+        query.fields().include("category").include("id").include(VERSION_FIELD).include("qualifiedTeams");
+
+        int migrated = 0;
+        for (Document competition : competitionsMongoTemplate.find(query, Document.class, COLLECTION_NAME)) {
+            String category = competition.getString("category");
+            String competitionId = competition.getString("id");
+            CatalogChanges catalogChanges = new CatalogChanges();
+            List<Object> references = storeTeams(competitionId, (List<Object>) competition.get("qualifiedTeams"), catalogChanges);
+            insertCatalogTeams(catalogChanges);
+
+            UpdateResult result = competitionsMongoTemplate.updateFirst(
+                versionedQuery(category, competitionId, versionOf(competition)),
+                new Update().set("qualifiedTeams", references).inc(VERSION_FIELD, 1), COLLECTION_NAME);
+            if (result.getModifiedCount() > 0) {
+                applyCatalogUpdates(catalogChanges);
+            }
+            if (refreshIf(result.getModifiedCount() > 0, category, competitionId)) {
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * Rebuild the group standings of every competition not yet rebuilt from its stored results
+     * (stored before result writes maintained the standings by delta, or replaced by a PUT/PATCH).
+     * Marked competitions then take result deltas; see {@link #recomputeStandings(String, String)}.
+     *
+     * @return number of competitions rebuilt
+     */
+    public int recomputeMissingStandings() {
+        Query query = new Query(Criteria.where(StandingsEngine.BASELINE_FIELD).exists(false));
+        query.fields().include("category").include("id");
+
+        int rebuilt = 0;
+        for (Document competition : competitionsMongoTemplate.find(query, Document.class, COLLECTION_NAME)) {
+            if (recomputeStandings(competition.getString("category"), competition.getString("id"))) {
+                rebuilt++;
+            }
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Rebuild one competition's group standings from its stored results and mark it
+     * ('standingsBaselineAt'). Guarded on the version read and retried when a write lands in between.
+     *
+     * @return true when the competition was rewritten
+     */
+    public boolean recomputeStandings(String category, String competitionId) {
+        try {
+            for (int attempt = 1; attempt <= maxWriteAttempts; attempt++) {
+                Query query = competitionQuery(category, competitionId);
+                query.fields().include(VERSION_FIELD).include(MatchLocation.TOURNAMENT_STRUCTURE);
+                Document competition = competitionsMongoTemplate.findOne(query, Document.class, COLLECTION_NAME);
+                if (competition == null) {
+                    return false;
+                }
+
+                Update update = new Update().set(StandingsEngine.BASELINE_FIELD, new Date()).inc(VERSION_FIELD, 1);
+                for (Map.Entry<String, Integer> stat : StandingsEngine.recompute(competition).entrySet()) {
+                    update.set(stat.getKey(), stat.getValue());
+                }
+                UpdateResult result = competitionsMongoTemplate.updateFirst(
+                    versionedQuery(category, competitionId, versionOf(competition)), update, COLLECTION_NAME);
+                if (refreshIf(result.getMatchedCount() > 0, category, competitionId)) {
+                    return true;
+                }
+                System.out.println("🔄 Competition " + category + "/" + competitionId + " changed concurrently, retrying standings (attempt " + attempt + ")");
+            }
+            System.err.println("⚠️ Competition " + category + "/" + competitionId + " kept changing, standings not rebuilt");
+            return false;
+        } catch (Exception e) {
+            System.err.println("❌ Error rebuilding standings: " + e.getMessage());
             return false;
         }
     }
-}
 
+    // ==================== HELPERS ====================
+
+    private Query competitionQuery(String category, String competitionId) {
+        return new Query(Criteria.where("category").is(category).and("id").is(competitionId));
+    }
+
+    private Query versionedQuery(String category, String competitionId, int version) {
+        Criteria versionCriteria = version == 0
+            ? new Criteria().orOperator(Criteria.where(VERSION_FIELD).is(0), Criteria.where(VERSION_FIELD).exists(false))
+            : Criteria.where(VERSION_FIELD).is(version);
+        return competitionQuery(category, competitionId).addCriteria(versionCriteria);
+    }
 
+    /**
+     * Write-through: swap the written competition into the snapshot when the write succeeded
+     */
+    private boolean refreshIf(boolean success, String category, String competitionId) {
+        if (success) {
+            snapshotCache.refresh(category, competitionId);
+        }
+        return success;
+    }
+}
@@ -0,0 +1,456 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable view of every competition, grouped by category.
+ *
+ * Snapshots are never modified once built: a write produces a new snapshot that shares
+ * every untouched competition with the previous one. The documents inside are shared
+ * between requests, so callers must treat them as read-only.
+ */
+public final class CompetitionsSnapshot {
+
+    private final Map<String, List<Document>> competitionsByCategory;
+    private final Map<String, Document> competitionsByKey;
+    private final Map<Object, String> keysByObjectId;
+    private final Map<String, Map<String, MatchLocation>> matchesByKey;
+    private final Map<String, String> keysByCompetitionMatch;
+    private final Map<String, String> etagsByKey;
+    private final CompetitionSearchIndex searchIndex;
+    private final FixtureCalendar calendar;
+    private final TeamCatalog teams;
+    private final Document allCompetitions;
+
+    // Composite ETags are derived lazily, once per snapshot
+    private volatile String allCompetitionsETag;
+    private final Map<String, String> categoryETags = new ConcurrentHashMap<>();
+
+    // Catalog (list) views are projected lazily, once per snapshot
+    private final Map<String, List<Document>> catalogs = new ConcurrentHashMap<>();
+
+    private CompetitionsSnapshot(Map<String, List<Document>> competitionsByCategory,
+                                 Map<String, Document> competitionsByKey,
+                                 Map<Object, String> keysByObjectId,
+                                 Map<String, Map<String, MatchLocation>> matchesByKey,
+                                 Map<String, String> keysByCompetitionMatch,
+                                 Map<String, String> etagsByKey,
+                                 CompetitionSearchIndex searchIndex,
+                                 FixtureCalendar calendar,
+                                 TeamCatalog teams) {
+        this.competitionsByCategory = competitionsByCategory;
+        this.competitionsByKey = competitionsByKey;
+        this.keysByObjectId = keysByObjectId;
+        this.matchesByKey = matchesByKey;
+        this.keysByCompetitionMatch = keysByCompetitionMatch;
+        this.etagsByKey = etagsByKey;
+        this.searchIndex = searchIndex;
+        this.calendar = calendar;
+        this.teams = teams;
+
+        Document all = new Document();
+        for (String category : CompetitionsRepository.CATEGORIES) {
+            all.append(category, competitionsByCategory.getOrDefault(category, Collections.emptyList()));
+        }
+        this.allCompetitions = all;
+    }
+
+    /**
+     * Build a snapshot from raw stored entries, resolving their qualified teams through the catalog
+     */
+    public static CompetitionsSnapshot of(List<Document> entries, TeamCatalog teams) {
+        Map<String, List<Document>> byCategory = new LinkedHashMap<>();
+        Map<String, Document> byKey = new HashMap<>();
+        Map<Object, String> keysByObjectId = new HashMap<>();
+        Map<String, Map<String, MatchLocation>> matchesByKey = new HashMap<>();
+        Map<String, String> keysByCompetitionMatch = new HashMap<>();
+        Map<String, String> etagsByKey = new HashMap<>();
+
+        for (Document entry : entries) {
+            String category = entry.getString("category");
+            Document competition = toCompetition(teams.hydrate(entry));
+            String key = key(category, competition.getString("id"));
+
+            byCategory.computeIfAbsent(category, c -> new ArrayList<>()).add(competition);
+            byKey.put(key, competition);
+            keysByObjectId.put(entry.get("_id"), key);
+            etagsByKey.put(key, etagOf(entry, teams.stamp(entry)));
+            Map<String, MatchLocation> matches = MatchDirectory.index(category, competition);
+            matchesByKey.put(key, matches);
+            addToMatchIndex(keysByCompetitionMatch, key, matches.keySet());
+        }
+
+        return new CompetitionsSnapshot(freeze(byCategory), byKey, keysByObjectId, matchesByKey, keysByCompetitionMatch, etagsByKey,
+            CompetitionSearchIndex.of(byKey), FixtureCalendar.of(matchesByKey), teams);
+    }
+
+    public static CompetitionsSnapshot empty() {
+        return of(Collections.emptyList(), TeamCatalog.EMPTY);
+    }
+
+    /**
+     * New snapshot with one stored entry added or replaced, keeping its position in the category
+     */
+    public CompetitionsSnapshot withEntry(Document entry) {
+        String category = entry.getString("category");
+        Document competition = toCompetition(teams.hydrate(entry));
+        String competitionId = competition.getString("id");
+        String key = key(category, competitionId);
+
+        // Refreshes and change events can race; never go back to an older version of the same document
+        Document existing = competitionsByKey.get(key);
+        if (existing != null && key.equals(keysByObjectId.get(entry.get("_id")))
+                && CompetitionsRepository.versionOf(existing) > CompetitionsRepository.versionOf(entry)) {
+            return this;
+        }
+
+        Map<String, List<Document>> byCategory = new LinkedHashMap<>(competitionsByCategory);
+        List<Document> competitions = new ArrayList<>(byCategory.getOrDefault(category, Collections.emptyList()));
+        int index = indexOf(competitions, competitionId);
+        if (index >= 0) {
+            competitions.set(index, competition);
+        } else {
+            competitions.add(competition);
+        }
+        byCategory.put(category, competitions);
+
+        Map<String, Document> byKey = new HashMap<>(competitionsByKey);
+        byKey.put(key, competition);
+
+        Map<Object, String> keys = new HashMap<>(keysByObjectId);
+        keys.put(entry.get("_id"), key);
+
+        // Only the written competition is re-indexed; the others keep their directories
+        Map<String, MatchLocation> competitionMatches = MatchDirectory.index(category, competition);
+        Map<String, Map<String, MatchLocation>> matches = new HashMap<>(matchesByKey);
+        Map<String, MatchLocation> previousMatches = matches.put(key, competitionMatches);
+
+        // Result updates keep the same set of matches, so the match index is usually shared as-is
+        Map<String, String> matchKeys = keysByCompetitionMatch;
+        if (previousMatches == null || !previousMatches.keySet().equals(competitionMatches.keySet())) {
+            matchKeys = new HashMap<>(keysByCompetitionMatch);
+            if (previousMatches != null) {
+                removeFromMatchIndex(matchKeys, key, previousMatches.keySet());
+            }
+            addToMatchIndex(matchKeys, key, competitionMatches.keySet());
+        }
+
+        Map<String, String> etags = new HashMap<>(etagsByKey);
+        etags.put(key, etagOf(entry, teams.stamp(entry)));
+
+        // The search index is only rebuilt when one of the competition's names changed
+        CompetitionSearchIndex search = searchIndex.with(key, category, competition);
+
+        // The calendar is only rebuilt when one of the competition's kick-off times changed
+        FixtureCalendar fixtures = calendar.with(key, competitionMatches);
+
+        return new CompetitionsSnapshot(freeze(byCategory), byKey, keys, matches, matchKeys, etags, search, fixtures, teams);
+    }
+
+    /**
+     * New snapshot without the given competition
+     */
+    public CompetitionsSnapshot withoutCompetition(String category, String competitionId) {
+        String key = key(category, competitionId);
+        if (!competitionsByKey.containsKey(key)) {
+            return this;
+        }
+
+        Map<String, List<Document>> byCategory = new LinkedHashMap<>(competitionsByCategory);
+        List<Document> competitions = new ArrayList<>(byCategory.getOrDefault(category, Collections.emptyList()));
+        int index = indexOf(competitions, competitionId);
+        if (index >= 0) {
+            competitions.remove(index);
+        }
+        byCategory.put(category, competitions);
+
+        Map<String, Document> byKey = new HashMap<>(competitionsByKey);
+        byKey.remove(key);
+
+        Map<Object, String> keys = new HashMap<>(keysByObjectId);
+        keys.values().remove(key);
+
+        Map<String, Map<String, MatchLocation>> matches = new HashMap<>(matchesByKey);
+        Map<String, MatchLocation> previousMatches = matches.remove(key);
+
+        Map<String, String> matchKeys = new HashMap<>(keysByCompetitionMatch);
+        if (previousMatches != null) {
+            removeFromMatchIndex(matchKeys, key, previousMatches.keySet());
+        }
+
+        Map<String, String> etags = new HashMap<>(etagsByKey);
+        etags.remove(key);
+
+        return new CompetitionsSnapshot(freeze(byCategory), byKey, keys, matches, matchKeys, etags, searchIndex.without(key),
+            calendar.without(key), teams);
+    }
+
+    /**
+     * New snapshot resolving teams through another catalog; only the competitions referencing a
+     * changed team are rebuilt
+     */
+    public CompetitionsSnapshot withTeams(TeamCatalog next) {
+        Set<String> changed = teams.changedIds(next);
+        if (changed.isEmpty()) {
+            return this;
+        }
+        CompetitionsSnapshot snapshot = new CompetitionsSnapshot(competitionsByCategory, competitionsByKey, keysByObjectId,
+            matchesByKey, keysByCompetitionMatch, etagsByKey, searchIndex, calendar, next);
+        for (Map.Entry<Object, String> stored : keysByObjectId.entrySet()) {
+            Document competition = competitionsByKey.get(stored.getValue());
+            if (competition != null && TeamCatalog.references(competition, changed)) {
+                String key = stored.getValue();
+                Document entry = new Document(competition)
+                    .append("_id", stored.getKey())
+                    .append("category", key.substring(0, key.indexOf('/')));
+                snapshot = snapshot.withEntry(entry);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * This snapshot with every competition the other one holds at a newer version of the same
+     * document (the rule {@link #withEntry} applies), e.g. a reload read before a write-through
+     * refresh or change event landed
+     */
+    public CompetitionsSnapshot withNewerEntriesOf(CompetitionsSnapshot other) {
+        CompetitionsSnapshot snapshot = this;
+        for (Map.Entry<Object, String> stored : other.keysByObjectId.entrySet()) {
+            String key = stored.getValue();
+            Document competition = other.competitionsByKey.get(key);
+            Document loaded = competitionsByKey.get(key);
+            if (competition != null && loaded != null && key.equals(keysByObjectId.get(stored.getKey()))
+                    && CompetitionsRepository.versionOf(competition) > CompetitionsRepository.versionOf(loaded)) {
+                Document entry = new Document(competition)
+                    .append("_id", stored.getKey())
+                    .append("category", key.substring(0, key.indexOf('/')));
+                snapshot = snapshot.withEntry(entry);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * New snapshot without the entry stored under the given Mongo '_id' (change stream deletes only carry the _id)
+     */
+    public CompetitionsSnapshot withoutObjectId(Object objectId) {
+        String key = keysByObjectId.get(objectId);
+        if (key == null) {
+            return this;
+        }
+        int separator = key.indexOf('/');
+        return withoutCompetition(key.substring(0, separator), key.substring(separator + 1));
+    }
+
+    /**
+     * All competitions, one array per category (legacy shape)
+     */
+    public Document getAllCompetitions() {
+        return allCompetitions;
+    }
+
+    public List<Document> getCompetitionsByCategory(String category) {
+        return competitionsByCategory.getOrDefault(category, Collections.emptyList());
+    }
+
+    /**
+     * Competitions of a category without their match structures
+     */
+    public List<Document> getCatalog(String category) {
+        return catalogs.computeIfAbsent(category,
+            c -> List.copyOf(CompetitionProjection.CATALOG.apply(getCompetitionsByCategory(c))));
+    }
+
+    public Document getCompetition(String category, String competitionId) {
+        return competitionsByKey.get(key(category, competitionId));
+    }
+
+    /**
+     * Constant-time lookup of a match inside one competition
+     */
+    public MatchLocation findMatch(String category, String competitionId, String matchId) {
+        Map<String, MatchLocation> matches = matchesByKey.get(key(category, competitionId));
+        return matches != null ? matches.get(matchId) : null;
+    }
+
+    /**
+     * Matches of every competition kicking off in [from, to), in kick-off order
+     *
+     * @param category optional category filter
+     * @param statuses optional status filter (see {@link FixtureCalendar#statusOf})
+     * @param cursor   'nextCursor' of the previous page, or null
+     */
+    public FixtureCalendar.Page getFixtures(Instant from, Instant to, String category, Set<String> statuses,
+                                            String cursor, int limit) {
+        return calendar.find(from, to, category, statuses, cursor, limit, (key, matchId) -> {
+            Map<String, MatchLocation> matches = matchesByKey.get(key);
+            return matches != null ? matches.get(matchId) : null;
+        });
+    }
+
+    /**
+     * Constant-time lookup of a match by competition ID alone, without its category
+     * (match IDs are only unique within a competition)
+     */
+    public MatchLocation findMatch(String competitionId, String matchId) {
+        String key = keysByCompetitionMatch.get(matchKey(competitionId, matchId));
+        if (key == null) {
+            return null;
+        }
+        Map<String, MatchLocation> matches = matchesByKey.get(key);
+        return matches != null ? matches.get(matchId) : null;
+    }
+
+    /**
+     * Strong ETag of one competition: its Mongo '_id' and version, so a deleted and re-created
+     * competition never reuses an old tag
+     */
+    public String getCompetitionETag(String category, String competitionId) {
+        return etagsByKey.get(key(category, competitionId));
+    }
+
+    /**
+     * Strong ETag of a category list, derived from the tags of its competitions
+     */
+    public String getCategoryETag(String category) {
+        return categoryETags.computeIfAbsent(category, c -> {
+            MessageDigest digest = sha256();
+            digest.update(c.getBytes(StandardCharsets.UTF_8));
+            addETags(digest, c);
+            return quoted(digest);
+        });
+    }
+
+    /**
+     * Strong ETag of all competitions
+     */
+    public String getAllCompetitionsETag() {
+        String etag = allCompetitionsETag;
+        if (etag == null) {
+            MessageDigest digest = sha256();
+            for (String category : CompetitionsRepository.CATEGORIES) {
+                digest.update(category.getBytes(StandardCharsets.UTF_8));
+                addETags(digest, category);
+            }
+            etag = quoted(digest);
+            allCompetitionsETag = etag;
+        }
+        return etag;
+    }
+
+    public CompetitionSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public int size() {
+        return competitionsByKey.size();
+    }
+
+    static String key(String category, String competitionId) {
+        return category + "/" + competitionId;
+    }
+
+    private void addETags(MessageDigest digest, String category) {
+        for (Document competition : getCompetitionsByCategory(category)) {
+            String etag = etagsByKey.get(key(category, competition.getString("id")));
+            digest.update((etag != null ? etag : "").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static String etagOf(Document entry) {
+        return etagOf(entry, 0);
+    }
+
+    /**
+     * The stored ETag, plus the catalog stamp of its teams so a team edit also changes it
+     */
+    private static String etagOf(Document entry, long teamsStamp) {
+        return "\"" + entry.get("_id") + "-" + CompetitionsRepository.versionOf(entry)
+            + (teamsStamp > 0 ? "-t" + teamsStamp : "") + "\"";
+    }
+
+    private static String quoted(MessageDigest digest) {
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stored entry without its storage-only fields
+     */
+    private static Document toCompetition(Document entry) {
+        Document competition = new Document(entry);
+        competition.remove("_id");
+        competition.remove("category");
+        competition.remove(MatchResultOutboxRepository.PENDING_FIELD);
+        return competition;
+    }
+
+    /**
+     * Register a competition's matches in the (competitionId, matchId) index. When two categories
+     * hold the same competition ID, the competition indexed first keeps its matches.
+     */
+    private static void addToMatchIndex(Map<String, String> keysByCompetitionMatch, String key, Iterable<String> matchIds) {
+        String competitionId = competitionIdOf(key);
+        for (String matchId : matchIds) {
+            String existing = keysByCompetitionMatch.putIfAbsent(matchKey(competitionId, matchId), key);
+            if (existing != null && !existing.equals(key)) {
+                System.err.println("⚠️ Match " + matchId + " exists in " + existing + " and " + key + "; keeping " + existing);
+            }
+        }
+    }
+
+    private static void removeFromMatchIndex(Map<String, String> keysByCompetitionMatch, String key, Iterable<String> matchIds) {
+        String competitionId = competitionIdOf(key);
+        for (String matchId : matchIds) {
+            keysByCompetitionMatch.remove(matchKey(competitionId, matchId), key);
+        }
+    }
+
+    private static String matchKey(String competitionId, String matchId) {
+        return competitionId + "/" + matchId;
+    }
+
+    private static String competitionIdOf(String key) {
+        return key.substring(key.indexOf('/') + 1);
+    }
+
+    private static int indexOf(List<Document> competitions, String competitionId) {
+        for (int i = 0; i < competitions.size(); i++) {
+            if (competitionId.equals(competitions.get(i).getString("id"))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Map<String, List<Document>> freeze(Map<String, List<Document>> byCategory) {
+        Map<String, List<Document>> frozen = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Document>> entry : byCategory.entrySet()) {
+            // List.copyOf returns already-immutable lists as-is, so untouched categories are shared
+            frozen.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(frozen);
+    }
+}
@@ -0,0 +1,362 @@
+package com.leon.ideas.competitions.repository;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process cache of the whole competitions dataset.
+ *
+ * Reads are served from an immutable {@link CompetitionsSnapshot}. The snapshot is swapped
+ * atomically after every successful write made through {@link CompetitionsRepository}, and a
+ * Mongo change stream applies writes made by other instances. When change streams are not
+ * available (standalone Mongo) the cache falls back to a periodic full reload.
+ * On startup it is warmed from the local {@link CompetitionsSnapshotFile} when one exists. The
+ * change stream then resumes from the export time and replays the changes made since on top of
+ * it, so the warm snapshot is kept instead of being replaced by a full reload (which only happens
+ * when Mongo no longer has that history, or has no change streams).
+ */
+@Component
+public class CompetitionsSnapshotCache {
+
+    @Autowired
+    private MongoTemplate competitionsMongoTemplate;
+
+    @Autowired
+    private CompetitionsSnapshotFile snapshotFile;
+
+    @Autowired
+    private TeamCatalogRepository teamCatalogRepository;
+
+    @Value("${competitions.cache.fallback-reload-interval-ms:30000}")
+    private long fallbackReloadIntervalMs;
+
+    @Value("${competitions.cache.watch-changes:true}")
+    private boolean watchChanges;
+
+    /**
+     * How far before the export time the change stream resumes (clock skew between this host and Mongo)
+     */
+    private static final long RESUME_MARGIN_MS = 60_000;
+
+    private final AtomicReference<CompetitionsSnapshot> current = new AtomicReference<>();
+    private final AtomicLong lastSyncedAt = new AtomicLong(0);
+    private final Object loadLock = new Object();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile boolean running = true;
+    private volatile boolean syncedWithMongo = false;
+    private volatile long warmExportedAt = 0;
+    private Thread watcher;
+
+    public CompetitionsSnapshotCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("competitions.cache.requests")
+            .tag("result", "hit")
+            .description("Competition reads served from the in-process snapshot")
+            .register(meterRegistry);
+        this.misses = Counter.builder("competitions.cache.requests")
+            .tag("result", "miss")
+            .description("Competition reads that had to load the snapshot from Mongo")
+            .register(meterRegistry);
+
+        Gauge.builder("competitions.cache.hit.ratio", this, CompetitionsSnapshotCache::hitRatio)
+            .description("Share of competition reads served without a Mongo round trip")
+            .register(meterRegistry);
+        Gauge.builder("competitions.cache.staleness", this, CompetitionsSnapshotCache::stalenessSeconds)
+            .baseUnit("seconds")
+            .description("Time since the snapshot was last confirmed in sync with Mongo")
+            .register(meterRegistry);
+        Gauge.builder("competitions.cache.size", this, cache -> {
+                CompetitionsSnapshot snapshot = cache.current.get();
+                return snapshot != null ? snapshot.size() : 0;
+            })
+            .description("Competitions held in the snapshot")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Current snapshot, loading it from Mongo on first use
+     */
+    public CompetitionsSnapshot snapshot() {
+        CompetitionsSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        synchronized (loadLock) {
+            snapshot = current.get();
+            return snapshot != null ? snapshot : reload();
+        }
+    }
+
+    /**
+     * Full reload from Mongo. Competitions refreshed to a newer version while it was reading
+     * (write-through or change stream) keep that version.
+     */
+    public CompetitionsSnapshot reload() {
+        long startedAt = System.currentTimeMillis();
+        Query query = new Query();
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        List<Document> entries = competitionsMongoTemplate.find(
+            query, Document.class, CompetitionsRepository.COLLECTION_NAME);
+
+        CompetitionsSnapshot loaded = CompetitionsSnapshot.of(entries, teamCatalogRepository.reload());
+        CompetitionsSnapshot snapshot = current.updateAndGet(previous -> previous != null ? loaded.withNewerEntriesOf(previous) : loaded);
+        lastSyncedAt.set(startedAt);
+        syncedWithMongo = true;
+        return snapshot;
+    }
+
+    /**
+     * Re-hydrate the cached competitions that list a team changed in the given catalog
+     */
+    public void applyTeams(TeamCatalog teams) {
+        current.updateAndGet(snapshot -> snapshot != null ? snapshot.withTeams(teams) : null);
+    }
+
+    /**
+     * Team catalog edits made by other instances do not go through the competitions change
+     * stream, so the catalog is re-read on a timer and only the affected competitions rebuilt
+     */
+    @Scheduled(fixedDelayString = "${competitions.teams.reload-interval-ms:60000}")
+    public void syncTeams() {
+        if (current.get() != null) {
+            applyTeams(teamCatalogRepository.reload());
+        }
+    }
+
+    /**
+     * Serve reads from the last exported snapshot file (competitions and the team catalog they
+     * were exported with, so ETags carry the same team stamp as after a Mongo load) until the
+     * change stream has caught up. The staleness gauge starts at the export time.
+     */
+    @PostConstruct
+    public void warmFromFile() {
+        long startedAt = System.currentTimeMillis();
+        CompetitionsSnapshotFile.Contents contents = snapshotFile.load();
+        if (contents == null) {
+            return;
+        }
+        CompetitionsSnapshot snapshot = CompetitionsSnapshot.of(contents.getEntries(), TeamCatalog.of(contents.getTeams()));
+        if (current.compareAndSet(null, snapshot)) {
+            lastSyncedAt.set(contents.getExportedAt());
+            warmExportedAt = contents.getExportedAt();
+            System.out.println("✅ Competitions snapshot warmed from file: " + snapshot.size() + " competitions in "
+                + (System.currentTimeMillis() - startedAt) + " ms");
+        }
+    }
+
+    /**
+     * Current snapshot without triggering a load (null when nothing is cached)
+     */
+    public CompetitionsSnapshot currentIfLoaded() {
+        return current.get();
+    }
+
+    /**
+     * Re-read one competition after a write and swap it into the snapshot
+     */
+    public void refresh(String category, String competitionId) {
+        if (current.get() == null) {
+            return; // Nothing cached yet; the next read loads everything
+        }
+        try {
+            Query query = new Query(Criteria.where("category").is(category).and("id").is(competitionId));
+            Document entry = competitionsMongoTemplate.findOne(
+                query, Document.class, CompetitionsRepository.COLLECTION_NAME);
+            if (entry != null) {
+                current.updateAndGet(snapshot -> snapshot.withEntry(entry));
+            } else {
+                current.updateAndGet(snapshot -> snapshot.withoutCompetition(category, competitionId));
+            }
+        } catch (Exception e) {
+            // Drop the snapshot rather than serve data we know is outdated
+            System.err.println("❌ Error refreshing cached competition " + category + "/" + competitionId + ": " + e.getMessage());
+            current.set(null);
+        }
+    }
+
+    /**
+     * Forget everything; the next read reloads from Mongo
+     */
+    public void invalidate() {
+        current.set(null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatching() {
+        if (!watchChanges) {
+            return;
+        }
+        watcher = new Thread(this::watchChanges, "competitions-change-stream");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void stopWatching() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    /**
+     * Follow the competitions collection so writes from other instances reach this snapshot.
+     * Every empty poll also confirms the snapshot is current, which keeps the staleness gauge honest.
+     */
+    private void watchChanges() {
+        while (running) {
+            boolean resumingWarm = !syncedWithMongo && warmExportedAt > 0 && current.get() != null;
+            ChangeStreamIterable<Document> stream = competitionsMongoTemplate
+                .getCollection(CompetitionsRepository.COLLECTION_NAME)
+                .watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumingWarm) {
+                // Replaying changes is idempotent: each one carries the full current document
+                stream = stream.startAtOperationTime(
+                    new BsonTimestamp((int) ((warmExportedAt - RESUME_MARGIN_MS) / 1000), 0));
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                if (!resumingWarm) {
+                    // Load only once the stream is open, so no change can fall between the two
+                    reload();
+                }
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        apply(change);
+                        continue;
+                    }
+                    if (!syncedWithMongo) {
+                        // Caught up with the changes since the export; the catalog may have moved too
+                        syncedWithMongo = true;
+                        applyTeams(teamCatalogRepository.reload());
+                        System.out.println("✅ Competitions snapshot from file caught up with Mongo");
+                    }
+                    lastSyncedAt.set(System.currentTimeMillis());
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                if (resumingWarm) {
+                    // The changes since the export are gone (or there is no change stream): load everything
+                    System.err.println("⚠️ Could not resume competitions change stream from the snapshot file: " + e.getMessage());
+                    warmExportedAt = 0;
+                    reconcileWarmSnapshot();
+                    continue;
+                }
+                System.err.println("⚠️ Competitions change stream unavailable, reloading every "
+                    + fallbackReloadIntervalMs + " ms: " + e.getMessage());
+                reconcileWarmSnapshot();
+                pollingFallback();
+            }
+        }
+    }
+
+    private void apply(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Document entry = change.getFullDocument();
+                if (entry != null) {
+                    current.updateAndGet(snapshot -> snapshot != null ? snapshot.withEntry(entry) : null);
+                }
+            }
+            case DELETE -> {
+                Object objectId = documentKeyId(change);
+                if (objectId != null) {
+                    current.updateAndGet(snapshot -> snapshot != null ? snapshot.withoutObjectId(objectId) : null);
+                }
+            }
+            default -> reload(); // drop, rename, invalidate...
+        }
+    }
+
+    /**
+     * The '_id' of a change as the driver decodes it in a Document, so it matches the snapshot keys
+     */
+    private Object documentKeyId(ChangeStreamDocument<Document> change) {
+        BsonDocument documentKey = change.getDocumentKey();
+        if (documentKey == null || !documentKey.containsKey("_id")) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue();
+        }
+        if (id.isString()) {
+            return id.asString().getValue();
+        }
+        return null;
+    }
+
+    /**
+     * A snapshot warmed from file that cannot be brought up to date by the change stream is
+     * replaced by live data right away, not after a fallback period
+     */
+    private void reconcileWarmSnapshot() {
+        if (syncedWithMongo) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            System.err.println("❌ Error reconciling competitions snapshot with Mongo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One fallback period of full reloads, then the change stream is retried
+     */
+    private void pollingFallback() {
+        try {
+            Thread.sleep(fallbackReloadIntervalMs);
+            reload();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } catch (Exception e) {
+            System.err.println("❌ Error reloading competitions snapshot: " + e.getMessage());
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private double stalenessSeconds() {
+        long syncedAt = lastSyncedAt.get();
+        return syncedAt == 0 ? 0 : (System.currentTimeMillis() - syncedAt) / 1000.0;
+    }
+}
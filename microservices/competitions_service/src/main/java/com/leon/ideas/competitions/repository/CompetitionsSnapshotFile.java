@@ -0,0 +1,215 @@
+package com.leon.ideas.competitions.repository;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary copy of the competitions collection and the team catalog on local disk, used to warm
+ * the snapshot cache before the first Mongo round trip.
+ *
+ * Layout (header big-endian):
+ *   magic "CSNP" (int) | format version (int) | exportedAt millis (long) | entry count (int) | team count (int)
+ *   entry count x competition BSON document, then team count x team BSON document
+ *   (each already prefixed with its little-endian int32 length)
+ *   CRC32 of the documents (long)
+ *
+ * The file is written to a temporary file and moved into place, so readers never see a partial file.
+ */
+@Component
+public class CompetitionsSnapshotFile {
+
+    private static final int MAGIC = 0x43534E50; // "CSNP"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+
+    private static final DocumentCodec CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    @Autowired
+    private MongoTemplate competitionsMongoTemplate;
+
+    @Value("${competitions.snapshot-file.enabled:true}")
+    private boolean enabled;
+
+    @Value("${competitions.snapshot-file.path:data/competitions.snapshot}")
+    private String path;
+
+    /**
+     * Entries read back from a snapshot file
+     */
+    public static final class Contents {
+        private final long exportedAt;
+        private final List<Document> entries;
+        private final List<Document> teams;
+
+        private Contents(long exportedAt, List<Document> entries, List<Document> teams) {
+            this.exportedAt = exportedAt;
+            this.entries = entries;
+            this.teams = teams;
+        }
+
+        public long getExportedAt() {
+            return exportedAt;
+        }
+
+        public List<Document> getEntries() {
+            return entries;
+        }
+
+        public List<Document> getTeams() {
+            return teams;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stream the live collection and the team catalog into a new snapshot file; memory use does
+     * not depend on the collection size
+     *
+     * @return number of competitions written
+     */
+    public int export() throws IOException {
+        Path target = Paths.get(path).toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "competitions", ".snapshot.tmp");
+
+        long exportedAt = System.currentTimeMillis();
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            channel.position(HEADER_SIZE);
+            OutputStream body = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)), crc);
+
+            // Entries are stored as in Mongo, with the catalog they are hydrated with on load
+            Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+            try (Stream<Document> stream = competitionsMongoTemplate.stream(
+                    query, Document.class, CompetitionsRepository.COLLECTION_NAME)) {
+                Iterator<Document> entries = stream.iterator();
+                while (entries.hasNext()) {
+                    write(body, entries.next());
+                    count++;
+                }
+            }
+            List<Document> teams = competitionsMongoTemplate.findAll(Document.class, TeamCatalogRepository.COLLECTION_NAME);
+            for (Document team : teams) {
+                write(body, team);
+            }
+            body.flush();
+
+            ByteBuffer trailer = ByteBuffer.allocate(8).putLong(crc.getValue());
+            trailer.flip();
+            channel.write(trailer, channel.position());
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC).putInt(FORMAT_VERSION).putLong(exportedAt).putInt(count).putInt(teams.size());
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private static void write(OutputStream body, Document document) throws IOException {
+        ByteBuffer bson = new RawBsonDocument(document, CODEC).getByteBuffer().asNIO();
+        byte[] bytes = new byte[bson.remaining()];
+        bson.get(bytes);
+        body.write(bytes);
+    }
+
+    /**
+     * Read and decode the snapshot file in one sequential pass (no size limit).
+     *
+     * @return the stored entries and teams, or null when there is no usable file (missing, other format, corrupt)
+     */
+    public Contents load() {
+        if (!enabled) {
+            return null;
+        }
+        Path source = Paths.get(path).toAbsolutePath();
+        if (!Files.isRegularFile(source)) {
+            return null;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (Files.size(source) < HEADER_SIZE + 8 || input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                System.err.println("⚠️ Ignoring competitions snapshot file with unknown format: " + source);
+                return null;
+            }
+            long exportedAt = input.readLong();
+            int count = input.readInt();
+            int teamCount = input.readInt();
+
+            CRC32 crc = new CRC32();
+            DataInputStream body = new DataInputStream(new CheckedInputStream(input, crc));
+            List<Document> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entries.add(read(body));
+            }
+            List<Document> teams = new ArrayList<>(teamCount);
+            for (int i = 0; i < teamCount; i++) {
+                teams.add(read(body));
+            }
+            if (crc.getValue() != input.readLong()) {
+                System.err.println("⚠️ Ignoring corrupt competitions snapshot file: " + source);
+                return null;
+            }
+            return new Contents(exportedAt, entries, teams);
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not read competitions snapshot file " + source + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * One BSON document; it starts with its own little-endian length
+     */
+    private static Document read(DataInputStream body) throws IOException {
+        byte[] prefix = new byte[4];
+        body.readFully(prefix);
+        int length = ByteBuffer.wrap(prefix).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        if (length < 5) {
+            throw new IOException("invalid document length " + length);
+        }
+        byte[] bytes = new byte[length];
+        System.arraycopy(prefix, 0, bytes, 0, 4);
+        body.readFully(bytes, 4, length - 4);
+        return new RawBsonDocument(bytes).decode(CODEC);
+    }
+}
@@ -0,0 +1,282 @@
+package com.leon.ideas.competitions.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Immutable, kick-off ordered index of every match of every competition.
+ *
+ * Entries only hold the kick-off time and the match identity; the match itself is resolved from
+ * the snapshot's match directory when a page is read, so result updates (which keep every
+ * kick-off time) share the calendar as-is. A competition whose fixtures changed is merged back
+ * into the sorted array in one linear pass.
+ */
+public final class FixtureCalendar {
+
+    private static final Comparator<Entry> ORDER = Comparator
+        .comparingLong((Entry entry) -> entry.kickoff)
+        .thenComparing(entry -> entry.key)
+        .thenComparing(entry -> entry.matchId);
+
+    private final Entry[] entries;
+    private final Map<String, List<Entry>> entriesByKey;
+
+    private FixtureCalendar(Entry[] entries, Map<String, List<Entry>> entriesByKey) {
+        this.entries = entries;
+        this.entriesByKey = entriesByKey;
+    }
+
+    /**
+     * One page of matches in kick-off order
+     */
+    public static final class Page {
+        private final List<MatchLocation> matches;
+        private final String nextCursor;
+
+        private Page(List<MatchLocation> matches, String nextCursor) {
+            this.matches = matches;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<MatchLocation> getMatches() {
+            return matches;
+        }
+
+        /**
+         * Cursor of the following page, or null when this is the last one
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    private static final class Entry {
+        private final long kickoff;
+        private final String key;
+        private final String matchId;
+
+        private Entry(long kickoff, String key, String matchId) {
+            this.kickoff = kickoff;
+            this.key = key;
+            this.matchId = matchId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Entry)) {
+                return false;
+            }
+            Entry entry = (Entry) other;
+            return kickoff == entry.kickoff && key.equals(entry.key) && matchId.equals(entry.matchId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kickoff, key, matchId);
+        }
+    }
+
+    static FixtureCalendar of(Map<String, Map<String, MatchLocation>> matchesByKey) {
+        Map<String, List<Entry>> byKey = new HashMap<>();
+        List<Entry> all = new ArrayList<>();
+        for (Map.Entry<String, Map<String, MatchLocation>> competition : matchesByKey.entrySet()) {
+            List<Entry> entries = entriesOf(competition.getKey(), competition.getValue());
+            if (!entries.isEmpty()) {
+                byKey.put(competition.getKey(), entries);
+                all.addAll(entries);
+            }
+        }
+        all.sort(ORDER);
+        return new FixtureCalendar(all.toArray(new Entry[0]), byKey);
+    }
+
+    /**
+     * Calendar with one competition's matches replaced; this instance when their kick-offs did not change
+     */
+    FixtureCalendar with(String key, Map<String, MatchLocation> matches) {
+        List<Entry> next = entriesOf(key, matches);
+        List<Entry> previous = entriesByKey.getOrDefault(key, Collections.emptyList());
+        if (next.equals(previous)) {
+            return this;
+        }
+
+        Entry[] merged = new Entry[entries.length - previous.size() + next.size()];
+        int out = 0;
+        int nextIndex = 0;
+        for (Entry entry : entries) {
+            if (entry.key.equals(key)) {
+                continue;
+            }
+            while (nextIndex < next.size() && ORDER.compare(next.get(nextIndex), entry) < 0) {
+                merged[out++] = next.get(nextIndex++);
+            }
+            merged[out++] = entry;
+        }
+        while (nextIndex < next.size()) {
+            merged[out++] = next.get(nextIndex++);
+        }
+
+        Map<String, List<Entry>> byKey = new HashMap<>(entriesByKey);
+        if (next.isEmpty()) {
+            byKey.remove(key);
+        } else {
+            byKey.put(key, next);
+        }
+        return new FixtureCalendar(merged, byKey);
+    }
+
+    FixtureCalendar without(String key) {
+        return with(key, Collections.emptyMap());
+    }
+
+    /**
+     * Matches kicking off in [from, to), optionally only of one category and of some statuses
+     *
+     * @param cursor   'nextCursor' of the previous page, or null for the first page
+     * @param resolver (competition key, matchId) -> current match location
+     * @throws IllegalArgumentException for a cursor this calendar did not produce
+     */
+    Page find(Instant from, Instant to, String category, Set<String> statuses, String cursor, int limit,
+              BiFunction<String, String, MatchLocation> resolver) {
+        int index = cursor != null ? upperBound(decode(cursor)) : lowerBound(from.toEpochMilli());
+        long end = to.toEpochMilli();
+        String keyPrefix = category != null ? category + "/" : null;
+
+        List<MatchLocation> page = new ArrayList<>();
+        Entry last = null;
+        for (; index < entries.length && entries[index].kickoff < end; index++) {
+            Entry entry = entries[index];
+            if (entry.kickoff < from.toEpochMilli() || (keyPrefix != null && !entry.key.startsWith(keyPrefix))) {
+                continue;
+            }
+            MatchLocation location = resolver.apply(entry.key, entry.matchId);
+            if (location == null || (statuses != null && !statuses.contains(statusOf(location)))) {
+                continue;
+            }
+            if (page.size() == limit) {
+                return new Page(page, encode(last)); // There is at least one more
+            }
+            page.add(location);
+            last = entry;
+        }
+        return new Page(page, null);
+    }
+
+    /**
+     * The match status; matches without one are 'finished' once played and 'scheduled' before
+     */
+    public static String statusOf(MatchLocation location) {
+        Object status = location.getMatch().get("status");
+        if (status instanceof String) {
+            return (String) status;
+        }
+        return Boolean.TRUE.equals(location.getMatch().get("isPlayed")) ? "finished" : "scheduled";
+    }
+
+    private int lowerBound(long kickoff) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid].kickoff < kickoff) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(Entry after) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ORDER.compare(entries[mid], after) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static List<Entry> entriesOf(String key, Map<String, MatchLocation> matches) {
+        List<Entry> entries = new ArrayList<>();
+        for (MatchLocation location : matches.values()) {
+            Long kickoff = kickoffOf(location.getMatch().get("matchDate"));
+            if (kickoff != null) {
+                entries.add(new Entry(kickoff, key, location.getMatch().getString("matchId")));
+            }
+        }
+        entries.sort(ORDER);
+        return entries;
+    }
+
+    /**
+     * Kick-off in epoch millis from a stored 'matchDate' (BSON date or ISO-8601 text), or null
+     */
+    private static Long kickoffOf(Object matchDate) {
+        if (matchDate instanceof Date) {
+            return ((Date) matchDate).getTime();
+        }
+        Instant kickoff = matchDate instanceof String ? parseInstant((String) matchDate) : null;
+        return kickoff != null ? kickoff.toEpochMilli() : null;
+    }
+
+    /**
+     * ISO-8601 instant, offset date-time, local date-time or date (local values are UTC), or null
+     */
+    public static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+        } catch (DateTimeParseException ignored) {
+        }
+        return null;
+    }
+
+    private static String encode(Entry entry) {
+        String raw = entry.kickoff + "\n" + entry.key + "\n" + entry.matchId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Entry decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 3);
+            return new Entry(Long.parseLong(parts[0]), parts[1], parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.leon.ideas.competitions.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-play state of live matches (score, minute, status), one document per match in 'live_match_states'.
+ *
+ * Kept out of the competition documents on purpose: a tick is not a result, so it must not record
+ * a result event, touch the standings or bump the competition version (and with it every read
+ * ETag and cached response). The final state of a match goes through the result path instead.
+ * Entries expire once their match has not ticked for a while.
+ */
+@Repository
+public class LiveMatchStateRepository {
+
+    static final String COLLECTION_NAME = "live_match_states";
+
+    static final String UPDATED_AT_FIELD = "updatedAt";
+
+    @Autowired
+    private MongoTemplate competitionsMongoTemplate;
+
+    @Value("${competitions.live.ticks.state-ttl-hours:24}")
+    private long stateTtlHours;
+
+    public void ensureIndexes() {
+        competitionsMongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("category", Sort.Direction.ASC).on("competitionId", Sort.Direction.ASC).named("competition"));
+        competitionsMongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on(UPDATED_AT_FIELD, Sort.Direction.ASC).expire(Duration.ofHours(stateTtlHours)).named("updated_at_ttl"));
+    }
+
+    /**
+     * Upsert the given state of every match in one unordered bulk write
+     *
+     * @return one outcome per update, in order (UPDATED or FAILED)
+     */
+    public List<MatchResultUpdate.Outcome> saveStates(List<MatchResultUpdate> states) {
+        List<MatchResultUpdate.Outcome> outcomes = new ArrayList<>(Collections.nCopies(states.size(), MatchResultUpdate.Outcome.UPDATED));
+        if (states.isEmpty()) {
+            return outcomes;
+        }
+        Date now = new Date();
+        BulkOperations bulk = competitionsMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION_NAME);
+        for (MatchResultUpdate state : states) {
+            Update update = new Update()
+                .set("category", state.getCategory())
+                .set("competitionId", state.getCompetitionId())
+                .set("matchId", state.getMatchId())
+                .set(UPDATED_AT_FIELD, now);
+            for (Map.Entry<String, Object> field : state.getResults().entrySet()) {
+                update.set("state." + field.getKey(), field.getValue());
+            }
+            bulk.upsert(new Query(Criteria.where("_id").is(id(state.getCategory(), state.getCompetitionId(), state.getMatchId()))), update);
+        }
+
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                outcomes.set(error.getIndex(), MatchResultUpdate.Outcome.FAILED);
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error saving live match states: " + e.getMessage());
+            Collections.fill(outcomes, MatchResultUpdate.Outcome.FAILED);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Stored in-play state of one match, or null
+     */
+    public Document findState(String category, String competitionId, String matchId) {
+        Document stored = competitionsMongoTemplate.findById(id(category, competitionId, matchId), Document.class, COLLECTION_NAME);
+        return stored != null ? stored.get("state", Document.class) : null;
+    }
+
+    /**
+     * In-play states of a competition's matches: { matchId, state } per match
+     */
+    public List<Document> findStates(String category, String competitionId) {
+        Query query = new Query(Criteria.where("category").is(category).and("competitionId").is(competitionId));
+        query.fields().include("matchId").include("state").exclude("_id");
+        return competitionsMongoTemplate.find(query, Document.class, COLLECTION_NAME);
+    }
+
+    /**
+     * States saved at or after the given time, oldest first: { category, competitionId, matchId, state, updatedAt }
+     */
+    public List<Document> findUpdatedSince(Date since, int limit) {
+        Query query = new Query(Criteria.where(UPDATED_AT_FIELD).gte(since))
+            .with(Sort.by(Sort.Direction.ASC, UPDATED_AT_FIELD))
+            .limit(limit);
+        query.fields().exclude("_id");
+        return competitionsMongoTemplate.find(query, Document.class, COLLECTION_NAME);
+    }
+
+    /**
+     * Forget a match once its final state was written as a result
+     */
+    public void deleteState(String category, String competitionId, String matchId) {
+        competitionsMongoTemplate.remove(new Query(Criteria.where("_id").is(id(category, competitionId, matchId))), COLLECTION_NAME);
+    }
+
+    private static String id(String category, String competitionId, String matchId) {
+        return category + "/" + competitionId + "/" + matchId;
+    }
+}
@@ -0,0 +1,86 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the matchId -> {@link MatchLocation} map of one competition.
+ *
+ * Built once when a competition enters the snapshot, so match reads and result updates
+ * no longer walk every stage, group and match.
+ */
+final class MatchDirectory {
+
+    private MatchDirectory() {
+    }
+
+    /**
+     * Index every match of a competition. When a matchId appears in both structures the
+     * tournamentStructure one wins, as it did for the nested scans.
+     */
+    static Map<String, MatchLocation> index(String category, Document competition) {
+        String competitionId = competition.getString("id");
+        Map<String, MatchLocation> matches = new HashMap<>();
+        indexStructure(category, competitionId, competition, MatchLocation.TOURNAMENT_STRUCTURE, matches);
+        indexStructure(category, competitionId, competition, MatchLocation.GROUPS_KIND_TOURNAMENT, matches);
+        return matches.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(matches);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void indexStructure(String category, String competitionId, Document competition,
+                                       String structureField, Map<String, MatchLocation> matches) {
+        if (!(competition.get(structureField) instanceof Document)) {
+            return;
+        }
+        Document structure = (Document) competition.get(structureField);
+        if (!(structure.get("stages") instanceof Map)) {
+            return;
+        }
+
+        Map<String, Object> stages = (Map<String, Object>) structure.get("stages");
+        for (Map.Entry<String, Object> stageEntry : stages.entrySet()) {
+            if (!(stageEntry.getValue() instanceof Document)) {
+                continue;
+            }
+            Document stage = (Document) stageEntry.getValue();
+            String stageId = stageEntry.getKey();
+
+            // Knockout stages
+            if (stage.get("matches") instanceof List) {
+                indexMatches(category, competitionId, structureField, stageId, -1,
+                    (List<Object>) stage.get("matches"), matches);
+            }
+
+            // Group stages
+            if (stage.get("groups") instanceof List) {
+                List<Object> groups = (List<Object>) stage.get("groups");
+                for (int g = 0; g < groups.size(); g++) {
+                    if (groups.get(g) instanceof Document && ((Document) groups.get(g)).get("matches") instanceof List) {
+                        indexMatches(category, competitionId, structureField, stageId, g,
+                            (List<Object>) ((Document) groups.get(g)).get("matches"), matches);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void indexMatches(String category, String competitionId, String structureField,
+                                     String stageId, int groupIndex, List<Object> stageMatches,
+                                     Map<String, MatchLocation> matches) {
+        for (int m = 0; m < stageMatches.size(); m++) {
+            if (!(stageMatches.get(m) instanceof Document)) {
+                continue;
+            }
+            Document match = (Document) stageMatches.get(m);
+            String matchId = match.getString("matchId");
+            if (matchId != null) {
+                matches.putIfAbsent(matchId, new MatchLocation(
+                    category, competitionId, structureField, stageId, groupIndex, m, match));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+
+/**
+ * Where a match lives: its competition, the structure holding it and the storage path
+ * inside the competition document (e.g. "tournamentStructure.stages.group-stage.groups.0.matches.3").
+ */
+public final class MatchLocation {
+
+    public static final String TOURNAMENT_STRUCTURE = "tournamentStructure";
+    public static final String GROUPS_KIND_TOURNAMENT = "groupsKindTournament";
+
+    private final String category;
+    private final String competitionId;
+    private final String structureField;
+    private final String stageId;
+    private final int groupIndex;
+    private final int matchIndex;
+    private final String path;
+    private final Document match;
+
+    MatchLocation(String category, String competitionId, String structureField,
+                  String stageId, int groupIndex, int matchIndex, Document match) {
+        this.category = category;
+        this.competitionId = competitionId;
+        this.structureField = structureField;
+        this.stageId = stageId;
+        this.groupIndex = groupIndex;
+        this.matchIndex = matchIndex;
+        this.match = match;
+        this.path = structureField + ".stages." + stageId
+            + (groupIndex >= 0 ? ".groups." + groupIndex : "")
+            + ".matches." + matchIndex;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getCompetitionId() {
+        return competitionId;
+    }
+
+    public String getStructureField() {
+        return structureField;
+    }
+
+    public String getStageId() {
+        return stageId;
+    }
+
+    /**
+     * Index of the group inside the stage, or -1 for knockout matches
+     */
+    public int getGroupIndex() {
+        return groupIndex;
+    }
+
+    public int getMatchIndex() {
+        return matchIndex;
+    }
+
+    /**
+     * Path of the match inside its competition document
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * The match as held by the snapshot (shared, read-only)
+     */
+    public Document getMatch() {
+        return match;
+    }
+
+    public boolean isInTournamentStructure() {
+        return TOURNAMENT_STRUCTURE.equals(structureField);
+    }
+}
@@ -0,0 +1,325 @@
+package com.leon.ideas.competitions.repository;
+
+import com.leon.ideas.competitions.model.MatchResultEvent;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Outbox of match-result change events ('match_result_events').
+ *
+ * A result write records its events in the competition document itself ({@link #PENDING_FIELD}), in
+ * the same update as the result, so a saved result always has its event. The relay, holding the
+ * outbox lease, moves them here and numbers them with a gap-tolerant, monotonic 'sequence' that
+ * pull consumers page by. Events stay 'pending' until an instance claims and publishes them.
+ * Published events expire after a week.
+ */
+@Repository
+public class MatchResultOutboxRepository {
+
+    static final String COLLECTION_NAME = "match_result_events";
+
+    /**
+     * Competition field holding the events of result writes not yet moved to the outbox
+     */
+    public static final String PENDING_FIELD = "pendingResultEvents";
+
+    /**
+     * Relay lease and sequence counter: a single document
+     */
+    private static final String STATE_COLLECTION_NAME = "match_result_outbox_state";
+    private static final String STATE_ID = "relay";
+
+    private static final Duration PUBLISHED_RETENTION = Duration.ofDays(7);
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1000;
+
+    /**
+     * How long a recorded event waits for its writer to stamp the competition version on it
+     */
+    private static final Duration VERSION_STAMP_GRACE = Duration.ofMinutes(1);
+
+    @Autowired
+    private MongoTemplate competitionsMongoTemplate;
+
+    public void ensureIndexes() {
+        competitionsMongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("publishStatus", Sort.Direction.ASC).on("nextAttemptAt", Sort.Direction.ASC)
+                .named("publishStatus_nextAttemptAt"));
+        competitionsMongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("publishedAt", Sort.Direction.ASC).expire(PUBLISHED_RETENTION).named("publishedAt_ttl"));
+        competitionsMongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("sequence", Sort.Direction.ASC).unique().sparse().named("sequence_unique"));
+        competitionsMongoTemplate.indexOps(CompetitionsRepository.COLLECTION_NAME).ensureIndex(
+            new Index().on(PENDING_FIELD + "._id", Sort.Direction.ASC).sparse().named(PENDING_FIELD));
+    }
+
+    /**
+     * The event of a result write as stored after it, to be recorded in the competition document
+     * by the write itself (see {@link #PENDING_FIELD})
+     */
+    static Document pendingEvent(MatchLocation location, Document match) {
+        return new Document("_id", new ObjectId())
+            .append("category", location.getCategory())
+            .append("competitionId", location.getCompetitionId())
+            .append("matchId", match.getString("matchId"))
+            .append("stageId", location.getStageId())
+            .append("groupLetter", stringOrNull(match.get("groupLetter")))
+            .append("team1Id", stringOrNull(match.get("team1Id")))
+            .append("team2Id", stringOrNull(match.get("team2Id")))
+            .append("team1Score", intOrNull(match.get("team1Score")))
+            .append("team2Score", intOrNull(match.get("team2Score")))
+            .append("winnerTeamId", stringOrNull(match.get("winnerTeamId")))
+            .append("isDraw", booleanOrNull(match.get("isDraw")))
+            .append("extraTime", booleanOrNull(match.get("extraTime")))
+            .append("penalties", booleanOrNull(match.get("penalties")))
+            .append("penaltiesTeam1Score", intOrNull(match.get("penaltiesTeam1Score")))
+            .append("penaltiesTeam2Score", intOrNull(match.get("penaltiesTeam2Score")))
+            .append("isPlayed", booleanOrNull(match.get("isPlayed")))
+            .append("status", stringOrNull(match.get("status")))
+            .append("createdAt", new Date());
+    }
+
+    /**
+     * Take or renew the relay lease; false while another instance holds it
+     */
+    public boolean acquireLease(String owner, Duration lease) {
+        Date now = new Date();
+        Query query = new Query(Criteria.where("_id").is(STATE_ID).orOperator(
+            Criteria.where("owner").is(owner), Criteria.where("leaseUntil").lt(now)));
+        try {
+            competitionsMongoTemplate.upsert(query,
+                new Update().set("owner", owner).set("leaseUntil", new Date(now.getTime() + lease.toMillis())),
+                STATE_COLLECTION_NAME);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Move the events recorded in competition documents into the outbox, numbering them in order.
+     * Only the lease holder moves events, so sequences are handed out and inserted by one instance
+     * at a time. An event already moved by an interrupted run keeps its first sequence.
+     *
+     * @return number of events moved, or -1 when the lease was lost
+     */
+    public int movePending(String owner, int limit) {
+        Date stampCutoff = new Date(System.currentTimeMillis() - VERSION_STAMP_GRACE.toMillis());
+        Query query = new Query(Criteria.where(PENDING_FIELD).elemMatch(isReady(stampCutoff))).limit(limit);
+        query.fields().include(PENDING_FIELD);
+
+        int moved = 0;
+        for (Document competition : competitionsMongoTemplate.find(query, Document.class, CompetitionsRepository.COLLECTION_NAME)) {
+            List<Document> pending = new ArrayList<>();
+            for (Document event : competition.getList(PENDING_FIELD, Document.class)) {
+                if (event.get("competitionVersion") != null || !event.getDate("createdAt").after(stampCutoff)) {
+                    pending.add(event);
+                }
+            }
+            long sequence = allocateSequences(owner, pending.size());
+            if (sequence < 0) {
+                return -1;
+            }
+
+            Date now = new Date();
+            List<Object> eventIds = new ArrayList<>();
+            BulkOperations bulk = competitionsMongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, COLLECTION_NAME);
+            for (Document event : pending) {
+                Update insert = new Update().setOnInsert("sequence", sequence++)
+                    .setOnInsert("publishStatus", MatchResultEvent.STATUS_PENDING)
+                    .setOnInsert("attempts", 0)
+                    .setOnInsert("nextAttemptAt", now);
+                event.forEach((field, value) -> {
+                    if (!"_id".equals(field)) {
+                        insert.setOnInsert(field, value);
+                    }
+                });
+                bulk.upsert(new Query(Criteria.where("_id").is(event.get("_id"))), insert);
+                eventIds.add(event.get("_id"));
+            }
+            bulk.execute();
+
+            // No version bump: the competition itself did not change
+            competitionsMongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(competition.get("_id"))),
+                new Update().pull(PENDING_FIELD, new Document("_id", new Document("$in", eventIds))),
+                CompetitionsRepository.COLLECTION_NAME);
+            moved += pending.size();
+        }
+        return moved;
+    }
+
+    /**
+     * Events are moved once the writer stamped their version, or after a grace period when it
+     * never did (writer stopped in between; the event then has no competitionVersion)
+     */
+    private static Criteria isReady(Date stampCutoff) {
+        return new Criteria().orOperator(
+            Criteria.where("competitionVersion").exists(true),
+            Criteria.where("createdAt").lte(stampCutoff));
+    }
+
+    /**
+     * Number outbox events stored before sequences existed, in _id order
+     *
+     * @return number of events numbered, or -1 when the lease was lost
+     */
+    public int assignMissingSequences(String owner) {
+        Query query = new Query(Criteria.where("sequence").exists(false)).with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.fields().include("_id");
+        List<Document> events = competitionsMongoTemplate.find(query, Document.class, COLLECTION_NAME);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        long sequence = allocateSequences(owner, events.size());
+        if (sequence < 0) {
+            return -1;
+        }
+        for (Document event : events) {
+            competitionsMongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(event.get("_id")).and("sequence").exists(false)),
+                new Update().set("sequence", sequence++), COLLECTION_NAME);
+        }
+        return events.size();
+    }
+
+    /**
+     * Reserve count sequence numbers while holding the lease
+     *
+     * @return the first reserved number, or -1 when the lease is held by another instance
+     */
+    private long allocateSequences(String owner, int count) {
+        Document state = competitionsMongoTemplate.findAndModify(
+            new Query(Criteria.where("_id").is(STATE_ID).and("owner").is(owner)),
+            new Update().inc("lastSequence", (long) count),
+            FindAndModifyOptions.options().returnNew(true),
+            Document.class, STATE_COLLECTION_NAME);
+        if (state == null) {
+            return -1;
+        }
+        return ((Number) state.get("lastSequence")).longValue() - count + 1;
+    }
+
+    /**
+     * Claim pending events due for (re)delivery, lowest sequence first. A claimed event is left
+     * alone by other instances until the claim expires, so it is published by one of them.
+     */
+    public List<MatchResultEvent> claimDue(String owner, int limit, Duration claim) {
+        List<MatchResultEvent> claimed = new ArrayList<>();
+        while (claimed.size() < limit) {
+            Date now = new Date();
+            Query query = new Query(Criteria.where("publishStatus").is(MatchResultEvent.STATUS_PENDING)
+                .and("nextAttemptAt").lte(now)
+                .orOperator(Criteria.where("claimedUntil").exists(false), Criteria.where("claimedUntil").lt(now)))
+                .with(Sort.by(Sort.Direction.ASC, "sequence"));
+            MatchResultEvent event = competitionsMongoTemplate.findAndModify(query,
+                new Update().set("claimedBy", owner).set("claimedUntil", new Date(now.getTime() + claim.toMillis())),
+                FindAndModifyOptions.options().returnNew(true),
+                MatchResultEvent.class, COLLECTION_NAME);
+            if (event == null) {
+                break;
+            }
+            claimed.add(event);
+        }
+        return claimed;
+    }
+
+    /**
+     * Events numbered after the given sequence, in sequence order (pull-based consumers).
+     * An event ID (cursor from before sequences existed) resumes after that event.
+     */
+    public List<MatchResultEvent> findAfter(String after, int limit) {
+        Query query = new Query(Criteria.where("sequence").gt(sequenceOf(after)))
+            .with(Sort.by(Sort.Direction.ASC, "sequence"))
+            .limit(limit);
+        return competitionsMongoTemplate.find(query, MatchResultEvent.class, COLLECTION_NAME);
+    }
+
+    /**
+     * Highest sequence in the outbox, 0 when empty
+     */
+    public long lastSequence() {
+        Query query = new Query(Criteria.where("sequence").exists(true))
+            .with(Sort.by(Sort.Direction.DESC, "sequence"))
+            .limit(1);
+        MatchResultEvent last = competitionsMongoTemplate.findOne(query, MatchResultEvent.class, COLLECTION_NAME);
+        return last != null ? last.getSequence() : 0;
+    }
+
+    private long sequenceOf(String after) {
+        if (after == null || after.isBlank()) {
+            return 0;
+        }
+        if (after.matches("\\d{1,18}")) {
+            return Long.parseLong(after);
+        }
+        if (ObjectId.isValid(after)) {
+            MatchResultEvent event = competitionsMongoTemplate.findById(new ObjectId(after), MatchResultEvent.class, COLLECTION_NAME);
+            if (event != null && event.getSequence() != null) {
+                return event.getSequence();
+            }
+        }
+        return 0;
+    }
+
+    public void markPublished(MatchResultEvent event, String owner) {
+        competitionsMongoTemplate.updateFirst(
+            claimQuery(event, owner),
+            new Update().set("publishStatus", MatchResultEvent.STATUS_PUBLISHED)
+                .set("publishedAt", new Date())
+                .inc("attempts", 1)
+                .unset("lastError")
+                .unset("claimedBy")
+                .unset("claimedUntil"),
+            COLLECTION_NAME);
+    }
+
+    /**
+     * Schedule a retry with exponential backoff, or give up after maxAttempts
+     */
+    public void markFailed(MatchResultEvent event, String owner, String error, int maxAttempts) {
+        int attempts = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+        long backoffMs = Math.min(MAX_BACKOFF_MS, 1000L << Math.min(attempts, 20));
+
+        Update update = new Update().set("attempts", attempts)
+            .set("lastError", error)
+            .set("nextAttemptAt", new Date(System.currentTimeMillis() + backoffMs))
+            .unset("claimedBy")
+            .unset("claimedUntil");
+        if (attempts >= maxAttempts) {
+            update.set("publishStatus", MatchResultEvent.STATUS_FAILED);
+        }
+        competitionsMongoTemplate.updateFirst(claimQuery(event, owner), update, COLLECTION_NAME);
+    }
+
+    private static Query claimQuery(MatchResultEvent event, String owner) {
+        return new Query(Criteria.where("_id").is(new ObjectId(event.getId())).and("claimedBy").is(owner));
+    }
+
+    private static String stringOrNull(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static Integer intOrNull(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    private static Boolean booleanOrNull(Object value) {
+        return value instanceof Boolean ? (Boolean) value : null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.leon.ideas.competitions.repository;
+
+import java.util.Map;
+
+/**
+ * One entry of a bulk match-result write: the fields to set on a tournamentStructure match
+ */
+public final class MatchResultUpdate {
+
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND,
+        DUPLICATE,
+        /** Concurrent writers kept changing the match until the retries ran out */
+        CONFLICT,
+        FAILED
+    }
+
+    private final String category;
+    private final String competitionId;
+    private final String matchId;
+    private final Map<String, Object> results;
+
+    public MatchResultUpdate(String category, String competitionId, String matchId, Map<String, Object> results) {
+        this.category = category;
+        this.competitionId = competitionId;
+        this.matchId = matchId;
+        this.results = results;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getCompetitionId() {
+        return competitionId;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public Map<String, Object> getResults() {
+        return results;
+    }
+}
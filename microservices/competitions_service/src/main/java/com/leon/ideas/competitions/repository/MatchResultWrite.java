@@ -0,0 +1,161 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The single update that writes one or more match results into a competition document.
+ *
+ * Besides the $set of each result it carries the group standings deltas ({@link StandingsEngine})
+ * and the guards that make the positional paths and the deltas safe: the update only matches while
+ * every match (and every team row it increments) still is where, and what, the snapshot said.
+ * A write that loses a race therefore modifies nothing and can be retried from a fresh snapshot.
+ * Only the written matches are guarded, not the competition version, so results of different
+ * matches of the same competition never conflict.
+ * The same update records one outbox event per match in the competition document
+ * ({@link MatchResultOutboxRepository#PENDING_FIELD}). The version the write produced is read back
+ * from the written document and stamped on its events afterwards ({@link #eventsVersion}).
+ */
+final class MatchResultWrite {
+
+    /**
+     * Match fields the standings delta depends on
+     */
+    private static final List<String> STANDINGS_INPUTS = List.of("team1Id", "team2Id", "team1Score", "team2Score", "isPlayed", "status");
+
+    private final String category;
+    private final String competitionId;
+    private final Document competition;
+    private final Map<String, Object> guards = new LinkedHashMap<>();
+    private final Map<String, Object> sets = new LinkedHashMap<>();
+    private final Map<String, Integer> standingsDeltas = new LinkedHashMap<>();
+    private final List<Document> events = new ArrayList<>();
+
+    MatchResultWrite(String category, String competitionId, Document competition) {
+        this.category = category;
+        this.competitionId = competitionId;
+        this.competition = competition;
+    }
+
+    /**
+     * Add one match result (the fields to set on the match)
+     */
+    void add(MatchLocation location, Map<String, Object> results) {
+        Document previous = location.getMatch();
+        String path = location.getPath();
+        guards.put(path + ".matchId", previous.getString("matchId"));
+        for (Map.Entry<String, Object> result : results.entrySet()) {
+            sets.put(path + "." + result.getKey(), result.getValue());
+        }
+
+        Document next = new Document(previous);
+        next.putAll(results);
+        events.add(MatchResultOutboxRepository.pendingEvent(location, next));
+
+        Document group = StandingsEngine.groupOf(competition, location);
+        if (group == null || !appliesStandings()) {
+            return;
+        }
+
+        if (!StandingsEngine.counts(previous) && !StandingsEngine.counts(next)) {
+            return;
+        }
+
+        // The delta is computed from the match as the snapshot knows it
+        for (String field : STANDINGS_INPUTS) {
+            guards.put(path + "." + field, previous.get(field));
+        }
+        String team1Path = teamPath(location, group, previous.getString("team1Id"));
+        String team2Path = teamPath(location, group, previous.getString("team2Id"));
+        StandingsEngine.addContribution(standingsDeltas, team1Path, team2Path, previous, -1);
+        StandingsEngine.addContribution(standingsDeltas, teamPath(location, group, next.getString("team1Id")),
+            teamPath(location, group, next.getString("team2Id")), next, 1);
+    }
+
+    /**
+     * False until the competition's standings were rebuilt from its results: a delta on top of
+     * stats that never included the stored results would be wrong
+     */
+    boolean appliesStandings() {
+        return StandingsEngine.hasBaseline(competition);
+    }
+
+    private String teamPath(MatchLocation location, Document group, String teamId) {
+        int index = StandingsEngine.teamIndex(group, teamId);
+        if (index < 0) {
+            return null;
+        }
+        String teamPath = StandingsEngine.groupPath(location) + ".teams." + index;
+        guards.put(teamPath + ".teamId", teamId);
+        return teamPath;
+    }
+
+    boolean isEmpty() {
+        return sets.isEmpty();
+    }
+
+    /**
+     * The guarded query; it returns only the '_id' and the version of the written document
+     */
+    Query query() {
+        Query query = new Query(Criteria.where("category").is(category).and("id").is(competitionId));
+        query.fields().include(CompetitionsRepository.VERSION_FIELD);
+        for (Map.Entry<String, Object> guard : guards.entrySet()) {
+            query.addCriteria(Criteria.where(guard.getKey()).is(guard.getValue()));
+        }
+        for (Map.Entry<String, Integer> delta : standingsDeltas.entrySet()) {
+            if (delta.getValue() != 0 && !(StandingsEngine.valueAt(competition, delta.getKey()) instanceof Number)) {
+                query.addCriteria(Criteria.where(delta.getKey()).is(null));
+            }
+        }
+        return query;
+    }
+
+    Update update() {
+        Update update = new Update().inc(CompetitionsRepository.VERSION_FIELD, 1);
+        update.push(MatchResultOutboxRepository.PENDING_FIELD).each(events.toArray());
+        for (Map.Entry<String, Object> set : sets.entrySet()) {
+            update.set(set.getKey(), set.getValue());
+        }
+        for (Map.Entry<String, Integer> delta : standingsDeltas.entrySet()) {
+            if (delta.getValue() == 0) {
+                continue;
+            }
+            // $inc fails on an explicit null, so missing/null stats are set instead (guarded to still be null)
+            if (StandingsEngine.valueAt(competition, delta.getKey()) instanceof Number) {
+                update.inc(delta.getKey(), delta.getValue());
+            } else {
+                update.set(delta.getKey(), delta.getValue());
+            }
+        }
+        return update;
+    }
+
+    /**
+     * The document the write landed on, for {@link #eventsVersion}
+     */
+    static Query writtenQuery(Document written) {
+        return new Query(Criteria.where("_id").is(written.get("_id")));
+    }
+
+    /**
+     * Stamp this write's events with the version it produced (read back with the written
+     * document); no version bump, the competition itself does not change
+     */
+    Update eventsVersion(Document written) {
+        List<Object> eventIds = new ArrayList<>(events.size());
+        for (Document event : events) {
+            eventIds.add(event.get("_id"));
+        }
+        return new Update()
+            .set(MatchResultOutboxRepository.PENDING_FIELD + ".$[event].competitionVersion", (long) CompetitionsRepository.versionOf(written))
+            .filterArray(Criteria.where("event._id").in(eventIds));
+    }
+}
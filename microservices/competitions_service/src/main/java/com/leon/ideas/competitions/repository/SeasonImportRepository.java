@@ -0,0 +1,346 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes of the season importer: team lists and fixtures merged into an existing competition.
+ *
+ * Every write is an unordered bulk of small guarded updates (push only when absent, set only
+ * where the match still is, and only what differs), so a batch never rewrites the whole document
+ * and running the same file again changes nothing, not even the competition version.
+ *
+ * The competition is re-read from Mongo once per import ({@link #mergeTeams}); fixture batches
+ * work on the snapshot, which every write here refreshes.
+ */
+@Repository
+public class SeasonImportRepository {
+
+    public static final String GROUP_STAGE_ID = "group-stage";
+
+    /**
+     * Fields a re-imported fixture may change on a stored match; results are never imported
+     */
+    private static final List<String> SCHEDULE_FIELDS = List.of("matchNumber", "matchday", "matchDate", "venue");
+
+    /**
+     * Team fields a re-imported fixture may change while the match does not count for the standings
+     */
+    private static final List<String> TEAM_FIELDS = List.of("team1Id", "team1Name", "team1Flag", "team2Id", "team2Name", "team2Flag");
+
+    private static final String STAGES_PATH = MatchLocation.TOURNAMENT_STRUCTURE + ".stages";
+
+    @Autowired
+    private MongoTemplate competitionsMongoTemplate;
+
+    @Autowired
+    private CompetitionsSnapshotCache snapshotCache;
+
+    @Autowired
+    private CompetitionsRepository competitionsRepository;
+
+    /**
+     * Outcome counts of one fixtures batch
+     */
+    public static final class FixtureBatchResult {
+        private int inserted;
+        private int updated;
+        private int unchanged;
+        private final Map<String, String> rejected = new LinkedHashMap<>();
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * matchId -> reason
+         */
+        public Map<String, String> getRejected() {
+            return rejected;
+        }
+    }
+
+    /**
+     * Merge metadata, qualified teams and group team rows into a competition.
+     * Metadata fields are only set where they differ. Missing pieces are added (the group stage,
+     * a group, a team row); existing ones are kept, so their stats and matches survive a re-import.
+     *
+     * @param groups groupLetter -> group document (with its 'teams' rows and empty 'matches')
+     * @return number of updates that changed the competition
+     */
+    public int mergeTeams(String category, String competitionId, Document metadata,
+                          List<Document> qualifiedTeams, Map<String, Document> groups, Document config) {
+        Document competition = current(category, competitionId);
+        if (competition == null) {
+            return 0;
+        }
+
+        List<Query> queries = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+
+        if (metadata != null) {
+            Update update = null;
+            for (Map.Entry<String, Object> field : metadata.entrySet()) {
+                if (!Objects.equals(field.getValue(), competition.get(field.getKey()))) {
+                    update = update != null ? update : versioned();
+                    update.set(field.getKey(), field.getValue());
+                }
+            }
+            if (update != null) {
+                queries.add(competitionQuery(category, competitionId));
+                updates.add(update);
+            }
+        }
+
+        CompetitionsRepository.CatalogChanges catalogChanges = new CompetitionsRepository.CatalogChanges();
+        List<Object> references = competitionsRepository.storeTeams(competitionId, qualifiedTeams, catalogChanges);
+        competitionsRepository.insertCatalogTeams(catalogChanges);
+        for (int i = 0; i < qualifiedTeams.size(); i++) {
+            queries.add(competitionQuery(category, competitionId)
+                .addCriteria(Criteria.where("qualifiedTeams.id").ne(qualifiedTeams.get(i).getString("id"))));
+            updates.add(versioned().push("qualifiedTeams", references.get(i)));
+        }
+
+        if (!groups.isEmpty()) {
+            String stagePath = STAGES_PATH + "." + GROUP_STAGE_ID;
+            Object stage = StandingsEngine.valueAt(competition, stagePath);
+            if (!(stage instanceof Document) || !(((Document) stage).get("groups") instanceof List)) {
+                Document groupStage = new Document("stageId", GROUP_STAGE_ID)
+                    .append("stageName", "Fase de Grupos")
+                    .append("type", "groups")
+                    .append("isActive", true)
+                    .append("isCompleted", false)
+                    .append("order", 1)
+                    .append("groups", new ArrayList<>(groups.values()));
+                queries.add(competitionQuery(category, competitionId)
+                    .addCriteria(Criteria.where(stagePath + ".groups").exists(false)));
+                updates.add(versioned().set(stagePath, groupStage));
+                addIfMissing(category, competitionId, queries, updates, "currentStage", GROUP_STAGE_ID);
+            } else {
+                List<?> storedGroups = (List<?>) ((Document) stage).get("groups");
+                for (Document group : groups.values()) {
+                    String letter = group.getString("groupLetter");
+                    int index = groupIndex(storedGroups, letter);
+                    if (index < 0) {
+                        queries.add(competitionQuery(category, competitionId)
+                            .addCriteria(Criteria.where(stagePath + ".groups.groupLetter").ne(letter)));
+                        updates.add(versioned().push(stagePath + ".groups", group));
+                        continue;
+                    }
+                    String groupPath = stagePath + ".groups." + index;
+                    for (Object row : group.getList("teams", Object.class)) {
+                        String teamId = ((Document) row).getString("teamId");
+                        queries.add(competitionQuery(category, competitionId)
+                            .addCriteria(Criteria.where(groupPath + ".groupLetter").is(letter))
+                            .addCriteria(Criteria.where(groupPath + ".teams.teamId").ne(teamId)));
+                        updates.add(versioned().push(groupPath + ".teams", row));
+                    }
+                }
+            }
+        }
+
+        if (config != null) {
+            addIfMissing(category, competitionId, queries, updates, "config", config);
+        }
+        int changed = execute(category, competitionId, queries, updates);
+        competitionsRepository.applyCatalogUpdates(catalogChanges);
+        return changed;
+    }
+
+    /**
+     * Insert new fixtures and refresh the schedule of stored ones, in one bulk write.
+     * Each fixture carries 'stageId' and, for group matches, 'groupLetter'; knockout stages are
+     * created on first use ('stageName' optional). Group fixtures need their group to exist.
+     */
+    public FixtureBatchResult upsertFixtures(String category, String competitionId, List<Document> fixtures) {
+        FixtureBatchResult result = new FixtureBatchResult();
+        Document competition = snapshotCache.snapshot().getCompetition(category, competitionId);
+        if (competition == null) {
+            fixtures.forEach(fixture -> result.rejected.put(fixture.getString("matchId"), "competition not found"));
+            return result;
+        }
+        if (createKnockoutStages(category, competitionId, competition, fixtures)) {
+            competition = current(category, competitionId);
+        }
+
+        CompetitionsSnapshot snapshot = snapshotCache.snapshot();
+        List<Query> queries = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        for (Document fixture : fixtures) {
+            String matchId = fixture.getString("matchId");
+            String stageId = fixture.getString("stageId");
+            String groupLetter = fixture.getString("groupLetter");
+
+            String matchesPath = STAGES_PATH + "." + stageId;
+            int groupIndex = -1;
+            if (groupLetter != null) {
+                Object groups = StandingsEngine.valueAt(competition, matchesPath + ".groups");
+                groupIndex = groups instanceof List ? groupIndex((List<?>) groups, groupLetter) : -1;
+                if (groupIndex < 0) {
+                    result.rejected.put(matchId, "unknown group " + groupLetter + " in stage " + stageId);
+                    continue;
+                }
+                matchesPath += ".groups." + groupIndex;
+            }
+
+            MatchLocation location = snapshot.findMatch(category, competitionId, matchId);
+            if (location != null && location.isInTournamentStructure()) {
+                if (!location.getStageId().equals(stageId) || location.getGroupIndex() != groupIndex) {
+                    result.rejected.put(matchId, "already stored in another stage or group");
+                    continue;
+                }
+                Update update = scheduleUpdate(location, fixture);
+                if (update == null) {
+                    result.unchanged++;
+                    continue;
+                }
+                queries.add(competitionQuery(category, competitionId)
+                    .addCriteria(Criteria.where(location.getPath() + ".matchId").is(matchId)));
+                updates.add(update);
+                result.updated++;
+                continue;
+            }
+
+            Query query = competitionQuery(category, competitionId)
+                .addCriteria(Criteria.where(matchesPath + ".matches.matchId").ne(matchId));
+            if (groupLetter != null) {
+                query.addCriteria(Criteria.where(matchesPath + ".groupLetter").is(groupLetter));
+            }
+            Document match = new Document(fixture);
+            match.remove("stageName");
+            queries.add(query);
+            updates.add(versioned().push(matchesPath + ".matches", match));
+            result.inserted++;
+        }
+
+        execute(category, competitionId, queries, updates);
+        return result;
+    }
+
+    /**
+     * $set of the schedule (and, while the match does not count yet, team) fields that differ, or null
+     */
+    private Update scheduleUpdate(MatchLocation location, Document fixture) {
+        Document stored = location.getMatch();
+        List<String> fields = new ArrayList<>(SCHEDULE_FIELDS);
+        if (!StandingsEngine.counts(stored)) {
+            fields.addAll(TEAM_FIELDS);
+        }
+
+        Update update = null;
+        for (String field : fields) {
+            if (fixture.containsKey(field) && !Objects.equals(fixture.get(field), stored.get(field))) {
+                update = update != null ? update : versioned();
+                update.set(location.getPath() + "." + field, fixture.get(field));
+            }
+        }
+        return update;
+    }
+
+    /**
+     * Create the knockout stages the fixtures refer to that do not exist yet
+     *
+     * @return true when a stage was created
+     */
+    private boolean createKnockoutStages(String category, String competitionId, Document competition, List<Document> fixtures) {
+        Object stages = StandingsEngine.valueAt(competition, STAGES_PATH);
+        int order = stages instanceof Document ? ((Document) stages).size() : 0;
+        Map<String, Document> missing = new LinkedHashMap<>();
+        for (Document fixture : fixtures) {
+            String stageId = fixture.getString("stageId");
+            if (fixture.getString("groupLetter") != null || missing.containsKey(stageId)
+                    || (stages instanceof Document && ((Document) stages).containsKey(stageId))) {
+                continue;
+            }
+            String stageName = fixture.getString("stageName");
+            missing.put(stageId, new Document("stageId", stageId)
+                .append("stageName", stageName != null ? stageName : stageId)
+                .append("type", "knockout")
+                .append("isActive", false)
+                .append("isCompleted", false)
+                .append("order", ++order)
+                .append("matches", new ArrayList<>()));
+        }
+        if (missing.isEmpty()) {
+            return false;
+        }
+
+        List<Query> queries = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        for (Map.Entry<String, Document> stage : missing.entrySet()) {
+            String stagePath = STAGES_PATH + "." + stage.getKey();
+            queries.add(competitionQuery(category, competitionId).addCriteria(Criteria.where(stagePath).exists(false)));
+            updates.add(versioned().set(stagePath, stage.getValue()));
+        }
+        addIfMissing(category, competitionId, queries, updates, "currentStage", missing.keySet().iterator().next());
+        execute(category, competitionId, queries, updates);
+        return true;
+    }
+
+    private void addIfMissing(String category, String competitionId, List<Query> queries, List<Update> updates,
+                              String structureField, Object value) {
+        String path = MatchLocation.TOURNAMENT_STRUCTURE + "." + structureField;
+        queries.add(competitionQuery(category, competitionId).addCriteria(Criteria.where(path).exists(false)));
+        updates.add(versioned().set(path, value));
+    }
+
+    private int execute(String category, String competitionId, List<Query> queries, List<Update> updates) {
+        if (queries.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = competitionsMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CompetitionsRepository.COLLECTION_NAME);
+        for (int i = 0; i < queries.size(); i++) {
+            bulk.updateOne(queries.get(i), updates.get(i));
+        }
+        int modified = bulk.execute().getModifiedCount();
+        if (modified > 0) {
+            snapshotCache.refresh(category, competitionId);
+        }
+        return modified;
+    }
+
+    /**
+     * The competition as stored now (refreshes the snapshot entry first, one read from Mongo)
+     */
+    private Document current(String category, String competitionId) {
+        snapshotCache.refresh(category, competitionId);
+        return snapshotCache.snapshot().getCompetition(category, competitionId);
+    }
+
+    private static int groupIndex(List<?> groups, String groupLetter) {
+        for (int i = 0; i < groups.size(); i++) {
+            if (groups.get(i) instanceof Document && groupLetter.equals(((Document) groups.get(i)).get("groupLetter"))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Update versioned() {
+        return new Update().inc(CompetitionsRepository.VERSION_FIELD, 1);
+    }
+
+    private static Query competitionQuery(String category, String competitionId) {
+        return new Query(Criteria.where("category").is(category).and("id").is(competitionId));
+    }
+}
@@ -0,0 +1,228 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Group-stage standings kept incrementally, once per competition.
+ *
+ * A result write carries the difference between the match's old and new contribution to the
+ * two teams' stats (played, won, drawn, lost, goalsFor, goalsAgainst, goalDifference, points) as
+ * $inc operations, so applying, changing or reverting a result touches only those two rows.
+ * Positions are not stored: they are derived from the stats with one comparator, at read time.
+ * Deltas are only applied to competitions whose stats were rebuilt from their stored results
+ * once ({@link #BASELINE_FIELD}); until then a write leaves the stats to {@link #recompute}.
+ */
+final class StandingsEngine {
+
+    /**
+     * Points, then goal difference, then goals for, then wins; team name keeps the order stable
+     */
+    static final Comparator<Document> TABLE_ORDER = Comparator
+        .comparingInt((Document team) -> stat(team, "points")).reversed()
+        .thenComparing(Comparator.comparingInt((Document team) -> stat(team, "goalDifference")).reversed())
+        .thenComparing(Comparator.comparingInt((Document team) -> stat(team, "goalsFor")).reversed())
+        .thenComparing(Comparator.comparingInt((Document team) -> stat(team, "won")).reversed())
+        .thenComparing(team -> team.get("teamName") instanceof String ? team.getString("teamName") : "");
+
+    /**
+     * Team row stats maintained by the deltas
+     */
+    static final List<String> STATS = List.of("played", "won", "drawn", "lost", "goalsFor", "goalsAgainst", "goalDifference", "points");
+
+    /**
+     * Competition field set when its standings were rebuilt from its results (deltas apply from then on)
+     */
+    static final String BASELINE_FIELD = "standingsBaselineAt";
+
+    private StandingsEngine() {
+    }
+
+    static boolean hasBaseline(Document competition) {
+        return competition != null && competition.get(BASELINE_FIELD) != null;
+    }
+
+    /**
+     * Every stat of every team row of a group, rebuilt from the group's stored matches, keyed by
+     * full storage path ("<groupPath>.teams.<i>.<stat>"). Teams without counted matches get zeros.
+     */
+    static Map<String, Integer> recompute(Document group, String groupPath) {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        if (!(group.get("teams") instanceof List)) {
+            return stats;
+        }
+        List<?> teams = (List<?>) group.get("teams");
+        for (int i = 0; i < teams.size(); i++) {
+            if (teams.get(i) instanceof Document) {
+                for (String stat : STATS) {
+                    stats.put(groupPath + ".teams." + i + "." + stat, 0);
+                }
+            }
+        }
+        if (group.get("matches") instanceof List) {
+            for (Object match : (List<?>) group.get("matches")) {
+                if (match instanceof Document) {
+                    Document played = (Document) match;
+                    addContribution(stats, teamPath(group, groupPath, played.getString("team1Id")),
+                        teamPath(group, groupPath, played.getString("team2Id")), played, 1);
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * {@link #recompute(Document, String)} of every group of the competition's tournament structure
+     */
+    static Map<String, Integer> recompute(Document competition) {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        Object stages = valueAt(competition, MatchLocation.TOURNAMENT_STRUCTURE + ".stages");
+        if (!(stages instanceof Document)) {
+            return stats;
+        }
+        for (Map.Entry<String, Object> stage : ((Document) stages).entrySet()) {
+            if (!(stage.getValue() instanceof Document) || !(((Document) stage.getValue()).get("groups") instanceof List)) {
+                continue;
+            }
+            List<?> groups = (List<?>) ((Document) stage.getValue()).get("groups");
+            for (int i = 0; i < groups.size(); i++) {
+                if (groups.get(i) instanceof Document) {
+                    String groupPath = MatchLocation.TOURNAMENT_STRUCTURE + ".stages." + stage.getKey() + ".groups." + i;
+                    stats.putAll(recompute((Document) groups.get(i), groupPath));
+                }
+            }
+        }
+        return stats;
+    }
+
+    private static String teamPath(Document group, String groupPath, String teamId) {
+        int index = teamIndex(group, teamId);
+        return index < 0 ? null : groupPath + ".teams." + index;
+    }
+
+    /**
+     * A match counts for the standings once it is finished and has both scores
+     */
+    static boolean counts(Map<String, Object> match) {
+        return match.get("team1Score") instanceof Number && match.get("team2Score") instanceof Number
+            && (Boolean.TRUE.equals(match.get("isPlayed")) || "finished".equals(match.get("status")));
+    }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) one match's contribution to the stat deltas, keyed by
+     * full storage path ("<teamPath>.<stat>"). Does nothing when the match does not count;
+     * a null team path skips that team.
+     */
+    static void addContribution(Map<String, Integer> deltas, String team1Path, String team2Path,
+                                Map<String, Object> match, int sign) {
+        if (!counts(match)) {
+            return;
+        }
+        int team1Score = ((Number) match.get("team1Score")).intValue();
+        int team2Score = ((Number) match.get("team2Score")).intValue();
+        addTeamContribution(deltas, team1Path, team1Score, team2Score, sign);
+        addTeamContribution(deltas, team2Path, team2Score, team1Score, sign);
+    }
+
+    private static void addTeamContribution(Map<String, Integer> deltas, String teamPath,
+                                            int goalsFor, int goalsAgainst, int sign) {
+        if (teamPath == null) {
+            return; // Team not listed in the group
+        }
+        add(deltas, teamPath + ".played", sign);
+        add(deltas, teamPath + ".goalsFor", sign * goalsFor);
+        add(deltas, teamPath + ".goalsAgainst", sign * goalsAgainst);
+        add(deltas, teamPath + ".goalDifference", sign * (goalsFor - goalsAgainst));
+        if (goalsFor > goalsAgainst) {
+            add(deltas, teamPath + ".won", sign);
+            add(deltas, teamPath + ".points", sign * 3);
+        } else if (goalsFor < goalsAgainst) {
+            add(deltas, teamPath + ".lost", sign);
+        } else {
+            add(deltas, teamPath + ".drawn", sign);
+            add(deltas, teamPath + ".points", sign);
+        }
+    }
+
+    private static void add(Map<String, Integer> deltas, String path, int value) {
+        deltas.merge(path, value, Integer::sum);
+    }
+
+    /**
+     * The group holding a group-stage match, or null for knockout matches
+     */
+    static Document groupOf(Document competition, MatchLocation location) {
+        if (location.getGroupIndex() < 0) {
+            return null;
+        }
+        Object group = valueAt(competition, groupPath(location));
+        return group instanceof Document ? (Document) group : null;
+    }
+
+    static String groupPath(MatchLocation location) {
+        return location.getStructureField() + ".stages." + location.getStageId() + ".groups." + location.getGroupIndex();
+    }
+
+    /**
+     * Index of a team in the group's 'teams' array, or -1
+     */
+    static int teamIndex(Document group, String teamId) {
+        if (teamId == null || !(group.get("teams") instanceof List)) {
+            return -1;
+        }
+        List<?> teams = (List<?>) group.get("teams");
+        for (int i = 0; i < teams.size(); i++) {
+            if (teams.get(i) instanceof Document && teamId.equals(((Document) teams.get(i)).get("teamId"))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The group's teams ordered by {@link #TABLE_ORDER}, as copies carrying their 'position'
+     */
+    static List<Document> table(Document group) {
+        List<Document> teams = new ArrayList<>();
+        if (group.get("teams") instanceof List) {
+            for (Object team : (List<?>) group.get("teams")) {
+                if (team instanceof Document) {
+                    teams.add(new Document((Document) team));
+                }
+            }
+        }
+        teams.sort(TABLE_ORDER);
+        for (int i = 0; i < teams.size(); i++) {
+            teams.get(i).put("position", i + 1);
+        }
+        return teams;
+    }
+
+    /**
+     * Value at a dotted storage path; numeric segments index into arrays
+     */
+    static Object valueAt(Document root, String path) {
+        Object current = root;
+        for (String segment : path.split("\\.")) {
+            if (current instanceof Document) {
+                current = ((Document) current).get(segment);
+            } else if (current instanceof List && segment.chars().allMatch(Character::isDigit)) {
+                List<?> list = (List<?>) current;
+                int index = Integer.parseInt(segment);
+                current = index < list.size() ? list.get(index) : null;
+            } else {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    private static int stat(Document team, String field) {
+        return team.get(field) instanceof Number ? ((Number) team.get(field)).intValue() : 0;
+    }
+}
@@ -0,0 +1,224 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable view of the canonical team catalog ('teams' collection).
+ *
+ * Competitions store each qualified team as a reference: its 'id' plus what only that
+ * competition knows (group, seed). The shared fields ({@link #CATALOG_FIELDS}) live once in the
+ * catalog and are merged back when a competition enters the snapshot, so readers keep seeing
+ * full team entries and a rename is one catalog write.
+ *
+ * Team ids are only unique inside a competition ("hearts" is Hearts of Oak in one and Hienghène
+ * Sport in another), so a team that differs from the catalog entry of its id is stored with a
+ * '{@value #CATALOG_ID_FIELD}' naming an entry of its own ('<competitionId>:<teamId>').
+ */
+public final class TeamCatalog {
+
+    /**
+     * Team fields kept in the catalog rather than in each competition
+     */
+    public static final List<String> CATALOG_FIELDS = List.of("name", "country", "flag", "image");
+
+    /**
+     * Reference field naming the team's catalog entry when it is not the entry of its 'id'
+     */
+    public static final String CATALOG_ID_FIELD = "catalogId";
+
+    public static final TeamCatalog EMPTY = new TeamCatalog(Collections.emptyMap());
+
+    private final Map<String, Document> teamsById;
+
+    private TeamCatalog(Map<String, Document> teamsById) {
+        this.teamsById = teamsById;
+    }
+
+    /**
+     * Catalog from stored team documents (each with 'id'; '_id' is dropped)
+     */
+    static TeamCatalog of(Collection<Document> teams) {
+        Map<String, Document> byId = new HashMap<>();
+        for (Document team : teams) {
+            if (team.getString("id") != null) {
+                byId.put(team.getString("id"), withoutObjectId(team));
+            }
+        }
+        return new TeamCatalog(Collections.unmodifiableMap(byId));
+    }
+
+    /**
+     * Catalog with the given stored team documents added or replaced
+     */
+    TeamCatalog with(Collection<Document> teams) {
+        if (teams.isEmpty()) {
+            return this;
+        }
+        Map<String, Document> byId = new HashMap<>(teamsById);
+        for (Document team : teams) {
+            byId.put(team.getString("id"), withoutObjectId(team));
+        }
+        return new TeamCatalog(Collections.unmodifiableMap(byId));
+    }
+
+    public Document get(String teamId) {
+        return teamId != null ? teamsById.get(teamId) : null;
+    }
+
+    public int size() {
+        return teamsById.size();
+    }
+
+    /**
+     * Ids whose catalog entry differs between this catalog and the other one
+     */
+    Set<String> changedIds(TeamCatalog other) {
+        if (other == this) {
+            return Collections.emptySet();
+        }
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Document> team : teamsById.entrySet()) {
+            if (!Objects.equals(team.getValue(), other.teamsById.get(team.getKey()))) {
+                changed.add(team.getKey());
+            }
+        }
+        for (String teamId : other.teamsById.keySet()) {
+            if (!teamsById.containsKey(teamId)) {
+                changed.add(teamId);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * The competition with each referenced team merged with its catalog entry (catalog fields win);
+     * the same instance when it has no qualified teams
+     */
+    Document hydrate(Document competition) {
+        if (!(competition.get("qualifiedTeams") instanceof List) || teamsById.isEmpty()) {
+            return competition;
+        }
+        List<Object> teams = new ArrayList<>();
+        for (Object team : (List<?>) competition.get("qualifiedTeams")) {
+            Document catalogTeam = team instanceof Document ? get(catalogId((Document) team)) : null;
+            if (catalogTeam == null) {
+                teams.add(team);
+                continue;
+            }
+            Document hydrated = new Document((Document) team);
+            for (String field : CATALOG_FIELDS) {
+                if (catalogTeam.containsKey(field)) {
+                    hydrated.put(field, catalogTeam.get(field));
+                }
+            }
+            teams.add(hydrated);
+        }
+        Document hydrated = new Document(competition);
+        hydrated.put("qualifiedTeams", teams);
+        return hydrated;
+    }
+
+    /**
+     * Sum of the catalog versions of the competition's teams; changes whenever one of them is edited
+     */
+    long stamp(Document competition) {
+        if (!(competition.get("qualifiedTeams") instanceof List)) {
+            return 0;
+        }
+        long stamp = 0;
+        for (Object team : (List<?>) competition.get("qualifiedTeams")) {
+            Document catalogTeam = team instanceof Document ? get(catalogId((Document) team)) : null;
+            if (catalogTeam != null) {
+                stamp += CompetitionsRepository.versionOf(catalogTeam);
+            }
+        }
+        return stamp;
+    }
+
+    /**
+     * True when the competition lists one of the given teams (by team id or catalog id)
+     */
+    static boolean references(Document competition, Set<String> teamIds) {
+        if (!(competition.get("qualifiedTeams") instanceof List)) {
+            return false;
+        }
+        for (Object team : (List<?>) competition.get("qualifiedTeams")) {
+            if (team instanceof Document && (teamIds.contains(((Document) team).getString("id"))
+                    || teamIds.contains(catalogId((Document) team)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Key of the team's catalog entry: its '{@value #CATALOG_ID_FIELD}', else its id (null without an id)
+     */
+    static String catalogId(Map<?, ?> team) {
+        if (!(team.get("id") instanceof String)) {
+            return null;
+        }
+        return team.get(CATALOG_ID_FIELD) instanceof String ? (String) team.get(CATALOG_ID_FIELD) : (String) team.get("id");
+    }
+
+    /**
+     * Catalog id of a competition's own entry for one of its teams
+     */
+    static String ownCatalogId(String competitionId, String teamId) {
+        return competitionId + ":" + teamId;
+    }
+
+    /**
+     * True when every catalog field the team carries has the catalog entry's value
+     */
+    static boolean matches(Document catalogTeam, Map<String, Object> team) {
+        for (String field : CATALOG_FIELDS) {
+            if (team.containsKey(field) && !Objects.equals(catalogTeam.get(field), team.get(field))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The catalog fields the team carries
+     */
+    static Map<String, Object> catalogFields(Map<String, Object> team) {
+        Map<String, Object> fields = new HashMap<>();
+        for (String field : CATALOG_FIELDS) {
+            if (team.containsKey(field)) {
+                fields.put(field, team.get(field));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * What a competition stores for a team: its id and the competition-specific fields
+     */
+    static Document reference(Map<String, Object> team) {
+        Document reference = new Document();
+        for (Map.Entry<String, Object> field : team.entrySet()) {
+            if (!CATALOG_FIELDS.contains(field.getKey())) {
+                reference.put(field.getKey(), field.getValue());
+            }
+        }
+        return reference;
+    }
+
+    private static Document withoutObjectId(Document team) {
+        Document copy = new Document(team);
+        copy.remove("_id");
+        return copy;
+    }
+}
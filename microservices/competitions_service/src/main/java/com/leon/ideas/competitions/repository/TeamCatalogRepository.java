@@ -0,0 +1,152 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The canonical team catalog ('teams' collection) and its in-process cache.
+ *
+ * One document per team: id, name, country, flag, image and a version bumped on every change.
+ * Lookups are served from an immutable {@link TeamCatalog}; local writes update it right away,
+ * writes from other instances arrive with the periodic {@link #reload()}.
+ */
+@Repository
+public class TeamCatalogRepository {
+
+    static final String COLLECTION_NAME = "teams";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate competitionsMongoTemplate;
+
+    private final AtomicReference<TeamCatalog> current = new AtomicReference<>();
+    private final Object loadLock = new Object();
+
+    public void ensureIndexes() {
+        competitionsMongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("id", Sort.Direction.ASC).unique().named("id_unique"));
+    }
+
+    /**
+     * Current catalog, loading it from Mongo on first use
+     */
+    public TeamCatalog catalog() {
+        TeamCatalog catalog = current.get();
+        if (catalog != null) {
+            return catalog;
+        }
+        synchronized (loadLock) {
+            catalog = current.get();
+            return catalog != null ? catalog : reload();
+        }
+    }
+
+    /**
+     * Full reload from Mongo
+     */
+    public TeamCatalog reload() {
+        TeamCatalog catalog = TeamCatalog.of(competitionsMongoTemplate.findAll(Document.class, COLLECTION_NAME));
+        current.set(catalog);
+        return catalog;
+    }
+
+    /**
+     * Batched lookup; unknown ids are skipped
+     */
+    public List<Document> findByIds(Collection<String> teamIds) {
+        TeamCatalog catalog = catalog();
+        List<Document> teams = new ArrayList<>();
+        for (String teamId : new LinkedHashSet<>(teamIds)) {
+            Document team = catalog.get(teamId);
+            if (team != null) {
+                teams.add(team);
+            }
+        }
+        return teams;
+    }
+
+    /**
+     * Add the given teams that are not in the catalog yet, in one bulk write.
+     * Existing entries are kept as they are: a competition write never changes the team other
+     * competitions show (shared fields change through {@link #updateTeam}).
+     *
+     * @return the catalog after the write
+     */
+    public TeamCatalog upsertTeams(Collection<? extends Map<String, Object>> teams) {
+        TeamCatalog catalog = catalog();
+        Set<String> written = new LinkedHashSet<>();
+        BulkOperations bulk = competitionsMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION_NAME);
+        for (Map<String, Object> team : teams) {
+            Object teamId = team.get("id");
+            if (!(teamId instanceof String) || written.contains(teamId) || catalog.get((String) teamId) != null) {
+                continue;
+            }
+
+            Update update = new Update().inc(CompetitionsRepository.VERSION_FIELD, 1);
+            for (String field : TeamCatalog.CATALOG_FIELDS) {
+                if (team.containsKey(field)) {
+                    update.set(field, team.get(field));
+                }
+            }
+            Query query = new Query(Criteria.where("id").is(teamId)
+                .and(CompetitionsRepository.VERSION_FIELD).exists(false));
+            bulk.upsert(query, update);
+            written.add((String) teamId);
+        }
+        if (written.isEmpty()) {
+            return catalog;
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // A team added concurrently makes its guarded upsert collide on the unique id
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+        }
+        return refresh(written);
+    }
+
+    /**
+     * Update one team's catalog fields (a rename is this single write)
+     *
+     * @return the stored team, or null when it does not exist
+     */
+    public Document updateTeam(String teamId, Map<String, Object> fields) {
+        Update update = new Update().inc(CompetitionsRepository.VERSION_FIELD, 1);
+        for (String field : TeamCatalog.CATALOG_FIELDS) {
+            if (fields.containsKey(field)) {
+                update.set(field, fields.get(field));
+            }
+        }
+        if (competitionsMongoTemplate.updateFirst(new Query(Criteria.where("id").is(teamId)), update, COLLECTION_NAME)
+                .getMatchedCount() == 0) {
+            return null;
+        }
+        return refresh(List.of(teamId)).get(teamId);
+    }
+
+    private TeamCatalog refresh(Collection<String> teamIds) {
+        List<Document> stored = competitionsMongoTemplate.find(
+            new Query(Criteria.where("id").in(teamIds)), Document.class, COLLECTION_NAME);
+        return current.updateAndGet(catalog -> (catalog != null ? catalog : TeamCatalog.EMPTY).with(stored));
+    }
+}
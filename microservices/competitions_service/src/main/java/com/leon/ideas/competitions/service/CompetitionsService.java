@@ -1,30 +1,61 @@
 package com.leon.ideas.competitions.service;
 
+import com.leon.ideas.competitions.model.MatchResultEvent;
+import com.leon.ideas.competitions.repository.CompetitionProjection;
+import com.leon.ideas.competitions.repository.CompetitionSearchIndex;
+import com.leon.ideas.competitions.repository.CompetitionWriteOutcome;
 import com.leon.ideas.competitions.repository.CompetitionsRepository;
+import com.leon.ideas.competitions.repository.LiveMatchStateRepository;
+import com.leon.ideas.competitions.repository.FixtureCalendar;
+import com.leon.ideas.competitions.repository.MatchLocation;
+import com.leon.ideas.competitions.repository.MatchResultOutboxRepository;
+import com.leon.ideas.competitions.repository.MatchResultUpdate;
+import com.leon.ideas.competitions.repository.TeamCatalog;
 import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class CompetitionsService {
 
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_BULK_RESULTS = 500;
+    private static final Duration DEFAULT_FIXTURES_WINDOW = Duration.ofDays(7);
+
     @Autowired
     private CompetitionsRepository competitionsRepository;
 
+    @Autowired
+    private MatchResultOutboxRepository matchResultOutboxRepository;
+
+    @Autowired
+    private MatchResultOutboxRelay matchResultOutboxRelay;
+
+    @Autowired
+    private LiveFeedService liveFeedService;
+
+    @Autowired
+    private LiveMatchStateRepository liveMatchStateRepository;
+
     /**
      * Get all competitions
      */
-    public ResponseEntity<Document> getAllCompetitions() {
+    public ResponseEntity<Document> getAllCompetitions(String fields, String exclude) {
         try {
-            Document competitions = competitionsRepository.getAllCompetitions();
+            Document competitions = competitionsRepository.getAllCompetitions(CompetitionProjection.of(fields, exclude));
             if (competitions != null) {
-                // Process club competitions to add 'image' field to teams
-                processClubTeamsImages(competitions);
                 return new ResponseEntity<>(competitions, HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(
@@ -41,57 +72,36 @@ public class CompetitionsService {
     }
 
     /**
-     * Process club competitions to add 'image' field to teams from 'flag' field
-     * This ensures club teams have an 'image' field for their logos
+     * Club competitions use 'image' for team logos. Teams sent with only a 'flag' get it copied
+     * into 'image' when they are written, so reads return stored data untouched.
      */
+    private boolean isClubCategory(String category) {
+        return "fifaOfficialClubCups".equals(category) || "nationalClubLeagues".equals(category);
+    }
+
     @SuppressWarnings("unchecked")
-    private void processClubTeamsImages(Document competitions) {
-        // Process fifaOfficialClubCups
-        if (competitions.containsKey("fifaOfficialClubCups")) {
-            List<Document> clubCups = (List<Document>) competitions.get("fifaOfficialClubCups");
-            if (clubCups != null) {
-                for (Document competition : clubCups) {
-                    if (competition.containsKey("qualifiedTeams")) {
-                        List<Document> teams = (List<Document>) competition.get("qualifiedTeams");
-                        if (teams != null) {
-                            for (Document team : teams) {
-                                // If team has 'flag' but no 'image', copy flag to image for club teams
-                                if (team.containsKey("flag") && !team.containsKey("image")) {
-                                    team.put("image", team.get("flag"));
-                                }
-                            }
-                        }
-                    }
+    private void normalizeClubTeamImages(String category, Map<String, Object> competition) {
+        if (competition.get("qualifiedTeams") instanceof List) {
+            for (Object team : (List<Object>) competition.get("qualifiedTeams")) {
+                if (team instanceof Map) {
+                    normalizeClubTeamImage(category, (Map<String, Object>) team);
                 }
             }
         }
+    }
 
-        // Process nationalClubLeagues (these are also club competitions)
-        if (competitions.containsKey("nationalClubLeagues")) {
-            List<Document> leagues = (List<Document>) competitions.get("nationalClubLeagues");
-            if (leagues != null) {
-                for (Document league : leagues) {
-                    if (league.containsKey("qualifiedTeams")) {
-                        List<Document> teams = (List<Document>) league.get("qualifiedTeams");
-                        if (teams != null) {
-                            for (Document team : teams) {
-                                // If team has 'flag' but no 'image', copy flag to image for club teams
-                                if (team.containsKey("flag") && !team.containsKey("image")) {
-                                    team.put("image", team.get("flag"));
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    void normalizeClubTeamImage(String category, Map<String, Object> team) {
+        // If team has 'flag' but no 'image', copy flag to image for club teams
+        if (isClubCategory(category) && team.containsKey("flag") && !team.containsKey("image")) {
+            team.put("image", team.get("flag"));
         }
     }
 
     /**
-     * Get competitions by category
+     * Get competitions by category.
+     * Without fields / exclude the 'catalog' view (no match structures) is returned unless view=full.
      */
-    @SuppressWarnings("unchecked")
-    public ResponseEntity<?> getCompetitionsByCategory(String category) {
+    public ResponseEntity<?> getCompetitionsByCategory(String category, String view, String fields, String exclude) {
         try {
             // Validate category
             if (!isValidCategory(category)) {
@@ -101,27 +111,8 @@ public class CompetitionsService {
                 );
             }
 
-            List<Document> competitions = competitionsRepository.getCompetitionsByCategory(category);
-            
-            // Process club competitions to add 'image' field to teams
-            if ("fifaOfficialClubCups".equals(category) || "nationalClubLeagues".equals(category)) {
-                if (competitions != null) {
-                    for (Document competition : competitions) {
-                        if (competition.containsKey("qualifiedTeams")) {
-                            List<Document> teams = (List<Document>) competition.get("qualifiedTeams");
-                            if (teams != null) {
-                                for (Document team : teams) {
-                                    // If team has 'flag' but no 'image', copy flag to image for club teams
-                                    if (team.containsKey("flag") && !team.containsKey("image")) {
-                                        team.put("image", team.get("flag"));
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            
+            CompetitionProjection projection = CompetitionProjection.forView(view, fields, exclude);
+            List<Document> competitions = competitionsRepository.getCompetitionsByCategory(category, projection);
             return new ResponseEntity<>(competitions, HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(
@@ -134,7 +125,7 @@ public class CompetitionsService {
     /**
      * Get a specific competition by category and ID
      */
-    public ResponseEntity<Document> getCompetitionById(String category, String competitionId) {
+    public ResponseEntity<Document> getCompetitionById(String category, String competitionId, String fields, String exclude) {
         try {
             // Validate category
             if (!isValidCategory(category)) {
@@ -144,21 +135,9 @@ public class CompetitionsService {
                 );
             }
 
-            Document competition = competitionsRepository.getCompetitionById(category, competitionId);
+            Document competition = competitionsRepository.getCompetitionById(
+                category, competitionId, CompetitionProjection.of(fields, exclude));
             if (competition != null) {
-                // For club competitions, add 'image' field to teams from 'flag' field
-                if ("fifaOfficialClubCups".equals(category) && competition.containsKey("qualifiedTeams")) {
-                    @SuppressWarnings("unchecked")
-                    List<Document> teams = (List<Document>) competition.get("qualifiedTeams");
-                    if (teams != null) {
-                        for (Document team : teams) {
-                            // If team has 'flag' but no 'image', copy flag to image for club teams
-                            if (team.containsKey("flag") && !team.containsKey("image")) {
-                                team.put("image", team.get("flag"));
-                            }
-                        }
-                    }
-                }
                 return new ResponseEntity<>(competition, HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(
@@ -204,6 +183,7 @@ public class CompetitionsService {
                 );
             }
 
+            normalizeClubTeamImages(category, competition);
             boolean success = competitionsRepository.addCompetition(category, competition);
             if (success) {
                 return new ResponseEntity<>(
@@ -227,7 +207,7 @@ public class CompetitionsService {
     /**
      * Update a competition (PUT - full update)
      */
-    public ResponseEntity<Document> updateCompetition(String category, String competitionId, Document updatedCompetition) {
+    public ResponseEntity<Document> updateCompetition(String category, String competitionId, Document updatedCompetition, String ifMatch) {
         try {
             // Validate category
             if (!isValidCategory(category)) {
@@ -239,19 +219,16 @@ public class CompetitionsService {
 
             // Ensure the ID in the body matches the ID in the URL
             updatedCompetition.put("id", competitionId);
+            normalizeClubTeamImages(category, updatedCompetition);
 
-            boolean success = competitionsRepository.updateCompetition(category, competitionId, updatedCompetition);
-            if (success) {
+            CompetitionWriteOutcome outcome = competitionsRepository.updateCompetition(category, competitionId, updatedCompetition, ifMatch);
+            if (outcome == CompetitionWriteOutcome.APPLIED) {
                 return new ResponseEntity<>(
                     new Document("message", "Competition updated successfully").append("competition", updatedCompetition),
                     HttpStatus.OK
                 );
-            } else {
-                return new ResponseEntity<>(
-                    new Document("error", "Competition not found"),
-                    HttpStatus.NOT_FOUND
-                );
             }
+            return writeFailure(outcome, "updating");
         } catch (Exception e) {
             return new ResponseEntity<>(
                 new Document("error", "Error updating competition: " + e.getMessage()),
@@ -263,7 +240,7 @@ public class CompetitionsService {
     /**
      * Patch a competition (PATCH - partial update)
      */
-    public ResponseEntity<Document> patchCompetition(String category, String competitionId, Map<String, Object> updates) {
+    public ResponseEntity<Document> patchCompetition(String category, String competitionId, Map<String, Object> updates, String ifMatch) {
         try {
             // Validate category
             if (!isValidCategory(category)) {
@@ -281,20 +258,25 @@ public class CompetitionsService {
                 );
             }
 
-            boolean success = competitionsRepository.patchCompetition(category, competitionId, updates);
-            if (success) {
+            // The version is maintained by the repository on every write
+            if (updates.containsKey(CompetitionsRepository.VERSION_FIELD)) {
+                return new ResponseEntity<>(
+                    new Document("error", "Cannot update competition version"),
+                    HttpStatus.BAD_REQUEST
+                );
+            }
+
+            normalizeClubTeamImages(category, updates);
+            CompetitionWriteOutcome outcome = competitionsRepository.patchCompetition(category, competitionId, updates, ifMatch);
+            if (outcome == CompetitionWriteOutcome.APPLIED) {
                 // Get the updated competition to return
                 Document updatedCompetition = competitionsRepository.getCompetitionById(category, competitionId);
                 return new ResponseEntity<>(
                     new Document("message", "Competition patched successfully").append("competition", updatedCompetition),
                     HttpStatus.OK
                 );
-            } else {
-                return new ResponseEntity<>(
-                    new Document("error", "Competition not found"),
-                    HttpStatus.NOT_FOUND
-                );
             }
+            return writeFailure(outcome, "patching");
         } catch (Exception e) {
             return new ResponseEntity<>(
                 new Document("error", "Error patching competition: " + e.getMessage()),
@@ -339,7 +321,7 @@ public class CompetitionsService {
     /**
      * Search competitions across all categories
      */
-    public ResponseEntity<?> searchCompetitions(String searchTerm) {
+    public ResponseEntity<?> searchCompetitions(String searchTerm, int limit) {
         try {
             if (searchTerm == null || searchTerm.trim().isEmpty()) {
                 return new ResponseEntity<>(
@@ -348,7 +330,7 @@ public class CompetitionsService {
                 );
             }
 
-            List<Document> results = competitionsRepository.searchCompetitions(searchTerm);
+            List<Document> results = competitionsRepository.searchCompetitions(searchTerm, clampLimit(limit));
             return new ResponseEntity<>(
                 new Document("results", results).append("count", results.size()),
                 HttpStatus.OK
@@ -361,6 +343,101 @@ public class CompetitionsService {
         }
     }
 
+    /**
+     * Type-ahead suggestions for a partial search term
+     */
+    public ResponseEntity<?> suggestCompetitions(String prefix, int limit) {
+        try {
+            if (prefix == null || prefix.trim().isEmpty()) {
+                return new ResponseEntity<>(
+                    new Document("suggestions", List.of()).append("count", 0),
+                    HttpStatus.OK
+                );
+            }
+
+            List<Document> suggestions = new ArrayList<>();
+            for (CompetitionSearchIndex.Suggestion suggestion : competitionsRepository.suggestCompetitions(prefix, clampLimit(limit))) {
+                Document entry = new Document("text", suggestion.getText())
+                    .append("type", suggestion.getType())
+                    .append("category", suggestion.getCategory())
+                    .append("competitionId", suggestion.getCompetitionId());
+                if (suggestion.getTeamId() != null) {
+                    entry.append("teamId", suggestion.getTeamId());
+                }
+                suggestions.add(entry);
+            }
+            return new ResponseEntity<>(
+                new Document("suggestions", suggestions).append("count", suggestions.size()),
+                HttpStatus.OK
+            );
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error suggesting competitions: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * Matches of every competition kicking off in [from, to), in kick-off order, one page at a time
+     * (from defaults to now, to to DEFAULT_FIXTURES_WINDOW after from; status is a comma-separated list)
+     */
+    public ResponseEntity<?> getFixtures(String from, String to, String status, String category, String cursor, int limit) {
+        try {
+            if (category != null && !isValidCategory(category)) {
+                return new ResponseEntity<>(new Document("error", "Invalid category"), HttpStatus.BAD_REQUEST);
+            }
+            Instant fromInstant = from != null ? FixtureCalendar.parseInstant(from) : Instant.now();
+            if (fromInstant == null) {
+                return new ResponseEntity<>(new Document("error", "Invalid 'from' date: " + from), HttpStatus.BAD_REQUEST);
+            }
+            Instant toInstant = to != null ? FixtureCalendar.parseInstant(to) : fromInstant.plus(DEFAULT_FIXTURES_WINDOW);
+            if (toInstant == null) {
+                return new ResponseEntity<>(new Document("error", "Invalid 'to' date: " + to), HttpStatus.BAD_REQUEST);
+            }
+            Set<String> statuses = null;
+            if (status != null && !status.isBlank()) {
+                statuses = new HashSet<>();
+                for (String value : status.split(",")) {
+                    if (!value.isBlank()) {
+                        statuses.add(value.trim());
+                    }
+                }
+            }
+
+            FixtureCalendar.Page page = competitionsRepository.getFixtures(fromInstant, toInstant, category, statuses,
+                cursor != null && !cursor.isBlank() ? cursor : null, Math.max(1, Math.min(limit, MAX_BULK_RESULTS)));
+            List<Document> fixtures = new ArrayList<>(page.getMatches().size());
+            for (MatchLocation location : page.getMatches()) {
+                Document competition = competitionsRepository.getCompetitionById(location.getCategory(), location.getCompetitionId());
+                Document fixture = new Document("category", location.getCategory())
+                    .append("competitionId", location.getCompetitionId())
+                    .append("competitionName", competition != null ? competition.get("name") : null)
+                    .append("stageId", location.getStageId());
+                fixture.putAll(location.getMatch());
+                fixture.put("status", FixtureCalendar.statusOf(location));
+                fixtures.add(fixture);
+            }
+            return new ResponseEntity<>(
+                new Document("fixtures", fixtures)
+                    .append("count", fixtures.size())
+                    .append("nextCursor", page.getNextCursor()),
+                HttpStatus.OK
+            );
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(new Document("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error retrieving fixtures: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+    }
+
     /**
      * Add qualified team to a competition
      */
@@ -381,6 +458,7 @@ public class CompetitionsService {
                 );
             }
 
+            normalizeClubTeamImage(category, team);
             boolean success = competitionsRepository.addQualifiedTeam(category, competitionId, team);
             if (success) {
                 return new ResponseEntity<>(
@@ -414,6 +492,7 @@ public class CompetitionsService {
             }
 
             updatedTeam.put("id", teamId);
+            normalizeClubTeamImage(category, updatedTeam);
             boolean success = competitionsRepository.updateQualifiedTeam(category, competitionId, teamId, updatedTeam);
             if (success) {
                 return new ResponseEntity<>(
@@ -480,16 +559,6 @@ public class CompetitionsService {
 
             List<Document> teams = competitionsRepository.getQualifiedTeams(category, competitionId);
             if (teams != null) {
-                // For club competitions, add 'image' field from 'flag' field
-                // This allows frontend to use 'image' for club logos and 'flag' for national team flags
-                if ("fifaOfficialClubCups".equals(category)) {
-                    for (Document team : teams) {
-                        // If team has 'flag' but no 'image', copy flag to image for club teams
-                        if (team.containsKey("flag") && !team.containsKey("image")) {
-                            team.put("image", team.get("flag"));
-                        }
-                    }
-                }
                 return new ResponseEntity<>(teams, HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(
@@ -505,6 +574,86 @@ public class CompetitionsService {
         }
     }
 
+    /**
+     * Team catalog entries for a comma-separated list of ids, in request order (unknown ids are listed in notFound)
+     */
+    public ResponseEntity<?> getTeams(String ids) {
+        try {
+            Set<String> teamIds = new LinkedHashSet<>();
+            for (String id : ids.split(",")) {
+                if (!id.isBlank()) {
+                    teamIds.add(id.trim());
+                }
+            }
+            if (teamIds.isEmpty() || teamIds.size() > MAX_BULK_RESULTS) {
+                return new ResponseEntity<>(
+                    new Document("error", "Between 1 and " + MAX_BULK_RESULTS + " team ids are required"),
+                    HttpStatus.BAD_REQUEST
+                );
+            }
+
+            List<Document> teams = competitionsRepository.getTeams(teamIds);
+            List<String> notFound = new ArrayList<>(teamIds);
+            for (Document team : teams) {
+                notFound.remove(team.getString("id"));
+            }
+            return new ResponseEntity<>(new Document("teams", teams).append("notFound", notFound), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error retrieving teams: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * One team catalog entry
+     */
+    public ResponseEntity<Document> getTeam(String teamId) {
+        try {
+            List<Document> teams = competitionsRepository.getTeams(List.of(teamId));
+            if (teams.isEmpty()) {
+                return new ResponseEntity<>(new Document("error", "Team not found"), HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(teams.get(0), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error retrieving team: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * Update a team's shared fields (name, country, flag, image) in every competition at once
+     */
+    public ResponseEntity<Document> updateCatalogTeam(String teamId, Document fields) {
+        try {
+            for (String field : fields.keySet()) {
+                if (!TeamCatalog.CATALOG_FIELDS.contains(field) && !("id".equals(field) && teamId.equals(fields.get(field)))) {
+                    return new ResponseEntity<>(
+                        new Document("error", "Only " + TeamCatalog.CATALOG_FIELDS + " can be updated, got '" + field + "'"),
+                        HttpStatus.BAD_REQUEST
+                    );
+                }
+            }
+
+            Document team = competitionsRepository.updateCatalogTeam(teamId, fields);
+            if (team == null) {
+                return new ResponseEntity<>(new Document("error", "Team not found"), HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(
+                new Document("message", "Team updated successfully").append("team", team),
+                HttpStatus.OK
+            );
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error updating team: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
     /**
      * Get tournament structure for a competition
      */
@@ -545,6 +694,34 @@ public class CompetitionsService {
         }
     }
 
+    /**
+     * Group-stage standings of a competition (positions derived from the incrementally kept stats)
+     */
+    public ResponseEntity<?> getStandings(String category, String competitionId) {
+        try {
+            if (!isValidCategory(category)) {
+                return new ResponseEntity<>(
+                    new Document("error", "Invalid category"),
+                    HttpStatus.BAD_REQUEST
+                );
+            }
+
+            Document standings = competitionsRepository.getStandings(category, competitionId);
+            if (standings == null) {
+                return new ResponseEntity<>(
+                    new Document("error", "Competition not found"),
+                    HttpStatus.NOT_FOUND
+                );
+            }
+            return new ResponseEntity<>(standings, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error retrieving standings: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
     /**
      * Get a specific match with REAL results (internal endpoint)
      */
@@ -565,35 +742,127 @@ public class CompetitionsService {
                 );
             }
 
-            Document competition = competitionsRepository.getCompetitionById(category, competitionId);
-            if (competition == null) {
+            // Find match in tournamentStructure
+            Document match = competitionsRepository.findMatchInTournamentStructure(category, competitionId, matchId);
+            if (match == null) {
+                boolean competitionFound = competitionsRepository.competitionExists(category, competitionId);
                 return new ResponseEntity<>(
-                    new Document("error", "Competition not found"),
+                    new Document("error", competitionFound ? "Match not found" : "Competition not found"),
                     HttpStatus.NOT_FOUND
                 );
             }
 
-            // Find match in tournamentStructure
-            Document match = competitionsRepository.findMatchInTournamentStructure(category, competitionId, matchId);
-            if (match == null) {
+            return new ResponseEntity<>(
+                new Document("match", match),
+                HttpStatus.OK
+            );
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error retrieving match: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * Get a competition's match without knowing the competition's category (internal endpoint).
+     * Match IDs are only unique within a competition, so the competition ID is required.
+     */
+    public ResponseEntity<?> getMatchById(String competitionId, String matchId, String serviceToken) {
+        try {
+            // Validate service token for internal calls
+            if (serviceToken == null || serviceToken.trim().isEmpty()) {
+                return new ResponseEntity<>(
+                    new Document("error", "Service token required for internal endpoints"),
+                    HttpStatus.UNAUTHORIZED
+                );
+            }
+
+            if (competitionId == null || competitionId.trim().isEmpty()) {
+                return new ResponseEntity<>(
+                    new Document("error", "competitionId is required"),
+                    HttpStatus.BAD_REQUEST
+                );
+            }
+
+            MatchLocation location = competitionsRepository.findMatchLocation(competitionId, matchId);
+            if (location == null) {
                 return new ResponseEntity<>(
                     new Document("error", "Match not found"),
                     HttpStatus.NOT_FOUND
                 );
             }
 
+            return new ResponseEntity<>(toMatchResponse(location), HttpStatus.OK);
+        } catch (Exception e) {
             return new ResponseEntity<>(
-                new Document("match", match),
+                new Document("error", "Error retrieving match: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * Look up several matches of one competition in one call (internal endpoint)
+     */
+    public ResponseEntity<?> lookupMatches(String competitionId, List<String> matchIds, String serviceToken) {
+        try {
+            if (serviceToken == null || serviceToken.trim().isEmpty()) {
+                return new ResponseEntity<>(
+                    new Document("error", "Service token required for internal endpoints"),
+                    HttpStatus.UNAUTHORIZED
+                );
+            }
+
+            if (competitionId == null || competitionId.trim().isEmpty()) {
+                return new ResponseEntity<>(
+                    new Document("error", "competitionId is required"),
+                    HttpStatus.BAD_REQUEST
+                );
+            }
+
+            if (matchIds == null || matchIds.isEmpty()) {
+                return new ResponseEntity<>(
+                    new Document("error", "matchIds is required"),
+                    HttpStatus.BAD_REQUEST
+                );
+            }
+            if (matchIds.size() > MAX_BULK_RESULTS) {
+                return new ResponseEntity<>(
+                    new Document("error", "At most " + MAX_BULK_RESULTS + " matchIds per request"),
+                    HttpStatus.BAD_REQUEST
+                );
+            }
+
+            Document matches = new Document();
+            List<String> notFound = new ArrayList<>();
+            for (String matchId : matchIds) {
+                MatchLocation location = competitionsRepository.findMatchLocation(competitionId, matchId);
+                if (location != null) {
+                    matches.put(matchId, toMatchResponse(location));
+                } else {
+                    notFound.add(matchId);
+                }
+            }
+
+            return new ResponseEntity<>(
+                new Document("matches", matches).append("notFound", notFound),
                 HttpStatus.OK
             );
         } catch (Exception e) {
             return new ResponseEntity<>(
-                new Document("error", "Error retrieving match: " + e.getMessage()),
+                new Document("error", "Error looking up matches: " + e.getMessage()),
                 HttpStatus.INTERNAL_SERVER_ERROR
             );
         }
     }
 
+    private Document toMatchResponse(MatchLocation location) {
+        return new Document("match", location.getMatch())
+            .append("competitionId", location.getCompetitionId())
+            .append("category", location.getCategory());
+    }
+
     /**
      * Update REAL match results (only backend/admin can modify)
      */
@@ -606,18 +875,111 @@ public class CompetitionsService {
                 );
             }
 
-            boolean success = competitionsRepository.updateMatchResults(category, competitionId, matchId, results);
-            if (success) {
+            MatchResultUpdate.Outcome outcome = competitionsRepository.updateMatchResults(category, competitionId, matchId, results);
+            switch (outcome) {
+                case UPDATED:
+                    matchResultOutboxRelay.kick();
+                    return new ResponseEntity<>(
+                        new Document("message", "Match results updated successfully"),
+                        HttpStatus.OK
+                    );
+                case NOT_FOUND:
+                    return new ResponseEntity<>(
+                        new Document("error", "Match not found"),
+                        HttpStatus.NOT_FOUND
+                    );
+                case CONFLICT:
+                    return new ResponseEntity<>(
+                        new Document("error", "Match is being modified concurrently, please retry"),
+                        HttpStatus.CONFLICT
+                    );
+                default:
+                    return new ResponseEntity<>(
+                        new Document("error", "Error updating match results"),
+                        HttpStatus.INTERNAL_SERVER_ERROR
+                    );
+            }
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error updating match results: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * Update many REAL match results (across competitions) in one request.
+     * Each competition document gets a single update; the response reports every match.
+     * 
+     * Response: { outcomes: [{ category, competitionId, matchId, status }], updated, count }
+     * status: updated | not_found | duplicate | conflict | failed | invalid
+     */
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<?> updateMatchResults(List<Map<String, Object>> entries) {
+        try {
+            if (entries == null || entries.isEmpty()) {
                 return new ResponseEntity<>(
-                    new Document("message", "Match results updated successfully"),
-                    HttpStatus.OK
+                    new Document("error", "At least one match result is required"),
+                    HttpStatus.BAD_REQUEST
                 );
-            } else {
+            }
+            if (entries.size() > MAX_BULK_RESULTS) {
                 return new ResponseEntity<>(
-                    new Document("error", "Match not found or update failed"),
-                    HttpStatus.NOT_FOUND
+                    new Document("error", "At most " + MAX_BULK_RESULTS + " match results per request"),
+                    HttpStatus.BAD_REQUEST
                 );
             }
+
+            // Entries that cannot be applied are reported as invalid and never reach the repository
+            List<MatchResultUpdate> updates = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            List<String> statuses = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                Map<String, Object> entry = entries.get(i);
+                statuses.add("invalid");
+                if (entry == null
+                        || !(entry.get("category") instanceof String) || !isValidCategory((String) entry.get("category"))
+                        || !(entry.get("competitionId") instanceof String)
+                        || !(entry.get("matchId") instanceof String)
+                        || !(entry.get("results") instanceof Map) || ((Map<?, ?>) entry.get("results")).isEmpty()) {
+                    continue;
+                }
+                updates.add(new MatchResultUpdate(
+                    (String) entry.get("category"),
+                    (String) entry.get("competitionId"),
+                    (String) entry.get("matchId"),
+                    (Map<String, Object>) entry.get("results")));
+                positions.add(i);
+            }
+
+            List<MatchResultUpdate.Outcome> outcomes = updates.isEmpty()
+                ? List.of()
+                : competitionsRepository.updateMatchResults(updates);
+            for (int i = 0; i < outcomes.size(); i++) {
+                statuses.set(positions.get(i), outcomes.get(i).name().toLowerCase());
+            }
+            if (outcomes.contains(MatchResultUpdate.Outcome.UPDATED)) {
+                matchResultOutboxRelay.kick();
+            }
+
+            List<Document> report = new ArrayList<>();
+            int updated = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                Map<String, Object> entry = entries.get(i) != null ? entries.get(i) : Map.of();
+                report.add(new Document("category", entry.get("category"))
+                    .append("competitionId", entry.get("competitionId"))
+                    .append("matchId", entry.get("matchId"))
+                    .append("status", statuses.get(i)));
+                if ("updated".equals(statuses.get(i))) {
+                    updated++;
+                }
+            }
+
+            System.out.println("✅ Bulk match results: " + updated + " of " + entries.size() + " updated");
+            return new ResponseEntity<>(
+                new Document("outcomes", report).append("updated", updated).append("count", entries.size()),
+                HttpStatus.OK
+            );
         } catch (Exception e) {
             return new ResponseEntity<>(
                 new Document("error", "Error updating match results: " + e.getMessage()),
@@ -626,10 +988,134 @@ public class CompetitionsService {
         }
     }
 
+    /**
+     * Match-result events after the given sequence, in outbox order (internal endpoint).
+     * Lets other services follow result changes from the outbox instead of rescanning competitions.
+     */
+    public ResponseEntity<?> getMatchResultEvents(String after, int limit, String serviceToken) {
+        try {
+            if (serviceToken == null || serviceToken.trim().isEmpty()) {
+                return new ResponseEntity<>(
+                    new Document("error", "Service token required for internal endpoints"),
+                    HttpStatus.UNAUTHORIZED
+                );
+            }
+
+            List<MatchResultEvent> events = matchResultOutboxRepository.findAfter(after, clampLimit(limit));
+            String lastSequence = events.isEmpty() ? after : String.valueOf(events.get(events.size() - 1).getSequence());
+            return new ResponseEntity<>(
+                new Document("events", events).append("count", events.size()).append("lastSequence", lastSequence),
+                HttpStatus.OK
+            );
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error retrieving match result events: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * Open a Server-Sent Events stream of live match changes for one competition
+     */
+    public ResponseEntity<?> openLiveFeed(String category, String competitionId) {
+        if (!isValidCategory(category)) {
+            return new ResponseEntity<>(
+                new Document("error", "Invalid category"),
+                HttpStatus.BAD_REQUEST
+            );
+        }
+        if (competitionsRepository.getCompetitionById(category, competitionId) == null) {
+            return new ResponseEntity<>(
+                new Document("error", "Competition not found"),
+                HttpStatus.NOT_FOUND
+            );
+        }
+
+        SseEmitter emitter = liveFeedService.subscribe(category, competitionId,
+            liveMatchStateRepository.findStates(category, competitionId));
+        if (emitter == null) {
+            return new ResponseEntity<>(
+                new Document("error", "Too many live connections, retry later"),
+                HttpStatus.SERVICE_UNAVAILABLE
+            );
+        }
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+    }
+
+    // ==================== ETAGS ====================
+
+    /**
+     * ETag of the full competitions payload
+     */
+    public String getAllCompetitionsETag() {
+        return competitionsRepository.getAllCompetitionsETag();
+    }
+
+    /**
+     * ETag of a category list, or null for an invalid category
+     */
+    public String getCategoryETag(String category) {
+        return isValidCategory(category) ? competitionsRepository.getCategoryETag(category) : null;
+    }
+
+    /**
+     * ETag of a competition (also used for its tournament structure), or null when it does not exist
+     */
+    public String getCompetitionETag(String category, String competitionId) {
+        return isValidCategory(category) ? competitionsRepository.getCompetitionETag(category, competitionId) : null;
+    }
+
+    /**
+     * ETag of one representation of all competitions: the payload ETag plus the fields / exclude projection
+     */
+    public String getAllCompetitionsETag(String fields, String exclude) {
+        return CompetitionProjection.of(fields, exclude).etagOf(getAllCompetitionsETag());
+    }
+
+    /**
+     * ETag of one representation of a category list: the list ETag plus the view and projection
+     */
+    public String getCategoryETag(String category, String view, String fields, String exclude) {
+        return CompetitionProjection.forView(view, fields, exclude).etagOf(getCategoryETag(category));
+    }
+
+    /**
+     * ETag of one representation of a competition: its ETag plus the fields / exclude projection
+     */
+    public String getCompetitionETag(String category, String competitionId, String fields, String exclude) {
+        return CompetitionProjection.of(fields, exclude).etagOf(getCompetitionETag(category, competitionId));
+    }
+
+    /**
+     * Response for a guarded write that was not applied
+     */
+    private ResponseEntity<Document> writeFailure(CompetitionWriteOutcome outcome, String action) {
+        switch (outcome) {
+            case NOT_FOUND:
+                return new ResponseEntity<>(new Document("error", "Competition not found"), HttpStatus.NOT_FOUND);
+            case PRECONDITION_FAILED:
+                return new ResponseEntity<>(
+                    new Document("error", "Competition was modified since it was read (If-Match does not match)"),
+                    HttpStatus.PRECONDITION_FAILED
+                );
+            case CONFLICT:
+                return new ResponseEntity<>(
+                    new Document("error", "Competition is being modified concurrently, please retry"),
+                    HttpStatus.CONFLICT
+                );
+            default:
+                return new ResponseEntity<>(
+                    new Document("error", "Error " + action + " competition"),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+                );
+        }
+    }
+
     /**
      * Validate if category is valid
      */
-    private boolean isValidCategory(String category) {
+    boolean isValidCategory(String category) {
         return "fifaNationalTeamCups".equals(category) ||
                "fifaOfficialClubCups".equals(category) ||
                "nationalClubLeagues".equals(category);
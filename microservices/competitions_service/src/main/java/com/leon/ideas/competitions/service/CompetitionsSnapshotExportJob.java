@@ -0,0 +1,48 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.repository.CompetitionsSnapshot;
+import com.leon.ideas.competitions.repository.CompetitionsSnapshotCache;
+import com.leon.ideas.competitions.repository.CompetitionsSnapshotFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically exports the competitions collection and team catalog to the local snapshot file,
+ * so the next start of this instance serves reads before its first Mongo round trip.
+ * Skipped while the data has not changed since the last export.
+ */
+@Component
+public class CompetitionsSnapshotExportJob {
+
+    @Autowired
+    private CompetitionsSnapshotFile snapshotFile;
+
+    @Autowired
+    private CompetitionsSnapshotCache snapshotCache;
+
+    private volatile String lastExportedETag;
+
+    @Scheduled(initialDelayString = "${competitions.snapshot-file.initial-delay-ms:60000}",
+               fixedDelayString = "${competitions.snapshot-file.export-interval-ms:600000}")
+    public void export() {
+        if (!snapshotFile.isEnabled()) {
+            return;
+        }
+        CompetitionsSnapshot snapshot = snapshotCache.currentIfLoaded();
+        String etag = snapshot != null ? snapshot.getAllCompetitionsETag() : null;
+        if (etag != null && etag.equals(lastExportedETag)) {
+            return;
+        }
+
+        try {
+            long startedAt = System.currentTimeMillis();
+            int count = snapshotFile.export();
+            lastExportedETag = etag;
+            System.out.println("💾 Exported " + count + " competitions to snapshot file in "
+                + (System.currentTimeMillis() - startedAt) + " ms");
+        } catch (Exception e) {
+            System.err.println("❌ Error exporting competitions snapshot file: " + e.getMessage());
+        }
+    }
+}
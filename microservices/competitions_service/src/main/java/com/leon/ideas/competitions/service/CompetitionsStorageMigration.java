@@ -0,0 +1,114 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.repository.CompetitionsRepository;
+import com.leon.ideas.competitions.repository.LiveMatchStateRepository;
+import com.leon.ideas.competitions.repository.MatchResultOutboxRepository;
+import com.leon.ideas.competitions.repository.TeamCatalogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Prepares the per-competition storage on startup:
+ * creates the indexes and, until it has completed once, copies the legacy single "competitions"
+ * document into one document per competition (resuming a copy that failed part way).
+ * Then, in the background, rebuilds group standings from stored results, backfills club team images
+ * and moves embedded team fields into the team catalog.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CompetitionsStorageMigration implements ApplicationRunner {
+
+    @Autowired
+    private CompetitionsRepository competitionsRepository;
+
+    @Autowired
+    private MatchResultOutboxRepository matchResultOutboxRepository;
+
+    @Autowired
+    private TeamCatalogRepository teamCatalogRepository;
+
+    @Autowired
+    private LiveMatchStateRepository liveMatchStateRepository;
+
+    @Value("${competitions.storage.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!migrateOnStartup) {
+            return;
+        }
+        try {
+            competitionsRepository.ensureIndexes();
+            matchResultOutboxRepository.ensureIndexes();
+            teamCatalogRepository.ensureIndexes();
+            liveMatchStateRepository.ensureIndexes();
+
+            int migrated = competitionsRepository.migrateLegacyDocument();
+            if (migrated > 0) {
+                System.out.println("✅ Migrated " + migrated + " competitions to per-competition documents");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error preparing competitions storage: " + e.getMessage());
+        }
+
+        Thread backfill = new Thread(() -> {
+            recomputeStandings();
+            backfillClubTeamImages();
+            migrateTeamsToCatalog();
+        }, "competitions-team-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    /**
+     * Competitions stored before result writes applied standings deltas; until rebuilt, their
+     * result writes rebuild the standings instead of applying a delta
+     */
+    private void recomputeStandings() {
+        try {
+            int rebuilt = competitionsRepository.recomputeMissingStandings();
+            if (rebuilt > 0) {
+                System.out.println("✅ Rebuilt group standings of " + rebuilt + " competitions from their results");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error rebuilding group standings: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Club teams stored before images were normalized on write only have a 'flag'
+     */
+    private void backfillClubTeamImages() {
+        try {
+            int updated = competitionsRepository.backfillClubTeamImages(
+                List.of("fifaOfficialClubCups", "nationalClubLeagues"));
+            if (updated > 0) {
+                System.out.println("✅ Backfilled club team images in " + updated + " competitions");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error backfilling club team images: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Competitions stored before the team catalog embed every team's name, flag and image
+     */
+    private void migrateTeamsToCatalog() {
+        try {
+            int migrated = competitionsRepository.migrateTeamsToCatalog();
+            if (migrated > 0) {
+                System.out.println("✅ Moved qualified teams of " + migrated + " competitions to the team catalog");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error moving qualified teams to the team catalog: " + e.getMessage());
+        }
+    }
+}
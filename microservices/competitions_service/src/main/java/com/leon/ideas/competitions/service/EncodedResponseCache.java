@@ -0,0 +1,179 @@
+package com.leon.ideas.competitions.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ready-to-send JSON bodies of the hot competition reads, keyed by request and ETag.
+ *
+ * The first request for a given ETag serializes the body once (and gzips it when it is large
+ * enough); every later request with the same ETag writes the stored bytes as they are. A new
+ * ETag replaces the entry, so at most one version per request key is kept. When the stored
+ * bytes exceed the configured budget the cache starts over.
+ * The gzip body is sent with its own ETag (see {@link #gzipETag}).
+ */
+@Component
+public class EncodedResponseCache {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${competitions.responses.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${competitions.responses.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    private final Map<String, EncodedResponse> responses = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private static final class EncodedResponse {
+        private final String etag;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        private EncodedResponse(String etag, byte[] json, byte[] gzip) {
+            this.etag = etag;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        private long size() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+    public EncodedResponseCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("competitions.responses.encoded")
+            .tag("result", "hit")
+            .description("Competition responses written from pre-encoded bytes")
+            .register(meterRegistry);
+        this.misses = Counter.builder("competitions.responses.encoded")
+            .tag("result", "miss")
+            .description("Competition responses that had to be serialized")
+            .register(meterRegistry);
+        Gauge.builder("competitions.responses.encoded.size", storedBytes, AtomicLong::get)
+            .baseUnit("bytes")
+            .description("Bytes held by the pre-encoded response cache")
+            .register(meterRegistry);
+    }
+
+    /**
+     * The encoded body stored for (key, etag), or the loader's response encoded and stored when it
+     * is a success. Other responses (and requests without an ETag) are returned as the loader built them.
+     *
+     * @param acceptEncoding the request's Accept-Encoding header (gzip is sent when it allows it)
+     */
+    public ResponseEntity<?> respond(String key, String etag, String acceptEncoding, Supplier<ResponseEntity<?>> loader) {
+        EncodedResponse encoded = etag != null ? responses.get(key) : null;
+        if (encoded != null && encoded.etag.equals(etag)) {
+            hits.increment();
+            return toResponse(encoded, acceptsGzip(acceptEncoding));
+        }
+
+        ResponseEntity<?> response = loader.get();
+        if (etag == null || !response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            return response;
+        }
+        misses.increment();
+        try {
+            encoded = encode(etag, response.getBody());
+        } catch (IOException e) {
+            System.err.println("❌ Error encoding response " + key + ": " + e.getMessage());
+            return response;
+        }
+        store(key, encoded);
+        return toResponse(encoded, acceptsGzip(acceptEncoding));
+    }
+
+    private EncodedResponse encode(String etag, Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        if (json.length < gzipMinBytes) {
+            return new EncodedResponse(etag, json, null);
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        return new EncodedResponse(etag, json, compressed.toByteArray());
+    }
+
+    private void store(String key, EncodedResponse encoded) {
+        if (encoded.size() > maxBytes) {
+            return;
+        }
+        EncodedResponse previous = responses.put(key, encoded);
+        long stored = storedBytes.addAndGet(encoded.size() - (previous != null ? previous.size() : 0));
+        if (stored > maxBytes) {
+            responses.clear();
+            storedBytes.set(0);
+        }
+    }
+
+    private static ResponseEntity<byte[]> toResponse(EncodedResponse encoded, boolean gzip) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip && encoded.gzip != null) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .eTag(gzipETag(encoded.etag))
+                .contentLength(encoded.gzip.length)
+                .body(encoded.gzip);
+        }
+        return builder.eTag(encoded.etag).contentLength(encoded.json.length).body(encoded.json);
+    }
+
+    /**
+     * Strong ETag of the gzip body: the identity ETag with a '-gzip' suffix, since the two bodies
+     * are different representations (RFC 9110, 8.8.3)
+     */
+    public static String gzipETag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * True when the Accept-Encoding header lists gzip (or *) without q=0
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!"gzip".equalsIgnoreCase(name) && !"*".equals(name)) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].replace(" ", "");
+                if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?")) {
+                    rejected = true;
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
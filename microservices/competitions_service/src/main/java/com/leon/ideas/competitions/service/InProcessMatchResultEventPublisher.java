@@ -0,0 +1,27 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.model.MatchResultEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes match-result events as Spring application events inside this instance
+ * (default, for local runs). Listen with @EventListener on {@link MatchResultEvent}; the live feed
+ * does not, it follows the outbox on every instance (see LiveFeedTail).
+ */
+@Component
+@ConditionalOnProperty(name = "competitions.events.publisher", havingValue = "in-process", matchIfMissing = true)
+public class InProcessMatchResultEventPublisher implements MatchResultEventPublisher {
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(MatchResultEvent event) {
+        applicationEventPublisher.publishEvent(event);
+        System.out.println("📣 Match result event published: " + event.getCategory() + "/" + event.getCompetitionId()
+            + " match " + event.getMatchId() + " (" + event.getTeam1Score() + "-" + event.getTeam2Score() + ")");
+    }
+}
@@ -0,0 +1,292 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.model.MatchResultEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events feed of live match changes, one topic per competition.
+ *
+ * Every instance feeds its own subscribers: {@link LiveFeedTail} follows the outbox and the live
+ * state collection, whichever instance wrote them. A tick ingested here is also pushed at once;
+ * a match's state is only sent when it differs from, and is newer than, the last one sent.
+ *
+ * Publishing never blocks on a client: each subscriber has a small bounded buffer (the oldest
+ * event is dropped when a slow client falls behind) drained by a shared sender pool. Idle
+ * connections get a heartbeat comment so proxies keep them open.
+ */
+@Service
+public class LiveFeedService {
+
+    private final Map<String, Set<Subscriber>> subscribersByCompetition = new ConcurrentHashMap<>();
+    // topic -> matchId -> last in-play state sent
+    private final Map<String, Map<String, SentTick>> lastTicksByCompetition = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Counter droppedEvents;
+
+    @Value("${competitions.live.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${competitions.live.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${competitions.live.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public LiveFeedService(MeterRegistry meterRegistry,
+                           @Value("${competitions.live.sender-threads:4}") int senderThreads,
+                           @Value("${competitions.live.heartbeat-interval-ms:15000}") long heartbeatIntervalMs) {
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemonThreads("live-feed-sender"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("live-feed-heartbeat"));
+        this.heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+
+        this.droppedEvents = Counter.builder("competitions.live.dropped")
+            .description("Live events dropped because a subscriber's buffer was full")
+            .register(meterRegistry);
+        Gauge.builder("competitions.live.subscribers", subscriberCount, AtomicInteger::get)
+            .description("Open live feed connections")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Open a live connection for one competition, or null when the instance is at capacity.
+     * The current in-play states ({ matchId, state }) are sent right after 'connected'.
+     */
+    public SseEmitter subscribe(String category, String competitionId, List<Document> liveStates) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+
+        String topic = topic(category, competitionId);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(topic, emitter, bufferSize);
+        subscribersByCompetition.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        enqueue(subscriber, SseEmitter.event().name("connected")
+            .data(new Document("category", category).append("competitionId", competitionId)));
+        for (Document liveState : liveStates) {
+            enqueue(subscriber, SseEmitter.event().name("match-tick").data(liveState));
+        }
+        return emitter;
+    }
+
+    /**
+     * Push an event to every subscriber of a competition
+     */
+    public void publish(String category, String competitionId, String eventName, Object data) {
+        Set<Subscriber> subscribers = subscribersByCompetition.get(topic(category, competitionId));
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        String id = String.valueOf(eventIds.incrementAndGet());
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().id(id).name(eventName).data(data));
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return subscriberCount.get() > 0;
+    }
+
+    /**
+     * Push a match's in-play state as of the given time, unless the last state sent for that match
+     * is the same or newer
+     */
+    public void publishTick(String category, String competitionId, String matchId, Document state, long stateTime) {
+        String topic = topic(category, competitionId);
+        if (!subscribersByCompetition.containsKey(topic)) {
+            return;
+        }
+        boolean[] changed = new boolean[1];
+        lastTicksByCompetition.computeIfAbsent(topic, t -> new ConcurrentHashMap<>()).compute(matchId, (id, last) -> {
+            if (last != null && (last.time >= stateTime || last.state.equals(state))) {
+                return last;
+            }
+            changed[0] = true;
+            return new SentTick(state, stateTime);
+        });
+        if (changed[0]) {
+            publish(category, competitionId, "match-tick", new Document("matchId", matchId).append("state", state));
+        }
+    }
+
+    /**
+     * REAL results written through updateMatchResults (read back from the outbox)
+     */
+    public void publishResult(MatchResultEvent event) {
+        Document delta = new Document("matchId", event.getMatchId())
+            .append("stageId", event.getStageId())
+            .append("groupLetter", event.getGroupLetter())
+            .append("team1Score", event.getTeam1Score())
+            .append("team2Score", event.getTeam2Score())
+            .append("winnerTeamId", event.getWinnerTeamId())
+            .append("isDraw", event.getIsDraw())
+            .append("extraTime", event.getExtraTime())
+            .append("penalties", event.getPenalties())
+            .append("penaltiesTeam1Score", event.getPenaltiesTeam1Score())
+            .append("penaltiesTeam2Score", event.getPenaltiesTeam2Score())
+            .append("isPlayed", event.getIsPlayed())
+            .append("status", event.getStatus())
+            .append("competitionVersion", event.getCompetitionVersion());
+        publish(event.getCategory(), event.getCompetitionId(), "match-result", delta);
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.offer(event)) {
+            droppedEvents.increment();
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Send everything buffered for one subscriber. At most one drain per subscriber runs at a time.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.poll()) != null) {
+                subscriber.emitter.send(event);
+            }
+        } catch (Exception e) {
+            // Client went away; the emitter callbacks may not fire until the next write attempt
+            subscriber.emitter.completeWithError(e);
+            unsubscribe(subscriber);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (subscriber.hasPending() && subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Set<Subscriber> subscribers : subscribersByCompetition.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.hasPending()) {
+                    enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscriberCount.decrementAndGet();
+            Set<Subscriber> subscribers = subscribersByCompetition.get(subscriber.topic);
+            if (subscribers != null) {
+                subscribers.remove(subscriber);
+                if (subscribers.isEmpty() && subscribersByCompetition.remove(subscriber.topic, subscribers)) {
+                    lastTicksByCompetition.remove(subscriber.topic);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        for (Set<Subscriber> subscribers : subscribersByCompetition.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private static String topic(String category, String competitionId) {
+        return category + "/" + competitionId;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class SentTick {
+        private final Document state;
+        private final long time;
+
+        private SentTick(Document state, long time) {
+            this.state = state;
+            this.time = time;
+        }
+    }
+
+    /**
+     * One open connection and its bounded buffer
+     */
+    private static final class Subscriber {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final int capacity;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Subscriber(String topic, SseEmitter emitter, int capacity) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.capacity = capacity;
+            this.buffer = new ArrayDeque<>(capacity);
+        }
+
+        /**
+         * Buffer an event, dropping the oldest one when full.
+         *
+         * @return true when an event was dropped
+         */
+        private synchronized boolean offer(SseEmitter.SseEventBuilder event) {
+            boolean dropped = false;
+            if (buffer.size() >= capacity) {
+                buffer.pollFirst();
+                dropped = true;
+            }
+            buffer.addLast(event);
+            return dropped;
+        }
+
+        private synchronized SseEmitter.SseEventBuilder poll() {
+            return buffer.pollFirst();
+        }
+
+        private synchronized boolean hasPending() {
+            return !buffer.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.repository.CompetitionsRepository;
+import com.leon.ideas.competitions.repository.FixtureCalendar;
+import com.leon.ideas.competitions.repository.MatchLocation;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a live data provider: plays the matches kicking off around now and sends
+ * their ticks to {@link LiveTickIngestionService} at a fixed rate, repeats included, the way a
+ * real feed does. Matches are left 'live' at the final minute; final results still go through
+ * the results endpoints. Never enable it against shared data.
+ *
+ * competitions.live.simulator.enabled=true [--competitions.live.simulator.matches=20]
+ *   [--competitions.live.simulator.tick-interval-ms=100] [--competitions.live.simulator.ticks-per-minute=5]
+ */
+@Component
+@ConditionalOnProperty(name = "competitions.live.simulator.enabled", havingValue = "true")
+public class LiveFeedSimulator {
+
+    private static final int FULL_TIME = 90;
+    private static final double GOAL_CHANCE_PER_MINUTE = 0.03;
+
+    @Autowired
+    private CompetitionsRepository competitionsRepository;
+
+    @Autowired
+    private LiveTickIngestionService liveTickIngestionService;
+
+    @Value("${competitions.live.simulator.matches:20}")
+    private int matchCount;
+
+    @Value("${competitions.live.simulator.tick-interval-ms:100}")
+    private long tickIntervalMs;
+
+    @Value("${competitions.live.simulator.ticks-per-minute:5}")
+    private int ticksPerMinute;
+
+    private final Random random = new Random();
+    private final List<SimulatedMatch> matches = new ArrayList<>();
+    private ScheduledExecutorService ticker;
+
+    private static final class SimulatedMatch {
+        private final MatchLocation location;
+        private int ticks;
+        private int minute;
+        private int team1Score;
+        private int team2Score;
+
+        private SimulatedMatch(MatchLocation location) {
+            this.location = location;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Instant now = Instant.now();
+        FixtureCalendar.Page page = competitionsRepository.getFixtures(now.minus(Duration.ofHours(2)),
+            now.plus(Duration.ofHours(2)), null, Set.of("scheduled", "live"), null, matchCount);
+        for (MatchLocation location : page.getMatches()) {
+            // Ticks are only accepted for REAL matches
+            if (location.isInTournamentStructure()) {
+                matches.add(new SimulatedMatch(location));
+            }
+        }
+        if (matches.isEmpty()) {
+            System.out.println("⚠️ Live feed simulator: no matches kicking off within two hours of now");
+            return;
+        }
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-feed-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickIntervalMs, tickIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("▶️ Live feed simulator: playing " + matches.size() + " matches, one tick every " + tickIntervalMs + " ms");
+    }
+
+    private void tick() {
+        try {
+            for (SimulatedMatch match : matches) {
+                if (match.minute >= FULL_TIME) {
+                    continue;
+                }
+                if (++match.ticks % ticksPerMinute == 0) {
+                    match.minute++;
+                    if (random.nextDouble() < GOAL_CHANCE_PER_MINUTE) {
+                        if (random.nextBoolean()) {
+                            match.team1Score++;
+                        } else {
+                            match.team2Score++;
+                        }
+                    }
+                }
+                liveTickIngestionService.accept(new Document("category", match.location.getCategory())
+                    .append("competitionId", match.location.getCompetitionId())
+                    .append("matchId", match.location.getMatch().getString("matchId"))
+                    .append("team1Score", match.team1Score)
+                    .append("team2Score", match.team2Score)
+                    .append("minute", match.minute)
+                    .append("status", "live"));
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Live feed simulator tick failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+}
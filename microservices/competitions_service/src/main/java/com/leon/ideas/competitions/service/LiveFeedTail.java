@@ -0,0 +1,85 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.model.MatchResultEvent;
+import com.leon.ideas.competitions.repository.LiveMatchStateRepository;
+import com.leon.ideas.competitions.repository.MatchResultOutboxRepository;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Feeds this instance's live subscribers from what any instance wrote: result events by outbox
+ * sequence, in-play states by their save time.
+ *
+ * Works on a standalone Mongo (no change streams). While nobody is subscribed the tail stops and
+ * restarts from "now" on the next subscriber, so a new connection never replays old events.
+ * States are re-read over a short overlap (writers' clocks and commit order differ); the feed
+ * drops the ones it already sent or that are older than what it sent.
+ */
+@Service
+public class LiveFeedTail {
+
+    private static final long STATE_OVERLAP_MS = 2000;
+
+    @Autowired
+    private MatchResultOutboxRepository matchResultOutboxRepository;
+
+    @Autowired
+    private LiveMatchStateRepository liveMatchStateRepository;
+
+    @Autowired
+    private LiveFeedService liveFeedService;
+
+    @Value("${competitions.live.tail-batch-size:500}")
+    private int batchSize;
+
+    private Long lastSequence;
+    private Date lastStateUpdate;
+
+    @Scheduled(fixedDelayString = "${competitions.live.tail-interval-ms:1000}")
+    public synchronized void tail() {
+        if (!liveFeedService.hasSubscribers()) {
+            lastSequence = null;
+            lastStateUpdate = null;
+            return;
+        }
+        try {
+            if (lastSequence == null) {
+                lastSequence = matchResultOutboxRepository.lastSequence();
+                lastStateUpdate = new Date();
+            }
+            tailResults();
+            tailStates();
+        } catch (Exception e) {
+            System.err.println("❌ Error following live changes: " + e.getMessage());
+        }
+    }
+
+    private void tailResults() {
+        List<MatchResultEvent> events;
+        do {
+            events = matchResultOutboxRepository.findAfter(String.valueOf(lastSequence), batchSize);
+            for (MatchResultEvent event : events) {
+                liveFeedService.publishResult(event);
+                lastSequence = event.getSequence();
+            }
+        } while (events.size() == batchSize);
+    }
+
+    private void tailStates() {
+        Date since = new Date(lastStateUpdate.getTime() - STATE_OVERLAP_MS);
+        for (Document saved : liveMatchStateRepository.findUpdatedSince(since, batchSize)) {
+            Date updatedAt = saved.getDate("updatedAt");
+            liveFeedService.publishTick(saved.getString("category"), saved.getString("competitionId"),
+                saved.getString("matchId"), saved.get("state", Document.class), updatedAt.getTime());
+            if (updatedAt.after(lastStateUpdate)) {
+                lastStateUpdate = updatedAt;
+            }
+        }
+    }
+}
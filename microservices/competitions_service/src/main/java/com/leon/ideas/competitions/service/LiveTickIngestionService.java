@@ -0,0 +1,304 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.repository.CompetitionsRepository;
+import com.leon.ideas.competitions.repository.LiveMatchStateRepository;
+import com.leon.ideas.competitions.repository.MatchLocation;
+import com.leon.ideas.competitions.repository.MatchResultUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingestion of in-play match ticks (score, minute, status).
+ *
+ * Ticks are coalesced per match: only the latest state is kept until the next flush, which writes
+ * every pending match in one bulk upsert to the live state collection, so Mongo sees at most one
+ * write per live match per flush interval, whatever the tick rate. In-play writes record no result
+ * event and leave the competition document (standings, version, ETags) alone; only a match's
+ * 'finished' state goes through the bulk result path. Each tick that changes a match's state is
+ * still pushed to live subscribers right away.
+ *
+ * Only matches in tournamentStructure take ticks: a groupsKindTournament match has no result to write.
+ */
+@Service
+public class LiveTickIngestionService {
+
+    /**
+     * Match fields a tick may carry
+     */
+    static final List<String> TICK_FIELDS = List.of("team1Score", "team2Score", "minute", "status");
+
+    private static final int MAX_TICKS_PER_REQUEST = 1000;
+
+    private static final String FINISHED = "finished";
+
+    @Autowired
+    private CompetitionsRepository competitionsRepository;
+
+    @Autowired
+    private CompetitionsService competitionsService;
+
+    @Autowired
+    private LiveFeedService liveFeedService;
+
+    @Autowired
+    private MatchResultOutboxRelay matchResultOutboxRelay;
+
+    @Autowired
+    private LiveMatchStateRepository liveMatchStateRepository;
+
+    @Value("${competitions.live.ticks.batch-size:500}")
+    private int batchSize;
+
+    private final Map<String, PendingState> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Latest known state of every match ticking on this instance (dropped once it finished)
+     */
+    private final Map<String, Document> states = new ConcurrentHashMap<>();
+
+    private final Counter changedTicks;
+    private final Counter unchangedTicks;
+    private final Counter writtenMatches;
+
+    /**
+     * Latest not yet written state of one match (every tick field)
+     */
+    private static final class PendingState {
+        private final String category;
+        private final String competitionId;
+        private final String matchId;
+        private final Document fields;
+
+        private PendingState(String category, String competitionId, String matchId, Document fields) {
+            this.category = category;
+            this.competitionId = competitionId;
+            this.matchId = matchId;
+            this.fields = fields;
+        }
+    }
+
+    public LiveTickIngestionService(MeterRegistry meterRegistry) {
+        this.changedTicks = Counter.builder("competitions.live.ticks")
+            .tag("result", "changed")
+            .description("Live ticks that changed a match's state")
+            .register(meterRegistry);
+        this.unchangedTicks = Counter.builder("competitions.live.ticks")
+            .tag("result", "unchanged")
+            .description("Live ticks that repeated a match's current state")
+            .register(meterRegistry);
+        this.writtenMatches = Counter.builder("competitions.live.ticks.written")
+            .description("Coalesced match states written to Mongo")
+            .register(meterRegistry);
+        Gauge.builder("competitions.live.ticks.pending", pending, Map::size)
+            .description("Matches with ticks waiting for the next flush")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Accept a batch of ticks: { category, competitionId, matchId, team1Score?, team2Score?, minute?, status? }
+     */
+    public ResponseEntity<?> ingest(List<Map<String, Object>> ticks) {
+        try {
+            if (ticks == null || ticks.isEmpty()) {
+                return new ResponseEntity<>(new Document("error", "At least one tick is required"), HttpStatus.BAD_REQUEST);
+            }
+            if (ticks.size() > MAX_TICKS_PER_REQUEST) {
+                return new ResponseEntity<>(
+                    new Document("error", "At most " + MAX_TICKS_PER_REQUEST + " ticks per request"),
+                    HttpStatus.BAD_REQUEST
+                );
+            }
+
+            int changed = 0;
+            int unchanged = 0;
+            List<Integer> rejected = new ArrayList<>();
+            for (int i = 0; i < ticks.size(); i++) {
+                Boolean result = accept(ticks.get(i));
+                if (result == null) {
+                    rejected.add(i);
+                } else if (result) {
+                    changed++;
+                } else {
+                    unchanged++;
+                }
+            }
+            return new ResponseEntity<>(
+                new Document("changed", changed).append("unchanged", unchanged).append("rejected", rejected),
+                HttpStatus.ACCEPTED
+            );
+        } catch (Exception e) {
+            return new ResponseEntity<>(
+                new Document("error", "Error ingesting live ticks: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    /**
+     * Coalesce one tick into its match's pending state and publish it when it changed something
+     *
+     * @return true when the state changed, false for a repeated state, null for an invalid tick or
+     * a match the flush cannot write (unknown, or not in tournamentStructure)
+     */
+    Boolean accept(Map<String, Object> tick) {
+        if (tick == null
+                || !(tick.get("category") instanceof String) || !competitionsService.isValidCategory((String) tick.get("category"))
+                || !(tick.get("competitionId") instanceof String)
+                || !(tick.get("matchId") instanceof String)) {
+            return null;
+        }
+        String category = (String) tick.get("category");
+        String competitionId = (String) tick.get("competitionId");
+        String matchId = (String) tick.get("matchId");
+
+        Document fields = new Document();
+        for (String field : TICK_FIELDS) {
+            if (tick.containsKey(field)) {
+                fields.put(field, tick.get(field));
+            }
+        }
+        if (fields.isEmpty()) {
+            return null;
+        }
+        // Only tournamentStructure holds the REAL results, which is where a finished match is written
+        MatchLocation location = competitionsRepository.findMatchLocation(category, competitionId, matchId);
+        if (location == null || !location.isInTournamentStructure()) {
+            return null;
+        }
+
+        String key = category + "/" + competitionId + "/" + matchId;
+        Document stored = states.containsKey(key) ? null : liveMatchStateRepository.findState(category, competitionId, matchId);
+        Document[] published = new Document[1];
+        states.compute(key, (k, current) -> {
+            Document base = current != null ? current : initialState(location.getMatch(), stored);
+            if (fields.entrySet().stream().allMatch(field -> Objects.equals(base.get(field.getKey()), field.getValue()))) {
+                return base;
+            }
+            Document next = new Document(base);
+            next.putAll(fields);
+            published[0] = next;
+            pending.put(k, new PendingState(category, competitionId, matchId, next));
+            return next;
+        });
+
+        if (published[0] == null) {
+            unchangedTicks.increment();
+            return false;
+        }
+        changedTicks.increment();
+        liveFeedService.publishTick(category, competitionId, matchId, published[0], System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * The match's tick fields as stored, overlaid with its stored in-play state
+     */
+    private static Document initialState(Document match, Document stored) {
+        Document state = new Document();
+        for (String field : TICK_FIELDS) {
+            state.put(field, match.get(field));
+        }
+        if (stored != null) {
+            state.putAll(stored);
+        }
+        return state;
+    }
+
+    /**
+     * Write the latest state of every pending match in bulk batches: in-play states to the live
+     * state collection, finished matches through the bulk result path. Matches whose write failed
+     * go back to pending unless a newer tick already replaced them.
+     */
+    @Scheduled(fixedDelayString = "${competitions.live.ticks.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PendingState> inPlay = new ArrayList<>();
+        List<PendingState> finished = new ArrayList<>();
+        for (String key : pending.keySet()) {
+            PendingState state = pending.remove(key);
+            if (state != null) {
+                (FINISHED.equals(state.fields.get("status")) ? finished : inPlay).add(state);
+            }
+        }
+
+        for (int from = 0; from < inPlay.size(); from += batchSize) {
+            List<PendingState> batch = inPlay.subList(from, Math.min(inPlay.size(), from + batchSize));
+            List<MatchResultUpdate> updates = new ArrayList<>(batch.size());
+            for (PendingState state : batch) {
+                updates.add(new MatchResultUpdate(state.category, state.competitionId, state.matchId, state.fields));
+            }
+            List<MatchResultUpdate.Outcome> outcomes = liveMatchStateRepository.saveStates(updates);
+            for (int i = 0; i < outcomes.size(); i++) {
+                if (outcomes.get(i) == MatchResultUpdate.Outcome.UPDATED) {
+                    writtenMatches.increment();
+                } else {
+                    requeue(batch.get(i));
+                }
+            }
+        }
+
+        boolean resultsWritten = false;
+        for (int from = 0; from < finished.size(); from += batchSize) {
+            List<PendingState> batch = finished.subList(from, Math.min(finished.size(), from + batchSize));
+            List<MatchResultUpdate> updates = new ArrayList<>(batch.size());
+            for (PendingState state : batch) {
+                updates.add(new MatchResultUpdate(state.category, state.competitionId, state.matchId, finalResult(state.fields)));
+            }
+            try {
+                List<MatchResultUpdate.Outcome> outcomes = competitionsRepository.updateMatchResults(updates);
+                for (int i = 0; i < outcomes.size(); i++) {
+                    PendingState state = batch.get(i);
+                    if (outcomes.get(i) == MatchResultUpdate.Outcome.FAILED || outcomes.get(i) == MatchResultUpdate.Outcome.CONFLICT) {
+                        requeue(state);
+                        continue;
+                    }
+                    if (outcomes.get(i) == MatchResultUpdate.Outcome.UPDATED) {
+                        writtenMatches.increment();
+                        resultsWritten = true;
+                    } else {
+                        System.err.println("⚠️ Final live state of match " + state.matchId + " not written: " + outcomes.get(i));
+                    }
+                    String key = state.category + "/" + state.competitionId + "/" + state.matchId;
+                    states.remove(key);
+                    liveMatchStateRepository.deleteState(state.category, state.competitionId, state.matchId);
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Error flushing " + batch.size() + " finished live matches: " + e.getMessage());
+                batch.forEach(this::requeue);
+            }
+        }
+        if (resultsWritten) {
+            matchResultOutboxRelay.kick();
+        }
+    }
+
+    /**
+     * Result fields of a finished match's last state (the minute is in-play only)
+     */
+    private static Document finalResult(Document state) {
+        Document result = new Document(state);
+        result.remove("minute");
+        result.put("isPlayed", true);
+        return result;
+    }
+
+    private void requeue(PendingState failed) {
+        pending.putIfAbsent(failed.category + "/" + failed.competitionId + "/" + failed.matchId, failed);
+    }
+}
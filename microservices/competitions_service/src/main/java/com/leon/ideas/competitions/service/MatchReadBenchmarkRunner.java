@@ -0,0 +1,136 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.repository.CompetitionsRepository;
+import com.leon.ideas.competitions.repository.FixtureCalendar;
+import com.leon.ideas.competitions.repository.MatchLocation;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Command-line benchmark of single-match reads against Mongo: loading the whole competition
+ * document (the read the match endpoints used before the snapshot) versus the match aggregation
+ * of {@link CompetitionsRepository#matchPipeline}. Prints bytes received and latency per mode, then exits.
+ *
+ * java -jar competitions_service.jar --spring.main.web-application-type=none \
+ *   --competitions.benchmark.match-reads=1000 [--competitions.benchmark.warmup=100]
+ */
+@Component
+@ConditionalOnProperty(name = "competitions.benchmark.match-reads")
+public class MatchReadBenchmarkRunner implements ApplicationRunner {
+
+    private static final int MAX_SAMPLE = 10_000;
+
+    private static final DocumentCodec CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    @Autowired
+    private CompetitionsRepository competitionsRepository;
+
+    @Autowired
+    private MongoTemplate competitionsMongoTemplate;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${competitions.benchmark.match-reads}")
+    private int reads;
+
+    @Value("${competitions.benchmark.warmup:100}")
+    private int warmup;
+
+    @Value("${competitions.benchmark.collection:competition_entries}")
+    private String collectionName;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<MatchLocation> sample = sampleMatches();
+        int exitCode = 0;
+        if (sample.isEmpty()) {
+            System.err.println("❌ No matches to benchmark");
+            exitCode = 1;
+        } else {
+            MongoCollection<RawBsonDocument> collection = competitionsMongoTemplate.getCollection(collectionName)
+                .withDocumentClass(RawBsonDocument.class);
+            measure(collection, sample, false, warmup);
+            measure(collection, sample, true, warmup);
+            Document report = new Document("matches", sample.size())
+                .append("reads", reads)
+                .append("fullDocument", measure(collection, sample, false, reads))
+                .append("aggregation", measure(collection, sample, true, reads));
+            System.out.println(report.toJson());
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+    }
+
+    /**
+     * Up to MAX_SAMPLE scheduled matches from the fixtures calendar (matches without a kick-off are not sampled)
+     */
+    private List<MatchLocation> sampleMatches() {
+        List<MatchLocation> sample = new ArrayList<>();
+        String cursor = null;
+        do {
+            FixtureCalendar.Page page = competitionsRepository.getFixtures(
+                Instant.EPOCH, Instant.parse("9999-12-31T00:00:00Z"), null, null, cursor, 500);
+            sample.addAll(page.getMatches());
+            cursor = page.getNextCursor();
+        } while (cursor != null && sample.size() < MAX_SAMPLE);
+        return sample;
+    }
+
+    /**
+     * Read random sampled matches and report bytes received and latency percentiles (microseconds)
+     */
+    private Document measure(MongoCollection<RawBsonDocument> collection, List<MatchLocation> sample,
+                             boolean aggregation, int count) {
+        Random random = new Random(42);
+        long[] latencies = new long[count];
+        long bytes = 0;
+        int missing = 0;
+        for (int i = 0; i < count; i++) {
+            MatchLocation location = sample.get(random.nextInt(sample.size()));
+            long startedAt = System.nanoTime();
+            RawBsonDocument raw = aggregation
+                ? collection.aggregate(CompetitionsRepository.matchPipeline(
+                    location.getCategory(), location.getCompetitionId(), location.getMatch().getString("matchId"))).first()
+                : collection.find(new Document("category", location.getCategory())
+                    .append("id", location.getCompetitionId())).first();
+            if (raw != null) {
+                CODEC.decode(raw.asBsonReader(), DecoderContext.builder().build());
+                bytes += raw.getByteBuffer().remaining();
+            } else {
+                missing++;
+            }
+            latencies[i] = (System.nanoTime() - startedAt) / 1_000;
+        }
+        Arrays.sort(latencies);
+        return new Document("bytesTotal", bytes)
+            .append("bytesPerRead", count > 0 ? bytes / count : 0)
+            .append("p50Micros", percentile(latencies, 0.50))
+            .append("p95Micros", percentile(latencies, 0.95))
+            .append("p99Micros", percentile(latencies, 0.99))
+            .append("missing", missing);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,13 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.model.MatchResultEvent;
+
+/**
+ * Delivers match-result events taken from the outbox.
+ * Implementations throw on failure; the relay then retries the event with backoff.
+ * Delivery is at-least-once, so consumers must tolerate duplicates.
+ */
+public interface MatchResultEventPublisher {
+
+    void publish(MatchResultEvent event) throws Exception;
+}
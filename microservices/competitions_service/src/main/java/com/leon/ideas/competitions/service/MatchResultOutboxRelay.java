@@ -0,0 +1,111 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.model.MatchResultEvent;
+import com.leon.ideas.competitions.repository.MatchResultOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves pending events from the outbox to the {@link MatchResultEventPublisher}.
+ *
+ * Kicked right after every result write so events go out within milliseconds; the scheduled
+ * run picks up retries and anything left behind by a crash. The instance holding the outbox
+ * lease moves the events recorded with the results into the outbox; any instance may then
+ * publish, one claimed event at a time, so every event is sent by a single instance.
+ */
+@Component
+public class MatchResultOutboxRelay {
+
+    private static final int BATCH_SIZE = 100;
+    private static final Duration LEASE = Duration.ofSeconds(30);
+    private static final Duration CLAIM = Duration.ofSeconds(60);
+
+    @Autowired
+    private MatchResultOutboxRepository outboxRepository;
+
+    @Autowired
+    private MatchResultEventPublisher publisher;
+
+    @Value("${competitions.events.max-attempts:20}")
+    private int maxAttempts;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile boolean sequencesAssigned;
+
+    private final AtomicBoolean kickPending = new AtomicBoolean(false);
+    private final ExecutorService kicks = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "match-result-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Relay soon on a background thread; several kicks while one is queued collapse into one run
+     */
+    public void kick() {
+        if (kickPending.compareAndSet(false, true)) {
+            kicks.execute(() -> {
+                kickPending.set(false);
+                relay();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${competitions.events.relay-interval-ms:5000}")
+    public void scheduledRelay() {
+        relay();
+    }
+
+    /**
+     * Move recorded events into the outbox (lease holder only), then publish every due event
+     * this instance can claim, lowest sequence first.
+     */
+    public synchronized void relay() {
+        try {
+            if (outboxRepository.acquireLease(instanceId, LEASE)) {
+                if (!sequencesAssigned) {
+                    sequencesAssigned = outboxRepository.assignMissingSequences(instanceId) >= 0;
+                }
+                int moved;
+                do {
+                    moved = outboxRepository.movePending(instanceId, BATCH_SIZE);
+                } while (moved > 0 && outboxRepository.acquireLease(instanceId, LEASE));
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error moving match result events to the outbox: " + e.getMessage());
+        }
+
+        try {
+            List<MatchResultEvent> events;
+            do {
+                events = outboxRepository.claimDue(instanceId, BATCH_SIZE, CLAIM);
+                for (MatchResultEvent event : events) {
+                    try {
+                        publisher.publish(event);
+                        outboxRepository.markPublished(event, instanceId);
+                    } catch (Exception e) {
+                        System.err.println("❌ Error publishing match result event " + event.getId() + ": " + e.getMessage());
+                        outboxRepository.markFailed(event, instanceId, e.getMessage(), maxAttempts);
+                    }
+                }
+            } while (events.size() == BATCH_SIZE);
+        } catch (Exception e) {
+            System.err.println("❌ Error relaying match result events: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        kicks.shutdownNow();
+    }
+}
@@ -0,0 +1,196 @@
+package com.leon.ideas.competitions.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads season files (team lists, fixtures) one row at a time, so a file is never held in memory.
+ *
+ * JSON: a top-level array of objects, or an object holding the array under a given field
+ * ({"competition": {...}, "teams": [...], "fixtures": [...]}); other fields are skipped unread.
+ * CSV: a header line, then one row per line (RFC 4180 quoting, UTF-8, optional BOM).
+ */
+final class SeasonFileReader {
+
+    enum Format { JSON, CSV }
+
+    @FunctionalInterface
+    interface RowHandler {
+        void row(long rowNumber, Map<String, Object> row) throws IOException;
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SeasonFileReader() {
+    }
+
+    /**
+     * Format from a file name ('.csv' or '.json'), or null when it cannot be told
+     */
+    static Format formatOf(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String name = fileName.toLowerCase();
+        if (name.endsWith(".csv")) {
+            return Format.CSV;
+        }
+        if (name.endsWith(".json")) {
+            return Format.JSON;
+        }
+        return null;
+    }
+
+    /**
+     * Stream the rows of a file to the handler
+     *
+     * @param arrayField field holding the rows when a JSON file is an object
+     * @return number of rows read
+     */
+    static long readRows(InputStream in, Format format, String arrayField, RowHandler handler) throws IOException {
+        return format == Format.CSV ? readCsv(in, handler) : readJson(in, arrayField, handler);
+    }
+
+    /**
+     * The object under a top-level field of a JSON file, or null (other fields are skipped unread)
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> readObject(InputStream in, String field) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals(name) && value == JsonToken.START_OBJECT) {
+                    return MAPPER.readValue(parser, LinkedHashMap.class);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long readJson(InputStream in, String arrayField, RowHandler handler) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (arrayField.equals(name) && value == JsonToken.START_ARRAY) {
+                        token = value;
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+                if (token == null) {
+                    return 0; // No such array in this file
+                }
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of " + arrayField);
+            }
+
+            long rows = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                rows++;
+                handler.row(rows, MAPPER.readValue(parser, LinkedHashMap.class));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Expected only objects in " + arrayField + " (row " + (rows + 1) + ")");
+            }
+            return rows;
+        }
+    }
+
+    private static long readCsv(InputStream in, RowHandler handler) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset();
+            }
+
+            List<String> header = nextRecord(reader);
+            if (header == null) {
+                return 0;
+            }
+            header.replaceAll(String::trim);
+
+            long rows = 0;
+            List<String> record;
+            while ((record = nextRecord(reader)) != null) {
+                if (record.size() == 1 && record.get(0).isEmpty()) {
+                    continue; // Blank line
+                }
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < header.size() && i < record.size(); i++) {
+                    String value = record.get(i).trim();
+                    if (!value.isEmpty()) {
+                        row.put(header.get(i), value);
+                    }
+                }
+                rows++;
+                handler.row(rows, row);
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * One CSV record (quoted fields may span lines), or null at end of input
+     */
+    private static List<String> nextRecord(Reader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
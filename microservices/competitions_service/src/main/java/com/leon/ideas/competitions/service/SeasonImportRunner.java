@@ -0,0 +1,111 @@
+package com.leon.ideas.competitions.service;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line season import: runs one import on startup and exits.
+ *
+ * java -jar competitions_service.jar \
+ *   --competitions.import.category=nationalClubLeagues --competitions.import.competition-id=laliga-2025 \
+ *   --competitions.import.teams=teams.csv --competitions.import.fixtures=fixtures.csv \
+ *   [--competitions.import.competition=competition.json]
+ *
+ * Such a run starts without the web server, discovery, scheduled jobs, change stream, snapshot
+ * file and storage migration (see {@link #withCommandLineDefaults}); pass any of those properties
+ * explicitly to override. It runs after every other runner.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "competitions.import.category")
+public class SeasonImportRunner implements ApplicationRunner {
+
+    private static final String IMPORT_ARGUMENT = "--competitions.import.category=";
+
+    /**
+     * Service components a one-shot import does not need
+     */
+    private static final Map<String, String> COMMAND_LINE_DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        COMMAND_LINE_DEFAULTS.put("spring.main.web-application-type", "none");
+        COMMAND_LINE_DEFAULTS.put("eureka.client.enabled", "false");
+        COMMAND_LINE_DEFAULTS.put("competitions.scheduling.enabled", "false");
+        COMMAND_LINE_DEFAULTS.put("competitions.cache.watch-changes", "false");
+        COMMAND_LINE_DEFAULTS.put("competitions.snapshot-file.enabled", "false");
+        COMMAND_LINE_DEFAULTS.put("competitions.storage.migrate-on-startup", "false");
+    }
+
+    @Autowired
+    private SeasonImportService seasonImportService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${competitions.import.category}")
+    private String category;
+
+    @Value("${competitions.import.competition-id}")
+    private String competitionId;
+
+    @Value("${competitions.import.competition:}")
+    private String competitionFile;
+
+    @Value("${competitions.import.teams:}")
+    private String teamsFile;
+
+    @Value("${competitions.import.fixtures:}")
+    private String fixturesFile;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String metadata = competitionFile.isBlank() ? null : Files.readString(Path.of(competitionFile));
+        ResponseEntity<Document> response = seasonImportService.importSeason(
+            category, competitionId, metadata, resource(teamsFile), resource(fixturesFile));
+
+        System.out.println(response.getBody() != null ? response.getBody().toJson() : "");
+        int exitCode = response.getStatusCode().is2xxSuccessful() ? 0 : 1;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+
+    /**
+     * The arguments of an import run plus {@link #COMMAND_LINE_DEFAULTS} not given explicitly.
+     * Added as arguments because the config server's properties outrank default properties.
+     */
+    public static String[] withCommandLineDefaults(String[] args) {
+        if (Arrays.stream(args).noneMatch(arg -> arg.startsWith(IMPORT_ARGUMENT))) {
+            return args;
+        }
+        List<String> extended = new ArrayList<>(Arrays.asList(args));
+        COMMAND_LINE_DEFAULTS.forEach((property, value) -> {
+            if (Arrays.stream(args).noneMatch(arg -> arg.startsWith("--" + property + "="))) {
+                extended.add("--" + property + "=" + value);
+            }
+        });
+        return extended.toArray(new String[0]);
+    }
+
+    private static Resource resource(String file) {
+        return file.isBlank() ? null : new FileSystemResource(file);
+    }
+}
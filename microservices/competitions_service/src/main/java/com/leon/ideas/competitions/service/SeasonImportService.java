@@ -0,0 +1,509 @@
+package com.leon.ideas.competitions.service;
+
+import com.leon.ideas.competitions.repository.CompetitionsRepository;
+import com.leon.ideas.competitions.repository.FixtureCalendar;
+import com.leon.ideas.competitions.repository.MatchLocation;
+import com.leon.ideas.competitions.repository.SeasonImportRepository;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Season import: team lists and fixtures streamed from JSON or CSV files into a competition.
+ *
+ * Files are read row by row and fixtures are written in batches of
+ * 'competitions.import.batch-size', so memory does not grow with the file. Rows are validated
+ * one by one; invalid rows are reported and skipped. Importing the same files again is a no-op,
+ * and changed kick-off times, venues or match days update the stored matches in place.
+ *
+ * Teams (JSON field 'teams'): id, name, country, flag, image, group, seed.
+ * Fixtures (JSON field 'fixtures'): matchId, stageId, stageName, groupLetter, matchNumber,
+ * matchday, team1Id, team2Id, matchDate, venue. Results are not imported.
+ */
+@Service
+public class SeasonImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int DEFAULT_TEAMS_QUALIFY = 2;
+
+    /**
+     * Metadata fields the importer never writes (identity and structures)
+     */
+    private static final Set<String> PROTECTED_FIELDS = Set.of("_id", "id", "category", CompetitionsRepository.VERSION_FIELD,
+        "qualifiedTeams", MatchLocation.TOURNAMENT_STRUCTURE, MatchLocation.GROUPS_KIND_TOURNAMENT);
+
+    @Autowired
+    private CompetitionsRepository competitionsRepository;
+
+    @Autowired
+    private SeasonImportRepository seasonImportRepository;
+
+    @Autowired
+    private CompetitionsService competitionsService;
+
+    @Value("${competitions.import.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Import a season with the competition metadata given as JSON text (or null)
+     */
+    public ResponseEntity<Document> importSeason(String category, String competitionId, String metadataJson,
+                                                 Resource teams, Resource fixtures) {
+        Map<String, Object> metadata = null;
+        if (metadataJson != null && !metadataJson.isBlank()) {
+            try {
+                metadata = Document.parse(metadataJson);
+            } catch (Exception e) {
+                return new ResponseEntity<>(new Document("error", "Invalid competition JSON: " + e.getMessage()), HttpStatus.BAD_REQUEST);
+            }
+        }
+        return importSeason(category, competitionId, metadata, teams, fixtures);
+    }
+
+    /**
+     * Import a season into a competition, creating it when it does not exist yet
+     *
+     * @param metadata competition fields (name, shortName, country...); required with a 'name' to create it.
+     *                 When null, a JSON file's top-level 'competition' object is used.
+     * @param teams    team list, or null
+     * @param fixtures fixtures, or null
+     */
+    public ResponseEntity<Document> importSeason(String category, String competitionId, Map<String, Object> metadata,
+                                                 Resource teams, Resource fixtures) {
+        if (!competitionsService.isValidCategory(category)) {
+            return new ResponseEntity<>(new Document("error", "Invalid category"), HttpStatus.BAD_REQUEST);
+        }
+        if (teams == null && fixtures == null) {
+            return new ResponseEntity<>(new Document("error", "Nothing to import: send a teams and/or a fixtures file"), HttpStatus.BAD_REQUEST);
+        }
+        SeasonFileReader.Format teamsFormat = teams != null ? SeasonFileReader.formatOf(teams.getFilename()) : null;
+        SeasonFileReader.Format fixturesFormat = fixtures != null ? SeasonFileReader.formatOf(fixtures.getFilename()) : null;
+        if ((teams != null && teamsFormat == null) || (fixtures != null && fixturesFormat == null)) {
+            return new ResponseEntity<>(new Document("error", "Files must be .json or .csv"), HttpStatus.BAD_REQUEST);
+        }
+
+        long startedAt = System.currentTimeMillis();
+        ImportReport report = new ImportReport(category, competitionId);
+        try {
+            if (metadata == null) {
+                metadata = readMetadata(teams, teamsFormat);
+            }
+            if (metadata == null) {
+                metadata = readMetadata(fixtures, fixturesFormat);
+            }
+            Document fields = metadataFields(metadata);
+
+            if (competitionsRepository.getCompetitionById(category, competitionId) == null) {
+                if (!(fields.get("name") instanceof String)) {
+                    return new ResponseEntity<>(
+                        new Document("error", "Competition not found; include competition metadata with a name to create it"),
+                        HttpStatus.NOT_FOUND
+                    );
+                }
+                Document competition = new Document(fields)
+                    .append("id", competitionId)
+                    .append("qualifiedTeams", new ArrayList<>())
+                    .append(MatchLocation.TOURNAMENT_STRUCTURE, new Document("tournamentFormat", "custom").append("stages", new Document()));
+                report.created = competitionsRepository.addCompetition(category, competition);
+                if (!report.created && competitionsRepository.getCompetitionById(category, competitionId) == null) {
+                    return new ResponseEntity<>(new Document("error", "Failed to add competition"), HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+                fields = report.created ? null : fields; // Already written with the new competition
+            }
+
+            if (teams != null) {
+                importTeams(category, competitionId, fields, teams, teamsFormat, report);
+            } else if (fields != null && !fields.isEmpty()) {
+                seasonImportRepository.mergeTeams(category, competitionId, fields, List.of(), Map.of(), null);
+            }
+            if (fixtures != null) {
+                importFixtures(category, competitionId, fixtures, fixturesFormat, report);
+            }
+        } catch (IOException e) {
+            report.error(0, "Unreadable file: " + e.getMessage());
+            System.err.println("❌ Season import " + category + "/" + competitionId + " stopped: " + e.getMessage());
+            return new ResponseEntity<>(report.toDocument(System.currentTimeMillis() - startedAt), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            System.err.println("❌ Error importing season " + category + "/" + competitionId + ": " + e.getMessage());
+            return new ResponseEntity<>(
+                new Document("error", "Error importing season: " + e.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+
+        long elapsed = System.currentTimeMillis() - startedAt;
+        System.out.println("📥 Season import " + category + "/" + competitionId + ": " + report.teams + " teams, "
+            + report.fixturesRead + " fixtures read (" + report.inserted + " new, " + report.updated + " updated, "
+            + report.rejected + " rejected) in " + elapsed + " ms");
+        return new ResponseEntity<>(report.toDocument(elapsed), HttpStatus.OK);
+    }
+
+    private void importTeams(String category, String competitionId, Document fields, Resource teams,
+                             SeasonFileReader.Format format, ImportReport report) throws IOException {
+        List<Document> qualifiedTeams = new ArrayList<>();
+        Map<String, Document> groups = new TreeMap<>();
+        Set<String> seen = new HashSet<>();
+
+        try (InputStream in = teams.getInputStream()) {
+            SeasonFileReader.readRows(in, format, "teams", (rowNumber, row) -> {
+                String id = text(row, "id") != null ? text(row, "id") : text(row, "teamId");
+                String name = text(row, "name");
+                if (id == null || name == null) {
+                    report.error(rowNumber, "team needs an id and a name");
+                    return;
+                }
+                if (!seen.add(id)) {
+                    report.error(rowNumber, "duplicate team " + id);
+                    return;
+                }
+
+                Document team = new Document("id", id).append("name", name);
+                for (String field : List.of("country", "flag", "image")) {
+                    if (text(row, field) != null) {
+                        team.append(field, text(row, field));
+                    }
+                }
+                String group = text(row, "group");
+                if (group != null) {
+                    group = group.toUpperCase();
+                    team.append("group", group);
+                }
+                if (text(row, "seed") != null) {
+                    Integer seed = integer(row, "seed");
+                    if (seed == null) {
+                        report.error(rowNumber, "team " + id + " has a non-numeric seed");
+                        return;
+                    }
+                    team.append("seed", seed);
+                }
+                competitionsService.normalizeClubTeamImage(category, team);
+                qualifiedTeams.add(team);
+                report.teams++;
+
+                if (group != null) {
+                    String letter = group;
+                    Document groupDocument = groups.computeIfAbsent(letter, l -> new Document("groupLetter", l)
+                        .append("groupName", "Grupo " + l)
+                        .append("teamsPerGroup", 0)
+                        .append("teamsQualify", DEFAULT_TEAMS_QUALIFY)
+                        .append("teams", new ArrayList<Document>())
+                        .append("qualifiedTeamIds", new ArrayList<>())
+                        .append("matches", new ArrayList<>()));
+                    groupDocument.getList("teams", Document.class).add(teamRow(team));
+                    groupDocument.put("teamsPerGroup", groupDocument.getList("teams", Document.class).size());
+                }
+            });
+        }
+
+        Document config = null;
+        if (report.created) {
+            int teamsPerGroup = groups.values().stream().mapToInt(g -> g.getInteger("teamsPerGroup")).max().orElse(0);
+            config = new Document("totalTeams", qualifiedTeams.size())
+                .append("numberOfGroups", groups.size())
+                .append("teamsPerGroup", teamsPerGroup)
+                .append("teamsQualifyPerGroup", DEFAULT_TEAMS_QUALIFY)
+                .append("hasGroupStage", !groups.isEmpty());
+        }
+        seasonImportRepository.mergeTeams(category, competitionId, fields, qualifiedTeams, groups, config);
+    }
+
+    private void importFixtures(String category, String competitionId, Resource fixtures,
+                                SeasonFileReader.Format format, ImportReport report) throws IOException {
+        Map<String, TeamInfo> teams = knownTeams(category, competitionId);
+        List<Document> batch = new ArrayList<>(batchSize);
+        Set<String> batchMatchIds = new HashSet<>();
+
+        try (InputStream in = fixtures.getInputStream()) {
+            SeasonFileReader.readRows(in, format, "fixtures", (rowNumber, row) -> {
+                report.fixturesRead++;
+                Document fixture = fixture(rowNumber, row, teams, report);
+                if (fixture == null) {
+                    report.rejected++;
+                    return;
+                }
+                if (!batchMatchIds.add(fixture.getString("matchId"))) {
+                    report.rejected++;
+                    report.error(rowNumber, "duplicate match " + fixture.getString("matchId"));
+                    return;
+                }
+                batch.add(fixture);
+                if (batch.size() >= batchSize) {
+                    flush(category, competitionId, batch, report);
+                    batchMatchIds.clear();
+                }
+            });
+        }
+        flush(category, competitionId, batch, report);
+    }
+
+    private void flush(String category, String competitionId, List<Document> batch, ImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        SeasonImportRepository.FixtureBatchResult result = seasonImportRepository.upsertFixtures(category, competitionId, batch);
+        report.inserted += result.getInserted();
+        report.updated += result.getUpdated();
+        report.unchanged += result.getUnchanged();
+        report.rejected += result.getRejected().size();
+        result.getRejected().forEach((matchId, reason) -> report.error(0, "match " + matchId + ": " + reason));
+        batch.clear();
+    }
+
+    /**
+     * Validate one fixtures row and build the match it describes, or null (errors reported)
+     */
+    private Document fixture(long rowNumber, Map<String, Object> row, Map<String, TeamInfo> teams, ImportReport report) {
+        String matchId = text(row, "matchId");
+        if (matchId == null) {
+            report.error(rowNumber, "fixture needs a matchId");
+            return null;
+        }
+        String groupLetter = text(row, "groupLetter");
+        groupLetter = groupLetter != null ? groupLetter.toUpperCase() : null;
+        String stageId = text(row, "stageId");
+        if (stageId == null && groupLetter != null) {
+            stageId = SeasonImportRepository.GROUP_STAGE_ID;
+        }
+        if (stageId == null) {
+            report.error(rowNumber, "match " + matchId + " needs a stageId or a groupLetter");
+            return null;
+        }
+
+        Document match = new Document("matchId", matchId)
+            .append("matchNumber", text(row, "matchNumber"))
+            .append("stageId", stageId);
+        if (groupLetter != null) {
+            match.append("groupLetter", groupLetter);
+        }
+
+        for (int side = 1; side <= 2; side++) {
+            String teamId = text(row, "team" + side + "Id");
+            TeamInfo team = teamId != null ? teams.get(teamId) : null;
+            if (teamId == null && groupLetter != null) {
+                report.error(rowNumber, "group match " + matchId + " needs team1Id and team2Id");
+                return null;
+            }
+            if (teamId != null && team == null) {
+                report.error(rowNumber, "match " + matchId + " refers to unknown team " + teamId);
+                return null;
+            }
+            if (team != null && groupLetter != null && !groupLetter.equals(team.group)) {
+                report.error(rowNumber, "team " + teamId + " is not in group " + groupLetter);
+                return null;
+            }
+            match.append("team" + side + "Id", teamId)
+                .append("team" + side + "Name", team != null ? team.name : null)
+                .append("team" + side + "Flag", team != null ? team.flag : null);
+        }
+        if (match.getString("team1Id") != null && match.getString("team1Id").equals(match.getString("team2Id"))) {
+            report.error(rowNumber, "match " + matchId + " has the same team twice");
+            return null;
+        }
+
+        match.append("team1Score", null)
+            .append("team2Score", null)
+            .append("winnerTeamId", null)
+            .append("loserTeamId", null)
+            .append("isDraw", null)
+            .append("isPlayed", false)
+            .append("status", "scheduled");
+
+        String matchDate = text(row, "matchDate");
+        if (matchDate != null) {
+            String normalized = isoInstant(matchDate);
+            if (normalized == null) {
+                report.error(rowNumber, "match " + matchId + " has an invalid matchDate: " + matchDate);
+                return null;
+            }
+            match.append("matchDate", normalized);
+        }
+        if (text(row, "matchday") != null) {
+            Integer matchday = integer(row, "matchday");
+            if (matchday == null) {
+                report.error(rowNumber, "match " + matchId + " has a non-numeric matchday");
+                return null;
+            }
+            match.append("matchday", matchday);
+        }
+        if (text(row, "venue") != null) {
+            match.append("venue", text(row, "venue"));
+        }
+        if (text(row, "stageName") != null) {
+            match.append("stageName", text(row, "stageName"));
+        }
+        return match;
+    }
+
+    /**
+     * Teams of the competition as stored after the teams pass, with their group
+     */
+    private Map<String, TeamInfo> knownTeams(String category, String competitionId) {
+        Map<String, TeamInfo> teams = new HashMap<>();
+        Document competition = competitionsRepository.getCompetitionById(category, competitionId);
+        if (competition == null) {
+            return teams;
+        }
+        for (Document team : competitionsRepository.getQualifiedTeams(category, competitionId)) {
+            String flag = team.getString("flag") != null ? team.getString("flag") : team.getString("image");
+            teams.put(team.getString("id"), new TeamInfo(team.getString("name"), flag, team.getString("group")));
+        }
+        Object groups = competition.get(MatchLocation.TOURNAMENT_STRUCTURE) instanceof Document
+            ? ((Document) competition.get(MatchLocation.TOURNAMENT_STRUCTURE)).get("stages") : null;
+        Object groupStage = groups instanceof Document ? ((Document) groups).get(SeasonImportRepository.GROUP_STAGE_ID) : null;
+        if (groupStage instanceof Document && ((Document) groupStage).get("groups") instanceof List) {
+            for (Object group : (List<?>) ((Document) groupStage).get("groups")) {
+                if (!(group instanceof Document) || !(((Document) group).get("teams") instanceof List)) {
+                    continue;
+                }
+                String letter = ((Document) group).getString("groupLetter");
+                for (Object row : (List<?>) ((Document) group).get("teams")) {
+                    if (row instanceof Document) {
+                        Document teamRow = (Document) row;
+                        teams.put(teamRow.getString("teamId"),
+                            new TeamInfo(teamRow.getString("teamName"), teamRow.getString("teamFlag"), letter));
+                    }
+                }
+            }
+        }
+        return teams;
+    }
+
+    private Map<String, Object> readMetadata(Resource source, SeasonFileReader.Format format) throws IOException {
+        if (source == null || format != SeasonFileReader.Format.JSON) {
+            return null;
+        }
+        try (InputStream in = source.getInputStream()) {
+            return SeasonFileReader.readObject(in, "competition");
+        }
+    }
+
+    private static Document metadataFields(Map<String, Object> metadata) {
+        Document fields = new Document();
+        if (metadata != null) {
+            metadata.forEach((key, value) -> {
+                if (!PROTECTED_FIELDS.contains(key)) {
+                    fields.append(key, value);
+                }
+            });
+        }
+        return fields;
+    }
+
+    private static Document teamRow(Document team) {
+        String flag = team.getString("flag") != null ? team.getString("flag") : team.getString("image");
+        return new Document("teamId", team.getString("id"))
+            .append("teamName", team.getString("name"))
+            .append("teamFlag", flag)
+            .append("played", 0)
+            .append("won", 0)
+            .append("drawn", 0)
+            .append("lost", 0)
+            .append("goalsFor", 0)
+            .append("goalsAgainst", 0)
+            .append("goalDifference", 0)
+            .append("points", 0);
+    }
+
+    /**
+     * ISO-8601 date or date-time as a UTC instant string ("2025-06-14T00:00:00Z"), or null
+     */
+    private static String isoInstant(String value) {
+        Instant instant = FixtureCalendar.parseInstant(value);
+        return instant != null ? instant.toString() : null;
+    }
+
+    private static String text(Map<String, Object> row, String field) {
+        Object value = row.get(field);
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static Integer integer(Map<String, Object> row, String field) {
+        Object value = row.get(field);
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        try {
+            return Integer.valueOf(text(row, field));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class TeamInfo {
+        private final String name;
+        private final String flag;
+        private final String group;
+
+        private TeamInfo(String name, String flag, String group) {
+            this.name = name;
+            this.flag = flag;
+            this.group = group;
+        }
+    }
+
+    /**
+     * Counters of one import; only the first {@link #MAX_REPORTED_ERRORS} errors are kept
+     */
+    private static final class ImportReport {
+        private final String category;
+        private final String competitionId;
+        private boolean created;
+        private int teams;
+        private long fixturesRead;
+        private long inserted;
+        private long updated;
+        private long unchanged;
+        private long rejected;
+        private long errorCount;
+        private final List<String> errors = new ArrayList<>();
+
+        private ImportReport(String category, String competitionId) {
+            this.category = category;
+            this.competitionId = competitionId;
+        }
+
+        private void error(long rowNumber, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(rowNumber > 0 ? "row " + rowNumber + ": " + message : message);
+            }
+        }
+
+        private Document toDocument(long elapsedMs) {
+            Map<String, Object> fixtures = new LinkedHashMap<>();
+            fixtures.put("read", fixturesRead);
+            fixtures.put("inserted", inserted);
+            fixtures.put("updated", updated);
+            fixtures.put("unchanged", unchanged);
+            fixtures.put("rejected", rejected);
+            return new Document("category", category)
+                .append("competitionId", competitionId)
+                .append("created", created)
+                .append("teams", teams)
+                .append("fixtures", new Document(fixtures))
+                .append("errorCount", errorCount)
+                .append("errors", errors)
+                .append("durationMs", elapsedMs);
+        }
+    }
+}
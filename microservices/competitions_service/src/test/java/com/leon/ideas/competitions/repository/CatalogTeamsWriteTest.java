@@ -0,0 +1,62 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogTeamsWriteTest {
+
+    private static final String CATEGORY = "fifaNationalTeamCups";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CompetitionsSnapshotCache snapshotCache = mock(CompetitionsSnapshotCache.class);
+    private final TeamCatalogRepository teamCatalogRepository = mock(TeamCatalogRepository.class);
+    private final CompetitionsRepository repository = new CompetitionsRepository();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repository, "competitionsMongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(repository, "snapshotCache", snapshotCache);
+        ReflectionTestUtils.setField(repository, "teamCatalogRepository", teamCatalogRepository);
+        ReflectionTestUtils.setField(repository, "maxWriteAttempts", 3);
+
+        Document stored = new Document("_id", "entry-1").append("category", CATEGORY).append("id", "world-cup")
+            .append(CompetitionsRepository.VERSION_FIELD, 1).append("qualifiedTeams", List.of());
+        when(snapshotCache.snapshot()).thenReturn(CompetitionsSnapshot.of(List.of(stored), TeamCatalog.EMPTY));
+        when(teamCatalogRepository.catalog()).thenReturn(TeamCatalog.EMPTY);
+        when(teamCatalogRepository.upsertTeams(anyCollection())).thenThrow(new IllegalStateException("catalog unavailable"));
+    }
+
+    @Test
+    void failedCatalogInsertKeepsTheCompetitionUnwritten() {
+        Document competition = new Document("id", "euro").append("qualifiedTeams", List.of(team("esp", "Spain")));
+
+        assertFalse(repository.addCompetition(CATEGORY, competition));
+        verify(mongoTemplate, never()).insert(any(Document.class), anyString());
+    }
+
+    @Test
+    void failedCatalogInsertKeepsTheTeamUnlisted() {
+        assertFalse(repository.addQualifiedTeam(CATEGORY, "world-cup", team("arg", "Argentina")));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), anyString());
+    }
+
+    private static Document team(String id, String name) {
+        return new Document("id", id).append("name", name).append("country", name).append("flag", id + ".png");
+    }
+}
@@ -0,0 +1,75 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MatchResultUpdateTest {
+
+    private static final String CATEGORY = "fifaNationalTeamCups";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CompetitionsSnapshotCache snapshotCache = mock(CompetitionsSnapshotCache.class);
+    private final CompetitionsRepository repository = new CompetitionsRepository();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repository, "competitionsMongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(repository, "snapshotCache", snapshotCache);
+        ReflectionTestUtils.setField(repository, "maxWriteAttempts", 3);
+
+        Document finalStage = new Document("matches", List.of(new Document("matchId", "final-1")
+            .append("team1Id", "a").append("team2Id", "b")));
+        Document entry = new Document("_id", "entry-1").append("category", CATEGORY).append("id", "world-cup")
+            .append(CompetitionsRepository.VERSION_FIELD, 4)
+            .append(MatchLocation.TOURNAMENT_STRUCTURE, new Document("stages", new Document("final", finalStage)));
+        when(snapshotCache.snapshot()).thenReturn(CompetitionsSnapshot.of(List.of(entry), TeamCatalog.EMPTY));
+    }
+
+    @Test
+    void guardMissAfterEveryRetryIsAConflict() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+            eq(Document.class), eq(CompetitionsRepository.COLLECTION_NAME))).thenReturn(null);
+
+        assertEquals(MatchResultUpdate.Outcome.CONFLICT,
+            repository.updateMatchResults(CATEGORY, "world-cup", "final-1", Map.of("team1Score", 2)));
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+            eq(Document.class), eq(CompetitionsRepository.COLLECTION_NAME));
+    }
+
+    @Test
+    void unknownMatchIsNotFoundWithoutWriting() {
+        assertEquals(MatchResultUpdate.Outcome.NOT_FOUND,
+            repository.updateMatchResults(CATEGORY, "world-cup", "final-9", Map.of("team1Score", 2)));
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+            eq(Document.class), eq(CompetitionsRepository.COLLECTION_NAME));
+    }
+
+    @Test
+    void bulkEntryThatKeepsMissingIsReportedAsConflict() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+            eq(Document.class), eq(CompetitionsRepository.COLLECTION_NAME))).thenReturn(null);
+
+        List<MatchResultUpdate.Outcome> outcomes = repository.updateMatchResults(List.of(
+            new MatchResultUpdate(CATEGORY, "world-cup", "final-1", Map.of("team1Score", 2)),
+            new MatchResultUpdate(CATEGORY, "world-cup", "final-9", Map.of("team1Score", 2))));
+        assertEquals(List.of(MatchResultUpdate.Outcome.CONFLICT, MatchResultUpdate.Outcome.NOT_FOUND), outcomes);
+    }
+}
@@ -0,0 +1,198 @@
+package com.leon.ideas.competitions.repository;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StandingsEngineTest {
+
+    private static final String GROUP_PATH = "tournamentStructure.stages.group-stage.groups.0";
+
+    @Test
+    void countsOnlyPlayedOrFinishedMatchesWithBothScores() {
+        assertTrue(StandingsEngine.counts(match("a", "b", 1, 0, true, null)));
+        assertTrue(StandingsEngine.counts(match("a", "b", 1, 0, null, "finished")));
+        assertFalse(StandingsEngine.counts(match("a", "b", 1, 0, false, "live")));
+        assertFalse(StandingsEngine.counts(match("a", "b", 1, null, true, null)));
+    }
+
+    @Test
+    void addsWinDrawAndLossContributions() {
+        Map<String, Integer> deltas = new HashMap<>();
+        StandingsEngine.addContribution(deltas, "t1", "t2", match("a", "b", 3, 1, true, null), 1);
+        assertEquals(Map.of("t1.played", 1, "t1.goalsFor", 3, "t1.goalsAgainst", 1, "t1.goalDifference", 2,
+            "t1.won", 1, "t1.points", 3), only(deltas, "t1."));
+        assertEquals(Map.of("t2.played", 1, "t2.goalsFor", 1, "t2.goalsAgainst", 3, "t2.goalDifference", -2,
+            "t2.lost", 1), only(deltas, "t2."));
+
+        Map<String, Integer> draw = new HashMap<>();
+        StandingsEngine.addContribution(draw, "t1", "t2", match("a", "b", 2, 2, true, null), 1);
+        assertEquals(1, draw.get("t1.drawn"));
+        assertEquals(1, draw.get("t1.points"));
+        assertEquals(1, draw.get("t2.drawn"));
+        assertEquals(1, draw.get("t2.points"));
+    }
+
+    @Test
+    void skipsUnlistedTeamsAndUncountedMatches() {
+        Map<String, Integer> deltas = new HashMap<>();
+        StandingsEngine.addContribution(deltas, "t1", null, match("a", "b", 0, 1, true, null), 1);
+        assertTrue(deltas.keySet().stream().allMatch(path -> path.startsWith("t1.")));
+
+        Map<String, Integer> unplayed = new HashMap<>();
+        StandingsEngine.addContribution(unplayed, "t1", "t2", match("a", "b", 0, 1, false, "live"), 1);
+        assertTrue(unplayed.isEmpty());
+    }
+
+    @Test
+    void revertingAContributionCancelsIt() {
+        Map<String, Integer> deltas = new HashMap<>();
+        Document match = match("a", "b", 4, 2, true, null);
+        StandingsEngine.addContribution(deltas, "t1", "t2", match, 1);
+        StandingsEngine.addContribution(deltas, "t1", "t2", match, -1);
+        assertTrue(deltas.values().stream().allMatch(value -> value == 0));
+    }
+
+    @Test
+    void correctedResultMovesThePointsBetweenTeams() {
+        Map<String, Integer> deltas = new HashMap<>();
+        StandingsEngine.addContribution(deltas, "t1", "t2", match("a", "b", 1, 0, true, null), -1);
+        StandingsEngine.addContribution(deltas, "t1", "t2", match("a", "b", 0, 2, true, null), 1);
+        assertEquals(-3, deltas.get("t1.points"));
+        assertEquals(3, deltas.get("t2.points"));
+        assertEquals(0, deltas.get("t1.played"));
+        assertEquals(-3, deltas.get("t1.goalDifference"));
+        assertEquals(-1, deltas.get("t1.won"));
+        assertEquals(1, deltas.get("t1.lost"));
+    }
+
+    @Test
+    void recomputeZeroesTeamsWithoutCountedMatches() {
+        Document group = group(List.of("a", "b", "c"), List.of(
+            match("a", "b", 2, 0, true, null),
+            match("b", "c", 1, 1, false, "live")));
+        Map<String, Integer> stats = StandingsEngine.recompute(group, GROUP_PATH);
+
+        assertEquals(3 * StandingsEngine.STATS.size(), stats.size());
+        assertEquals(3, stats.get(GROUP_PATH + ".teams.0.points"));
+        assertEquals(1, stats.get(GROUP_PATH + ".teams.1.lost"));
+        assertEquals(0, stats.get(GROUP_PATH + ".teams.2.played"));
+    }
+
+    @Test
+    void deltasFromEveryResultChangeMatchARecompute() {
+        Random random = new Random(3);
+        List<String> teams = List.of("a", "b", "c", "d");
+        List<Document> matches = new ArrayList<>();
+        for (int i = 0; i < teams.size(); i++) {
+            for (int j = i + 1; j < teams.size(); j++) {
+                matches.add(match(teams.get(i), teams.get(j), null, null, false, "scheduled"));
+            }
+        }
+        Document group = group(teams, matches);
+        Map<String, Integer> applied = StandingsEngine.recompute(group, GROUP_PATH);
+
+        for (int write = 0; write < 500; write++) {
+            Document previous = matches.get(random.nextInt(matches.size()));
+            Document next = new Document(previous)
+                .append("team1Score", random.nextInt(4))
+                .append("team2Score", random.nextInt(4))
+                .append("isPlayed", random.nextInt(4) > 0);
+            String team1 = GROUP_PATH + ".teams." + StandingsEngine.teamIndex(group, previous.getString("team1Id"));
+            String team2 = GROUP_PATH + ".teams." + StandingsEngine.teamIndex(group, previous.getString("team2Id"));
+            StandingsEngine.addContribution(applied, team1, team2, previous, -1);
+            StandingsEngine.addContribution(applied, team1, team2, next, 1);
+            matches.set(matches.indexOf(previous), next);
+            group.put("matches", matches);
+
+            assertEquals(StandingsEngine.recompute(group, GROUP_PATH), applied, "write " + write);
+        }
+    }
+
+    @Test
+    void recomputeCoversEveryGroupOfTheTournamentStructure() {
+        Document competition = new Document("tournamentStructure", new Document("stages", new Document()
+            .append("group-stage", new Document("groups", List.of(
+                group(List.of("a", "b"), List.of(match("a", "b", 1, 0, true, null))),
+                group(List.of("c", "d"), List.of(match("c", "d", 0, 0, true, null))))))
+            .append("final", new Document("matches", List.of(match("a", "c", 2, 1, true, null))))));
+
+        Map<String, Integer> stats = StandingsEngine.recompute(competition);
+        assertEquals(3, stats.get("tournamentStructure.stages.group-stage.groups.0.teams.0.points"));
+        assertEquals(1, stats.get("tournamentStructure.stages.group-stage.groups.1.teams.1.points"));
+        assertEquals(4 * StandingsEngine.STATS.size(), stats.size());
+    }
+
+    @Test
+    void tableOrdersByPointsGoalDifferenceGoalsForWinsThenName() {
+        Document group = new Document("teams", List.of(
+            row("e", "Echo", 3, 0, 2, 1),
+            row("d", "Delta", 3, 0, 2, 1),
+            row("c", "Charlie", 3, 0, 2, 0),
+            row("b", "Bravo", 3, 0, 3, 0),
+            row("a", "Alpha", 3, 1, 0, 0),
+            row("z", "Zulu", 4, -5, 0, 1)));
+
+        List<Document> table = StandingsEngine.table(group);
+        assertEquals(List.of("z", "a", "b", "d", "e", "c"), table.stream().map(team -> team.getString("teamId")).toList());
+        assertEquals(1, table.get(0).get("position"));
+        assertEquals(6, table.get(5).get("position"));
+        assertNull(((Document) ((List<?>) group.get("teams")).get(0)).get("position"));
+    }
+
+    @Test
+    void valueAtFollowsDocumentsAndArrayIndexes() {
+        Document group = group(List.of("a", "b"), List.of());
+        Document competition = new Document("tournamentStructure", new Document("stages",
+            new Document("group-stage", new Document("groups", List.of(group)))));
+        assertEquals("b", StandingsEngine.valueAt(competition, GROUP_PATH + ".teams.1.teamId"));
+        assertNull(StandingsEngine.valueAt(competition, GROUP_PATH + ".teams.5.teamId"));
+        assertNull(StandingsEngine.valueAt(competition, GROUP_PATH + ".teams.x"));
+    }
+
+    private static Document match(String team1, String team2, Integer team1Score, Integer team2Score,
+                                  Boolean isPlayed, String status) {
+        Document match = new Document("matchId", team1 + "-" + team2).append("team1Id", team1).append("team2Id", team2);
+        match.append("team1Score", team1Score).append("team2Score", team2Score);
+        if (isPlayed != null) {
+            match.append("isPlayed", isPlayed);
+        }
+        if (status != null) {
+            match.append("status", status);
+        }
+        return match;
+    }
+
+    private static Document group(List<String> teamIds, List<Document> matches) {
+        List<Document> teams = new ArrayList<>();
+        for (String teamId : teamIds) {
+            teams.add(new Document("teamId", teamId).append("teamName", teamId.toUpperCase()));
+        }
+        return new Document("teams", teams).append("matches", new ArrayList<>(matches));
+    }
+
+    private static Document row(String teamId, String teamName, int points, int goalDifference, int goalsFor, int won) {
+        return new Document("teamId", teamId).append("teamName", teamName).append("points", points)
+            .append("goalDifference", goalDifference).append("goalsFor", goalsFor).append("won", won);
+    }
+
+    private static Map<String, Integer> only(Map<String, Integer> deltas, String prefix) {
+        Map<String, Integer> filtered = new HashMap<>();
+        deltas.forEach((path, value) -> {
+            if (path.startsWith(prefix) && value != 0) {
+                filtered.put(path, value);
+            }
+        });
+        return filtered;
+    }
+}
@@ -572,6 +572,48 @@ public class GroupsController {
         return groupsService.getGroupInfoInternal(groupId, serviceToken);
     }
 
+    /**
+     * PUT /football-pool/v1/api/groups/internal/{groupId}/matches/{matchId}/result
+     * Internal endpoint to set a match's real result; only this match is re-scored and the
+     * users' score differences are applied incrementally
+     *
+     * Required fields in body:
+     * - team1Score (Integer)
+     * - team2Score (Integer)
+     *
+     * Optional fields:
+     * - extraTime (Boolean), penalties (Boolean)
+     * - penaltiesTeam1Score (Integer), penaltiesTeam2Score (Integer)
+     *
+     * Authentication: X-Service-Token header (internal service call)
+     */
+    @PutMapping("/internal/{groupId}/matches/{matchId}/result")
+    public ResponseEntity<Map<String, Object>> registerMatchResultInternal(
+            @PathVariable String groupId,
+            @PathVariable String matchId,
+            @RequestBody Map<String, Object> resultData,
+            @RequestHeader(value = "X-Service-Token", required = false) String serviceToken) {
+
+        System.out.println("⚽ Internal PUT request: Register match result - " + matchId + " in group - " + groupId);
+        return groupsService.registerMatchResultInternal(groupId, matchId, resultData, serviceToken);
+    }
+
+    /**
+     * DELETE /football-pool/v1/api/groups/internal/{groupId}/matches/{matchId}/result
+     * Internal endpoint to reset a match to not played; its points are reverted incrementally
+     *
+     * Authentication: X-Service-Token header (internal service call)
+     */
+    @DeleteMapping("/internal/{groupId}/matches/{matchId}/result")
+    public ResponseEntity<Map<String, Object>> clearMatchResultInternal(
+            @PathVariable String groupId,
+            @PathVariable String matchId,
+            @RequestHeader(value = "X-Service-Token", required = false) String serviceToken) {
+
+        System.out.println("⚽ Internal DELETE request: Clear match result - " + matchId + " in group - " + groupId);
+        return groupsService.clearMatchResultInternal(groupId, matchId, serviceToken);
+    }
+
     /**
      * GET /football-pool/v1/api/groups/{groupId}/matches/{matchId}/internal
      * Internal endpoint to get match information
@@ -3,6 +3,7 @@ package com.leon.ideas.groups.model;
 import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -32,11 +33,15 @@ public class Group {
     // should be stored in competitions_service, not here
     private TournamentStructure tournamentStructure;
     
-    // User predictions for matches in this group
-    // List of predictions where each prediction has userId and matchId
+    // User predictions for matches in this group are stored in 'group_predictions' (see GroupPrediction)
     // Real match results are stored in competitions_service
-    private List<UserPrediction> userPredictions;
-    
+
+    // Points each user earned on each played match, as last added to users[].score
+    // Key: matchId, Value: (userId -> points). Lets one result change be applied as a delta and reverted exactly
+    private Map<String, Map<String, Integer>> matchPoints;
+    @Version
+    private Long scoresVersion; // Bumped by save() and by the targeted score updates; a save from a stale read fails instead of reverting them
+
     // Matches detail - Array of match info (same as matchInfo from predictions)
     // This contains all the match predictions with real scores for the competition
     private List<Map<String, Object>> matchesDetail;
@@ -210,29 +215,6 @@ public class Group {
         }
     }
     
-    /**
-     * User Prediction - Contains ONLY user predictions for a match
-     * Real match results are stored in competitions_service
-     */
-    @Data
-    public static class UserPrediction {
-        private String matchId; // Reference to match in competitions
-        private String userId; // User who made this prediction
-        
-        // User prediction scores (frontend can modify these)
-        private Integer userTeam1Score; // User's predicted score for team1
-        private Integer userTeam2Score; // User's predicted score for team2
-        
-        // User predictions for extra time and penalties (only for knockout stages)
-        private Boolean userExtraTime; // User predicted extra time (only for knockout)
-        private Boolean userPenalties; // User predicted penalties (only for knockout)
-        private Integer userPenaltiesTeam1Score; // User's predicted penalties score for team1 (only for knockout)
-        private Integer userPenaltiesTeam2Score; // User's predicted penalties score for team2 (only for knockout)
-        
-        private Date predictedDate; // When the user made this prediction
-        private Integer points; // Points earned for this prediction (calculated after match is played)
-    }
-    
     /**
      * Team Score - used in both legacy Scoreboard and TournamentStructure
      */
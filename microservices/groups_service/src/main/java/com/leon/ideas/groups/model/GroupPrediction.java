@@ -0,0 +1,35 @@
+package com.leon.ideas.groups.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * GroupPrediction - One user's prediction for one match in one group
+ * Stored one document per (groupId, matchId, userId) in 'group_predictions'
+ * Real match results are stored in competitions_service
+ */
+@Data
+@Document(collection = "group_predictions")
+public class GroupPrediction {
+    @Id
+    private String id;
+    private String groupId; // Group the prediction counts for
+    private String matchId; // Reference to match in competitions
+    private String userId; // User who made this prediction
+
+    // User prediction scores (frontend can modify these)
+    private Integer userTeam1Score; // User's predicted score for team1
+    private Integer userTeam2Score; // User's predicted score for team2
+
+    // User predictions for extra time and penalties (only for knockout stages)
+    private Boolean userExtraTime; // User predicted extra time (only for knockout)
+    private Boolean userPenalties; // User predicted penalties (only for knockout)
+    private Integer userPenaltiesTeam1Score; // User's predicted penalties score for team1 (only for knockout)
+    private Integer userPenaltiesTeam2Score; // User's predicted penalties score for team2 (only for knockout)
+
+    private Date predictedDate; // When the user made this prediction
+    private Integer points; // Points earned for this prediction (calculated after match is played)
+}
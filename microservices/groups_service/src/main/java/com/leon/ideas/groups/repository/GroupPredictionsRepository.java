@@ -0,0 +1,164 @@
+package com.leon.ideas.groups.repository;
+
+import com.leon.ideas.groups.model.GroupPrediction;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Group predictions ('group_predictions'), one document per (groupId, matchId, userId).
+ *
+ * Replaces the embedded 'userPredictions' list of the group document, so saving one prediction
+ * is a single indexed upsert instead of rewriting a group that grows with members x matches.
+ */
+@Repository
+public class GroupPredictionsRepository {
+
+    static final String COLLECTION_NAME = "group_predictions";
+
+    private static final String GROUPS_COLLECTION = "groups";
+    private static final String LEGACY_FIELD = "userPredictions";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("groupId", Sort.Direction.ASC).on("matchId", Sort.Direction.ASC)
+                .on("userId", Sort.Direction.ASC).unique().named("groupId_matchId_userId"));
+        mongoTemplate.indexOps(COLLECTION_NAME).ensureIndex(
+            new Index().on("groupId", Sort.Direction.ASC).on("userId", Sort.Direction.ASC)
+                .named("groupId_userId"));
+    }
+
+    /**
+     * Insert or replace the prediction of one user for one match in one group
+     */
+    public void upsert(GroupPrediction prediction) {
+        Update update = new Update();
+        setOrUnset(update, "userTeam1Score", prediction.getUserTeam1Score());
+        setOrUnset(update, "userTeam2Score", prediction.getUserTeam2Score());
+        setOrUnset(update, "userExtraTime", prediction.getUserExtraTime());
+        setOrUnset(update, "userPenalties", prediction.getUserPenalties());
+        setOrUnset(update, "userPenaltiesTeam1Score", prediction.getUserPenaltiesTeam1Score());
+        setOrUnset(update, "userPenaltiesTeam2Score", prediction.getUserPenaltiesTeam2Score());
+        setOrUnset(update, "predictedDate", prediction.getPredictedDate());
+        setOrUnset(update, "points", prediction.getPoints());
+        mongoTemplate.upsert(
+            keyQuery(prediction.getGroupId(), prediction.getMatchId(), prediction.getUserId()),
+            update, COLLECTION_NAME);
+    }
+
+    /**
+     * Sum of points per user in a group (users without predictions are absent)
+     */
+    public Map<String, Integer> sumPointsByUser(String groupId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("groupId").is(groupId)),
+            Aggregation.group("userId").sum("points").as("points"));
+        Map<String, Integer> totals = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, COLLECTION_NAME, Document.class)) {
+            Object userId = row.get("_id");
+            Object points = row.get("points");
+            if (userId != null) {
+                totals.put(userId.toString(), points instanceof Number ? ((Number) points).intValue() : 0);
+            }
+        }
+        return totals;
+    }
+
+    public long deleteByGroupId(String groupId) {
+        return mongoTemplate.remove(new Query(Criteria.where("groupId").is(groupId)), COLLECTION_NAME)
+            .getDeletedCount();
+    }
+
+    /**
+     * Move the embedded 'userPredictions' of every group into this collection.
+     *
+     * Entries missing here are inserted; existing ones are only overwritten by an embedded entry with a
+     * later predictedDate, so whichever copy was written last wins.
+     * The embedded list is only unset if it is still exactly the list that was copied; a group whose
+     * embedded predictions were added or edited meanwhile is picked up by the next run.
+     *
+     * @return number of groups migrated
+     */
+    public int migrateEmbeddedPredictions() {
+        Query query = new Query(Criteria.where(LEGACY_FIELD + ".0").exists(true));
+        query.fields().include(LEGACY_FIELD);
+        int migrated = 0;
+        try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, GROUPS_COLLECTION)) {
+            Iterator<Document> groups = stream.iterator();
+            while (groups.hasNext()) {
+                Document group = groups.next();
+                String groupId = group.get("_id").toString();
+                List<?> embedded = group.getList(LEGACY_FIELD, Object.class, new ArrayList<>());
+
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION_NAME);
+                int pending = 0;
+                for (Object entry : embedded) {
+                    if (!(entry instanceof Document prediction)
+                            || prediction.getString("userId") == null || prediction.getString("matchId") == null) {
+                        continue;
+                    }
+                    Update insert = new Update();
+                    Update overwrite = new Update();
+                    for (Map.Entry<String, Object> field : prediction.entrySet()) {
+                        if (!field.getKey().equals("userId") && !field.getKey().equals("matchId")
+                                && !field.getKey().equals("_class") && field.getValue() != null) {
+                            insert.setOnInsert(field.getKey(), field.getValue());
+                            overwrite.set(field.getKey(), field.getValue());
+                        }
+                    }
+                    Query key = keyQuery(groupId, prediction.getString("matchId"), prediction.getString("userId"));
+                    bulk.upsert(key, insert);
+                    if (prediction.getDate("predictedDate") != null) {
+                        // Edited in the embedded list after an earlier copy
+                        bulk.updateOne(keyQuery(groupId, prediction.getString("matchId"), prediction.getString("userId"))
+                            .addCriteria(Criteria.where("predictedDate").lt(prediction.getDate("predictedDate"))), overwrite);
+                    }
+                    pending++;
+                }
+                if (pending > 0) {
+                    bulk.execute();
+                }
+
+                long unset = mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(group.get("_id")).and(LEGACY_FIELD).is(embedded)),
+                    new Update().unset(LEGACY_FIELD).set("updatedAt", new Date()),
+                    GROUPS_COLLECTION).getModifiedCount();
+                if (unset > 0) {
+                    migrated++;
+                }
+            }
+        }
+        return migrated;
+    }
+
+    private static Query keyQuery(String groupId, String matchId, String userId) {
+        return new Query(Criteria.where("groupId").is(groupId).and("matchId").is(matchId).and("userId").is(userId));
+    }
+
+    private static void setOrUnset(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
+        } else {
+            update.unset(field);
+        }
+    }
+}
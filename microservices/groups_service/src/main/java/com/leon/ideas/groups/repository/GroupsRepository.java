@@ -3,6 +3,7 @@ package com.leon.ideas.groups.repository;
 import com.leon.ideas.groups.model.Group;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -32,6 +33,11 @@ public interface GroupsRepository extends MongoRepository<Group, String> {
     
     // Find group by creator, competition AND name (to check if already exists with same name)
     Group findByCreatorUserIdAndCompetitionIdAndName(String creatorUserId, String competitionId, String name);
+    
+    // Give groups stored without scoresVersion (the @Version field) a version, or save() would insert them as new
+    @Query("{ 'scoresVersion': { $exists: false } }")
+    @Update("{ '$set': { 'scoresVersion': 0 } }")
+    long initMissingScoresVersion();
 }
 
 
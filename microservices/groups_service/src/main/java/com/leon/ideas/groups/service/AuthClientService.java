@@ -6,8 +6,11 @@ import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class AuthClientService {
@@ -20,6 +23,9 @@ public class AuthClientService {
 
     private static final String AUTH_SERVICE_URL = "http://localhost:8080/football-pool/v1/api/auth";
 
+    // Most userIds auth_service accepts in one /internal/predictions batch call
+    private static final int MAX_BATCH_USERS = 1000;
+
     /**
      * Add a groupId to a user's groups array in auth_service.
      */
@@ -218,6 +224,80 @@ public class AuthClientService {
         }
     }
     
+    /**
+     * Predictions of many users for one group, MAX_BATCH_USERS users per call (service token)
+     * Returns userId -> (matchId -> prediction); users without predictions are left out.
+     * Empty when any call fails, so callers never mistake an outage for "nobody predicted"
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Map<String, Map<String, Map<String, Object>>>> getPredictionsForUsers(List<String> userIds, String groupId) {
+        Map<String, Map<String, Map<String, Object>>> predictions = new HashMap<>();
+        for (int from = 0; from < userIds.size(); from += MAX_BATCH_USERS) {
+            List<String> chunk = userIds.subList(from, Math.min(userIds.size(), from + MAX_BATCH_USERS));
+            try {
+                String url = AUTH_SERVICE_URL + "/internal/predictions/batch";
+                
+                HttpHeaders headers = new HttpHeaders();
+                headers.set("X-Service-Token", serviceToken);
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                
+                Map<String, Object> body = Map.of("groupId", groupId, "userIds", List.copyOf(chunk));
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+                
+                ResponseEntity<Map> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    entity,
+                    Map.class
+                );
+                
+                if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null
+                        || !(response.getBody().get("predictions") instanceof Map)) {
+                    System.err.println("❌ Unexpected response getting predictions in batch for group " + groupId + ": " + response.getStatusCode());
+                    return Optional.empty();
+                }
+                predictions.putAll((Map<String, Map<String, Map<String, Object>>>) response.getBody().get("predictions"));
+            } catch (Exception e) {
+                System.err.println("❌ Error getting predictions in batch for group " + groupId + ": " + e.getMessage());
+                return Optional.empty();
+            }
+        }
+        return Optional.of(predictions);
+    }
+    
+    /**
+     * Recalculate prediction points of many users for one group, MAX_BATCH_USERS users per bulk call (service token)
+     */
+    public void updatePredictionPointsBatch(String groupId, Collection<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<String> allUserIds = List.copyOf(userIds);
+        for (int from = 0; from < allUserIds.size(); from += MAX_BATCH_USERS) {
+            try {
+                String url = AUTH_SERVICE_URL + "/internal/predictions/points";
+                
+                HttpHeaders headers = new HttpHeaders();
+                headers.set("X-Service-Token", serviceToken);
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                
+                Map<String, Object> body = Map.of("groupId", groupId,
+                    "userIds", allUserIds.subList(from, Math.min(allUserIds.size(), from + MAX_BATCH_USERS)));
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+                
+                restTemplate.exchange(
+                    url,
+                    HttpMethod.PUT,
+                    entity,
+                    String.class
+                );
+            } catch (Exception e) {
+                System.err.println("❌ Error updating prediction points in batch for group " + groupId + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+    
     /**
      * Get user information by userId (name, email, groupScores, etc.)
      * If jwtToken is null, uses service token for internal calls
@@ -0,0 +1,44 @@
+package com.leon.ideas.groups.service;
+
+import com.leon.ideas.groups.repository.GroupPredictionsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepares the 'group_predictions' collection on startup: always creates its indexes and, unless
+ * disabled, moves the predictions still embedded in group documents (legacy 'userPredictions') into it.
+ */
+@Component
+public class GroupPredictionsMigration implements ApplicationRunner {
+
+    @Autowired
+    private GroupPredictionsRepository groupPredictionsRepository;
+
+    @Value("${groups.predictions.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            // Always: the unique (groupId, matchId, userId) index is what keeps concurrent upserts from duplicating
+            groupPredictionsRepository.ensureIndexes();
+        } catch (Exception e) {
+            System.err.println("❌ Error creating group predictions indexes: " + e.getMessage());
+            return;
+        }
+        if (!migrateOnStartup) {
+            return;
+        }
+        try {
+            int migrated = groupPredictionsRepository.migrateEmbeddedPredictions();
+            if (migrated > 0) {
+                System.out.println("✅ Moved embedded predictions of " + migrated + " groups to group_predictions");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error moving embedded group predictions: " + e.getMessage());
+        }
+    }
+}
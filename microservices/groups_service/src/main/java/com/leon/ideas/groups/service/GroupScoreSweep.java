@@ -0,0 +1,333 @@
+package com.leon.ideas.groups.service;
+
+import com.leon.ideas.groups.model.Group;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Full re-score of every group, run by the scheduler as a safety net behind the per-request scoring.
+ *
+ * Groups are streamed from a Mongo cursor in _id order and handed to a fixed set of worker lanes,
+ * one thread each, chosen by competitionId, so groups of the same competition are processed in order
+ * on the same lane. At most max-in-flight groups are held in memory. Only groups whose scores or
+ * recorded match points changed are written, with a targeted update guarded by scoresVersion.
+ *
+ * Progress is checkpointed in 'score_sweep_checkpoints' as the highest _id below which every group is
+ * done; a sweep interrupted by a restart resumes from there instead of starting over.
+ */
+@Component
+public class GroupScoreSweep {
+
+    private static final String GROUPS_COLLECTION = "groups";
+    private static final String CHECKPOINT_COLLECTION = "score_sweep_checkpoints";
+    private static final String CHECKPOINT_ID = "group-scores";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private GroupsService groupsService;
+
+    @Autowired
+    private AuthClientService authClientService;
+
+    @Value("${groups.scores.sweep.workers:4}")
+    private int workers;
+
+    @Value("${groups.scores.sweep.max-in-flight:64}")
+    private int maxInFlight;
+
+    @Value("${groups.scores.sweep.cursor-batch-size:100}")
+    private int cursorBatchSize;
+
+    @Value("${groups.scores.sweep.checkpoint-every:500}")
+    private int checkpointEvery;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong lastRunGroupsPerSecond = new AtomicLong();
+    private volatile ExecutorService[] lanes;
+
+    private final Timer runTimer;
+    private final Map<Outcome, Counter> groupCounters = new EnumMap<>(Outcome.class);
+
+    /**
+     * What the sweep did with one group
+     */
+    private enum Outcome {
+        CHANGED("changed", "Groups whose scores changed and were written"),
+        UNCHANGED("unchanged", "Groups whose scores were already up to date"),
+        CONFLICT("conflict", "Groups skipped because a request re-scored them during the sweep"),
+        FAILED("failed", "Groups whose re-score failed");
+
+        private final String tag;
+        private final String description;
+
+        Outcome(String tag, String description) {
+            this.tag = tag;
+            this.description = description;
+        }
+    }
+
+    public GroupScoreSweep(MeterRegistry meterRegistry) {
+        this.runTimer = Timer.builder("groups.scores.sweep.duration")
+            .description("Duration of full group score sweeps")
+            .register(meterRegistry);
+        for (Outcome outcome : Outcome.values()) {
+            groupCounters.put(outcome, Counter.builder("groups.scores.sweep.groups")
+                .tag("result", outcome.tag)
+                .description(outcome.description)
+                .register(meterRegistry));
+        }
+        Gauge.builder("groups.scores.sweep.in-flight", inFlight, AtomicLong::get)
+            .description("Groups read from the cursor and not yet processed")
+            .register(meterRegistry);
+        Gauge.builder("groups.scores.sweep.throughput", lastRunGroupsPerSecond, AtomicLong::get)
+            .baseUnit("groups/s")
+            .description("Groups processed per second by the last completed sweep")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Tracks which streamed groups are done so the checkpoint never passes an unfinished one,
+     * and what happened to them in this run
+     */
+    private static final class Progress {
+        private final TreeMap<Long, String> previousIdBySequence = new TreeMap<>();
+        private final Map<Outcome, Long> outcomes = new EnumMap<>(Outcome.class);
+        private String lastStreamedId;
+        private long sequence;
+
+        private Progress(String resumeAfterId) {
+            this.lastStreamedId = resumeAfterId;
+        }
+
+        private synchronized long streamed(String groupId) {
+            previousIdBySequence.put(++sequence, lastStreamedId);
+            lastStreamedId = groupId;
+            return sequence;
+        }
+
+        private synchronized void done(long groupSequence, Outcome outcome) {
+            previousIdBySequence.remove(groupSequence);
+            outcomes.merge(outcome, 1L, Long::sum);
+        }
+
+        private synchronized Map<String, Long> outcomeCounts() {
+            Map<String, Long> counts = new HashMap<>();
+            for (Outcome outcome : Outcome.values()) {
+                counts.put(outcome.tag, outcomes.getOrDefault(outcome, 0L));
+            }
+            return counts;
+        }
+
+        /**
+         * Highest _id below which every streamed group is done
+         */
+        private synchronized String doneUpTo() {
+            return previousIdBySequence.isEmpty() ? lastStreamedId : previousIdBySequence.firstEntry().getValue();
+        }
+    }
+
+    /**
+     * Run one sweep; does nothing while a previous one is still running
+     */
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            System.out.println("⚠️ Group score sweep still running, skipping this run");
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            Document checkpoint = mongoTemplate.findById(CHECKPOINT_ID, Document.class, CHECKPOINT_COLLECTION);
+            String resumeAfterId = checkpoint != null && checkpoint.get("completedAt") == null
+                ? checkpoint.getString("doneUpTo") : null;
+            Date runStartedAt = resumeAfterId != null ? checkpoint.getDate("startedAt") : new Date();
+            if (resumeAfterId != null) {
+                System.out.println("🔄 Group score sweep: resuming after group " + resumeAfterId);
+            } else {
+                System.out.println("🔄 Group score sweep: recalculating scores for all groups...");
+            }
+
+            long processed = sweep(resumeAfterId, runStartedAt);
+            long elapsedNanos = System.nanoTime() - startedAt;
+            runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            long groupsPerSecond = processed * 1_000_000_000L / Math.max(1, elapsedNanos);
+            lastRunGroupsPerSecond.set(groupsPerSecond);
+            System.out.println("✅ Group score sweep completed: " + processed + " groups in "
+                + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms (" + groupsPerSecond + " groups/s)");
+        } catch (Exception e) {
+            System.err.println("❌ Error in group score sweep: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long sweep(String resumeAfterId, Date runStartedAt) throws InterruptedException {
+        ExecutorService[] lanes = new ExecutorService[Math.max(1, workers)];
+        for (int i = 0; i < lanes.length; i++) {
+            int lane = i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "group-score-sweep-" + lane);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.lanes = lanes;
+
+        Semaphore slots = new Semaphore(Math.max(1, maxInFlight));
+        Progress progress = new Progress(resumeAfterId);
+        long processed = 0;
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(cursorBatchSize);
+        if (resumeAfterId != null) {
+            query.addCriteria(Criteria.where("_id").gt(resumeAfterId));
+        }
+        try (Stream<Group> groups = mongoTemplate.stream(query, Group.class)) {
+            for (Group group : (Iterable<Group>) groups::iterator) {
+                slots.acquire();
+                inFlight.incrementAndGet();
+                long sequence = progress.streamed(group.getGroupId());
+                String competitionId = group.getCompetitionId() != null ? group.getCompetitionId() : "";
+                lanes[Math.floorMod(competitionId.hashCode(), lanes.length)].execute(() -> {
+                    Outcome outcome = Outcome.FAILED;
+                    try {
+                        outcome = rescore(group);
+                    } finally {
+                        groupCounters.get(outcome).increment();
+                        progress.done(sequence, outcome);
+                        inFlight.decrementAndGet();
+                        slots.release();
+                    }
+                });
+                if (++processed % checkpointEvery == 0) {
+                    saveCheckpoint(runStartedAt, progress, null);
+                }
+            }
+        } finally {
+            for (ExecutorService lane : lanes) {
+                lane.shutdown();
+            }
+        }
+        boolean terminated = true;
+        for (ExecutorService lane : lanes) {
+            terminated &= lane.awaitTermination(1, TimeUnit.HOURS);
+        }
+        if (!terminated) {
+            // Groups are still being processed: keep the run open so the next one resumes from doneUpTo
+            for (ExecutorService lane : lanes) {
+                lane.shutdownNow();
+            }
+            saveCheckpoint(runStartedAt, progress, null);
+            throw new IllegalStateException("Sweep lanes did not finish within an hour; " + inFlight.get() + " groups in flight");
+        }
+        saveCheckpoint(runStartedAt, progress, new Date());
+        return processed;
+    }
+
+    /**
+     * Re-score one group and write it only when something changed
+     */
+    private Outcome rescore(Group group) {
+        try {
+            List<String> userIds = groupsService.scoringUserIds(group);
+            if (userIds.isEmpty()) {
+                return Outcome.UNCHANGED;
+            }
+            Long version = group.getScoresVersion();
+            Map<String, Map<String, Integer>> previousMatchPoints = group.getMatchPoints();
+            List<Group.TournamentStructure.Match> playedMatches = groupsService.playedMatches(group);
+            Optional<Map<String, Map<String, Map<String, Object>>>> fetched = playedMatches.isEmpty()
+                ? Optional.of(Map.of()) : groupsService.fetchGroupPredictions(group, userIds);
+            if (fetched.isEmpty()) {
+                // auth_service unavailable: keep the stored scores rather than zeroing them
+                return Outcome.FAILED;
+            }
+            Map<String, Map<String, Map<String, Object>>> predictionsByUser = fetched.get();
+            Map<String, Integer> userTotalScores = groupsService.scoreGroup(group, playedMatches, userIds, predictionsByUser);
+
+            Query query = new Query(Criteria.where("_id").is(group.getGroupId()));
+            query.addCriteria(version != null
+                ? Criteria.where("scoresVersion").is(version)
+                : Criteria.where("scoresVersion").exists(false));
+            Update update = new Update().inc("scoresVersion", 1).set("matchPoints", group.getMatchPoints());
+            boolean changed = !Objects.equals(previousMatchPoints, group.getMatchPoints());
+            List<Group.GroupUser> users = group.getUsers() != null ? group.getUsers() : new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                Integer score = userTotalScores.getOrDefault(users.get(i).getId(), 0);
+                if (!score.equals(users.get(i).getScore())) {
+                    // GroupUser.id is stored as _id
+                    update.set("users.$[u" + i + "].score", score).filterArray(Criteria.where("u" + i + "._id").is(users.get(i).getId()));
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                return Outcome.UNCHANGED;
+            }
+
+            if (mongoTemplate.updateFirst(query, update, GROUPS_COLLECTION).getMatchedCount() == 0) {
+                // Scored by a request while the sweep was on it; that write is at least as recent
+                return Outcome.CONFLICT;
+            }
+            // Keep users ordered by score, as updateScoreboardForGroup does
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(group.getGroupId())),
+                new Update().push("users").sort(Sort.by(Sort.Direction.DESC, "score")).each(), GROUPS_COLLECTION);
+            if (!playedMatches.isEmpty()) {
+                authClientService.updatePredictionPointsBatch(group.getGroupId(), predictionsByUser.keySet());
+            }
+            return Outcome.CHANGED;
+        } catch (Exception e) {
+            System.err.println("❌ Error recalculating scores for group " + group.getGroupId() + ": " + e.getMessage());
+            return Outcome.FAILED;
+        }
+    }
+
+    private void saveCheckpoint(Date runStartedAt, Progress progress, Date completedAt) {
+        Update update = new Update()
+            .set("startedAt", runStartedAt)
+            .set("doneUpTo", progress.doneUpTo())
+            .set("updatedAt", new Date())
+            .set("completedAt", completedAt)
+            .set("outcomes", progress.outcomeCounts());
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(CHECKPOINT_ID)), update, CHECKPOINT_COLLECTION);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ExecutorService[] current = lanes;
+        if (current != null) {
+            for (ExecutorService lane : current) {
+                lane.shutdownNow();
+            }
+        }
+    }
+}
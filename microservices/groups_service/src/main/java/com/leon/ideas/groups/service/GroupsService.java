@@ -1,9 +1,18 @@
 package com.leon.ideas.groups.service;
 
 import com.leon.ideas.groups.model.Group;
+import com.leon.ideas.groups.model.GroupPrediction;
+import com.leon.ideas.groups.repository.GroupPredictionsRepository;
 import com.leon.ideas.groups.repository.GroupsRepository;
+import com.leon.ideas.groups.util.ScoringKernel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -16,9 +25,15 @@ import org.bson.Document;
 @Service
 public class GroupsService {
 
+    private static final String GROUPS_COLLECTION = "groups";
+    private static final int MAX_SCORE_UPDATE_ATTEMPTS = 3;
+
     @Autowired
     private GroupsRepository groupsRepository;
 
+    @Autowired
+    private GroupPredictionsRepository groupPredictionsRepository;
+
     @Autowired
     private CompetitionsClientService competitionsClient;
 
@@ -30,6 +45,9 @@ public class GroupsService {
 
     @Autowired
     private AuthClientService authClientService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
     
     @Value("${service.token}")
     private String serviceToken;
@@ -493,6 +511,8 @@ public class GroupsService {
                 ));
             }
 
+            Map<String, Integer> previousScores = currentScores(group);
+
             // Update fields (preserve critical fields)
             if (updates.containsKey("users")) {
                 @SuppressWarnings("unchecked")
@@ -592,6 +612,7 @@ public class GroupsService {
                 }
             }
 
+            dropMatchPointsIfScoresChanged(group, previousScores);
             group.setUpdatedAt(new Date());
             Group updatedGroup = groupsRepository.save(group);
 
@@ -599,6 +620,8 @@ public class GroupsService {
                 "message", "Group updated successfully",
                 "group", updatedGroup
             ));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
                 "error", "Error updating group: " + e.getMessage()
@@ -627,6 +650,8 @@ public class GroupsService {
                 ));
             }
 
+            Map<String, Integer> previousScores = currentScores(group);
+
             // Apply partial updates
             updates.forEach((key, value) -> {
                 switch (key) {
@@ -704,6 +729,7 @@ public class GroupsService {
                 }
             });
 
+            dropMatchPointsIfScoresChanged(group, previousScores);
             group.setUpdatedAt(new Date());
             Group patchedGroup = groupsRepository.save(group);
 
@@ -711,6 +737,8 @@ public class GroupsService {
                 "message", "Group patched successfully",
                 "group", patchedGroup
             ));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
                 "error", "Error patching group: " + e.getMessage()
@@ -740,6 +768,7 @@ public class GroupsService {
             }
 
             groupsRepository.deleteById(groupId);
+            groupPredictionsRepository.deleteByGroupId(groupId);
 
             return ResponseEntity.ok(Map.of(
                 "message", "Group deleted successfully"
@@ -830,6 +859,8 @@ public class GroupsService {
                 "message", "Invitation sent successfully",
                 "invitedEmail", inviteeEmail
             ));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             System.err.println("❌ Exception in inviteToGroup: " + e.getMessage());
             e.printStackTrace();
@@ -915,6 +946,8 @@ public class GroupsService {
                 "message", "Successfully joined the group",
                 "group", updatedGroup
             ));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
                 "error", "Error joining group: " + e.getMessage()
@@ -1183,7 +1216,7 @@ public class GroupsService {
      * Register or update match result
      * This will automatically update team statistics
      * NOTE: This endpoint is NOT available for frontend use.
-     * Results must be registered by backend/admin only.
+     * Results must be registered by backend/admin only (see registerMatchResultInternal).
      */
     public ResponseEntity<Map<String, Object>> registerMatchResult(String groupId, String matchId, String userId, Map<String, Object> resultData) {
         // Frontend cannot register real match results
@@ -1196,7 +1229,7 @@ public class GroupsService {
     /**
      * Clear match result (reset to not played)
      * NOTE: This endpoint is NOT available for frontend use.
-     * Results must be cleared by backend/admin only.
+     * Results must be cleared by backend/admin only (see clearMatchResultInternal).
      */
     public ResponseEntity<Map<String, Object>> clearMatchResult(String groupId, String matchId, String userId) {
         // Frontend cannot clear real match results
@@ -1206,6 +1239,239 @@ public class GroupsService {
         ));
     }
 
+    /**
+     * Set a match's real result (internal: backend only) and apply the score change incrementally
+     * Only this match is re-scored; each user's difference against the points recorded in
+     * matchPoints is added to users[].score with $inc in the same write as the result
+     */
+    public ResponseEntity<Map<String, Object>> registerMatchResultInternal(String groupId, String matchId,
+            Map<String, Object> resultData, String serviceTokenHeader) {
+        if (serviceTokenHeader == null || !serviceTokenHeader.equals(this.serviceToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "error", "Invalid or missing service token"
+            ));
+        }
+        if (resultData == null || !(resultData.get("team1Score") instanceof Number)
+                || !(resultData.get("team2Score") instanceof Number)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "team1Score and team2Score are required"
+            ));
+        }
+        
+        int team1Score = ((Number) resultData.get("team1Score")).intValue();
+        int team2Score = ((Number) resultData.get("team2Score")).intValue();
+        Integer penaltiesTeam1Score = resultData.get("penaltiesTeam1Score") instanceof Number
+            ? ((Number) resultData.get("penaltiesTeam1Score")).intValue() : null;
+        Integer penaltiesTeam2Score = resultData.get("penaltiesTeam2Score") instanceof Number
+            ? ((Number) resultData.get("penaltiesTeam2Score")).intValue() : null;
+        
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("team1Score", team1Score);
+        fields.put("team2Score", team2Score);
+        fields.put("isDraw", team1Score == team2Score);
+        fields.put("extraTime", Boolean.TRUE.equals(resultData.get("extraTime")));
+        fields.put("penalties", Boolean.TRUE.equals(resultData.get("penalties")));
+        fields.put("penaltiesTeam1Score", penaltiesTeam1Score);
+        fields.put("penaltiesTeam2Score", penaltiesTeam2Score);
+        fields.put("isPlayed", true);
+        fields.put("status", "finished");
+        fields.put("playedDate", new Date());
+        return applyMatchResult(groupId, matchId, fields);
+    }
+    
+    /**
+     * Reset a match to not played (internal: backend only) and revert its recorded points with $inc
+     */
+    public ResponseEntity<Map<String, Object>> clearMatchResultInternal(String groupId, String matchId, String serviceTokenHeader) {
+        if (serviceTokenHeader == null || !serviceTokenHeader.equals(this.serviceToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "error", "Invalid or missing service token"
+            ));
+        }
+        
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("team1Score", 0);
+        fields.put("team2Score", 0);
+        fields.put("winnerTeamId", null);
+        fields.put("loserTeamId", null);
+        fields.put("isDraw", false);
+        fields.put("extraTime", null);
+        fields.put("penalties", null);
+        fields.put("penaltiesTeam1Score", null);
+        fields.put("penaltiesTeam2Score", null);
+        fields.put("isPlayed", false);
+        fields.put("status", "scheduled");
+        fields.put("playedDate", null);
+        return applyMatchResult(groupId, matchId, fields);
+    }
+    
+    /**
+     * Write a match's result fields and the score deltas they cause in one update guarded by scoresVersion
+     * (retried on a concurrent score write). Groups without recorded matchPoints are scored in full once.
+     */
+    private ResponseEntity<Map<String, Object>> applyMatchResult(String groupId, String matchId, Map<String, Object> fields) {
+        try {
+            for (int attempt = 0; attempt < MAX_SCORE_UPDATE_ATTEMPTS; attempt++) {
+                Optional<Group> groupOpt = groupsRepository.findById(groupId);
+                if (groupOpt.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                        "error", "Group not found"
+                    ));
+                }
+                Group group = groupOpt.get();
+                Group.TournamentStructure.Match match = findMatchInGroup(group, matchId);
+                String matchPath = findMatchPath(group, matchId);
+                if (match == null || matchPath == null) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                        "error", "Match not found in group"
+                    ));
+                }
+                
+                Map<String, Object> matchFields = withWinner(match, fields);
+                setResultFields(match, matchFields);
+                List<String> userIds = scoringUserIds(group);
+                Optional<Map<String, Map<String, Map<String, Object>>>> fetched = fetchGroupPredictions(group, userIds);
+                if (fetched.isEmpty()) {
+                    return predictionsUnavailable(groupId);
+                }
+                Map<String, Map<String, Map<String, Object>>> predictionsByUser = fetched.get();
+                
+                boolean hasBaseline = group.getMatchPoints() != null && group.getUsers() != null
+                    && group.getUsers().stream().allMatch(u -> u.getScore() != null);
+                if (!hasBaseline) {
+                    Map<String, Integer> userTotalScores = scoreGroup(group, playedMatches(group), userIds, predictionsByUser);
+                    updateScoreboardForGroup(group, userTotalScores);
+                    try {
+                        groupsRepository.save(group);
+                    } catch (OptimisticLockingFailureException e) {
+                        continue; // Group changed since it was read
+                    }
+                    authClientService.updatePredictionPointsBatch(groupId, predictionsByUser.keySet());
+                    return ResponseEntity.ok(Map.of(
+                        "message", "Match result applied; group scores recalculated in full",
+                        "groupId", groupId,
+                        "matchId", matchId,
+                        "userScores", userTotalScores
+                    ));
+                }
+                
+                Map<String, Integer> newPoints = matchPointsFor(match, userIds, predictionsByUser);
+                Map<String, Integer> oldPoints = group.getMatchPoints().getOrDefault(matchId, Map.of());
+                
+                Query query = new Query(Criteria.where("_id").is(groupId));
+                query.addCriteria(group.getScoresVersion() != null
+                    ? Criteria.where("scoresVersion").is(group.getScoresVersion())
+                    : Criteria.where("scoresVersion").exists(false));
+                Update update = new Update().inc("scoresVersion", 1);
+                for (Map.Entry<String, Object> field : matchFields.entrySet()) {
+                    update.set(matchPath + "." + field.getKey(), field.getValue());
+                }
+                if (newPoints.isEmpty()) {
+                    update.unset("matchPoints." + matchId);
+                } else {
+                    update.set("matchPoints." + matchId, newPoints);
+                }
+                Map<String, Integer> scoreChanges = new HashMap<>();
+                for (int i = 0; i < group.getUsers().size(); i++) {
+                    String userId = group.getUsers().get(i).getId();
+                    int delta = newPoints.getOrDefault(userId, 0) - oldPoints.getOrDefault(userId, 0);
+                    if (delta != 0) {
+                        // GroupUser.id is stored as _id
+                        update.inc("users.$[u" + i + "].score", delta).filterArray(Criteria.where("u" + i + "._id").is(userId));
+                        scoreChanges.put(userId, delta);
+                    }
+                }
+                
+                if (mongoTemplate.updateFirst(query, update, GROUPS_COLLECTION).getMatchedCount() == 0) {
+                    continue; // Scores changed since the group was read
+                }
+                if (!scoreChanges.isEmpty()) {
+                    // Keep users ordered by score, as updateScoreboardForGroup does
+                    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(groupId)),
+                        new Update().push("users").sort(Sort.by(Sort.Direction.DESC, "score")).each(), GROUPS_COLLECTION);
+                    authClientService.updatePredictionPointsBatch(groupId, predictionsByUser.keySet());
+                }
+                System.out.println("✅ Match " + matchId + " result applied to group " + groupId + ": " + scoreChanges.size() + " user scores changed");
+                return ResponseEntity.ok(Map.of(
+                    "message", "Match result applied",
+                    "groupId", groupId,
+                    "matchId", matchId,
+                    "scoreChanges", scoreChanges
+                ));
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Group scores kept changing, please retry"
+            ));
+        } catch (Exception e) {
+            System.err.println("❌ Error applying match result: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                "error", "Error applying match result: " + e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Result fields plus winnerTeamId / loserTeamId (decided by penalties after a draw)
+     */
+    private static Map<String, Object> withWinner(Group.TournamentStructure.Match match, Map<String, Object> fields) {
+        Map<String, Object> matchFields = new LinkedHashMap<>(fields);
+        if (Boolean.TRUE.equals(fields.get("isPlayed"))) {
+            int winner = Integer.compare((Integer) fields.get("team1Score"), (Integer) fields.get("team2Score"));
+            if (winner == 0 && fields.get("penaltiesTeam1Score") != null && fields.get("penaltiesTeam2Score") != null) {
+                winner = Integer.compare((Integer) fields.get("penaltiesTeam1Score"), (Integer) fields.get("penaltiesTeam2Score"));
+            }
+            matchFields.put("winnerTeamId", winner > 0 ? match.getTeam1Id() : winner < 0 ? match.getTeam2Id() : null);
+            matchFields.put("loserTeamId", winner > 0 ? match.getTeam2Id() : winner < 0 ? match.getTeam1Id() : null);
+        }
+        return matchFields;
+    }
+    
+    private static void setResultFields(Group.TournamentStructure.Match match, Map<String, Object> fields) {
+        match.setTeam1Score((Integer) fields.get("team1Score"));
+        match.setTeam2Score((Integer) fields.get("team2Score"));
+        match.setWinnerTeamId((String) fields.get("winnerTeamId"));
+        match.setLoserTeamId((String) fields.get("loserTeamId"));
+        match.setIsDraw((Boolean) fields.get("isDraw"));
+        match.setExtraTime((Boolean) fields.get("extraTime"));
+        match.setPenalties((Boolean) fields.get("penalties"));
+        match.setPenaltiesTeam1Score((Integer) fields.get("penaltiesTeam1Score"));
+        match.setPenaltiesTeam2Score((Integer) fields.get("penaltiesTeam2Score"));
+        match.setIsPlayed((Boolean) fields.get("isPlayed"));
+        match.setStatus((String) fields.get("status"));
+        match.setPlayedDate((Date) fields.get("playedDate"));
+    }
+    
+    /**
+     * Mongo path of a match inside tournamentStructure, or null when the group has no such match
+     */
+    private static String findMatchPath(Group group, String matchId) {
+        if (group.getTournamentStructure() == null || group.getTournamentStructure().getStages() == null) {
+            return null;
+        }
+        for (Map.Entry<String, Group.TournamentStructure.Stage> stage : group.getTournamentStructure().getStages().entrySet()) {
+            String stagePath = "tournamentStructure.stages." + stage.getKey();
+            List<Group.TournamentStructure.GroupStage> groupStages = stage.getValue().getGroups();
+            if (groupStages != null) {
+                for (int g = 0; g < groupStages.size(); g++) {
+                    List<Group.TournamentStructure.Match> matches = groupStages.get(g).getMatches();
+                    for (int m = 0; matches != null && m < matches.size(); m++) {
+                        if (matchId.equals(matches.get(m).getMatchId())) {
+                            return stagePath + ".groups." + g + ".matches." + m;
+                        }
+                    }
+                }
+            }
+            List<Group.TournamentStructure.Match> matches = stage.getValue().getMatches();
+            for (int m = 0; matches != null && m < matches.size(); m++) {
+                if (matchId.equals(matches.get(m).getMatchId())) {
+                    return stagePath + ".matches." + m;
+                }
+            }
+        }
+        return null;
+    }
+
     private void revertTeamStats(List<Group.TeamScore> teams, String team1Id, String team2Id, Integer team1Score, Integer team2Score) {
         for (Group.TeamScore team : teams) {
             if (team.getTeamId().equals(team1Id)) {
@@ -1721,39 +1987,18 @@ public class GroupsService {
                     allUserIds.add(group.getCreatorUserId());
                 }
                 
-                // Recalculate scores for ALL users by checking all played matches
-                Map<String, Integer> userTotalScores = new HashMap<>();
-                
-                // Iterate through all matches in the tournament structure
-                if (group.getTournamentStructure() != null && group.getTournamentStructure().getStages() != null) {
-                    for (Group.TournamentStructure.Stage stage : group.getTournamentStructure().getStages().values()) {
-                        // Process group stage matches
-                        if (stage.getGroups() != null) {
-                            for (Group.TournamentStructure.GroupStage groupStage : stage.getGroups()) {
-                                if (groupStage.getMatches() != null) {
-                                    for (Group.TournamentStructure.Match m : groupStage.getMatches()) {
-                                        if (m.getIsPlayed() != null && m.getIsPlayed() &&
-                                            m.getTeam1Score() != null && m.getTeam2Score() != null) {
-                                            // Calculate scores for this match for all users
-                                            calculateMatchScoresForAllUsers(group, m, allUserIds, userTotalScores, jwtToken);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                        
-                        // Process knockout matches
-                        if (stage.getMatches() != null) {
-                            for (Group.TournamentStructure.Match m : stage.getMatches()) {
-                                if (m.getIsPlayed() != null && m.getIsPlayed() &&
-                                    m.getTeam1Score() != null && m.getTeam2Score() != null) {
-                                    // Calculate scores for this match for all users
-                                    calculateMatchScoresForAllUsers(group, m, allUserIds, userTotalScores, jwtToken);
-                                }
-                            }
-                        }
-                    }
+                // Re-score ALL users on this match only (every played match when the group has no per-match points yet)
+                Optional<Map<String, Map<String, Map<String, Object>>>> fetched = fetchGroupPredictions(group, allUserIds);
+                if (fetched.isEmpty()) {
+                    return predictionsUnavailable(group.getGroupId());
                 }
+                Map<String, Map<String, Map<String, Object>>> predictionsByUser = fetched.get();
+                Map<String, Integer> userTotalScores = group.getMatchPoints() != null
+                    ? rescoreMatch(group, match, allUserIds, predictionsByUser)
+                    : scoreGroup(group, playedMatches(group), allUserIds, predictionsByUser);
+                
+                // Update prediction points in auth_service with one bulk call
+                authClientService.updatePredictionPointsBatch(group.getGroupId(), predictionsByUser.keySet());
                 
                 // Update user scores in the group's users array
                 if (group.getUsers() != null) {
@@ -1775,6 +2020,8 @@ public class GroupsService {
                 "message", "Match prediction updated successfully",
                 "match", match
             ));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             System.err.println("❌ Error updating match prediction: " + e.getMessage());
             e.printStackTrace();
@@ -1952,38 +2199,18 @@ public class GroupsService {
                 allUserIds.add(group.getCreatorUserId());
             }
             
-            Map<String, Integer> userTotalScores = new HashMap<>();
-            int totalMatchesProcessed = 0;
+            List<Group.TournamentStructure.Match> playedMatches = playedMatches(group);
+            int totalMatchesProcessed = playedMatches.size();
+            Optional<Map<String, Map<String, Map<String, Object>>>> fetched = fetchGroupPredictions(group, allUserIds);
+            if (fetched.isEmpty()) {
+                return predictionsUnavailable(groupId);
+            }
+            Map<String, Map<String, Map<String, Object>>> predictionsByUser = fetched.get();
+            Map<String, Integer> userTotalScores = scoreGroup(group, playedMatches, allUserIds, predictionsByUser);
             
-            // Iterate through all matches in the tournament structure
-            if (group.getTournamentStructure() != null && group.getTournamentStructure().getStages() != null) {
-                for (Group.TournamentStructure.Stage stage : group.getTournamentStructure().getStages().values()) {
-                    // Process group stage matches
-                    if (stage.getGroups() != null) {
-                        for (Group.TournamentStructure.GroupStage groupStage : stage.getGroups()) {
-                            if (groupStage.getMatches() != null) {
-                                for (Group.TournamentStructure.Match match : groupStage.getMatches()) {
-                                    if (match.getIsPlayed() != null && match.getIsPlayed()) {
-                                        // Calculate scores for this match
-                                        calculateMatchScores(group, match, allUserIds, jwtToken, userTotalScores);
-                                        totalMatchesProcessed++;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    
-                    // Process knockout matches
-                    if (stage.getMatches() != null) {
-                        for (Group.TournamentStructure.Match match : stage.getMatches()) {
-                            if (match.getIsPlayed() != null && match.getIsPlayed()) {
-                                // Calculate scores for this match
-                                calculateMatchScores(group, match, allUserIds, jwtToken, userTotalScores);
-                                totalMatchesProcessed++;
-                            }
-                        }
-                    }
-                }
+            // Update prediction points in auth_service with one bulk call
+            if (totalMatchesProcessed > 0) {
+                authClientService.updatePredictionPointsBatch(group.getGroupId(), predictionsByUser.keySet());
             }
             
             // Update user scores in the group's users array
@@ -2045,6 +2272,8 @@ public class GroupsService {
                 "userScores", userTotalScores,
                 "group", group
             ));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             System.err.println("❌ Error calculating scores: " + e.getMessage());
             e.printStackTrace();
@@ -2055,147 +2284,233 @@ public class GroupsService {
     }
     
     /**
-     * Helper method to calculate scores for a specific match
-     * Rules:
-     * - Exact score: 5 points
-     * - Correct result (win/draw/loss) without exact score: 3 points
-     * - Extra time (only knockout): +1 point if user predicted and match went to extra time
-     * - Penalties (only knockout): +2 points if user predicted and match went to penalties
-     * - Exact penalties score (only knockout): +3 points if user predicted exact penalties score
+     * Played matches of a group with a real result, group stages first within each stage
      */
-    private void calculateMatchScores(Group group, Group.TournamentStructure.Match match, 
-            List<String> userIds, String jwtToken, Map<String, Integer> userTotalScores) {
-        calculateMatchScoresForAllUsers(group, match, userIds, userTotalScores, jwtToken);
+    public List<Group.TournamentStructure.Match> playedMatches(Group group) {
+        List<Group.TournamentStructure.Match> played = new ArrayList<>();
+        if (group.getTournamentStructure() == null || group.getTournamentStructure().getStages() == null) {
+            return played;
+        }
+        for (Group.TournamentStructure.Stage stage : group.getTournamentStructure().getStages().values()) {
+            if (stage.getGroups() != null) {
+                for (Group.TournamentStructure.GroupStage groupStage : stage.getGroups()) {
+                    if (groupStage.getMatches() != null) {
+                        for (Group.TournamentStructure.Match match : groupStage.getMatches()) {
+                            if (isScorable(match)) {
+                                played.add(match);
+                            }
+                        }
+                    }
+                }
+            }
+            if (stage.getMatches() != null) {
+                for (Group.TournamentStructure.Match match : stage.getMatches()) {
+                    if (isScorable(match)) {
+                        played.add(match);
+                    }
+                }
+            }
+        }
+        return played;
     }
     
     /**
-     * Calculate scores for all users for a specific match (used by scheduled tasks)
-     * This version doesn't require jwtToken for scheduled tasks
+     * Users scored in a group: its members plus the creator
      */
-    public void calculateMatchScoresForAllUsers(Group group, Group.TournamentStructure.Match match, 
-            List<String> userIds, Map<String, Integer> userTotalScores) {
-        calculateMatchScoresForAllUsers(group, match, userIds, userTotalScores, null);
+    public List<String> scoringUserIds(Group group) {
+        List<String> userIds = new ArrayList<>(getUserIdsFromUsers(group.getUsers()));
+        if (group.getCreatorUserId() != null && !userIds.contains(group.getCreatorUserId())) {
+            userIds.add(group.getCreatorUserId());
+        }
+        return userIds;
+    }
+    
+    private static boolean isScorable(Group.TournamentStructure.Match match) {
+        return match.getIsPlayed() != null && match.getIsPlayed()
+            && match.getTeam1Score() != null && match.getTeam2Score() != null;
     }
     
     /**
-     * Internal method to calculate scores for all users for a specific match
+     * Predictions of all users of a group, fetched from auth_service in batches
+     * Returns userId -> (matchId -> prediction), the input of scoreGroup; empty when auth_service
+     * could not be read, in which case no score may be written
      */
-    private void calculateMatchScoresForAllUsers(Group group, Group.TournamentStructure.Match match, 
-            List<String> userIds, Map<String, Integer> userTotalScores, String jwtToken) {
-        
-        Integer actualTeam1Score = match.getTeam1Score();
-        Integer actualTeam2Score = match.getTeam2Score();
+    public Optional<Map<String, Map<String, Map<String, Object>>>> fetchGroupPredictions(Group group, List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Optional.of(Map.of());
+        }
+        return authClientService.getPredictionsForUsers(userIds, group.getGroupId());
+    }
+    
+    private static ResponseEntity<Map<String, Object>> predictionsUnavailable(String groupId) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+            "error", "Predictions could not be read from auth_service; scores of group " + groupId + " were not updated"
+        ));
+    }
+    
+    /**
+     * Total score of every user over the played matches, from the group's prediction batch
+     * (see fetchGroupPredictions). Scoring rules are in ScoringKernel; users without a prediction
+     * for a match score 0 on it. Each user's points per match are recorded in group.matchPoints,
+     * the base of the incremental updates. Points are written back to auth_service by the caller once per group.
+     */
+    public Map<String, Integer> scoreGroup(Group group, List<Group.TournamentStructure.Match> playedMatches,
+            List<String> userIds, Map<String, Map<String, Map<String, Object>>> predictionsByUser) {
+        int[] totals = new int[userIds.size()];
+        int[] cellPoints = scoreCells(playedMatches, userIds, predictionsByUser, totals);
         
-        if (actualTeam1Score == null || actualTeam2Score == null) {
-            return; // Match not played yet
+        Map<String, Integer> userTotalScores = new HashMap<>();
+        Map<String, Map<String, Integer>> matchPoints = new HashMap<>();
+        for (int u = 0; u < userIds.size(); u++) {
+            userTotalScores.put(userIds.get(u), totals[u]);
+            for (int m = 0; m < playedMatches.size(); m++) {
+                int points = cellPoints[u * playedMatches.size() + m];
+                if (points != 0) {
+                    matchPoints.computeIfAbsent(playedMatches.get(m).getMatchId(), id -> new HashMap<>())
+                        .put(userIds.get(u), points);
+                }
+            }
         }
+        group.setMatchPoints(matchPoints);
+        return userTotalScores;
+    }
+    
+    /**
+     * Re-score a single match on an in-memory group and return the new totals: each user's
+     * current score plus the difference between the match's new and recorded points
+     */
+    private Map<String, Integer> rescoreMatch(Group group, Group.TournamentStructure.Match match, List<String> userIds,
+            Map<String, Map<String, Map<String, Object>>> predictionsByUser) {
+        Map<String, Integer> newPoints = matchPointsFor(match, userIds, predictionsByUser);
+        Map<String, Integer> oldPoints = group.getMatchPoints().getOrDefault(match.getMatchId(), Map.of());
         
-        boolean isKnockout = match.getStageId() != null && !match.getStageId().equals("group-stage");
-        Boolean actualExtraTime = match.getExtraTime();
-        Boolean actualPenalties = match.getPenalties();
-        Integer actualPenaltiesTeam1Score = match.getPenaltiesTeam1Score();
-        Integer actualPenaltiesTeam2Score = match.getPenaltiesTeam2Score();
+        Map<String, Integer> userTotalScores = new HashMap<>();
+        if (group.getUsers() != null) {
+            for (Group.GroupUser groupUser : group.getUsers()) {
+                userTotalScores.put(groupUser.getId(), groupUser.getScore() != null ? groupUser.getScore() : 0);
+            }
+        }
+        for (String userId : userIds) {
+            int delta = newPoints.getOrDefault(userId, 0) - oldPoints.getOrDefault(userId, 0);
+            userTotalScores.merge(userId, delta, Integer::sum);
+        }
         
-        // Determine actual result
-        String actualResult;
-        if (actualTeam1Score > actualTeam2Score) {
-            actualResult = "team1_win";
-        } else if (actualTeam2Score > actualTeam1Score) {
-            actualResult = "team2_win";
+        if (newPoints.isEmpty()) {
+            group.getMatchPoints().remove(match.getMatchId());
         } else {
-            actualResult = "draw";
+            group.getMatchPoints().put(match.getMatchId(), newPoints);
+        }
+        return userTotalScores;
+    }
+    
+    /**
+     * Non-zero points of every user on one match (empty when the match has no result)
+     */
+    private Map<String, Integer> matchPointsFor(Group.TournamentStructure.Match match, List<String> userIds,
+            Map<String, Map<String, Map<String, Object>>> predictionsByUser) {
+        Map<String, Integer> points = new HashMap<>();
+        if (!isScorable(match)) {
+            return points;
+        }
+        int[] cellPoints = scoreCells(List.of(match), userIds, predictionsByUser, new int[userIds.size()]);
+        for (int u = 0; u < userIds.size(); u++) {
+            if (cellPoints[u] != 0) {
+                points.put(userIds.get(u), cellPoints[u]);
+            }
+        }
+        return points;
+    }
+    
+    /**
+     * Encode the matches and predictions and run the kernel; returns the points per user x match cell
+     */
+    private int[] scoreCells(List<Group.TournamentStructure.Match> matches, List<String> userIds,
+            Map<String, Map<String, Map<String, Object>>> predictionsByUser, int[] totals) {
+        int matchCount = matches.size();
+        int[] results = new int[matchCount * ScoringKernel.RESULT_STRIDE];
+        for (int m = 0; m < matchCount; m++) {
+            encodeResult(matches.get(m), results, m * ScoringKernel.RESULT_STRIDE);
         }
         
-        // Calculate scores for each user
+        int[] predictions = new int[userIds.size() * matchCount * ScoringKernel.PREDICTION_STRIDE];
+        int offset = 0;
         for (String userId : userIds) {
-            Map<String, Object> predictionResult;
-            if (jwtToken != null) {
-                // Use auth_service to get prediction
-                predictionResult = authClientService.getUserPrediction(userId, group.getGroupId(), match.getMatchId(), jwtToken);
-            } else {
-                // For scheduled tasks, we need to get predictions from auth_service
-                // But since we don't have jwtToken, we'll skip this user for now
-                // In a real scenario, you might want to use a service account token
-                // For now, we'll treat it as no prediction (0-0)
-                predictionResult = new HashMap<>();
-                predictionResult.put("exists", false);
-            }
-            
-            if (predictionResult.containsKey("exists") && (Boolean) predictionResult.get("exists")) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> prediction = (Map<String, Object>) predictionResult.get("prediction");
-                
+            Map<String, Map<String, Object>> userPredictions = predictionsByUser.getOrDefault(userId, Map.of());
+            for (Group.TournamentStructure.Match match : matches) {
+                Map<String, Object> prediction = userPredictions.get(match.getMatchId());
                 if (prediction != null) {
                     // Si los scores son null, undefined, o no numéricos, tratarlos como 0-0
-                    Integer predTeam1Score = (Integer) prediction.get("team1Score");
-                    Integer predTeam2Score = (Integer) prediction.get("team2Score");
-                    
-                    if (predTeam1Score == null) {
-                        predTeam1Score = 0;
-                    }
-                    if (predTeam2Score == null) {
-                        predTeam2Score = 0;
-                    }
-                    
-                    // Siempre calcular (incluso si es 0-0)
-                        int points = 0;
-                        
-                        // Check for exact score match
-                        if (predTeam1Score.equals(actualTeam1Score) && predTeam2Score.equals(actualTeam2Score)) {
-                        points = 5; // Exact score: 5 points
-                        } else {
-                            // Check for correct result
-                            String predictedResult;
-                            if (predTeam1Score > predTeam2Score) {
-                                predictedResult = "team1_win";
-                            } else if (predTeam2Score > predTeam1Score) {
-                                predictedResult = "team2_win";
-                            } else {
-                                predictedResult = "draw";
-                            }
-                            
-                            if (predictedResult.equals(actualResult)) {
-                            points = 3; // Correct result without exact score: 3 points
-                            } else {
-                                points = 0; // Wrong result: 0 points
-                            }
-                        }
-                        
-                    // Additional points for knockout matches (extra time and penalties)
-                    if (isKnockout) {
-                        // Check extra time prediction
-                        Boolean userExtraTime = (Boolean) prediction.get("userExtraTime");
-                        if (userExtraTime != null && userExtraTime && actualExtraTime != null && actualExtraTime) {
-                            points += 1; // +1 point for correct extra time prediction
-                        }
-                        
-                        // Check penalties prediction
-                        Boolean userPenalties = (Boolean) prediction.get("userPenalties");
-                        if (userPenalties != null && userPenalties && actualPenalties != null && actualPenalties) {
-                            points += 2; // +2 points for correct penalties prediction
-                            
-                            // Check exact penalties score
-                            Integer userPenaltiesTeam1Score = (Integer) prediction.get("userPenaltiesTeam1Score");
-                            Integer userPenaltiesTeam2Score = (Integer) prediction.get("userPenaltiesTeam2Score");
-                            if (userPenaltiesTeam1Score != null && userPenaltiesTeam2Score != null &&
-                                actualPenaltiesTeam1Score != null && actualPenaltiesTeam2Score != null &&
-                                userPenaltiesTeam1Score.equals(actualPenaltiesTeam1Score) &&
-                                userPenaltiesTeam2Score.equals(actualPenaltiesTeam2Score)) {
-                                points += 3; // +3 points for exact penalties score
-                            }
-                        }
-                    }
-                    
-                        // Update prediction points in auth_service (only if jwtToken is available)
-                        if (jwtToken != null) {
-                            authClientService.updatePredictionPoints(userId, group.getGroupId(), match.getMatchId(), points, jwtToken);
-                        }
-                        
-                        // Add to total score
-                        userTotalScores.put(userId, userTotalScores.getOrDefault(userId, 0) + points);
+                    ScoringKernel.encodePrediction(predictions, offset,
+                        ScoringKernel.intOrDefault(prediction.get("team1Score"), 0),
+                        ScoringKernel.intOrDefault(prediction.get("team2Score"), 0),
+                        predictionFlags(prediction.get("userExtraTime"), prediction.get("userPenalties")),
+                        ScoringKernel.intOrDefault(prediction.get("userPenaltiesTeam1Score"), ScoringKernel.NO_SCORE),
+                        ScoringKernel.intOrDefault(prediction.get("userPenaltiesTeam2Score"), ScoringKernel.NO_SCORE));
                 }
+                offset += ScoringKernel.PREDICTION_STRIDE;
+            }
+        }
+        
+        int[] cellPoints = new int[userIds.size() * matchCount];
+        ScoringKernel.scoreGroup(results, matchCount, predictions, userIds.size(), totals, cellPoints);
+        return cellPoints;
+    }
+    
+    /**
+     * users[].score of every member, to tell afterwards whether a write changed any score
+     */
+    private static Map<String, Integer> currentScores(Group group) {
+        Map<String, Integer> scores = new HashMap<>();
+        if (group.getUsers() != null) {
+            for (Group.GroupUser user : group.getUsers()) {
+                scores.put(user.getId(), user.getScore());
             }
         }
+        return scores;
+    }
+    
+    /**
+     * For writers that set users[].score from a source other than the scoring kernel (request bodies,
+     * auth_service totals): once a score changed, matchPoints no longer add up to users[].score, so they
+     * are dropped and the next match result re-scores the group in full instead of applying deltas
+     */
+    private static void dropMatchPointsIfScoresChanged(Group group, Map<String, Integer> previousScores) {
+        if (group.getMatchPoints() != null && !previousScores.equals(currentScores(group))) {
+            group.setMatchPoints(null);
+        }
+    }
+    
+    private static ResponseEntity<Map<String, Object>> concurrentGroupUpdate() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+            "error", "Group was modified concurrently, please retry"
+        ));
+    }
+    
+    private static void encodeResult(Group.TournamentStructure.Match match, int[] results, int offset) {
+        int flags = 0;
+        if (match.getStageId() != null && !match.getStageId().equals("group-stage")) {
+            flags |= ScoringKernel.KNOCKOUT;
+        }
+        if (Boolean.TRUE.equals(match.getExtraTime())) {
+            flags |= ScoringKernel.EXTRA_TIME;
+        }
+        if (Boolean.TRUE.equals(match.getPenalties())) {
+            flags |= ScoringKernel.PENALTIES;
+        }
+        ScoringKernel.encodeResult(results, offset, match.getTeam1Score(), match.getTeam2Score(), flags,
+            ScoringKernel.intOrDefault(match.getPenaltiesTeam1Score(), ScoringKernel.NO_SCORE),
+            ScoringKernel.intOrDefault(match.getPenaltiesTeam2Score(), ScoringKernel.NO_SCORE));
+    }
+    
+    private static int predictionFlags(Object extraTime, Object penalties) {
+        int flags = ScoringKernel.PREDICTED;
+        if (Boolean.TRUE.equals(extraTime)) {
+            flags |= ScoringKernel.EXTRA_TIME;
+        }
+        if (Boolean.TRUE.equals(penalties)) {
+            flags |= ScoringKernel.PENALTIES;
+        }
+        return flags;
     }
     
     /**
@@ -2301,6 +2616,8 @@ public class GroupsService {
                 "message", "User payment status updated successfully",
                 "group", updatedGroup
             ));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
@@ -2644,80 +2961,19 @@ public class GroupsService {
             userTeam2Score = 0;
         }
         
-        Integer actualTeam1Score = match.getTeam1Score();
-        Integer actualTeam2Score = match.getTeam2Score();
-        
-        if (actualTeam1Score == null || actualTeam2Score == null) {
+        if (match.getTeam1Score() == null || match.getTeam2Score() == null) {
             return 0; // Match not played yet
         }
         
-        int points = 0;
-        boolean isKnockout = match.getStageId() != null && !match.getStageId().equals("group-stage");
-        
-        // Determine actual result
-        String actualResult;
-        if (actualTeam1Score > actualTeam2Score) {
-            actualResult = "team1_win";
-        } else if (actualTeam2Score > actualTeam1Score) {
-            actualResult = "team2_win";
-        } else {
-            actualResult = "draw";
-        }
-        
-        // Check for exact score match
-        if (userTeam1Score.equals(actualTeam1Score) && userTeam2Score.equals(actualTeam2Score)) {
-            points = 5; // Exact score: 5 points
-        } else {
-            // Check for correct result
-            String predictedResult;
-            if (userTeam1Score > userTeam2Score) {
-                predictedResult = "team1_win";
-            } else if (userTeam2Score > userTeam1Score) {
-                predictedResult = "team2_win";
-            } else {
-                predictedResult = "draw";
-            }
-            
-            if (predictedResult.equals(actualResult)) {
-                points = 3; // Correct result without exact score: 3 points
-            } else {
-                points = 0; // Wrong result: 0 points
-            }
-        }
-        
-        // Additional points for knockout matches (extra time and penalties)
-        if (isKnockout) {
-            // Use values from match object (userExtraTime, userPenalties, etc.)
-            Boolean userExtraTime = match.getUserExtraTime();
-            Boolean userPenalties = match.getUserPenalties();
-            Integer userPenaltiesTeam1Score = match.getUserPenaltiesTeam1Score();
-            Integer userPenaltiesTeam2Score = match.getUserPenaltiesTeam2Score();
-            
-            Boolean actualExtraTime = match.getExtraTime();
-            Boolean actualPenalties = match.getPenalties();
-            Integer actualPenaltiesTeam1Score = match.getPenaltiesTeam1Score();
-            Integer actualPenaltiesTeam2Score = match.getPenaltiesTeam2Score();
-            
-            // Check extra time prediction
-            if (userExtraTime != null && userExtraTime && actualExtraTime != null && actualExtraTime) {
-                points += 1; // +1 point for correct extra time prediction
-            }
-            
-            // Check penalties prediction
-            if (userPenalties != null && userPenalties && actualPenalties != null && actualPenalties) {
-                points += 2; // +2 points for correct penalties prediction
-                
-                // Check exact penalties score
-                if (userPenaltiesTeam1Score != null && userPenaltiesTeam2Score != null &&
-                    actualPenaltiesTeam1Score != null && actualPenaltiesTeam2Score != null &&
-                    userPenaltiesTeam1Score.equals(actualPenaltiesTeam1Score) &&
-                    userPenaltiesTeam2Score.equals(actualPenaltiesTeam2Score)) {
-                    points += 3; // +3 points for exact penalties score
-                }
-            }
-        }
-        
-        return points;
+        // Use values from match object (userExtraTime, userPenalties, etc.)
+        int[] result = new int[ScoringKernel.RESULT_STRIDE];
+        encodeResult(match, result, 0);
+        return ScoringKernel.points(userTeam1Score, userTeam2Score,
+            predictionFlags(match.getUserExtraTime(), match.getUserPenalties()),
+            ScoringKernel.intOrDefault(match.getUserPenaltiesTeam1Score(), ScoringKernel.NO_SCORE),
+            ScoringKernel.intOrDefault(match.getUserPenaltiesTeam2Score(), ScoringKernel.NO_SCORE),
+            result[ScoringKernel.TEAM1], result[ScoringKernel.TEAM2], result[ScoringKernel.FLAGS],
+            result[ScoringKernel.PENALTIES1], result[ScoringKernel.PENALTIES2]);
     }
     
     /**
@@ -2901,23 +3157,13 @@ public class GroupsService {
             
             Group group = groupOpt.get();
             
-            // Calculate total score for this user in this group from group.userPredictions[]
-            // This is the most reliable source since it's stored directly in the group
-            int totalScore = 0;
-            int predictionCount = 0;
-            if (group.getUserPredictions() != null) {
-                for (Group.UserPrediction prediction : group.getUserPredictions()) {
-                    if (prediction.getUserId() != null && prediction.getUserId().equals(userId)) {
-                        Integer points = prediction.getPoints();
-                        if (points != null) {
-                            totalScore += points;
-                            predictionCount++;
-                        }
-                    }
-                }
-            }
+            Map<String, Integer> previousScores = currentScores(group);
+            
+            // Total score of every user in this group from group_predictions
+            Map<String, Integer> pointsByUser = groupPredictionsRepository.sumPointsByUser(groupId);
+            int totalScore = pointsByUser.getOrDefault(userId, 0);
             
-            System.out.println("✅ Calculated total score for user " + userId + " in group " + groupId + ": " + totalScore + " (from " + predictionCount + " predictions)");
+            System.out.println("✅ Calculated total score for user " + userId + " in group " + groupId + ": " + totalScore);
             
             // Update user's score in group.users array
             boolean userFound = false;
@@ -2958,22 +3204,10 @@ public class GroupsService {
             }
             
             // Recalculate scoreboard with all users' total scores
-            // Calculate directly from group.userPredictions[] (most reliable source)
             Map<String, Integer> userTotalScores = new HashMap<>();
             if (group.getUsers() != null) {
                 for (Group.GroupUser groupUser : group.getUsers()) {
-                    int userTotal = 0;
-                    // Calculate from group.userPredictions[]
-                    if (group.getUserPredictions() != null) {
-                        for (Group.UserPrediction prediction : group.getUserPredictions()) {
-                            if (prediction.getUserId() != null && prediction.getUserId().equals(groupUser.getId())) {
-                                Integer points = prediction.getPoints();
-                                if (points != null) {
-                                    userTotal += points;
-                                }
-                            }
-                        }
-                    }
+                    int userTotal = pointsByUser.getOrDefault(groupUser.getId(), 0);
                     userTotalScores.put(groupUser.getId(), userTotal);
                     // Also update the score in the user object
                     groupUser.setScore(userTotal);
@@ -2984,6 +3218,7 @@ public class GroupsService {
             
             // Update scoreboard
             updateScoreboardForGroup(group, userTotalScores);
+            dropMatchPointsIfScoresChanged(group, previousScores);
             
             // Save group
             groupsRepository.save(group);
@@ -2995,6 +3230,8 @@ public class GroupsService {
                 "newPoints", newPoints != null ? newPoints : 0
             ));
             
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             System.err.println("❌ Error updating scoreboard after prediction: " + e.getMessage());
             e.printStackTrace();
@@ -3030,6 +3267,7 @@ public class GroupsService {
             }
             
             Group group = groupOpt.get();
+            Map<String, Integer> previousScores = currentScores(group);
             
             // Update matchesDetail field
             System.out.println("📝 Setting matchesDetail for group " + groupId);
@@ -3093,6 +3331,8 @@ public class GroupsService {
                 System.out.println("✅ Created new user in group.users[]: " + userId + " (" + userName + ") with score " + userScore + " and " + (matchesInfo != null ? matchesInfo.size() : 0) + " matches");
             }
             
+            dropMatchPointsIfScoresChanged(group, previousScores);
+            
             // Save group
             System.out.println("💾 Saving group to database...");
             Group savedGroup = groupsRepository.save(group);
@@ -3117,6 +3357,8 @@ public class GroupsService {
                 "userScore", userScore != null ? userScore : 0
             ));
             
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentGroupUpdate();
         } catch (Exception e) {
             System.err.println("❌ Error updating matchesDetail: " + e.getMessage());
             e.printStackTrace();
@@ -3238,6 +3480,7 @@ public class GroupsService {
                     }
                     
                     Group group = groupOpt.get();
+                    Map<String, Integer> previousScores = currentScores(group);
                     
                     // Update matchesDetail field (only if not already set or if it's different)
                     if (matchesDetail != null) {
@@ -3327,6 +3570,8 @@ public class GroupsService {
                         }
                     }
                     
+                    dropMatchPointsIfScoresChanged(group, previousScores);
+                    
                     // Update updatedAt timestamp
                     group.setUpdatedAt(new Date());
                     
@@ -3436,7 +3681,7 @@ public class GroupsService {
 
     /**
      * Update group with user prediction (internal endpoint)
-     * Adds or updates UserPrediction in group.userPredictions[]
+     * Upserts the user's prediction for the match in group_predictions
      * Called by auth_service after saving a prediction
      */
     public ResponseEntity<Map<String, Object>> updateGroupPrediction(String groupId, String userId, String matchId,
@@ -3453,63 +3698,31 @@ public class GroupsService {
                 ));
             }
             
-            // Get group
-            Optional<Group> groupOpt = groupsRepository.findById(groupId);
-            if (groupOpt.isEmpty()) {
+            // Update updatedAt (also checks the group exists)
+            long matched = mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(groupId)),
+                new Update().set("updatedAt", new Date()), GROUPS_COLLECTION).getMatchedCount();
+            if (matched == 0) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
                     "error", "Group not found"
                 ));
             }
             
-            Group group = groupOpt.get();
-            
-            // Initialize userPredictions array if null
-            if (group.getUserPredictions() == null) {
-                group.setUserPredictions(new ArrayList<>());
-                System.out.println("➕ Initialized userPredictions array for group " + groupId);
-            }
-            
-            // Remove existing prediction for this user and match if exists
-            int beforeSize = group.getUserPredictions().size();
-            group.getUserPredictions().removeIf(pred -> 
-                userId.equals(pred.getUserId()) && matchId.equals(pred.getMatchId())
-            );
-            int afterRemoveSize = group.getUserPredictions().size();
-            if (beforeSize != afterRemoveSize) {
-                System.out.println("🔄 Removed existing prediction for user " + userId + ", match " + matchId);
-            }
-            
-            // Create new UserPrediction
-            Group.UserPrediction userPrediction = new Group.UserPrediction();
-            userPrediction.setMatchId(matchId);
-            userPrediction.setUserId(userId);
-            userPrediction.setUserTeam1Score(userTeam1Score);
-            userPrediction.setUserTeam2Score(userTeam2Score);
-            if (userExtraTime != null) {
-                userPrediction.setUserExtraTime(userExtraTime);
-            }
-            if (userPenalties != null) {
-                userPrediction.setUserPenalties(userPenalties);
-            }
-            if (userPenaltiesTeam1Score != null) {
-                userPrediction.setUserPenaltiesTeam1Score(userPenaltiesTeam1Score);
-            }
-            if (userPenaltiesTeam2Score != null) {
-                userPrediction.setUserPenaltiesTeam2Score(userPenaltiesTeam2Score);
-            }
-            userPrediction.setPredictedDate(new Date());
-            userPrediction.setPoints(points != null ? points : 0);
-            
-            // Add prediction to group
-            group.getUserPredictions().add(userPrediction);
-            
-            // Update updatedAt
-            group.setUpdatedAt(new Date());
-            
-            // Save group
-            groupsRepository.save(group);
+            // One document per (groupId, matchId, userId): replaces any previous prediction
+            GroupPrediction groupPrediction = new GroupPrediction();
+            groupPrediction.setGroupId(groupId);
+            groupPrediction.setMatchId(matchId);
+            groupPrediction.setUserId(userId);
+            groupPrediction.setUserTeam1Score(userTeam1Score);
+            groupPrediction.setUserTeam2Score(userTeam2Score);
+            groupPrediction.setUserExtraTime(userExtraTime);
+            groupPrediction.setUserPenalties(userPenalties);
+            groupPrediction.setUserPenaltiesTeam1Score(userPenaltiesTeam1Score);
+            groupPrediction.setUserPenaltiesTeam2Score(userPenaltiesTeam2Score);
+            groupPrediction.setPredictedDate(new Date());
+            groupPrediction.setPoints(points != null ? points : 0);
+            groupPredictionsRepository.upsert(groupPrediction);
             
-            System.out.println("✅ UserPrediction saved in group " + groupId + " for user " + userId + ", match " + matchId + ", points: " + userPrediction.getPoints() + " (total predictions in group: " + group.getUserPredictions().size() + ")");
+            System.out.println("✅ Prediction saved in group " + groupId + " for user " + userId + ", match " + matchId + ", points: " + groupPrediction.getPoints());
             
             return ResponseEntity.ok(Map.of(
                 "message", "Group prediction updated successfully",
@@ -0,0 +1,33 @@
+package com.leon.ideas.groups.service;
+
+import com.leon.ideas.groups.repository.GroupsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepares the groups collection on startup, before the other runners: gives groups stored
+ * before scoresVersion became their optimistic-lock version a starting version.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class GroupsStorageMigration implements ApplicationRunner {
+
+    @Autowired
+    private GroupsRepository groupsRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            long initialized = groupsRepository.initMissingScoresVersion();
+            if (initialized > 0) {
+                System.out.println("✅ Initialized scoresVersion of " + initialized + " groups");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error preparing groups storage: " + e.getMessage());
+        }
+    }
+}
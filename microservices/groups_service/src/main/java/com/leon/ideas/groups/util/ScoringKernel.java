@@ -0,0 +1,162 @@
+package com.leon.ideas.groups.util;
+
+/**
+ * Prediction scoring rules over primitive int arrays.
+ *
+ * Rules: exact score 5, correct result 3, wrong result 0; on knockout matches +1 for a correct
+ * extra time prediction, +2 for a correct penalties prediction and +3 more for the exact
+ * penalties score.
+ *
+ * Results are encoded one match per row of RESULT_STRIDE ints (team1, team2, flags, penalties1,
+ * penalties2) and predictions one user x match cell per row of PREDICTION_STRIDE ints with the
+ * same layout, users major. Absent penalty scores are NO_SCORE. Scoring allocates nothing.
+ *
+ * The same class is kept in auth_service (com.leon.ideas.auth.util); change both together.
+ */
+public final class ScoringKernel {
+
+    public static final int RESULT_STRIDE = 5;
+    public static final int PREDICTION_STRIDE = 5;
+
+    public static final int TEAM1 = 0;
+    public static final int TEAM2 = 1;
+    public static final int FLAGS = 2;
+    public static final int PENALTIES1 = 3;
+    public static final int PENALTIES2 = 4;
+
+    /** Result flag: extra time and penalties predictions are scored */
+    public static final int KNOCKOUT = 1;
+    /** Prediction flag: the user made a prediction for the match (cells without it score 0) */
+    public static final int PREDICTED = 1;
+    /** Result and prediction flag: the match went / was predicted to go to extra time */
+    public static final int EXTRA_TIME = 2;
+    /** Result and prediction flag: the match went / was predicted to go to penalties */
+    public static final int PENALTIES = 4;
+
+    public static final int NO_SCORE = -1;
+
+    public static final int EXACT_SCORE_POINTS = 5;
+    public static final int RESULT_POINTS = 3;
+    public static final int EXTRA_TIME_POINTS = 1;
+    public static final int PENALTIES_POINTS = 2;
+    public static final int EXACT_PENALTIES_POINTS = 3;
+
+    private ScoringKernel() {
+    }
+
+    /**
+     * Score every user of a group against every result in one pass
+     *
+     * @param results matchCount rows of RESULT_STRIDE ints
+     * @param predictions userCount * matchCount rows of PREDICTION_STRIDE ints, users major
+     * @param totals per user totals, overwritten (length at least userCount)
+     */
+    public static void scoreGroup(int[] results, int matchCount, int[] predictions, int userCount, int[] totals) {
+        int cell = 0;
+        for (int user = 0; user < userCount; user++) {
+            int total = 0;
+            int result = 0;
+            for (int match = 0; match < matchCount; match++) {
+                total += points(predictions, cell, results, result);
+                cell += PREDICTION_STRIDE;
+                result += RESULT_STRIDE;
+            }
+            totals[user] = total;
+        }
+    }
+
+    /**
+     * scoreGroup that also keeps the points of every user x match cell
+     *
+     * @param cellPoints per cell points, users major, overwritten (length at least userCount * matchCount)
+     */
+    public static void scoreGroup(int[] results, int matchCount, int[] predictions, int userCount, int[] totals,
+                                  int[] cellPoints) {
+        int cell = 0;
+        for (int user = 0; user < userCount; user++) {
+            int total = 0;
+            int result = 0;
+            for (int match = 0; match < matchCount; match++) {
+                int points = points(predictions, cell * PREDICTION_STRIDE, results, result);
+                cellPoints[cell++] = points;
+                total += points;
+                result += RESULT_STRIDE;
+            }
+            totals[user] = total;
+        }
+    }
+
+    /**
+     * Points of the prediction row starting at predictionOffset against the result row starting at resultOffset
+     */
+    public static int points(int[] predictions, int predictionOffset, int[] results, int resultOffset) {
+        return points(predictions[predictionOffset + TEAM1], predictions[predictionOffset + TEAM2],
+            predictions[predictionOffset + FLAGS], predictions[predictionOffset + PENALTIES1],
+            predictions[predictionOffset + PENALTIES2],
+            results[resultOffset + TEAM1], results[resultOffset + TEAM2], results[resultOffset + FLAGS],
+            results[resultOffset + PENALTIES1], results[resultOffset + PENALTIES2]);
+    }
+
+    /**
+     * Points of one prediction against one result
+     */
+    public static int points(int team1, int team2, int flags, int penalties1, int penalties2,
+                             int actualTeam1, int actualTeam2, int actualFlags, int actualPenalties1, int actualPenalties2) {
+        if ((flags & PREDICTED) == 0) {
+            return 0;
+        }
+        int points;
+        if (team1 == actualTeam1 && team2 == actualTeam2) {
+            points = EXACT_SCORE_POINTS;
+        } else if (Integer.signum(team1 - team2) == Integer.signum(actualTeam1 - actualTeam2)) {
+            points = RESULT_POINTS;
+        } else {
+            points = 0;
+        }
+        if ((actualFlags & KNOCKOUT) == 0) {
+            return points;
+        }
+        if ((flags & actualFlags & EXTRA_TIME) != 0) {
+            points += EXTRA_TIME_POINTS;
+        }
+        if ((flags & actualFlags & PENALTIES) != 0) {
+            points += PENALTIES_POINTS;
+            if (penalties1 != NO_SCORE && penalties2 != NO_SCORE
+                    && penalties1 == actualPenalties1 && penalties2 == actualPenalties2) {
+                points += EXACT_PENALTIES_POINTS;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Write one result row
+     */
+    public static void encodeResult(int[] results, int offset, int team1, int team2, int flags,
+                                    int penalties1, int penalties2) {
+        results[offset + TEAM1] = team1;
+        results[offset + TEAM2] = team2;
+        results[offset + FLAGS] = flags;
+        results[offset + PENALTIES1] = penalties1;
+        results[offset + PENALTIES2] = penalties2;
+    }
+
+    /**
+     * Write one prediction row (use flags 0 for a missing prediction)
+     */
+    public static void encodePrediction(int[] predictions, int offset, int team1, int team2, int flags,
+                                        int penalties1, int penalties2) {
+        predictions[offset + TEAM1] = team1;
+        predictions[offset + TEAM2] = team2;
+        predictions[offset + FLAGS] = flags;
+        predictions[offset + PENALTIES1] = penalties1;
+        predictions[offset + PENALTIES2] = penalties2;
+    }
+
+    /**
+     * int value of a stored or JSON number, or the fallback when it is absent or not a number
+     */
+    public static int intOrDefault(Object value, int fallback) {
+        return value instanceof Number ? ((Number) value).intValue() : fallback;
+    }
+}
@@ -0,0 +1,137 @@
+package com.leon.ideas.groups.util;
+
+import com.leon.ideas.groups.model.Group;
+import com.leon.ideas.groups.service.GroupsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH throughput of group scoring on a synthetic group, outside any Spring context (no Mongo,
+ * no auth_service): the kernel alone on pre-encoded arrays, and GroupsService.scoreGroup from the
+ * prediction maps auth_service returns (encoding included).
+ *
+ * mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.leon.ideas.groups.util.ScoringKernelBenchmark [-Dexec.args="-f 0 -wi 1 -i 1"]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringKernelBenchmark {
+
+    @Param({"1000"})
+    private int userCount;
+
+    @Param({"104"})
+    private int matchCount;
+
+    private int[] results;
+    private int[] predictions;
+    private int[] totals;
+    private List<Group.TournamentStructure.Match> matches;
+    private List<String> userIds;
+    private Map<String, Map<String, Map<String, Object>>> predictionsByUser;
+    private GroupsService groupsService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        matches = new ArrayList<>();
+        results = new int[matchCount * ScoringKernel.RESULT_STRIDE];
+        for (int m = 0; m < matchCount; m++) {
+            Group.TournamentStructure.Match match = new Group.TournamentStructure.Match();
+            match.setMatchId("match-" + m);
+            match.setStageId(m < matchCount * 3 / 4 ? "group-stage" : "knockout");
+            match.setIsPlayed(true);
+            match.setTeam1Score(random.nextInt(4));
+            match.setTeam2Score(random.nextInt(4));
+            match.setExtraTime(random.nextBoolean());
+            match.setPenalties(random.nextBoolean());
+            match.setPenaltiesTeam1Score(random.nextInt(6));
+            match.setPenaltiesTeam2Score(random.nextInt(6));
+            matches.add(match);
+            ScoringKernel.encodeResult(results, m * ScoringKernel.RESULT_STRIDE, match.getTeam1Score(), match.getTeam2Score(),
+                (m < matchCount * 3 / 4 ? 0 : ScoringKernel.KNOCKOUT)
+                    | (match.getExtraTime() ? ScoringKernel.EXTRA_TIME : 0)
+                    | (match.getPenalties() ? ScoringKernel.PENALTIES : 0),
+                match.getPenaltiesTeam1Score(), match.getPenaltiesTeam2Score());
+        }
+
+        userIds = new ArrayList<>();
+        predictionsByUser = new HashMap<>();
+        predictions = new int[userCount * matchCount * ScoringKernel.PREDICTION_STRIDE];
+        int offset = 0;
+        for (int u = 0; u < userCount; u++) {
+            String userId = "user-" + u;
+            userIds.add(userId);
+            Map<String, Map<String, Object>> userPredictions = new HashMap<>();
+            for (Group.TournamentStructure.Match match : matches) {
+                int team1 = random.nextInt(4);
+                int team2 = random.nextInt(4);
+                boolean extraTime = random.nextBoolean();
+                boolean penalties = random.nextBoolean();
+                int penalties1 = random.nextInt(6);
+                int penalties2 = random.nextInt(6);
+                Map<String, Object> prediction = new HashMap<>();
+                prediction.put("team1Score", team1);
+                prediction.put("team2Score", team2);
+                prediction.put("userExtraTime", extraTime);
+                prediction.put("userPenalties", penalties);
+                prediction.put("userPenaltiesTeam1Score", penalties1);
+                prediction.put("userPenaltiesTeam2Score", penalties2);
+                userPredictions.put(match.getMatchId(), prediction);
+                ScoringKernel.encodePrediction(predictions, offset, team1, team2, ScoringKernel.PREDICTED
+                        | (extraTime ? ScoringKernel.EXTRA_TIME : 0) | (penalties ? ScoringKernel.PENALTIES : 0),
+                    penalties1, penalties2);
+                offset += ScoringKernel.PREDICTION_STRIDE;
+            }
+            predictionsByUser.put(userId, userPredictions);
+        }
+        totals = new int[userCount];
+        // scoreGroup only uses the kernel and the group passed in, no injected collaborators
+        groupsService = new GroupsService();
+    }
+
+    @Benchmark
+    public int[] kernel() {
+        ScoringKernel.scoreGroup(results, matchCount, predictions, userCount, totals);
+        return totals;
+    }
+
+    @Benchmark
+    public Map<String, Integer> scoreGroup() {
+        return groupsService.scoreGroup(new Group(), matches, userIds, predictionsByUser);
+    }
+
+    /**
+     * Runs this benchmark; args are JMH command-line options (e.g. -f 0 -wi 1 -i 1 for a quick check)
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+            .include(ScoringKernelBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,173 @@
+package com.leon.ideas.groups.util;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScoringKernelTest {
+
+    private static final Path AUTH_COPY =
+        Path.of("../auth_service/src/main/java/com/leon/ideas/auth/util/ScoringKernel.java");
+    private static final Path GROUPS_COPY =
+        Path.of("src/main/java/com/leon/ideas/groups/util/ScoringKernel.java");
+
+    @Test
+    void scoresExactResultAndWrongOutcomes() {
+        assertEquals(5, kernelPoints(2, 1, 0, null, null, 2, 1, false, null, null, null, false));
+        assertEquals(3, kernelPoints(3, 0, 0, null, null, 2, 1, false, null, null, null, false));
+        assertEquals(3, kernelPoints(1, 1, 0, null, null, 0, 0, false, null, null, null, false));
+        assertEquals(0, kernelPoints(0, 1, 0, null, null, 2, 1, false, null, null, null, false));
+    }
+
+    @Test
+    void addsKnockoutBonusesOnlyOnKnockoutMatches() {
+        int both = ScoringKernel.EXTRA_TIME | ScoringKernel.PENALTIES;
+        assertEquals(3 + 1 + 2 + 3, kernelPoints(1, 1, both, 4, 3, 2, 2, true, true, 4, 3, true));
+        assertEquals(3 + 1 + 2, kernelPoints(1, 1, both, 5, 3, 2, 2, true, true, 4, 3, true));
+        assertEquals(3 + 1 + 2, kernelPoints(1, 1, both, null, null, 2, 2, true, true, 4, 3, true));
+        assertEquals(3, kernelPoints(1, 1, both, 4, 3, 2, 2, true, true, 4, 3, false));
+    }
+
+    @Test
+    void matchesThePreviousGroupsRulesOnRandomCases() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000_000; i++) {
+            int team1 = random.nextInt(5);
+            int team2 = random.nextInt(5);
+            Boolean userExtraTime = randomBoolean(random);
+            Boolean userPenalties = randomBoolean(random);
+            Integer userPenalties1 = randomScore(random);
+            Integer userPenalties2 = randomScore(random);
+            int actual1 = random.nextInt(5);
+            int actual2 = random.nextInt(5);
+            Boolean extraTime = randomBoolean(random);
+            Boolean penalties = randomBoolean(random);
+            Integer penalties1 = randomScore(random);
+            Integer penalties2 = randomScore(random);
+            boolean knockout = random.nextBoolean();
+
+            int flags = (Boolean.TRUE.equals(userExtraTime) ? ScoringKernel.EXTRA_TIME : 0)
+                | (Boolean.TRUE.equals(userPenalties) ? ScoringKernel.PENALTIES : 0);
+            assertEquals(
+                previousRules(team1, team2, userExtraTime, userPenalties, userPenalties1, userPenalties2,
+                    actual1, actual2, extraTime, penalties, penalties1, penalties2, knockout),
+                kernelPoints(team1, team2, flags, userPenalties1, userPenalties2,
+                    actual1, actual2, extraTime, penalties, penalties1, penalties2, knockout),
+                "case " + i);
+        }
+    }
+
+    @Test
+    void scoreGroupTotalsAndCellsAgreeWithSinglePoints() {
+        Random random = new Random(11);
+        int users = 7;
+        int matches = 13;
+        int[] results = new int[matches * ScoringKernel.RESULT_STRIDE];
+        for (int m = 0; m < matches; m++) {
+            ScoringKernel.encodeResult(results, m * ScoringKernel.RESULT_STRIDE, random.nextInt(4), random.nextInt(4),
+                random.nextInt(8), random.nextInt(6), random.nextInt(6));
+        }
+        int[] predictions = new int[users * matches * ScoringKernel.PREDICTION_STRIDE];
+        for (int cell = 0; cell < users * matches; cell++) {
+            ScoringKernel.encodePrediction(predictions, cell * ScoringKernel.PREDICTION_STRIDE, random.nextInt(4),
+                random.nextInt(4), random.nextInt(8), random.nextInt(6), random.nextInt(6));
+        }
+
+        int[] totals = new int[users];
+        int[] cellTotals = new int[users];
+        int[] cellPoints = new int[users * matches];
+        ScoringKernel.scoreGroup(results, matches, predictions, users, totals);
+        ScoringKernel.scoreGroup(results, matches, predictions, users, cellTotals, cellPoints);
+        for (int u = 0; u < users; u++) {
+            int expected = 0;
+            for (int m = 0; m < matches; m++) {
+                int cell = u * matches + m;
+                int points = ScoringKernel.points(predictions, cell * ScoringKernel.PREDICTION_STRIDE,
+                    results, m * ScoringKernel.RESULT_STRIDE);
+                assertEquals(points, cellPoints[cell]);
+                expected += points;
+            }
+            assertEquals(expected, totals[u]);
+            assertEquals(expected, cellTotals[u]);
+        }
+    }
+
+    @Test
+    void authServiceCopyIsIdentical() throws IOException {
+        // Only checkable from a full checkout of the repository
+        Assumptions.assumeTrue(Files.exists(AUTH_COPY) && Files.exists(GROUPS_COPY));
+        assertEquals(withoutPackage(Files.readString(GROUPS_COPY)), withoutPackage(Files.readString(AUTH_COPY)));
+    }
+
+    private static int kernelPoints(int team1, int team2, int flags, Integer penalties1, Integer penalties2,
+                                    int actual1, int actual2, Boolean extraTime, Boolean penalties,
+                                    Integer actualPenalties1, Integer actualPenalties2, boolean knockout) {
+        int actualFlags = (knockout ? ScoringKernel.KNOCKOUT : 0)
+            | (Boolean.TRUE.equals(extraTime) ? ScoringKernel.EXTRA_TIME : 0)
+            | (Boolean.TRUE.equals(penalties) ? ScoringKernel.PENALTIES : 0);
+        return ScoringKernel.points(team1, team2, flags | ScoringKernel.PREDICTED,
+            orNoScore(penalties1), orNoScore(penalties2),
+            actual1, actual2, actualFlags, orNoScore(actualPenalties1), orNoScore(actualPenalties2));
+    }
+
+    /**
+     * GroupsService.calculateUserScoreForMatch as it was before the kernel
+     */
+    private static int previousRules(Integer userTeam1Score, Integer userTeam2Score, Boolean userExtraTime,
+                                     Boolean userPenalties, Integer userPenaltiesTeam1Score, Integer userPenaltiesTeam2Score,
+                                     Integer actualTeam1Score, Integer actualTeam2Score, Boolean actualExtraTime,
+                                     Boolean actualPenalties, Integer actualPenaltiesTeam1Score,
+                                     Integer actualPenaltiesTeam2Score, boolean isKnockout) {
+        int points;
+        String actualResult = actualTeam1Score > actualTeam2Score ? "team1_win"
+            : actualTeam2Score > actualTeam1Score ? "team2_win" : "draw";
+        if (userTeam1Score.equals(actualTeam1Score) && userTeam2Score.equals(actualTeam2Score)) {
+            points = 5;
+        } else {
+            String predictedResult = userTeam1Score > userTeam2Score ? "team1_win"
+                : userTeam2Score > userTeam1Score ? "team2_win" : "draw";
+            points = predictedResult.equals(actualResult) ? 3 : 0;
+        }
+        if (isKnockout) {
+            if (userExtraTime != null && userExtraTime && actualExtraTime != null && actualExtraTime) {
+                points += 1;
+            }
+            if (userPenalties != null && userPenalties && actualPenalties != null && actualPenalties) {
+                points += 2;
+                if (userPenaltiesTeam1Score != null && userPenaltiesTeam2Score != null
+                        && actualPenaltiesTeam1Score != null && actualPenaltiesTeam2Score != null
+                        && userPenaltiesTeam1Score.equals(actualPenaltiesTeam1Score)
+                        && userPenaltiesTeam2Score.equals(actualPenaltiesTeam2Score)) {
+                    points += 3;
+                }
+            }
+        }
+        return points;
+    }
+
+    private static Boolean randomBoolean(Random random) {
+        int value = random.nextInt(3);
+        return value == 0 ? null : value == 1;
+    }
+
+    private static Integer randomScore(Random random) {
+        int value = random.nextInt(5);
+        return value == 4 ? null : value;
+    }
+
+    private static int orNoScore(Integer score) {
+        return score != null ? score : ScoringKernel.NO_SCORE;
+    }
+
+    private static String withoutPackage(String source) {
+        return source.replaceFirst("package [^;]+;", "")
+            .replace("com.leon.ideas.auth.util", "").replace("com.leon.ideas.groups.util", "")
+            .replace("auth_service", "").replace("groups_service", "");
+    }
+}